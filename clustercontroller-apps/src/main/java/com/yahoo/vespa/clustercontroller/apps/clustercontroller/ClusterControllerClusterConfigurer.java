@@ -100,6 +100,8 @@ public class ClusterControllerClusterConfigurer extends AbstractComponent {
         builder.setMaxNumberOfGroupsAllowedToBeDown(config.max_number_of_groups_allowed_to_be_down());
         builder.setIncludeDistributionConfigInClusterStateBundles(config.include_distribution_config_in_cluster_state_bundle());
         builder.setAggregateContentNodeErrorReportsFromDistributors(config.aggregate_content_node_error_reports_from_distributors());
+        builder.setEventDrivenTicks(config.event_driven_ticks());
+        builder.setCompactClusterStateEncoding(config.compact_cluster_state_encoding());
     }
 
     private static void configure(FleetControllerOptions.Builder builder, SlobroksConfig config) {
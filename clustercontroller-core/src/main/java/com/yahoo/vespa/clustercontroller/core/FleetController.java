@@ -196,6 +196,7 @@ public class FleetController implements NodeListener, SlobrokListener, SystemSta
         synchronized (monitor) {
             context.log(logger, Level.FINE, "Scheduled remote task " + task.getClass().getName() + " for execution");
             remoteTasks.add(task);
+            monitor.notifyAll();
         }
     }
 
@@ -559,10 +560,18 @@ public class FleetController implements NodeListener, SlobrokListener, SystemSta
             if (tickStopTime >= tickStartTime) {
                 metricUpdater.addTickTime(tickStopTime - tickStartTime, didWork);
             }
-            // Always sleep some to avoid using too much CPU and avoid starving waiting threads
-            monitor.wait(didWork || waitingForCycle ? 1 : options.cycleWaitTime());
+            // Sleep a little after doing work, to avoid using too much CPU and starving waiting threads.
+            // Otherwise, sleep until notified of an event, or until the idle wait time passes, which is
+            // zero when events are already pending, with event driven ticks.
+            long waitTime = didWork || waitingForCycle ? 1 : idleWaitTime(tickStopTime);
+            if (waitTime > 0) {
+                monitor.wait(waitTime);
+            }
             if ( ! isRunning()) { return; }
             tickStartTime = timer.getCurrentTimeInMillis();
+            if (tickStartTime >= tickStopTime) {
+                metricUpdater.addTickWaitTime(tickStartTime - tickStopTime, waitTime);
+            }
             processingCycle = true;
             if (nextOptions != null) { // if reconfiguration has given us new options, propagate them
                 switchToNewConfig();
@@ -573,6 +582,56 @@ public class FleetController implements NodeListener, SlobrokListener, SystemSta
         }
     }
 
+    /**
+     * Returns the number of milliseconds to wait after a tick where no work was done, or 0 if we should not
+     * wait at all. Without event driven ticks this is always the configured cycle wait time. With event driven
+     * ticks, all event sources notify the monitor when they have queued work for us, so we only need to sleep
+     * until the earliest timer deadline we know of, bounded by the cycle wait time.
+     */
+    private long idleWaitTime(long currentTime) {
+        if ( ! options.eventDrivenTicks()) return options.cycleWaitTime();
+        // Events may have been queued after the phase consuming them had run in this tick
+        if (hasPendingEvents()) return 0;
+        return Math.max(0, nextTimerDeadline(currentTime) - currentTime);
+    }
+
+    private boolean hasPendingEvents() {
+        return stateGatherer.hasPendingResponses()
+                || systemStateBroadcaster.hasPendingResponses()
+                || database.hasPendingEvents()
+                || masterElectionHandler.hasPendingFleetData()
+                || (rpcServer != null && rpcServer.hasPendingRequests())
+                || ! remoteTasks.isEmpty()
+                || nextOptions != null;
+    }
+
+    /**
+     * Returns the earliest point in time where a timer driven action may be due, but no later than one cycle
+     * from now. Deadlines that have already passed are ignored, as whatever they guard has either been handled
+     * in this tick or is blocked by something other than time.
+     */
+    private long nextTimerDeadline(long currentTime) {
+        long deadline = currentTime + options.cycleWaitTime();
+        if (isMaster && stateChangeHandler.stateMayHaveChanged()) {
+            long broadcastTime = cluster.allStatesReported() ? nextStateSendTime
+                                                             : Math.max(nextStateSendTime, firstAllowedStateBroadcast);
+            deadline = earliestFutureDeadline(deadline, broadcastTime, currentTime);
+        }
+        if ( ! taskCompletionQueue.isEmpty()) {
+            deadline = earliestFutureDeadline(deadline, taskCompletionQueue.peek().getDeadlineTimePointMs(), currentTime);
+        }
+        if (isStateGatherer) {
+            for (NodeInfo info : cluster.getNodeInfos()) {
+                deadline = earliestFutureDeadline(deadline, stateGatherer.nextDeadline(info), currentTime);
+            }
+        }
+        return deadline;
+    }
+
+    private static long earliestFutureDeadline(long deadline, long candidate, long currentTime) {
+        return (candidate > currentTime) ? Math.min(deadline, candidate) : deadline;
+    }
+
     private void updateMasterClusterSyncMetrics() {
         var stats = stateVersionTracker.getAggregatedClusterStats();
         var aggrStats = stats.getAggregatedStats();
@@ -1092,6 +1151,7 @@ public class FleetController implements NodeListener, SlobrokListener, SystemSta
             // To wait at least one complete cycle, if a cycle is already running we need to wait for the next one beyond.
             long wantedCycle = cycleCount + (processingCycle ? 2 : 1);
             waitingForCycle = true;
+            monitor.notifyAll(); // The controller thread may be waiting for events or timers only
             try {
                 while (cycleCount < wantedCycle) {
                     if (Instant.now().isAfter(endTime))
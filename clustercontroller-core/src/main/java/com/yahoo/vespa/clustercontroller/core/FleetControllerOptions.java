@@ -138,6 +138,19 @@ public class FleetControllerOptions {
 
     private final boolean aggregateContentNodeErrorReportsFromDistributors;
 
+    /**
+     * If true, the controller thread does not sleep a full cycleWaitTime between ticks when idle. Instead, it
+     * sleeps until it is woken by an event (RPC reply, ZooKeeper watch, remote task etc.) or until the earliest
+     * known timer deadline expires, with cycleWaitTime as an upper bound on the sleep time.
+     */
+    private final boolean eventDrivenTicks;
+
+    /**
+     * If true, cluster state bundles are sent to nodes with compact binary states, encoded as deltas from the
+     * latest bundle each node has acknowledged. This is only understood by Java receivers, not by content nodes.
+     */
+    private final boolean compactClusterStateEncoding;
+
     // TODO less impressive length...!
     private FleetControllerOptions(String clusterName,
                                    int fleetControllerIndex,
@@ -182,7 +195,9 @@ public class FleetControllerOptions {
                                    int maxNumberOfGroupsAllowedToBeDown,
                                    Function<FleetControllerContext, DatabaseFactory> dbFactoryFn,
                                    boolean includeDistributionConfigInClusterStateBundles,
-                                   boolean aggregateContentNodeErrorReportsFromDistributors) {
+                                   boolean aggregateContentNodeErrorReportsFromDistributors,
+                                   boolean eventDrivenTicks,
+                                   boolean compactClusterStateEncoding) {
         this.clusterName = clusterName;
         this.fleetControllerIndex = fleetControllerIndex;
         this.fleetControllerCount = fleetControllerCount;
@@ -227,6 +242,8 @@ public class FleetControllerOptions {
         this.dbFactoryFn = dbFactoryFn;
         this.includeDistributionConfigInClusterStateBundles = includeDistributionConfigInClusterStateBundles;
         this.aggregateContentNodeErrorReportsFromDistributors = aggregateContentNodeErrorReportsFromDistributors;
+        this.eventDrivenTicks = eventDrivenTicks;
+        this.compactClusterStateEncoding = compactClusterStateEncoding;
     }
 
     public Duration getMaxDeferredTaskVersionWaitTime() {
@@ -413,6 +430,14 @@ public class FleetControllerOptions {
         return this.aggregateContentNodeErrorReportsFromDistributors;
     }
 
+    public boolean eventDrivenTicks() {
+        return eventDrivenTicks;
+    }
+
+    public boolean compactClusterStateEncoding() {
+        return compactClusterStateEncoding;
+    }
+
     public static class Builder {
 
         private String clusterName;
@@ -459,6 +484,8 @@ public class FleetControllerOptions {
         private Function<FleetControllerContext, DatabaseFactory> dbFactoryFn = ZooKeeperDatabaseFactory::new;
         private boolean includeDistributionConfigInClusterStateBundles = false;
         private boolean aggregateContentNodeErrorReportsFromDistributors = false;
+        private boolean eventDrivenTicks = false;
+        private boolean compactClusterStateEncoding = false;
 
         public Builder(String clusterName, Collection<ConfiguredNode> nodes) {
             this.clusterName = clusterName;
@@ -726,6 +753,16 @@ public class FleetControllerOptions {
             return this;
         }
 
+        public Builder setEventDrivenTicks(boolean eventDrivenTicks) {
+            this.eventDrivenTicks = eventDrivenTicks;
+            return this;
+        }
+
+        public Builder setCompactClusterStateEncoding(boolean compactClusterStateEncoding) {
+            this.compactClusterStateEncoding = compactClusterStateEncoding;
+            return this;
+        }
+
         public FleetControllerOptions build() {
             return new FleetControllerOptions(clusterName,
                                               index,
@@ -770,7 +807,9 @@ public class FleetControllerOptions {
                                               maxNumberOfGroupsAllowedToBeDown,
                                               dbFactoryFn,
                                               includeDistributionConfigInClusterStateBundles,
-                                              aggregateContentNodeErrorReportsFromDistributors);
+                                              aggregateContentNodeErrorReportsFromDistributors,
+                                              eventDrivenTicks,
+                                              compactClusterStateEncoding);
         }
 
         public static Builder copy(FleetControllerOptions options) {
@@ -819,6 +858,8 @@ public class FleetControllerOptions {
             builder.dbFactoryFn = options.dbFactoryFn;
             builder.includeDistributionConfigInClusterStateBundles = options.includeDistributionConfigInClusterStateBundles;
             builder.aggregateContentNodeErrorReportsFromDistributors = options.aggregateContentNodeErrorReportsFromDistributors;
+            builder.eventDrivenTicks = options.eventDrivenTicks;
+            builder.compactClusterStateEncoding = options.compactClusterStateEncoding;
 
             return builder;
         }
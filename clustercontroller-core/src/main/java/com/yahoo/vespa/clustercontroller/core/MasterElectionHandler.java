@@ -83,6 +83,12 @@ public class MasterElectionHandler implements MasterInterface {
 
     public boolean isFirstInLine() { return (nextInLineCount < 1); }
 
+    public boolean hasPendingFleetData() {
+        synchronized (monitor) {
+            return nextMasterData != null;
+        }
+    }
+
     public boolean watchMasterElection(DatabaseHandler database, DatabaseHandler.DatabaseContext dbContext) {
         if (nextMasterData == null) {
             if (masterCandidate == null) {
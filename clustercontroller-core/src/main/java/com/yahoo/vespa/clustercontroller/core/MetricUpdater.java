@@ -137,6 +137,15 @@ public class MetricUpdater {
         }
     }
 
+    /**
+     * Records how long the controller thread actually slept between two ticks, along with the time it
+     * was allowed to sleep. A large difference means the controller was woken up early by an event.
+     */
+    public void addTickWaitTime(long millis, long maxWaitMillis) {
+        metricReporter.set("tick-wait-time-ms", millis);
+        metricReporter.set("tick-wait-time-max-ms", maxWaitMillis);
+    }
+
     public void recordNewNodeEvent() {
         // TODO(hakonhall): Replace add() with a persistent aggregate metric.
         metricReporter.add("node-event", 1);
@@ -149,11 +158,14 @@ public class MetricUpdater {
     public boolean forWork(String workId, BooleanSupplier work) {
         long startNanos = System.nanoTime();
         boolean didWork = work.getAsBoolean();
-        double seconds = Duration.ofNanos(System.nanoTime() - startNanos).toMillis() / 1000.;
+        long elapsedNanos = System.nanoTime() - startNanos;
+        double seconds = Duration.ofNanos(elapsedNanos).toMillis() / 1000.;
 
         MetricReporter.Context context = createContext(Map.of("didWork", Boolean.toString(didWork),
                                                               "workId", workId));
         metricReporter.set("work-ms", seconds, context);
+        // Sub-millisecond resolution, as most phases of an event driven tick complete well within a millisecond
+        metricReporter.set("tick-phase-latency-ms", elapsedNanos / 1_000_000.0, context);
 
         return didWork;
     }
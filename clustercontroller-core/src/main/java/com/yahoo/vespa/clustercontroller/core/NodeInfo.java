@@ -84,6 +84,9 @@ abstract public class NodeInfo implements Comparable<NodeInfo> {
     // Mapping of cluster state version -> cluster state bundle instance
     private final TreeMap<Integer, ClusterStateBundle> clusterStateVersionBundleSent = new TreeMap<>();
     private ClusterStateBundle clusterStateVersionBundleAcknowledged;
+    // The last bundle acknowledged by the current process of the node, which later bundles may be encoded as deltas from
+    private ClusterStateBundle clusterStateBundleDeltaBase;
+    private long clusterStateBundleDeltaBaseStartTimestamp;
 
     private int clusterStateVersionActivationSent = -1;
     private int clusterStateVersionActivationAcked = -1;
@@ -405,6 +408,16 @@ abstract public class NodeInfo implements Comparable<NodeInfo> {
     public int getClusterStateVersionBundleAcknowledged() {
         return (clusterStateVersionBundleAcknowledged == null ? -1 : clusterStateVersionBundleAcknowledged.getVersion());
     }
+    /**
+     * Returns the latest cluster state bundle this node has acknowledged, if it is known to still have it,
+     * or null if the node has not acknowledged any bundle, has failed a bundle since, or has restarted since.
+     */
+    public ClusterStateBundle getClusterStateBundleDeltaBase() {
+        if (clusterStateBundleDeltaBase == null) return null;
+        if (reportedState.getState() == State.DOWN) return null;
+        if (reportedState.getStartTimestamp() != clusterStateBundleDeltaBaseStartTimestamp) return null;
+        return clusterStateBundleDeltaBase;
+    }
     public void setClusterStateVersionBundleSent(ClusterStateBundle stateBundle) {
         if (stateBundle == null) {
             throw new Error("Should not clear info for last version sent");
@@ -422,8 +435,12 @@ abstract public class NodeInfo implements Comparable<NodeInfo> {
             throw new IllegalStateException("Got response for cluster state " + version + " which is not tracked as pending for node " + node);
         }
         var stateBundle = clusterStateVersionBundleSent.remove(version);
+        if ( ! success)
+            clusterStateBundleDeltaBase = null;
         if (success && (clusterStateVersionBundleAcknowledged == null || clusterStateVersionBundleAcknowledged.getVersion() < stateBundle.getVersion())) {
             clusterStateVersionBundleAcknowledged = stateBundle;
+            clusterStateBundleDeltaBase = stateBundle;
+            clusterStateBundleDeltaBaseStartTimestamp = reportedState.getStartTimestamp();
             if (wentDownWithStartTime != 0
                 && (wentDownAtClusterState == null || wentDownAtClusterState.getVersion() < stateBundle.getVersion())
                 && !stateBundle.getBaselineClusterState().getNodeState(node).getState().oneOf("dsm"))
@@ -93,6 +93,27 @@ public class NodeStateGatherer {
         return sentAnyMessages;
     }
 
+    /**
+     * Returns the point in time where the next timer driven action for the given node is due, i.e. when
+     * a new state request should be sent, a pending one times out, or the node should be set down after
+     * having been out of slobrok for too long.
+     */
+    public long nextDeadline(NodeInfo info) {
+        if (info.getRpcAddress() == null || info.isNotInSlobrok()) {
+            if (info.getReportedState().getState().equals(DOWN)) return Long.MAX_VALUE;
+            return info.lastSeenInSlobrok() + maxSlobrokDisconnectGracePeriod + 1;
+        }
+        Long requestTime = info.getLatestNodeStateRequestTime();
+        if (requestTime != null) return requestTime + nodeStateRequestTimeoutMS;
+        return info.getTimeForNextStateRequestAttempt();
+    }
+
+    public boolean hasPendingResponses() {
+        synchronized (monitor) {
+            return ! replies.isEmpty();
+        }
+    }
+
     /** Reads replies to get node state requests and create events. */
     public boolean processResponses(NodeListener listener) {
         boolean processedAnyResponses = false;
@@ -84,6 +84,12 @@ public class SystemStateBroadcaster {
         }
     }
 
+    public boolean hasPendingResponses() {
+        synchronized(monitor) {
+            return !setClusterStateReplies.isEmpty() || !activateClusterStateVersionReplies.isEmpty();
+        }
+    }
+
     public boolean processResponses() {
         boolean anyResponsesFound = false;
         synchronized(monitor) {
@@ -372,6 +378,7 @@ public class SystemStateBroadcaster {
         public void done(SetClusterStateRequest reply) {
             synchronized (monitor) {
                 setClusterStateReplies.add(reply);
+                monitor.notifyAll();
             }
         }
     }
@@ -381,6 +388,7 @@ public class SystemStateBroadcaster {
         public void done(ActivateClusterStateVersionRequest reply) {
             synchronized (monitor) {
                 activateClusterStateVersionReplies.add(reply);
+                monitor.notifyAll();
             }
         }
     }
@@ -211,6 +211,13 @@ public class DatabaseHandler {
         fleetControllerContext.log(logger, Level.INFO, "Done setting up new ZooKeeper session at " + zooKeeperAddress);
     }
 
+    /** Returns whether a ZooKeeper watch has fired since the last call to {@link #doNextZooKeeperTask}. */
+    public boolean hasPendingEvents() {
+        synchronized (monitor) {
+            return lostZooKeeperConnectionEvent || masterDataEvent != null;
+        }
+    }
+
     /**
      * This is called to attempt the next task against ZooKeeper we want to try.
      *
@@ -56,6 +56,7 @@ public class RPCCommunicator implements Communicator {
     private int nodeStateRequestTimeoutIntervalStopPercentage;
     private Duration nodeStateRequestRoundTripTimeMax;
     private final int fleetControllerIndex;
+    private boolean compactClusterStateEncoding = false;
 
     public static Supervisor createRealSupervisor() {
         return new Supervisor(new Transport("rpc-communicator")).setDropEmptyBuffers(true);
@@ -107,6 +108,7 @@ public class RPCCommunicator implements Communicator {
         this.nodeStateRequestTimeoutIntervalStartPercentage = options.nodeStateRequestTimeoutEarliestPercentage();
         this.nodeStateRequestTimeoutIntervalStopPercentage = options.nodeStateRequestTimeoutLatestPercentage();
         this.nodeStateRequestRoundTripTimeMax = Duration.ofSeconds(options.nodeStateRequestRoundTripTimeMaxSeconds());
+        this.compactClusterStateEncoding = options.compactClusterStateEncoding();
     }
 
     @Override
@@ -144,8 +146,8 @@ public class RPCCommunicator implements Communicator {
             return;
         }
         Request req = new Request(SET_DISTRIBUTION_STATES_RPC_METHOD_NAME);
-        SlimeClusterStateBundleCodec codec = new SlimeClusterStateBundleCodec();
-        EncodedClusterStateBundle encodedBundle = codec.encode(stateBundle);
+        SlimeClusterStateBundleCodec codec = new SlimeClusterStateBundleCodec(compactClusterStateEncoding);
+        EncodedClusterStateBundle encodedBundle = codec.encode(stateBundle, node.getClusterStateBundleDeltaBase());
         Values v = req.parameters();
         v.add(new Int8Value(encodedBundle.getCompression().type().getCode()));
         v.add(new Int32Value(encodedBundle.getCompression().uncompressedSize()));
@@ -153,6 +153,12 @@ public class RpcServer {
         }
     }
 
+    public boolean hasPendingRequests() {
+        synchronized(monitor) {
+            return !rpcRequests.isEmpty();
+        }
+    }
+
     public boolean handleRpcRequests(ContentCluster cluster, ClusterState systemState, NodeListener changeListener) {
         if (!isConnected())
             connect();
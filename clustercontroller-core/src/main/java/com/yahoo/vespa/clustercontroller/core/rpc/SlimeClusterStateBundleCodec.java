@@ -10,6 +10,7 @@ import com.yahoo.slime.ObjectTraverser;
 import com.yahoo.slime.Slime;
 import com.yahoo.slime.SlimeUtils;
 import com.yahoo.vdslib.state.ClusterState;
+import com.yahoo.vdslib.state.CompactClusterStateCodec;
 import com.yahoo.vespa.clustercontroller.core.AnnotatedClusterState;
 import com.yahoo.vespa.clustercontroller.core.ClusterStateBundle;
 import com.yahoo.vespa.clustercontroller.core.DistributionConfigBundle;
@@ -29,24 +30,53 @@ import java.util.Map;
  *
  * Implements optional Slime-based enveloping for *WithEnvelope methods, which removes
  * need to explicitly track compression metadata by the caller.
+ *
+ * If compact state encoding is enabled, cluster states are encoded with {@link CompactClusterStateCodec}
+ * rather than as strings. If a previous bundle known by the receiver is also given when encoding, each state
+ * is encoded as a delta from the corresponding state in that bundle, and the receiver must pass the same
+ * previous bundle when decoding. Since this is only understood by the Java ClusterState, it must not be used
+ * towards content nodes which decode bundles in C++. Decoding always accepts both representations.
  */
 public class SlimeClusterStateBundleCodec implements ClusterStateBundleCodec, EnvelopedClusterStateBundleCodec {
 
     // TODO zstd instead. Compression type already encoded on wire
     private static final Compressor compressor = new Compressor(CompressionType.LZ4, 3, 0.90, 1024);
 
+    private final boolean compactStateEncoding;
+
+    public SlimeClusterStateBundleCodec() {
+        this(false);
+    }
+
+    public SlimeClusterStateBundleCodec(boolean compactStateEncoding) {
+        this.compactStateEncoding = compactStateEncoding;
+    }
+
     @Override
     public EncodedClusterStateBundle encode(ClusterStateBundle stateBundle) {
+        return encode(stateBundle, null);
+    }
+
+    /**
+     * Encodes the given bundle. If compact state encoding is enabled and a previous bundle is given,
+     * the states are encoded as deltas from the states of the previous bundle. This should be a bundle
+     * the receiver is known to have, such as the latest one it has acknowledged.
+     */
+    public EncodedClusterStateBundle encode(ClusterStateBundle stateBundle, ClusterStateBundle previous) {
         Slime slime = new Slime();
         Cursor root = slime.setObject();
         if (stateBundle.deferredActivation()) {
             root.setBool("deferred-activation", stateBundle.deferredActivation());
         }
         Cursor states = root.setObject("states");
-        // TODO add another function that is not toString for this..!
-        states.setString("baseline", stateBundle.getBaselineClusterState().toString());
-        Cursor spaces = states.setObject("spaces");
-        stateBundle.getDerivedBucketSpaceStates().forEach((key, value) -> spaces.setString(key, value.toString()));
+        if (compactStateEncoding) {
+            encodeCompactStates(stateBundle, previous, root, states);
+        } else {
+            // TODO add another function that is not toString for this..!
+            states.setString("baseline", stateBundle.getBaselineClusterState().toString());
+            Cursor spaces = states.setObject("spaces");
+            stateBundle.getDerivedBucketSpaceStates().forEach((key, value) -> spaces.setString(key, value.toString()));
+        }
 
         // Only bother to encode feed block state if cluster is actually blocked
         if (stateBundle.getFeedBlock().map(ClusterStateBundle.FeedBlock::blockFeedInCluster).orElse(false)) {
@@ -63,19 +93,69 @@ public class SlimeClusterStateBundleCodec implements ClusterStateBundleCodec, En
         return EncodedClusterStateBundle.fromCompressionBuffer(compression);
     }
 
+    private static void encodeCompactStates(ClusterStateBundle stateBundle, ClusterStateBundle previous,
+                                            Cursor root, Cursor states) {
+        ClusterState baseline = stateBundle.getBaselineClusterState();
+        if (previous == null) {
+            states.setData("compact-baseline", CompactClusterStateCodec.encode(baseline));
+        } else {
+            root.setLong("delta-from-version", previous.getVersion());
+            states.setData("compact-baseline-delta",
+                           CompactClusterStateCodec.encodeDelta(previous.getBaselineClusterState(), baseline));
+        }
+        Cursor spaces = states.setObject("compact-spaces");
+        Cursor spaceDeltas = states.setObject("compact-space-deltas");
+        stateBundle.getDerivedBucketSpaceStates().forEach((key, value) -> {
+            AnnotatedClusterState previousState = previous == null ? null : previous.getDerivedBucketSpaceStates().get(key);
+            if (previousState == null)
+                spaces.setData(key, CompactClusterStateCodec.encode(value.getClusterState()));
+            else
+                spaceDeltas.setData(key, CompactClusterStateCodec.encodeDelta(previousState.getClusterState(),
+                                                                              value.getClusterState()));
+        });
+    }
+
     @Override
     public ClusterStateBundle decode(EncodedClusterStateBundle encodedClusterStateBundle) {
+        return decode(encodedClusterStateBundle, null);
+    }
+
+    /**
+     * Decodes the given bundle, whose states may be encoded as deltas from the given previous bundle.
+     *
+     * @throws IllegalArgumentException if the states are encoded as deltas from another bundle than the given one
+     */
+    public ClusterStateBundle decode(EncodedClusterStateBundle encodedClusterStateBundle, ClusterStateBundle previous) {
         byte[] uncompressed = compressor.decompress(encodedClusterStateBundle.getCompression());
         Slime slime = BinaryFormat.decode(uncompressed);
         Inspector root = slime.get();
+        Inspector deltaFromVersion = root.field("delta-from-version");
+        if (deltaFromVersion.valid() && (previous == null || previous.getVersion() != deltaFromVersion.asLong()))
+            throw new IllegalArgumentException("Cluster state bundle is encoded as deltas from version " + deltaFromVersion.asLong() +
+                                               ", but " + (previous == null ? "no previous bundle" : "version " + previous.getVersion()) +
+                                               " was given");
         Inspector states = root.field("states");
-        ClusterState baseline = ClusterState.stateFromString(states.field("baseline").asString());
-
-        Inspector spaces = states.field("spaces");
+        ClusterState baseline;
         Map<String, AnnotatedClusterState> derivedStates = new HashMap<>();
-        spaces.traverse(((ObjectTraverser)(key, value) -> {
-            derivedStates.put(key, AnnotatedClusterState.withoutAnnotations(ClusterState.stateFromString(value.asString())));
-        }));
+        Inspector compactBaseline = states.field("compact-baseline");
+        Inspector compactBaselineDelta = states.field("compact-baseline-delta");
+        if (compactBaseline.valid() || compactBaselineDelta.valid()) {
+            baseline = compactBaseline.valid()
+                       ? CompactClusterStateCodec.decode(compactBaseline.asData())
+                       : CompactClusterStateCodec.decodeDelta(previous.getBaselineClusterState(), compactBaselineDelta.asData());
+            states.field("compact-spaces").traverse(((ObjectTraverser)(key, value) -> {
+                derivedStates.put(key, AnnotatedClusterState.withoutAnnotations(CompactClusterStateCodec.decode(value.asData())));
+            }));
+            states.field("compact-space-deltas").traverse(((ObjectTraverser)(key, value) -> {
+                derivedStates.put(key, AnnotatedClusterState.withoutAnnotations(
+                        CompactClusterStateCodec.decodeDelta(previousSpaceState(previous, key), value.asData())));
+            }));
+        } else {
+            baseline = ClusterState.stateFromString(states.field("baseline").asString());
+            states.field("spaces").traverse(((ObjectTraverser)(key, value) -> {
+                derivedStates.put(key, AnnotatedClusterState.withoutAnnotations(ClusterState.stateFromString(value.asString())));
+            }));
+        }
         boolean deferredActivation = root.field("deferred-activation").asBool(); // defaults to false if not present
 
         ClusterStateBundle.FeedBlock feedBlock = null;
@@ -101,6 +181,14 @@ public class SlimeClusterStateBundleCodec implements ClusterStateBundleCodec, En
                                      feedBlock, distributionConfig, deferredActivation);
     }
 
+    private static ClusterState previousSpaceState(ClusterStateBundle previous, String space) {
+        AnnotatedClusterState state = previous.getDerivedBucketSpaceStates().get(space);
+        if (state == null)
+            throw new IllegalArgumentException("Bucket space '" + space + "' is encoded as a delta, but is not present in " +
+                                               "the previous bundle, version " + previous.getVersion());
+        return state.getClusterState();
+    }
+
     // Technically the Slime enveloping could be its own class that is bundle codec independent, but
     // realistically there won't be any other implementations. Can be trivially factored out if required.
     @Override
@@ -0,0 +1,60 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.clustercontroller.core;
+
+import com.yahoo.vespa.clustercontroller.core.testutils.StateWaiter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(CleanupZookeeperLogsOnSuccess.class)
+public class EventDrivenTickTest extends FleetControllerTest {
+
+    private final FakeTimer timer = new FakeTimer();
+
+    @Test
+    void node_going_down_is_published_with_event_driven_ticks() throws Exception {
+        FleetControllerOptions.Builder builder = defaultOptions().setEventDrivenTicks(true);
+        setUpFleetController(timer, builder);
+        setUpVdsNodes(timer);
+        waitForStableSystem();
+
+        StateWaiter waiter = new StateWaiter(timer);
+        fleetController().addSystemStateListener(waiter);
+
+        assertTrue(nodes.get(0).isDistributor());
+        nodes.get(0).disconnectImmediately();
+        waiter.waitForState("version:\\d+ distributor:10 .0.s:d storage:10", timeout());
+    }
+
+    @Test
+    void event_wakes_up_tick_loop_waiting_for_a_long_time() throws Exception {
+        FleetControllerOptions.Builder builder = defaultOptions().setEventDrivenTicks(true)
+                                                                 .setCycleWaitTime(600_000)
+                                                                 .setNodeStateRequestTimeoutMS(600_000);
+        setUpFleetController(timer, builder);
+        setUpVdsNodes(timer);
+        waitForStableSystem();
+        fleetController().waitForCompleteCycle(timeout());
+        Thread.sleep(500); // Let the tick loop settle into its idle wait, which is long as the fake time stands still
+
+        RemoteClusterControllerTask task = new RemoteClusterControllerTask() {
+            @Override public void doRemoteFleetControllerTask(Context context) { }
+        };
+        Instant start = Instant.now();
+        fleetController().schedule(task);
+        while ( ! task.isCompleted() && Duration.between(start, Instant.now()).compareTo(Duration.ofSeconds(30)) < 0)
+            Thread.sleep(10);
+        assertTrue(task.isCompleted(), "Task was run by a tick woken by scheduling it, not by the tick loop timing out");
+    }
+
+    @Test
+    void options_are_copied_with_event_driven_ticks() {
+        FleetControllerOptions options = defaultOptions().setEventDrivenTicks(true).build();
+        assertTrue(FleetControllerOptions.Builder.copy(options).build().eventDrivenTicks());
+    }
+
+}
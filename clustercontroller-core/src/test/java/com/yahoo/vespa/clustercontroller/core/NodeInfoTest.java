@@ -2,6 +2,7 @@
 package com.yahoo.vespa.clustercontroller.core;
 
 import com.yahoo.vdslib.state.Node;
+import com.yahoo.vdslib.state.NodeState;
 import com.yahoo.vdslib.state.NodeType;
 import com.yahoo.vdslib.state.State;
 import org.junit.jupiter.api.Test;
@@ -104,4 +105,30 @@ public class NodeInfoTest {
         assertEquals(State.RETIRED, nodeInfo.getWantedState().getState());
     }
 
+    @Test
+    void acknowledged_bundle_is_delta_base_until_failure_or_restart() {
+        ClusterFixture fixture = ClusterFixture.forFlatCluster(3).bringEntireClusterUp();
+        NodeInfo nodeInfo = fixture.cluster.getNodeInfo(new Node(NodeType.STORAGE, 1));
+        assertNull(nodeInfo.getClusterStateBundleDeltaBase());
+
+        var bundle1 = ClusterStateBundleUtil.makeBundle("version:1 distributor:3 storage:3");
+        nodeInfo.setClusterStateVersionBundleSent(bundle1);
+        nodeInfo.setClusterStateBundleVersionAcknowledged(1, true);
+        assertSame(bundle1, nodeInfo.getClusterStateBundleDeltaBase());
+
+        nodeInfo.setClusterStateVersionBundleSent(ClusterStateBundleUtil.makeBundle("version:2 distributor:3 storage:3"));
+        nodeInfo.setClusterStateBundleVersionAcknowledged(2, false);
+        assertNull(nodeInfo.getClusterStateBundleDeltaBase());
+        assertEquals(1, nodeInfo.getClusterStateVersionBundleAcknowledged());
+
+        var bundle3 = ClusterStateBundleUtil.makeBundle("version:3 distributor:3 storage:3");
+        nodeInfo.setClusterStateVersionBundleSent(bundle3);
+        nodeInfo.setClusterStateBundleVersionAcknowledged(3, true);
+        assertSame(bundle3, nodeInfo.getClusterStateBundleDeltaBase());
+
+        fixture.reportStorageNodeState(1, new NodeState(NodeType.STORAGE, State.UP).setStartTimestamp(12345));
+        assertNull(nodeInfo.getClusterStateBundleDeltaBase());
+        assertEquals(3, nodeInfo.getClusterStateVersionBundleAcknowledged());
+    }
+
 }
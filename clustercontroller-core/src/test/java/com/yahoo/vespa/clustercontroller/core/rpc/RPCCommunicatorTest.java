@@ -19,6 +19,7 @@ import com.yahoo.vespa.clustercontroller.core.FakeTimer;
 import com.yahoo.vespa.clustercontroller.core.FleetControllerOptions;
 import com.yahoo.vespa.clustercontroller.core.NodeInfo;
 import com.yahoo.vespa.clustercontroller.core.SetClusterStateRequest;
+import com.yahoo.vespa.clustercontroller.core.StateMapping;
 import com.yahoo.vespa.clustercontroller.core.Timer;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -30,6 +31,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -158,6 +160,37 @@ public class RPCCommunicatorTest {
         assertEquals(receivedBundle, sentBundle);
     }
 
+    @Test
+    void setSystemState_sends_compact_deltas_from_last_acknowledged_bundle_when_enabled() {
+        var f = new Fixture<SetClusterStateRequest>();
+        var cf = ClusterFixture.forFlatCluster(3).bringEntireClusterUp().assignDummyRpcAddresses();
+        f.communicator.propagateOptions(new FleetControllerOptions.Builder("cluster", Set.of(new ConfiguredNode(0, false)))
+                                                .setNodeStateRequestTimeoutMS(NODE_STATE_REQUEST_TIMEOUT_INTERVAL_MAX_MS)
+                                                .setZooKeeperServerAddress("localhost:2181")
+                                                .setCompactClusterStateEncoding(true)
+                                                .build());
+        NodeInfo node = cf.cluster().getNodeInfo(Node.ofStorage(1));
+
+        var bundle1 = ClusterStateBundleUtil.makeBundle("version:1 distributor:3 storage:3",
+                                                        StateMapping.of("default", "version:1 distributor:3 storage:3 .0.s:m"));
+        f.communicator.setSystemState(bundle1, node, f.mockWaiter);
+        assertEquals(bundle1, RPCUtil.decodeStateBundleFromSetDistributionStatesRequest(f.receivedRequest.get()));
+        node.setClusterStateBundleVersionAcknowledged(1, true);
+
+        var bundle2 = ClusterStateBundleUtil.makeBundle("version:2 distributor:3 storage:3 .2.s:d",
+                                                        StateMapping.of("default", "version:2 distributor:3 storage:3 .0.s:m .2.s:d"));
+        f.communicator.setSystemState(bundle2, node, f.mockWaiter);
+        Request req = f.receivedRequest.get();
+        assertThrows(IllegalArgumentException.class, () -> RPCUtil.decodeStateBundleFromSetDistributionStatesRequest(req));
+        assertEquals(bundle2, RPCUtil.decodeStateBundleFromSetDistributionStatesRequest(req, bundle1));
+        node.setClusterStateBundleVersionAcknowledged(2, false);
+
+        // The node may not have the last acknowledged bundle after failing one, so the next is sent in full
+        var bundle3 = ClusterStateBundleUtil.makeBundle("version:3 distributor:3 storage:3");
+        f.communicator.setSystemState(bundle3, node, f.mockWaiter);
+        assertEquals(bundle3, RPCUtil.decodeStateBundleFromSetDistributionStatesRequest(f.receivedRequest.get()));
+    }
+
     @Test
     void activateClusterStateVersion_sends_version_activation_rpc() {
         var f = new Fixture<ActivateClusterStateVersionRequest>();
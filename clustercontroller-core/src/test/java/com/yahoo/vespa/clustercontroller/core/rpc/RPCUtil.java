@@ -9,13 +9,17 @@ import com.yahoo.vespa.clustercontroller.core.ClusterStateBundle;
 public class RPCUtil {
 
     public static ClusterStateBundle decodeStateBundleFromSetDistributionStatesRequest(Request req) {
+        return decodeStateBundleFromSetDistributionStatesRequest(req, null);
+    }
+
+    public static ClusterStateBundle decodeStateBundleFromSetDistributionStatesRequest(Request req, ClusterStateBundle previous) {
         final CompressionType type = CompressionType.valueOf(req.parameters().get(0).asInt8());
         final int uncompressedSize = req.parameters().get(1).asInt32();
         final byte[] compressedPayload = req.parameters().get(2).asData();
 
         SlimeClusterStateBundleCodec codec = new SlimeClusterStateBundleCodec();
         Compressor.Compression compression = new Compressor.Compression(type, uncompressedSize, compressedPayload);
-        return codec.decode(EncodedClusterStateBundle.fromCompressionBuffer(compression));
+        return codec.decode(EncodedClusterStateBundle.fromCompressionBuffer(compression), previous);
     }
 
 }
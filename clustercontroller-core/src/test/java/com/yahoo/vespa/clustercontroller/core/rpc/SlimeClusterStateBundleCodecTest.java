@@ -8,8 +8,10 @@ import com.yahoo.vespa.clustercontroller.core.StateMapping;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class SlimeClusterStateBundleCodecTest {
 
@@ -19,6 +21,12 @@ public class SlimeClusterStateBundleCodecTest {
         return codec.decode(encoded);
     }
 
+    private static ClusterStateBundle roundtripEncodeCompact(ClusterStateBundle stateBundle) {
+        SlimeClusterStateBundleCodec codec = new SlimeClusterStateBundleCodec(true);
+        EncodedClusterStateBundle encoded = codec.encode(stateBundle);
+        return codec.decode(encoded);
+    }
+
     private static ClusterStateBundle roundtripEncodeWithEnvelope(ClusterStateBundle stateBundle) {
         SlimeClusterStateBundleCodec codec = new SlimeClusterStateBundleCodec();
         byte[] encoded = codec.encodeWithEnvelope(stateBundle);
@@ -39,6 +47,48 @@ public class SlimeClusterStateBundleCodecTest {
         assertThat(roundtripEncode(stateBundle), equalTo(stateBundle));
     }
 
+    @Test
+    void multi_space_state_bundle_can_be_round_trip_encoded_with_compact_states() {
+        ClusterStateBundle stateBundle = ClusterStateBundleUtil.makeBundle("distributor:2 storage:2 .0.c:0.1 .1.s:m .1.m:foo",
+                StateMapping.of("default", "distributor:2 storage:2 .0.s:d .1.s:m .1.m:foo .1.c:0.3"),
+                StateMapping.of("upsidedown", "distributor:2 .0.s:d storage:2 .1.s:m .1.m:foo"));
+        assertThat(roundtripEncodeCompact(stateBundle), equalTo(stateBundle));
+    }
+
+    @Test
+    void compact_states_can_be_decoded_by_default_codec() {
+        ClusterStateBundle stateBundle = ClusterStateBundleUtil.makeBundle("distributor:2 storage:2",
+                StateMapping.of("default", "distributor:2 storage:2 .0.s:d"));
+        EncodedClusterStateBundle encoded = new SlimeClusterStateBundleCodec(true).encode(stateBundle);
+        assertThat(new SlimeClusterStateBundleCodec().decode(encoded), equalTo(stateBundle));
+    }
+
+    @Test
+    void compact_states_can_be_encoded_as_deltas_from_a_previous_bundle() {
+        String maintenance = " .1.s:m .3.s:m .5.s:m .7.s:m .9.s:m .11.s:m .13.s:m";
+        ClusterStateBundle previous = ClusterStateBundleUtil.makeBundle("version:5 distributor:100 storage:100" + maintenance,
+                StateMapping.of("default", "version:5 distributor:100 storage:100 .0.s:d" + maintenance));
+        ClusterStateBundle stateBundle = ClusterStateBundleUtil.makeBundle("version:6 distributor:100 storage:100 .2.s:d" + maintenance,
+                StateMapping.of("default", "version:6 distributor:100 storage:100 .0.s:d .2.s:d" + maintenance),
+                StateMapping.of("global", "version:6 distributor:100 storage:100 .2.s:d" + maintenance));
+        SlimeClusterStateBundleCodec codec = new SlimeClusterStateBundleCodec(true);
+        EncodedClusterStateBundle encoded = codec.encode(stateBundle, previous);
+        assertThat(codec.decode(encoded, previous), equalTo(stateBundle));
+        assertThat(codec.encode(stateBundle).getCompression().data().length,
+                   greaterThan(encoded.getCompression().data().length));
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(encoded));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(encoded, stateBundle));
+    }
+
+    @Test
+    void previous_bundle_is_ignored_without_compact_states() {
+        ClusterStateBundle previous = ClusterStateBundleUtil.makeBundle("version:5 distributor:3 storage:3");
+        ClusterStateBundle stateBundle = ClusterStateBundleUtil.makeBundle("version:6 distributor:3 storage:3 .1.s:d");
+        EncodedClusterStateBundle encoded = new SlimeClusterStateBundleCodec().encode(stateBundle, previous);
+        assertThat(new SlimeClusterStateBundleCodec().decode(encoded), equalTo(stateBundle));
+    }
+
     private static ClusterStateBundle makeCompressableBundle() {
         StringBuilder allDownStates = new StringBuilder(2048);
         for (int i = 0; i < 99; ++i) {
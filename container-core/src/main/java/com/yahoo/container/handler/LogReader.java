@@ -2,17 +2,24 @@
 package com.yahoo.container.handler;
 
 import com.google.common.collect.Iterators;
+import com.yahoo.compress.ZstdCompressor;
+import com.yahoo.log.impl.LogArchiveIndex;
 import com.yahoo.vespa.defaults.Defaults;
 import com.yahoo.yolean.Exceptions;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -26,6 +33,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
@@ -69,8 +77,13 @@ class LogReader {
             List<LogLineIterator> logLineIterators = new ArrayList<>();
             try {
                 // Logs in each sub-list contain entries covering the same time interval, so do a merge sort while reading
-                for (Path log : logs)
-                    logLineIterators.add(new LogLineIterator(log, fromSeconds, toSeconds, hostname));
+                for (Path log : logs) {
+                    Optional<LogArchiveIndex> index = LogArchiveIndex.readFor(log);
+                    if (index.isPresent() && hostname.isPresent() && ! index.get().mayContain(hostname.get()))
+                        continue;
+
+                    logLineIterators.add(new LogLineIterator(log, index, fromSeconds, toSeconds, hostname));
+                }
 
                 Iterator<LineWithTimestamp> lines = Iterators.mergeSorted(logLineIterators,
                                                                           Comparator.comparingDouble(LineWithTimestamp::timestamp));
@@ -103,6 +116,7 @@ class LogReader {
 
     private static class LogLineIterator implements Iterator<LineWithTimestamp>, AutoCloseable {
 
+        private final ZstdCompressor zstd = new ZstdCompressor();
         private final BufferedReader reader;
         private final double from;
         private final double to;
@@ -110,7 +124,10 @@ class LogReader {
         private LineWithTimestamp next;
         private Process zcat = null;
 
-        private InputStream openFile(Path log) {
+        private InputStream openFile(Path log, Optional<LogArchiveIndex> index) {
+            if (index.isPresent())
+                return openChunks(log, index.get().chunksFor(from, to));
+
             boolean gzipped = log.toString().endsWith(".gz");
             boolean is_zstd = log.toString().endsWith(".zst");
             try {
@@ -129,11 +146,11 @@ class LogReader {
                     } catch (NoSuchFileException e) { // File may have been compressed since we found it.
                         Path p = Paths.get(log + ".gz");
                         if (Files.exists(p)) {
-                            return openFile(p);
+                            return openFile(p, Optional.empty());
                         }
                         p = Paths.get(log + ".zst");
                         if (Files.exists(p)) {
-                            return openFile(p);
+                            return openFile(p, Optional.empty());
                         }
                     }
                 }
@@ -143,12 +160,43 @@ class LogReader {
             return InputStream.nullInputStream();
         }
 
-        private LogLineIterator(Path log, double from, double to, Optional<String> hostname) throws IOException {
-            InputStream in = openFile(log);
-            this.reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+        /** Returns the concatenated content of the given chunks, which are decompressed independently, as they are read */
+        private InputStream openChunks(Path log, List<LogArchiveIndex.Chunk> chunks) {
+            boolean gzipped = log.toString().endsWith(".gz");
+            boolean is_zstd = log.toString().endsWith(".zst");
+            Iterator<LogArchiveIndex.Chunk> remaining = chunks.iterator();
+            return new SequenceInputStream(new Enumeration<>() {
+                @Override public boolean hasMoreElements() { return remaining.hasNext(); }
+                @Override public InputStream nextElement() {
+                    LogArchiveIndex.Chunk chunk = remaining.next();
+                    try (FileChannel channel = FileChannel.open(log)) {
+                        ByteBuffer compressed = ByteBuffer.allocate(chunk.compressedLength());
+                        while (compressed.hasRemaining())
+                            if (channel.read(compressed, chunk.offset() + compressed.position()) < 0)
+                                throw new EOFException("Unexpected end of '" + log + "'");
+
+                        if (gzipped)
+                            return new GZIPInputStream(new ByteArrayInputStream(compressed.array()));
+                        if (is_zstd) {
+                            byte[] decompressed = new byte[chunk.uncompressedLength()];
+                            zstd.decompress(compressed.array(), 0, compressed.capacity(), decompressed, 0, decompressed.length);
+                            return new ByteArrayInputStream(decompressed);
+                        }
+                        return new ByteArrayInputStream(compressed.array());
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+
+        private LogLineIterator(Path log, Optional<LogArchiveIndex> index, double from, double to, Optional<String> hostname) throws IOException {
             this.from = from;
             this.to = to;
             this.hostname = hostname;
+            InputStream in = openFile(log, index);
+            this.reader = new BufferedReader(new InputStreamReader(in, UTF_8));
             this.next = readNext();
         }
 
@@ -223,6 +271,7 @@ class LogReader {
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
                     if (logFilePattern.matcher(file.getFileName().toString()).matches()
+                        && ! LogArchiveIndex.isIndex(file)
                         && ! attrs.lastModifiedTime().toInstant().isBefore(from))
                     {
                         paths.add(file);
@@ -7,6 +7,7 @@ import com.yahoo.concurrent.ThreadFactoryFactory;
 import com.yahoo.container.protect.ProcessTerminator;
 import com.yahoo.jdisc.Metric;
 
+import java.time.Duration;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
@@ -27,6 +28,7 @@ public class ContainerThreadpoolImpl extends AbstractComponent implements AutoCl
     private static final Logger log = Logger.getLogger(ContainerThreadpoolImpl.class.getName());
     private static final int MIN_QUEUE_SIZE = 650;
     private static final int MIN_THREADS_WHEN_SCALE_FACTOR = 8;
+    private static final Duration THREAD_COUNT_ADJUSTMENT_WINDOW = Duration.ofSeconds(1);
 
     private final ExecutorServiceWrapper threadpool;
 
@@ -45,15 +47,28 @@ public class ContainerThreadpoolImpl extends AbstractComponent implements AutoCl
         int maxThreads = maxThreads(config, cpus);
         int minThreads = minThreads(config, maxThreads, cpus);
         int queueSize = queueSize(config, maxThreads);
-        log.info(String.format("Threadpool '%s': min=%d, max=%d, queue=%d", name, minThreads, maxThreads, queueSize));
+        log.info(String.format("Threadpool '%s': min=%d, max=%d, queue=%d%s", name, minThreads, maxThreads, queueSize,
+                               config.adaptive() ? ", adaptive" : ""));
 
         ThreadPoolMetric threadPoolMetric = new ThreadPoolMetric(metric, name);
+        QueueTimeController queueTimeController = null;
+        ThreadCountController threadCountController = null;
+        if (config.adaptive()) {
+            long now = System.nanoTime();
+            queueTimeController = new QueueTimeController(seconds(config.queueTimeTarget()),
+                                                          seconds(config.queueTimeInterval()),
+                                                          now);
+            threadCountController = new ThreadCountController(minThreads, maxThreads, THREAD_COUNT_ADJUSTMENT_WINDOW, now);
+            minThreads = maxThreads; // The thread count is instead set by the controller, starting at max
+        }
         WorkerCompletionTimingThreadPoolExecutor executor =
                 new WorkerCompletionTimingThreadPoolExecutor(minThreads, maxThreads,
                         (long) config.keepAliveTime() * 1000, TimeUnit.MILLISECONDS,
                         createQueue(queueSize),
                         ThreadFactoryFactory.getThreadFactory(name),
-                        threadPoolMetric);
+                        threadPoolMetric,
+                        queueTimeController,
+                        threadCountController);
         // Pre-start needed, if not all threads will be created by the fist N tasks and hence they might also
         // get the dreaded thread locals initialized even if they will never run.
         // That counters what we want to achieve with the Q that will prefer thread locality.
@@ -88,6 +103,10 @@ public class ContainerThreadpoolImpl extends AbstractComponent implements AutoCl
         }
     }
 
+    private static Duration seconds(double seconds) {
+        return Duration.ofNanos((long) (seconds * 1e9));
+    }
+
     private static BlockingQueue<Runnable> createQueue(int size) {
         return size == 0 ? new SynchronousQueue<>(false) : new ArrayBlockingQueue<>(size);
     }
@@ -61,6 +61,7 @@ class ExecutorServiceWrapper extends ForwardingExecutorService {
 
     private void reportMetricsRegularly() {
         while (timeToReportMetricsAgain(100)) {
+            wrapped.adjustThreadCount();
             reportMetrics();
         }
     }
@@ -0,0 +1,40 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.handler.threadpool;
+
+import java.time.Duration;
+
+/**
+ * Decides which tasks to shed, from the time they have been queued, as in CoDel: When the shortest queue time of
+ * tasks starting during an interval is above the target, there is a standing queue, and tasks which have been
+ * queued for more than twice the target are shed during the next interval. This drains the queue quickly when
+ * the pool is overloaded, so the tasks which are run have not waited so long their work is wasted.
+ */
+class QueueTimeController {
+
+    private final long targetNanos;
+    private final long intervalNanos;
+    private long intervalEndNanos;
+    private long minQueueTimeNanos = Long.MAX_VALUE;
+    private boolean overloaded = false;
+
+    QueueTimeController(Duration target, Duration interval, long nowNanos) {
+        this.targetNanos = target.toNanos();
+        this.intervalNanos = interval.toNanos();
+        this.intervalEndNanos = nowNanos + intervalNanos;
+    }
+
+    /** Returns whether a task which has been queued for the given time, and is about to start now, should be shed. */
+    synchronized boolean shouldShed(long queueTimeNanos, long nowNanos) {
+        if (nowNanos - intervalEndNanos >= 0) {
+            // Overloaded if tasks started during the interval which just ended, and all of them were late
+            overloaded =    minQueueTimeNanos > targetNanos
+                         && minQueueTimeNanos != Long.MAX_VALUE
+                         && nowNanos - intervalEndNanos < intervalNanos;
+            minQueueTimeNanos = Long.MAX_VALUE;
+            intervalEndNanos = nowNanos + intervalNanos;
+        }
+        minQueueTimeNanos = Math.min(minQueueTimeNanos, queueTimeNanos);
+        return overloaded && queueTimeNanos > 2 * targetNanos;
+    }
+
+}
@@ -0,0 +1,13 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.handler.threadpool;
+
+/**
+ * A task which an overloaded {@link ContainerThreadPool} may shed instead of running, when it has been
+ * queued for too long. Other tasks are always run.
+ */
+public interface SheddableTask extends Runnable {
+
+    /** Called, instead of {@link #run()}, on a worker thread, when this task is shed. This should fail fast. */
+    void shed();
+
+}
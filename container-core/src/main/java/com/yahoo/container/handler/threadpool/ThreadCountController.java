@@ -0,0 +1,69 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.handler.threadpool;
+
+import java.time.Duration;
+
+/**
+ * Adjusts the number of threads of a pool to the number which gives the highest throughput, by hill climbing:
+ * The thread count is changed a step at the end of each window where all threads were busy at some point, in the
+ * same direction as the last change if that increased throughput, and in the opposite direction if it decreased.
+ * When throughput is unchanged, the count is lowered, as fewer threads then give the same throughput with less
+ * contention. Windows where the pool was never saturated say nothing about its capacity, and are ignored.
+ */
+class ThreadCountController {
+
+    /** Relative throughput changes smaller than this are regarded as noise. */
+    static final double tolerance = 0.05;
+
+    private final int minThreads;
+    private final int maxThreads;
+    private final int step;
+    private final long windowNanos;
+    private int threads;
+    private int direction = -1;
+    private long windowStartNanos;
+    private long windowStartCompleted;
+    private boolean saturated = false;
+    private double lastThroughput = -1;
+
+    ThreadCountController(int minThreads, int maxThreads, Duration window, long nowNanos) {
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.step = Math.max(1, (maxThreads - minThreads) / 16);
+        this.windowNanos = window.toNanos();
+        this.threads = maxThreads;
+        this.windowStartNanos = nowNanos;
+    }
+
+    /**
+     * Returns the number of threads to use from now on.
+     *
+     * @param nowNanos the current time
+     * @param completed the total number of tasks completed by the pool until now
+     * @param saturated whether all threads of the pool are busy now
+     */
+    synchronized int update(long nowNanos, long completed, boolean saturated) {
+        this.saturated |= saturated;
+        long elapsedNanos = nowNanos - windowStartNanos;
+        if (elapsedNanos < windowNanos) return threads;
+
+        double throughput = (completed - windowStartCompleted) * 1e9 / elapsedNanos;
+        boolean wasSaturated = this.saturated;
+        windowStartNanos = nowNanos;
+        windowStartCompleted = completed;
+        this.saturated = false;
+        if ( ! wasSaturated) {
+            lastThroughput = -1;
+            return threads;
+        }
+
+        if (lastThroughput >= 0) {
+            if (throughput < lastThroughput * (1 - tolerance)) direction = -direction;
+            else if (throughput <= lastThroughput * (1 + tolerance)) direction = -1;
+        }
+        lastThroughput = throughput;
+        threads = Math.max(minThreads, Math.min(maxThreads, threads + direction * step));
+        return threads;
+    }
+
+}
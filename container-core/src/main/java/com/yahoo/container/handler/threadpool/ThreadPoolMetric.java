@@ -14,40 +14,63 @@ class ThreadPoolMetric {
     private static final String THREAD_POOL_NAME_DIMENSION = "threadpool";
 
     private final Metric metric;
-    private final Metric.Context defaultContext;
     private final String threadPoolName;
+    private final Metric.Handle serverRejectedRequests;
+    private final Metric.Handle rejectedTasks;
+    private final Metric.Handle serverThreadPoolSize;
+    private final Metric.Handle threadPoolSize;
+    private final Metric.Handle maxAllowedThreadPoolSize;
+    private final Metric.Handle serverActiveThreads;
+    private final Metric.Handle activeThreads;
+    private final Metric.Handle workQueueCapacity;
+    private final Metric.Handle workQueueSize;
+    private final Metric.Handle workQueueTime;
 
     ThreadPoolMetric(Metric metric, String threadPoolName) {
         this.metric = metric;
         this.threadPoolName = threadPoolName;
-        this.defaultContext = metric.createContext(Map.of(THREAD_POOL_NAME_DIMENSION, threadPoolName));
+        Metric.Context defaultContext = metric.createContext(Map.of(THREAD_POOL_NAME_DIMENSION, threadPoolName));
+        this.serverRejectedRequests = metric.handle(ContainerMetrics.SERVER_REJECTED_REQUESTS.baseName(), defaultContext);
+        this.rejectedTasks = metric.handle(ContainerMetrics.JDISC_THREAD_POOL_REJECTED_TASKS.baseName(), defaultContext);
+        this.serverThreadPoolSize = metric.handle(ContainerMetrics.SERVER_THREAD_POOL_SIZE.baseName(), defaultContext);
+        this.threadPoolSize = metric.handle(ContainerMetrics.JDISC_THREAD_POOL_SIZE.baseName(), defaultContext);
+        this.maxAllowedThreadPoolSize = metric.handle(ContainerMetrics.JDISC_THREAD_POOL_MAX_ALLOWED_SIZE.baseName(), defaultContext);
+        this.serverActiveThreads = metric.handle(ContainerMetrics.SERVER_ACTIVE_THREADS.baseName(), defaultContext);
+        this.activeThreads = metric.handle(ContainerMetrics.JDISC_THREAD_POOL_ACTIVE_THREADS.baseName(), defaultContext);
+        this.workQueueCapacity = metric.handle(ContainerMetrics.JDISC_THREAD_POOL_WORK_QUEUE_CAPACITY.baseName(), defaultContext);
+        this.workQueueSize = metric.handle(ContainerMetrics.JDISC_THREAD_POOL_WORK_QUEUE_SIZE.baseName(), defaultContext);
+        this.workQueueTime = metric.handle(ContainerMetrics.JDISC_THREAD_POOL_WORK_QUEUE_TIME.baseName(), defaultContext);
     }
 
     void reportRejectRequest() {
-        metric.add(ContainerMetrics.SERVER_REJECTED_REQUESTS.baseName(), 1L, defaultContext);
-        metric.add(ContainerMetrics.JDISC_THREAD_POOL_REJECTED_TASKS.baseName(), 1L, defaultContext);
+        serverRejectedRequests.add(1L);
+        rejectedTasks.add(1L);
     }
 
     void reportThreadPoolSize(long size) {
-        metric.set(ContainerMetrics.SERVER_THREAD_POOL_SIZE.baseName(), size, defaultContext);
-        metric.set(ContainerMetrics.JDISC_THREAD_POOL_SIZE.baseName(), size, defaultContext);
+        serverThreadPoolSize.set(size);
+        threadPoolSize.set(size);
     }
 
     void reportMaxAllowedThreadPoolSize(long size) {
-        metric.set(ContainerMetrics.JDISC_THREAD_POOL_MAX_ALLOWED_SIZE.baseName(), size, defaultContext);
+        maxAllowedThreadPoolSize.set(size);
     }
 
     void reportActiveThreads(long threads) {
-        metric.set(ContainerMetrics.SERVER_ACTIVE_THREADS.baseName(), threads, defaultContext);
-        metric.set(ContainerMetrics.JDISC_THREAD_POOL_ACTIVE_THREADS.baseName(), threads, defaultContext);
+        serverActiveThreads.set(threads);
+        activeThreads.set(threads);
     }
 
     void reportWorkQueueCapacity(long capacity) {
-        metric.set(ContainerMetrics.JDISC_THREAD_POOL_WORK_QUEUE_CAPACITY.baseName(), capacity, defaultContext);
+        workQueueCapacity.set(capacity);
     }
 
     void reportWorkQueueSize(long size) {
-        metric.set(ContainerMetrics.JDISC_THREAD_POOL_WORK_QUEUE_SIZE.baseName(), size, defaultContext);
+        workQueueSize.set(size);
+    }
+
+    void reportQueueTime(long nanos) {
+        workQueueTime.set(nanos / 1e6);
     }
 
     void reportUnhandledException(Throwable t) {
@@ -1,6 +1,8 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.container.handler.threadpool;
 
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -9,6 +11,8 @@ import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A thread pool executor which maintains the last time a worker completed.
+ * If given controllers, it sheds sheddable tasks which have been queued for too long, and adjusts its thread count.
+ * Only then are tasks wrapped to track the time they are queued, which is reported for a sample of the tasks.
  *
  * @author Steinar Knutsen
  * @author baldersheim
@@ -16,10 +20,15 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 class WorkerCompletionTimingThreadPoolExecutor extends ThreadPoolExecutor {
 
+    /** Report the queue time of one in this many tasks */
+    private static final int queueTimeSampleInterval = 16;
+
     volatile long lastThreadAssignmentTimeMillis = System.currentTimeMillis();
     private final AtomicLong startedCount = new AtomicLong(0);
     private final AtomicLong completedCount = new AtomicLong(0);
     private final ThreadPoolMetric metric;
+    private final QueueTimeController queueTimeController;
+    private final ThreadCountController threadCountController;
 
     WorkerCompletionTimingThreadPoolExecutor(int corePoolSize,
                                              int maximumPoolSize,
@@ -27,16 +36,57 @@ class WorkerCompletionTimingThreadPoolExecutor extends ThreadPoolExecutor {
                                              TimeUnit unit,
                                              BlockingQueue<Runnable> workQueue,
                                              ThreadFactory threadFactory,
-                                             ThreadPoolMetric metric) {
+                                             ThreadPoolMetric metric,
+                                             QueueTimeController queueTimeController,
+                                             ThreadCountController threadCountController) {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory);
         this.metric = metric;
+        this.queueTimeController = queueTimeController;
+        this.threadCountController = threadCountController;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (queueTimeController == null)
+            super.execute(command);
+        else
+            super.execute(new QueuedTask(command, System.nanoTime()));
+    }
+
+    @Override
+    public boolean remove(Runnable task) {
+        if (queueTimeController == null) return super.remove(task);
+
+        for (Runnable queued : getQueue()) {
+            if (queued instanceof QueuedTask queuedTask && queuedTask.command == task)
+                return super.remove(queued);
+        }
+        return false;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = super.shutdownNow();
+        tasks.replaceAll(task -> task instanceof QueuedTask queuedTask ? queuedTask.command : task);
+        return tasks;
     }
 
     @Override
     protected void beforeExecute(Thread t, Runnable r) {
         super.beforeExecute(t, r);
         lastThreadAssignmentTimeMillis = System.currentTimeMillis();
-        startedCount.incrementAndGet();
+        long started = startedCount.incrementAndGet();
+        if (r instanceof QueuedTask task) {
+            long now = System.nanoTime();
+            long queueTimeNanos = now - task.queuedAtNanos;
+            if (started % queueTimeSampleInterval == 1)
+                metric.reportQueueTime(queueTimeNanos);
+            if (   task.command instanceof SheddableTask
+                && queueTimeController.shouldShed(queueTimeNanos, now)) {
+                task.shed = true;
+                metric.reportRejectRequest();
+            }
+        }
     }
 
     @Override
@@ -53,5 +103,42 @@ class WorkerCompletionTimingThreadPoolExecutor extends ThreadPoolExecutor {
         return (int)(startedCount.get() - completedCount.get());
     }
 
+    /** Adjusts the number of threads of this to the current load, if this is adaptive. */
+    void adjustThreadCount() {
+        if (threadCountController == null || isShutdown()) return;
+
+        boolean saturated = getActiveCount() >= getMaximumPoolSize() || ! getQueue().isEmpty();
+        int threads = threadCountController.update(System.nanoTime(), completedCount.get(), saturated);
+        if (threads > getMaximumPoolSize()) {
+            setMaximumPoolSize(threads);
+            setCorePoolSize(threads);
+            prestartAllCoreThreads();
+        }
+        else if (threads < getMaximumPoolSize()) { // Excess threads exit when done with their current tasks
+            setCorePoolSize(threads);
+            setMaximumPoolSize(threads);
+        }
+    }
+
+    /** A task with the time it was queued, which runs the given command, or sheds it if told to before it starts. */
+    private static class QueuedTask implements Runnable {
+
+        private final Runnable command;
+        private final long queuedAtNanos;
+        private boolean shed = false; // Set and read by the worker thread running this
+
+        QueuedTask(Runnable command, long queuedAtNanos) {
+            this.command = Objects.requireNonNull(command);
+            this.queuedAtNanos = queuedAtNanos;
+        }
+
+        @Override
+        public void run() {
+            if (shed) ((SheddableTask) command).shed();
+            else command.run();
+        }
+
+    }
+
 }
 
@@ -2,6 +2,7 @@
 package com.yahoo.container.jdisc;
 
 import com.yahoo.io.BufferChain;
+import com.yahoo.io.ByteBufferPool;
 import com.yahoo.io.WritableByteTransmitter;
 import com.yahoo.jdisc.handler.CompletionHandler;
 import com.yahoo.jdisc.handler.ContentChannel;
@@ -22,6 +23,8 @@ import java.util.logging.Logger;
 public class ContentChannelOutputStream extends OutputStream implements WritableByteTransmitter {
 
     private static final Logger log = Logger.getLogger(ContentChannelOutputStream.class.getName());
+    private static final ByteBufferPool responseBufferPool =
+            new ByteBufferPool(Boolean.parseBoolean(System.getProperty("ContentChannelOutputStream.directBuffers", "false")));
     private final BufferChain buffer;
     private final ContentChannel endpoint;
     private long byteBufferData = 0L;
@@ -29,10 +32,22 @@ public class ContentChannelOutputStream extends OutputStream implements Writable
     private final Object failLock = new Object();
 
     public ContentChannelOutputStream(ContentChannel endpoint) {
+        this(endpoint, null);
+    }
+
+    /**
+     * Creates a stream which buffers in buffers from the given pool, if non-null. These buffers are returned
+     * to the pool when the endpoint completes writing them, so the endpoint must not access a buffer after
+     * calling the completion handler of its write.
+     */
+    public ContentChannelOutputStream(ContentChannel endpoint, ByteBufferPool bufferPool) {
         this.endpoint = endpoint;
-        buffer = new BufferChain(this);
+        buffer = new BufferChain(this, bufferPool);
     }
 
+    /** Returns the buffer pool shared by all streams rendering responses using pooled buffers */
+    public static ByteBufferPool responseBufferPool() { return responseBufferPool; }
+
     /**
      * Buffered write of a single byte.
      */
@@ -127,6 +142,12 @@ public class ContentChannelOutputStream extends OutputStream implements Writable
         send(src, null);
     }
 
+    /** Writes a buffer from the buffer pool to the wrapped ContentChannel, and runs the recycler when it is written. */
+    @Override
+    public void sendRecyclable(ByteBuffer src, Runnable recycler) throws IOException {
+        send(src, new RecyclingCompletionHandler(recycler));
+    }
+
     protected void send(ByteBuffer src, CompletionHandler completionHandler) throws IOException {
         try {
             byteBufferData += src.remaining();
@@ -141,6 +162,22 @@ public class ContentChannelOutputStream extends OutputStream implements Writable
         return buffer.appended() + byteBufferData;
     }
 
+    private static class RecyclingCompletionHandler implements CompletionHandler {
+
+        private final Runnable recycler;
+
+        RecyclingCompletionHandler(Runnable recycler) {
+            this.recycler = recycler;
+        }
+
+        @Override
+        public void completed() { recycler.run(); }
+
+        @Override
+        public void failed(Throwable t) { recycler.run(); }
+
+    }
+
     private class LoggingCompletionHandler implements CompletionHandler {
 
         private final CompletionHandler nested;
@@ -43,6 +43,13 @@ public abstract class HttpResponse {
     /** The amount of content bytes this response may have in-flight (if positive) before response rendering blocks. */
     public long maxPendingBytes() { return -1; }
 
+    /**
+     * Returns whether this response should be rendered into buffers recycled through
+     * {@link ContentChannelOutputStream#responseBufferPool()} rather than freshly allocated ones.
+     * Only return true if no response filter keeps content buffers after completing their writes.
+     */
+    public boolean usePooledBuffers() { return false; }
+
     /**
      * Returns the numeric HTTP status code, e.g. 200, 404 and so on.
      *
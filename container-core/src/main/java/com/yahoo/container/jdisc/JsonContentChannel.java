@@ -0,0 +1,140 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.jdisc;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINE;
+
+/**
+ * A content channel which parses UTF-8 encoded JSON content as it is written, with a non-blocking parser which
+ * reads each written buffer in place. Each write is completed as soon as its content is parsed, so the buffer may
+ * be reused, and nothing waits for more content to arrive. When this is closed, the number of bytes written, and a
+ * parser over the parsed tokens, are passed to the given reader. If the content is not valid JSON, the returned
+ * parser throws the parse error once the tokens preceding it are read.
+ *
+ * Parsing is done by the thread writing the content, while building objects from the tokens is left to the reader.
+ * All parsed tokens are held in memory until the reader consumes them, so a tokenized copy of the whole content
+ * is kept, but no thread blocks waiting for more content.
+ */
+public class JsonContentChannel implements ContentChannel {
+
+    private static final Logger log = Logger.getLogger(JsonContentChannel.class.getName());
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final TokenBuffer tokens;
+    private final StreamReadConstraints constraints;
+    private final BiConsumer<Long, JsonParser> reader;
+    private long bytesRead = 0;
+    private IOException failure = null;
+    private volatile boolean errorReported = false;
+
+    public JsonContentChannel(JsonFactory factory, BiConsumer<Long, JsonParser> reader) {
+        try {
+            this.parser = factory.createNonBlockingByteBufferParser();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        this.tokens = new TokenBuffer(parser);
+        this.constraints = factory.streamReadConstraints();
+        this.reader = reader;
+    }
+
+    /** Write is complete when the content of the buffer is parsed. */
+    @Override
+    public synchronized void write(ByteBuffer buf, CompletionHandler handler) {
+        try {
+            bytesRead += buf.remaining();
+            if (failure == null && buf.hasRemaining()) {
+                feeder.feedInput(buf);
+                parseAvailable();
+            }
+            handler.completed();
+        }
+        catch (Exception e) {
+            handler.failed(e);
+        }
+    }
+
+    /** Close is complete when the parsed content has been passed to the reader. */
+    @Override
+    public synchronized void close(CompletionHandler handler) {
+        try {
+            if (failure == null) {
+                feeder.endOfInput();
+                parseAvailable();
+            }
+            parser.close();
+            if ( ! errorReported) {
+                reader.accept(bytesRead, new ReplayingParser(tokens.asParser(constraints), failure));
+            }
+            handler.completed();
+        }
+        catch (Exception e) {
+            handler.failed(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        // Jdisc will automatically generate an error response in this scenario
+        log.log(FINE, error, () -> "ContentChannel.onError(): " + error.getMessage());
+        errorReported = true;
+    }
+
+    /** Copies all tokens which can be parsed from the input fed so far, or stores the error which stops parsing. */
+    private void parseAvailable() {
+        try {
+            for (JsonToken token; (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE; ) {
+                tokens.copyCurrentEvent(parser);
+            }
+        }
+        catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /** Replays parsed tokens, and then throws the error which stopped parsing, if any. */
+    private static class ReplayingParser extends JsonParserDelegate {
+
+        private final IOException failure;
+
+        ReplayingParser(JsonParser tokens, IOException failure) {
+            super(tokens);
+            this.failure = failure;
+        }
+
+        @Override
+        public JsonToken nextToken() throws IOException {
+            return failIfDone(super.nextToken());
+        }
+
+        @Override
+        public JsonToken nextValue() throws IOException {
+            return failIfDone(super.nextValue());
+        }
+
+        private JsonToken failIfDone(JsonToken token) throws IOException {
+            if (token == null && failure != null) throw failure;
+            return token;
+        }
+
+    }
+
+}
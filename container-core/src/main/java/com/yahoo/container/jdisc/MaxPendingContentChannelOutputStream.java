@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.container.jdisc;
 
+import com.yahoo.io.ByteBufferPool;
 import com.yahoo.jdisc.handler.CompletionHandler;
 import com.yahoo.jdisc.handler.ContentChannel;
 
@@ -20,7 +21,11 @@ public class MaxPendingContentChannelOutputStream extends ContentChannelOutputSt
     private final AtomicLong acked = new AtomicLong(0);
 
     public MaxPendingContentChannelOutputStream(ContentChannel endpoint, long maxPending) {
-        super(endpoint);
+        this(endpoint, maxPending, null);
+    }
+
+    public MaxPendingContentChannelOutputStream(ContentChannel endpoint, long maxPending, ByteBufferPool bufferPool) {
+        super(endpoint, bufferPool);
         this.maxPending = maxPending;
     }
 
@@ -31,10 +36,12 @@ public class MaxPendingContentChannelOutputStream extends ContentChannelOutputSt
     private class TrackCompletion implements CompletionHandler {
 
         private final long written;
+        private final Runnable recycler;
         private final AtomicBoolean replied = new AtomicBoolean(false);
 
-        TrackCompletion(long written) {
+        TrackCompletion(long written, Runnable recycler) {
             this.written = written;
+            this.recycler = recycler;
             sent.addAndGet(written);
         }
 
@@ -42,6 +49,7 @@ public class MaxPendingContentChannelOutputStream extends ContentChannelOutputSt
         public void completed() {
             if (!replied.getAndSet(true)) {
                 acked.addAndGet(written);
+                if (recycler != null) recycler.run();
             }
         }
 
@@ -49,6 +57,7 @@ public class MaxPendingContentChannelOutputStream extends ContentChannelOutputSt
         public void failed(Throwable t) {
             if (!replied.getAndSet(true)) {
                 acked.addAndGet(written);
+                if (recycler != null) recycler.run();
             }
         }
 
@@ -56,13 +65,22 @@ public class MaxPendingContentChannelOutputStream extends ContentChannelOutputSt
 
     @Override
     public void send(ByteBuffer src) throws IOException {
+        sendTracked(src, null);
+    }
+
+    @Override
+    public void sendRecyclable(ByteBuffer src, Runnable recycler) throws IOException {
+        sendTracked(src, recycler);
+    }
+
+    private void sendTracked(ByteBuffer src, Runnable recycler) throws IOException {
         try {
             stallWhilePendingAbove(maxPending);
         }
         catch (InterruptedException ignored) {
             throw new InterruptedIOException("Interrupted waiting for IO");
         }
-        CompletionHandler pendingTracker = new TrackCompletion(src.remaining());
+        CompletionHandler pendingTracker = new TrackCompletion(src.remaining(), recycler);
         try {
             send(src, pendingTracker);
         }
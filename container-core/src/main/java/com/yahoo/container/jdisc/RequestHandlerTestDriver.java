@@ -6,6 +6,7 @@ import com.yahoo.jdisc.Request;
 import com.yahoo.jdisc.Response;
 import com.yahoo.jdisc.application.ContainerBuilder;
 import com.yahoo.jdisc.handler.BufferedContentChannel;
+import com.yahoo.jdisc.handler.CompletionHandler;
 import com.yahoo.jdisc.handler.ContentChannel;
 import com.yahoo.jdisc.handler.ReadableContentChannel;
 import com.yahoo.jdisc.handler.RequestHandler;
@@ -162,7 +163,7 @@ public class RequestHandlerTestDriver implements AutoCloseable {
             this.response = response;
             latch.countDown();
 
-            buffer.connectTo(this.content);
+            buffer.connectTo(new CopyingContentChannel(this.content));
             return buffer;
         }
 
@@ -179,4 +180,30 @@ public class RequestHandlerTestDriver implements AutoCloseable {
 
     }
 
+    /**
+     * Passes copies of written buffers on to a readable content channel, as that completes writes when buffers
+     * are read, but before they are consumed, and the writer may then reuse the buffers.
+     */
+    private static class CopyingContentChannel implements ContentChannel {
+
+        private final ContentChannel target;
+
+        CopyingContentChannel(ContentChannel target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(ByteBuffer buf, CompletionHandler handler) {
+            ByteBuffer copy = ByteBuffer.allocate(buf.remaining());
+            copy.put(buf).flip();
+            target.write(copy, handler);
+        }
+
+        @Override
+        public void close(CompletionHandler handler) {
+            target.close(handler);
+        }
+
+    }
+
 }
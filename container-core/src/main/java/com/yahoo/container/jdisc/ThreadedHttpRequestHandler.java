@@ -4,6 +4,7 @@ package com.yahoo.container.jdisc;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.container.handler.threadpool.ContainerThreadPool;
 import com.yahoo.container.logging.AccessLogEntry;
+import com.yahoo.io.ByteBufferPool;
 import com.yahoo.jdisc.Metric;
 import com.yahoo.jdisc.Request;
 import com.yahoo.jdisc.handler.BufferedContentChannel;
@@ -111,8 +112,9 @@ public abstract class ThreadedHttpRequestHandler extends ThreadedRequestHandler
         LoggingCompletionHandler logOnCompletion = null;
         ContentChannelOutputStream output = null;
         try {
-            output = httpResponse.maxPendingBytes() > 0 ? new MaxPendingContentChannelOutputStream(channel, httpResponse.maxPendingBytes())
-                                                        : new ContentChannelOutputStream(channel);
+            ByteBufferPool bufferPool = httpResponse.usePooledBuffers() ? ContentChannelOutputStream.responseBufferPool() : null;
+            output = httpResponse.maxPendingBytes() > 0 ? new MaxPendingContentChannelOutputStream(channel, httpResponse.maxPendingBytes(), bufferPool)
+                                                        : new ContentChannelOutputStream(channel, bufferPool);
             logOnCompletion = createLoggingCompletionHandler(startTime, System.currentTimeMillis(),
                                                              httpResponse, request, output);
 
@@ -8,13 +8,16 @@ import com.yahoo.jdisc.ResourceReference;
 import com.yahoo.jdisc.Response;
 import com.yahoo.jdisc.handler.AbstractRequestHandler;
 import com.yahoo.jdisc.handler.BufferedContentChannel;
+import com.yahoo.jdisc.handler.CompletionHandler;
 import com.yahoo.jdisc.handler.ContentChannel;
 import com.yahoo.jdisc.handler.OverloadException;
 import com.yahoo.jdisc.handler.ReadableContentChannel;
 import com.yahoo.jdisc.handler.ResponseDispatch;
 import com.yahoo.jdisc.handler.ResponseHandler;
 import com.yahoo.container.core.HandlerMetricContextUtil;
+import com.yahoo.container.handler.threadpool.SheddableTask;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Objects;
@@ -46,6 +49,11 @@ public abstract class ThreadedRequestHandler extends AbstractRequestHandler {
 
     private static final Object rejectedExecutionsLock = new Object();
 
+    private static final ContentChannel discardedContent = new ContentChannel() {
+        @Override public void write(ByteBuffer buf, CompletionHandler handler) { if (handler != null) handler.completed(); }
+        @Override public void close(CompletionHandler handler) { if (handler != null) handler.completed(); }
+    };
+
     // GuardedBy("rejectedExecutionsLock")
     private static volatile int numRejectedRequests = 0;
 
@@ -163,7 +171,7 @@ public abstract class ThreadedRequestHandler extends AbstractRequestHandler {
         ResponseDispatch.newInstance(response).dispatch(responseHandler);
     }
 
-    private class RequestTask implements ResponseHandler, Runnable {
+    private class RequestTask implements ResponseHandler, SheddableTask {
 
         final Request request;
         private final ResourceReference requestReference;
@@ -239,6 +247,13 @@ public abstract class ThreadedRequestHandler extends AbstractRequestHandler {
         }
 
 
+        /** Responds with an overload error, and discards the request content, when the thread pool is overloaded. */
+        @Override
+        public void shed() {
+            failOnOverload();
+            content.connectTo(discardedContent);
+        }
+
         /**
          * Clean up when the task can not be executed because no worker thread is available.
          */
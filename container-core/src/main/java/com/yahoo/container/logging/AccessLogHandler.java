@@ -2,6 +2,7 @@
 package com.yahoo.container.logging;
 
 import com.yahoo.container.core.AccessLogConfig;
+import com.yahoo.jdisc.Metric;
 
 /**
  * @author Bjorn Borud
@@ -11,9 +12,13 @@ class AccessLogHandler {
     private final LogFileHandler<RequestLogEntry> logFileHandler;
 
     AccessLogHandler(AccessLogConfig.FileHandler config, LogWriter<RequestLogEntry> logWriter) {
+        this(config, logWriter, null);
+    }
+
+    AccessLogHandler(AccessLogConfig.FileHandler config, LogWriter<RequestLogEntry> logWriter, Metric metric) {
         logFileHandler = new LogFileHandler<>(
                 toCompression(config), config.bufferSize(), config.pattern(), config.rotation(),
-                config.symlink(), queueSize(config), "request-logger", logWriter);
+                config.symlink(), queueSize(config), "request-logger", logWriter, config.highThroughput(), metric);
     }
 
     private static int queueSize(AccessLogConfig.FileHandler config) {
@@ -2,7 +2,9 @@
 package com.yahoo.container.logging;
 
 import com.yahoo.component.AbstractComponent;
+import com.yahoo.component.annotation.Inject;
 import com.yahoo.container.core.AccessLogConfig;
+import com.yahoo.jdisc.Metric;
 
 /**
  * Log a message in Vespa JSON access log format.
@@ -15,7 +17,12 @@ public final class JSONAccessLog extends AbstractComponent implements RequestLog
     private final AccessLogHandler logHandler;
 
     public JSONAccessLog(AccessLogConfig config) {
-        logHandler = new AccessLogHandler(config.fileHandler(), new JSONFormatter());
+        this(config, null);
+    }
+
+    @Inject
+    public JSONAccessLog(AccessLogConfig config, Metric metric) {
+        logHandler = new AccessLogHandler(config.fileHandler(), new JSONFormatter(), metric);
     }
 
     @Override
@@ -1,13 +1,16 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.container.logging;
 
+import ai.vespa.metrics.ContainerMetrics;
 import com.yahoo.compress.ZstdOutputStream;
 import com.yahoo.io.NativeIO;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.log.LogFileDb;
 import com.yahoo.protect.Process;
 import com.yahoo.yolean.Exceptions;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileDescriptor;
 import java.io.FileInputStream;
@@ -15,6 +18,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -27,6 +31,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPOutputStream;
@@ -45,22 +50,49 @@ class LogFileHandler <LOGTYPE> {
     private final BlockingQueue<Operation<LOGTYPE>> logQueue;
     final LogThread<LOGTYPE> logThread;
 
-    @FunctionalInterface private interface Pollable<T> { Operation<T> poll() throws InterruptedException; }
+    /** Formatted entries on their way to the log thread, in high throughput mode, or null */
+    private final MpscRingBuffer<byte[]> entries;
+    private final LogWriter<LOGTYPE> logWriter;
+    private final ThreadLocal<ByteArrayOutputStream> formatBuffers = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(1024));
+    private final LongAdder droppedEntries = new LongAdder();
+    private final Metric metric;
+    private long reportedDroppedEntries = 0; // Accessed by the log thread only
+
+    @FunctionalInterface private interface Pollable<T> { Operation<T> poll(long timeout, TimeUnit unit) throws InterruptedException; }
 
     LogFileHandler(Compression compression, int bufferSize, String filePattern, String rotationTimes, String symlinkName,
                    int queueSize, String threadName, LogWriter<LOGTYPE> logWriter) {
-        this(compression, bufferSize, filePattern, calcTimesMinutes(rotationTimes), symlinkName, queueSize, threadName, logWriter);
+        this(compression, bufferSize, filePattern, calcTimesMinutes(rotationTimes), symlinkName, queueSize, threadName, logWriter, false, null);
+    }
+
+    /**
+     * Creates a log file handler which, in high throughput mode, formats entries on the publishing threads and hands them
+     * to the log thread through a lock-free ring of the given queue size, dropping entries rather than blocking when it is full.
+     * The queue depth and the number of dropped entries are reported to the given metric, if non-null.
+     */
+    LogFileHandler(Compression compression, int bufferSize, String filePattern, String rotationTimes, String symlinkName,
+                   int queueSize, String threadName, LogWriter<LOGTYPE> logWriter, boolean highThroughput, Metric metric) {
+        this(compression, bufferSize, filePattern, calcTimesMinutes(rotationTimes), symlinkName, queueSize, threadName, logWriter, highThroughput, metric);
     }
 
     LogFileHandler(Compression compression, int bufferSize, String filePattern, long[] rotationTimes, String symlinkName,
                    int queueSize, String threadName, LogWriter<LOGTYPE> logWriter) {
-        this.logQueue = new LinkedBlockingQueue<>(queueSize);
-        this.logThread = new LogThread<>(logWriter, filePattern, compression, bufferSize, rotationTimes, symlinkName, threadName, this::poll);
+        this(compression, bufferSize, filePattern, rotationTimes, symlinkName, queueSize, threadName, logWriter, false, null);
+    }
+
+    LogFileHandler(Compression compression, int bufferSize, String filePattern, long[] rotationTimes, String symlinkName,
+                   int queueSize, String threadName, LogWriter<LOGTYPE> logWriter, boolean highThroughput, Metric metric) {
+        this.logQueue = new LinkedBlockingQueue<>(highThroughput ? 64 : queueSize);
+        this.entries = highThroughput ? new MpscRingBuffer<>(queueSize) : null;
+        this.logWriter = logWriter;
+        this.metric = metric;
+        this.logThread = new LogThread<>(logWriter, filePattern, compression, bufferSize, rotationTimes, symlinkName, threadName,
+                                         this::poll, entries, this::reportMetrics);
         this.logThread.start();
     }
 
-    private Operation<LOGTYPE> poll() throws InterruptedException {
-        return logQueue.poll(100, TimeUnit.MILLISECONDS);
+    private Operation<LOGTYPE> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return logQueue.poll(timeout, unit);
     }
 
     /**
@@ -69,11 +101,51 @@ class LogFileHandler <LOGTYPE> {
      * @param r logrecord to publish
      */
     public void publish(LOGTYPE r) {
-        addOperation(new Operation<>(r));
+        if (entries == null) {
+            addOperation(new Operation<>(r));
+            return;
+        }
+        byte[] entry = format(r);
+        if (entry != null && ! entries.offer(entry))
+            droppedEntries.increment();
     }
 
     void publishAndWait(LOGTYPE r) {
-        addOperationAndWait(new Operation<>(r));
+        if (entries == null) {
+            addOperationAndWait(new Operation<>(r));
+        } else {
+            publish(r);
+            flush();
+        }
+    }
+
+    /** Returns the number of entries dropped since the handler was created because the queue was full */
+    long droppedEntries() {
+        return droppedEntries.sum();
+    }
+
+    private byte[] format(LOGTYPE r) {
+        ByteArrayOutputStream buffer = formatBuffers.get();
+        buffer.reset();
+        try {
+            logWriter.write(r, buffer);
+            buffer.write('\n');
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            logger.warning("Failed formatting log record: " + Exceptions.toMessageString(e));
+            return null;
+        } finally {
+            if (buffer.size() > 0x10000) // Don't keep a buffer grown by an exceptionally large entry
+                formatBuffers.remove();
+        }
+    }
+
+    private void reportMetrics() {
+        if (metric == null || entries == null) return;
+        metric.set(ContainerMetrics.JDISC_HTTP_ACCESS_LOG_QUEUE_SIZE.baseName(), entries.size(), null);
+        long dropped = droppedEntries.sum();
+        metric.add(ContainerMetrics.JDISC_HTTP_ACCESS_LOG_DROPPED_ENTRIES.baseName(), dropped - reportedDroppedEntries, null);
+        reportedDroppedEntries = dropped;
     }
 
     public void flush() {
@@ -196,6 +268,10 @@ class LogFileHandler <LOGTYPE> {
         private final String symlinkName;
         private final ExecutorService executor = createCompressionTaskExecutor();
         private final NativeIO nativeIO = new NativeIO();
+        private final MpscRingBuffer<byte[]> entries;
+        private final ByteBuffer batch;
+        private final Runnable metricReporter;
+        private long lastMetricReport = 0;
 
 
         LogThread(LogWriter<LOGTYPE> logWriter,
@@ -205,8 +281,13 @@ class LogFileHandler <LOGTYPE> {
                   long[] rotationTimes,
                   String symlinkName,
                   String threadName,
-                  Pollable<LOGTYPE> operationProvider) {
+                  Pollable<LOGTYPE> operationProvider,
+                  MpscRingBuffer<byte[]> entries,
+                  Runnable metricReporter) {
             super(threadName);
+            this.entries = entries;
+            this.batch = entries == null ? null : ByteBuffer.allocate(Math.max(bufferSize, 0x10000));
+            this.metricReporter = metricReporter;
             setDaemon(true);
             this.logWriter = logWriter;
             this.filePattern = filePattern;
@@ -235,12 +316,16 @@ class LogFileHandler <LOGTYPE> {
                 Process.logAndDie("Failed storing log records", e);
             }
 
+            if (entries != null) writeEntries();
             internalFlush();
         }
 
         private void handleLogOperations() throws InterruptedException {
             while (!isInterrupted()) {
-                Operation<LOGTYPE> r = operationProvider.poll();
+                // Entries published before an operation is added are written before it is handled
+                boolean wroteEntries = entries != null && writeEntries();
+                Operation<LOGTYPE> r = operationProvider.poll(entries == null ? 100 : wroteEntries ? 0 : 10, TimeUnit.MILLISECONDS);
+                reportMetricsIfDue();
                 if (r != null) {
                     if (r.type == Operation.Type.flush) {
                         internalFlush();
@@ -260,6 +345,49 @@ class LogFileHandler <LOGTYPE> {
             }
         }
 
+        /** Writes the queued entries to the log file in large batches, and returns whether there were any */
+        private boolean writeEntries() {
+            boolean wroteEntries = false;
+            while (entries.drain(this::addToBatch, entries.capacity()) > 0) {
+                wroteEntries = true;
+                writeBatch();
+            }
+            return wroteEntries;
+        }
+
+        private void addToBatch(byte[] entry) {
+            if (entry.length > batch.remaining())
+                writeBatch();
+            if (entry.length > batch.remaining())
+                writeToFile(ByteBuffer.wrap(entry));
+            else
+                batch.put(entry);
+        }
+
+        private void writeBatch() {
+            if (batch.position() == 0) return;
+            batch.flip();
+            writeToFile(batch);
+            batch.clear();
+        }
+
+        private void writeToFile(ByteBuffer data) {
+            rotateIfDue();
+            try {
+                fileOutput.writeDirectly(data);
+            } catch (IOException e) {
+                logger.warning("Failed writing log records: " + Exceptions.toMessageString(e));
+            }
+        }
+
+        private void reportMetricsIfDue() {
+            long now = System.nanoTime();
+            if (now - lastMetricReport > TimeUnit.SECONDS.toNanos(1)) {
+                metricReporter.run();
+                lastMetricReport = now;
+            }
+        }
+
         private void flushIfOld(long age, TimeUnit unit) {
             long now = System.nanoTime();
             if (TimeUnit.NANOSECONDS.toMillis(now - lastFlush) > unit.toMillis(age)) {
@@ -291,6 +419,16 @@ class LogFileHandler <LOGTYPE> {
         }
 
         private void internalPublish(LOGTYPE r) {
+            rotateIfDue();
+            try {
+                logWriter.write(r, fileOutput);
+                fileOutput.write('\n');
+            } catch (IOException e) {
+                logger.warning("Failed writing log record: " + Exceptions.toMessageString(e));
+            }
+        }
+
+        private void rotateIfDue() {
             // first check to see if new file needed.
             // if so, use this.internalRotateNow() to do it
 
@@ -301,12 +439,6 @@ class LogFileHandler <LOGTYPE> {
             if (now > nextRotationTime || fileOutput == null) {
                 internalRotateNow();
             }
-            try {
-                logWriter.write(r, fileOutput);
-                fileOutput.write('\n');
-            } catch (IOException e) {
-                logger.warning("Failed writing log record: " + Exceptions.toMessageString(e));
-            }
         }
 
         /**
@@ -522,6 +654,14 @@ class LogFileHandler <LOGTYPE> {
         @Override public void write(int b) throws IOException { bufferedOut.write(b); }
         @Override public void close() throws IOException { bufferedOut.close(); }
 
+        /** Writes the given data directly to the file, after any buffered data, and drops written pages from the cache */
+        void writeDirectly(ByteBuffer data) throws IOException {
+            bufferedOut.flush();
+            while (data.hasRemaining())
+                fileOut.getChannel().write(data);
+            flush();
+        }
+
         @Override
         public void flush() throws IOException {
             bufferedOut.flush();
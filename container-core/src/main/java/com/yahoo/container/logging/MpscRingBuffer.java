@@ -0,0 +1,67 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free queue for many producers and a single consumer.
+ * Producers never block: An element offered when the queue is full is rejected.
+ *
+ * @param <T> the element type
+ */
+final class MpscRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+
+    /** The index of the next element to consume. Written by the consumer only */
+    private volatile long consumerIndex = 0;
+
+    /** Creates a ring buffer holding at least the given number of elements */
+    MpscRingBuffer(int minCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, minCapacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /** Adds the given element, and returns true, or returns false if this is full */
+    boolean offer(T element) {
+        long index;
+        do {
+            index = producerIndex.get();
+            if (index - consumerIndex >= slots.length()) return false;
+        } while ( ! producerIndex.compareAndSet(index, index + 1));
+        slots.lazySet((int) index & mask, element);
+        return true;
+    }
+
+    /**
+     * Passes up to the given number of elements to the given consumer, in order, and returns the number passed.
+     * Must only be called by a single thread at a time.
+     */
+    int drain(Consumer<T> consumer, int maxElements) {
+        long index = consumerIndex;
+        int drained = 0;
+        while (drained < maxElements) {
+            int slot = (int) index & mask;
+            T element = slots.get(slot);
+            if (element == null) break; // Empty, or the producer of this slot has not yet written it
+            slots.lazySet(slot, null);
+            consumerIndex = ++index;
+            drained++;
+            consumer.accept(element);
+        }
+        return drained;
+    }
+
+    /** Returns the number of elements currently in this */
+    int size() {
+        return (int) Math.max(0, producerIndex.get() - consumerIndex);
+    }
+
+    int capacity() { return slots.length(); }
+
+}
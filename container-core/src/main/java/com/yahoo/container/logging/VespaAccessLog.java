@@ -2,7 +2,9 @@
 package com.yahoo.container.logging;
 
 import com.yahoo.component.AbstractComponent;
+import com.yahoo.component.annotation.Inject;
 import com.yahoo.container.core.AccessLogConfig;
+import com.yahoo.jdisc.Metric;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -22,7 +24,12 @@ public final class VespaAccessLog extends AbstractComponent implements RequestLo
     private final AccessLogHandler logHandler;
 
     public VespaAccessLog(AccessLogConfig config) {
-        logHandler = new AccessLogHandler(config.fileHandler(), this);
+        this(config, null);
+    }
+
+    @Inject
+    public VespaAccessLog(AccessLogConfig config, Metric metric) {
+        logHandler = new AccessLogHandler(config.fileHandler(), this, metric);
     }
 
     private static SimpleDateFormat createDateFormat() {
@@ -70,6 +70,10 @@ class MetricDefinitions {
     static final String JETTY_THREADPOOL_TOTAL_THREADS = ContainerMetrics.JETTY_THREADPOOL_TOTAL_THREADS.baseName();
     static final String JETTY_THREADPOOL_QUEUE_SIZE = ContainerMetrics.JETTY_THREADPOOL_QUEUE_SIZE.baseName();
 
+    static final String RESPONSE_BUFFER_POOL_HITS = ContainerMetrics.JDISC_HTTP_RESPONSE_BUFFER_POOL_HITS.baseName();
+    static final String RESPONSE_BUFFER_POOL_MISSES = ContainerMetrics.JDISC_HTTP_RESPONSE_BUFFER_POOL_MISSES.baseName();
+    static final String RESPONSE_BUFFER_POOL_OUTSTANDING_BYTES = ContainerMetrics.JDISC_HTTP_RESPONSE_BUFFER_POOL_OUTSTANDING_BYTES.baseName();
+
     static final String FILTERING_REQUEST_HANDLED = ContainerMetrics.JDISC_HTTP_FILTERING_REQUEST_HANDLED.baseName();
     static final String FILTERING_REQUEST_UNHANDLED = ContainerMetrics.JDISC_HTTP_FILTERING_REQUEST_UNHANDLED.baseName();
     static final String FILTERING_RESPONSE_HANDLED = ContainerMetrics.JDISC_HTTP_FILTERING_RESPONSE_HANDLED.baseName();
@@ -2,6 +2,8 @@
 package com.yahoo.jdisc.http.server.jetty;
 
 import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.container.jdisc.ContentChannelOutputStream;
+import com.yahoo.io.ByteBufferPool;
 import com.yahoo.jdisc.Metric;
 import org.eclipse.jetty.io.ConnectionStatistics;
 import org.eclipse.jetty.server.Connector;
@@ -65,6 +67,7 @@ class ServerMetricReporter {
             }
 
             setJettyThreadpoolMetrics();
+            setResponseBufferPoolMetrics();
         }
 
         private void setServerMetrics(MetricAggregatingRequestLog statisticsCollector) {
@@ -89,6 +92,15 @@ class ServerMetricReporter {
             metric.set(MetricDefinitions.JETTY_THREADPOOL_QUEUE_SIZE, threadpool.getQueueSize(), null);
         }
 
+        private void setResponseBufferPoolMetrics() {
+            ByteBufferPool pool = ContentChannelOutputStream.responseBufferPool();
+            if (pool.hits() + pool.misses() == 0) return; // Pooled buffers are not in use
+            // The pool is shared by all servers, so it tracks what has been reported, for any reporter
+            metric.add(MetricDefinitions.RESPONSE_BUFFER_POOL_HITS, pool.takeHitsIncrease(), null);
+            metric.add(MetricDefinitions.RESPONSE_BUFFER_POOL_MISSES, pool.takeMissesIncrease(), null);
+            metric.set(MetricDefinitions.RESPONSE_BUFFER_POOL_OUTSTANDING_BYTES, pool.outstandingBytes(), null);
+        }
+
         private void setConnectorMetrics(JDiscServerConnector connector) {
             ConnectionStatistics statistics = connector.getStatistics();
             metric.set(MetricDefinitions.NUM_CONNECTIONS, statistics.getConnectionsTotal(), connector.getConnectorMetricContext());
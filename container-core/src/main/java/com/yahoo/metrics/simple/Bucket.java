@@ -86,6 +86,14 @@ public class Bucket {
         }
     }
 
+    void merge(Identifier id, UntypedMetric value) {
+        try {
+            get(id, value).merge(value, true);
+        } catch (IllegalArgumentException e) {
+            log.log(Level.WARNING, "Problems merging metric " + id.getName() + ", possibly ignoring data.");
+        }
+    }
+
     void merge(Bucket other) {
         boolean otherIsNewer = resolveTimeStamps(other);
         merge(other, otherIsNewer);
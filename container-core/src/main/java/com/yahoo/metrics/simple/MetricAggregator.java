@@ -18,6 +18,7 @@ class MetricAggregator implements Runnable {
 
     private final ThreadLocalDirectory<Bucket, Sample> metricsCollection;
     private final AtomicReference<Bucket> currentSnapshot;
+    private final MetricReceiver receiver;
     private int generation = 0;
     private final Bucket[] buffer;
     private long fromMillis;
@@ -25,6 +26,7 @@ class MetricAggregator implements Runnable {
 
     MetricAggregator(ThreadLocalDirectory<Bucket, Sample> metricsCollection,
                      AtomicReference<Bucket> currentSnapshot,
+                     MetricReceiver receiver,
                      ManagerConfig settings) {
         if (settings.reportPeriodSeconds() < 10) {
             throw new IllegalArgumentException("Do not use this metrics implementation" +
@@ -35,6 +37,7 @@ class MetricAggregator implements Runnable {
         fromMillis = System.currentTimeMillis();
         this.metricsCollection = metricsCollection;
         this.currentSnapshot = currentSnapshot;
+        this.receiver = receiver;
     }
 
     @Override
@@ -62,6 +65,7 @@ class MetricAggregator implements Runnable {
         for (Bucket b : buckets) {
             latest.merge(b, true);
         }
+        receiver.collectHandles(latest);
         buffer[bucketIndex] = latest;
         this.fromMillis = toMillis;
         return bucketToDelete;
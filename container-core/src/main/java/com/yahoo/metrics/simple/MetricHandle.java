@@ -0,0 +1,148 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.metrics.simple;
+
+import com.yahoo.api.annotations.Beta;
+import com.yahoo.jdisc.Metric;
+import org.HdrHistogram.DoubleRecorder;
+
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A metric name and point resolved once, for updating the metric without creating
+ * any objects per update. Updates are accumulated in striped cells shared by all
+ * threads, and collected into the snapshot by {@link MetricAggregator} once per
+ * aggregation interval. Create handles using {@link MetricReceiver#handle(String, Point)}.
+ *
+ * A handle is either a counter or a gauge. If it is used as both, only the counter
+ * values are reported. Like other metrics, a handle reports a value only for intervals
+ * where it was updated. A handle which is not updated for {@link #maxIdleIntervals}
+ * intervals is removed from its receiver, and added back if it is updated again.
+ */
+@Beta
+public final class MetricHandle implements Metric.Handle {
+
+    /** The number of consecutive aggregation intervals without updates after which a handle is expired */
+    static final int maxIdleIntervals = 600;
+
+    private final Identifier identifier;
+    private final MetricSettings metricSettings;
+    private final MetricReceiver receiver;
+
+    private final LongAdder counter = new LongAdder();
+    private volatile boolean isCounter = false;
+    private volatile boolean isCounterUpdated = false;
+
+    private final LongAdder sampleCount = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+    private final DoubleAccumulator min = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+    private final DoubleAccumulator max = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+    private final DoubleRecorder histogram;
+    private volatile double last;
+
+    private int idleIntervals = 0; // Accessed only by the collecting thread
+    private volatile boolean expired = false;
+
+    MetricHandle(Identifier identifier, MetricSettings metricSettings, MetricReceiver receiver) {
+        this.identifier = identifier;
+        this.metricSettings = metricSettings;
+        this.receiver = receiver;
+        if (metricSettings == null || ! metricSettings.isHistogram()) {
+            histogram = null;
+        } else {
+            histogram = new DoubleRecorder(metricSettings.getSignificantdigits());
+        }
+    }
+
+    @Override
+    public void set(long val) {
+        set((double) val);
+    }
+
+    @Override
+    public void set(double val) {
+        last = val;
+        sum.add(val);
+        min.accumulate(val);
+        max.accumulate(val);
+        if (histogram != null) {
+            histogram.recordValue(val);
+        }
+        sampleCount.increment();
+        registerIfExpired();
+    }
+
+    @Override
+    public void add(long val) {
+        if ( ! isCounter) {
+            isCounter = true;
+        }
+        counter.add(val);
+        if ( ! isCounterUpdated) {
+            isCounterUpdated = true;
+        }
+        registerIfExpired();
+    }
+
+    // Invoked after each update, so updates either happen before this is expired, and are collected
+    // by the collection which expires this, or cause this to be registered again
+    private void registerIfExpired() {
+        if (expired) {
+            expired = false;
+            receiver.register(this);
+        }
+    }
+
+    public Identifier getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Moves the values accumulated since the previous invocation into the given bucket.
+     * Must only be invoked by a single thread at a time.
+     *
+     * @return whether this has been idle for long enough that it should be expired
+     */
+    boolean collectInto(Bucket bucket) {
+        if (collectUpdatesInto(bucket))
+            idleIntervals = 0;
+        else
+            idleIntervals++;
+        return idleIntervals >= maxIdleIntervals;
+    }
+
+    /** Marks this as expired, and collects any updates made before it was, which are otherwise lost. */
+    void expireInto(Bucket bucket) {
+        expired = true;
+        collectUpdatesInto(bucket);
+        idleIntervals = 0;
+    }
+
+    private boolean collectUpdatesInto(Bucket bucket) {
+        if (isCounter) {
+            sampleCount.reset();
+            if ( ! isCounterUpdated) return false;
+
+            isCounterUpdated = false;
+            UntypedMetric value = new UntypedMetric(null);
+            value.add(counter.sumThenReset());
+            bucket.merge(identifier, value);
+            return true;
+        }
+        long count = sampleCount.sumThenReset();
+        if (count == 0) return false;
+
+        UntypedMetric value = new UntypedMetric(metricSettings);
+        value.put(count, last, min.getThenReset(), max.getThenReset(), sum.sumThenReset(),
+                  histogram != null ? histogram.getIntervalHistogram() : null);
+        bucket.merge(identifier, value);
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricHandle [identifier=" + identifier + "]";
+    }
+
+}
@@ -42,10 +42,10 @@ public class MetricManager extends AbstractComponent implements Provider<MetricR
         // bucket has data for exactly one second, but one should strive for
         // this.buffer to contain data for as close a period to the report
         // interval as possible
-        executor.scheduleAtFixedRate(new MetricAggregator(metricsCollection, currentSnapshot, settings),
+        receiver = new MetricReceiver(metricsCollection, currentSnapshot);
+        executor.scheduleAtFixedRate(new MetricAggregator(metricsCollection, currentSnapshot, receiver, settings),
                                      1,
                                      1, TimeUnit.SECONDS);
-        receiver = new MetricReceiver(metricsCollection, currentSnapshot);
     }
 
     static MetricManager constructWithCustomUpdater(ManagerConfig settings, Updater<Bucket, Sample> updater) {
@@ -4,6 +4,8 @@ package com.yahoo.metrics.simple;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.yahoo.api.annotations.Beta;
@@ -30,6 +32,10 @@ public class MetricReceiver {
     private final Object histogramDefinitionsLock = new Object();
     private volatile Map<String, MetricSettings> metricSettings;
 
+    // Handles by identifier, and the handles to collect, which may include expired handles used again after being replaced
+    private final Map<Identifier, MetricHandle> handles = new ConcurrentHashMap<>();
+    private final Set<MetricHandle> activeHandles = ConcurrentHashMap.newKeySet();
+
     public MetricReceiver(ThreadLocalDirectory<Bucket, Sample> metricsCollection, AtomicReference<Bucket> currentSnapshot) {
         this.metricsCollection = metricsCollection;
         this.currentSnapshot = currentSnapshot;
@@ -117,6 +123,44 @@ public class MetricReceiver {
         return new Gauge(name, defaultDimensions, this);
     }
 
+    /**
+     * Returns the handle for the metric with the given name and point, creating it if necessary.
+     * Updates through a handle do not create any objects, so this is preferable to
+     * {@link #update(Sample)} for metrics which are updated often. The handle reads the
+     * histogram settings of the metric when created, so declare those first.
+     *
+     * @param name the name of the metric
+     * @param point the position of the metric, or null for the empty point
+     * @return a thread-safe handle, which may be used for as long as this receiver
+     */
+    public MetricHandle handle(String name, Point point) {
+        return handles.computeIfAbsent(new Identifier(name, point), id -> {
+            MetricHandle handle = new MetricHandle(id, getMetricDefinition(id.getName()), this);
+            activeHandles.add(handle);
+            return handle;
+        });
+    }
+
+    /** Adds back a handle which is updated after having been expired. */
+    void register(MetricHandle handle) {
+        activeHandles.add(handle);
+        handles.putIfAbsent(handle.getIdentifier(), handle);
+    }
+
+    /**
+     * Moves the values accumulated in all handles since the previous invocation into the given bucket,
+     * and expires handles which have been idle for a while.
+     */
+    void collectHandles(Bucket bucket) {
+        for (MetricHandle handle : activeHandles) {
+            if (handle.collectInto(bucket)) {
+                activeHandles.remove(handle);
+                handles.remove(handle.getIdentifier(), handle);
+                handle.expireInto(bucket);
+            }
+        }
+    }
+
     /**
      * Create a PointBuilder instance with no default settings. PointBuilder
      * instances are not thread-safe.
@@ -233,6 +277,7 @@ public class MetricReceiver {
             for (Bucket b : collection.fetch()) {
                 merged.merge(b, true);
             }
+            collectHandles(merged);
             return merged;
         }
 
@@ -253,6 +298,11 @@ public class MetricReceiver {
         public void update(Sample s) {
         }
 
+        @Override
+        public MetricHandle handle(String name, Point point) {
+            return new MetricHandle(new Identifier(name, point), null, this);
+        }
+
         @Override
         public Counter declareCounter(String name) {
             return new NullCounter();
@@ -61,6 +61,19 @@ public class UntypedMetric {
         ++count;
     }
 
+    /** Records a set of gauge samples which have already been aggregated. Must only be invoked on a new instance. */
+    void put(long count, double last, double min, double max, double sum, DoubleHistogram samples) {
+        outputFormat = AssumedType.GAUGE;
+        this.count = count;
+        this.current = last;
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+        if (histogram != null && samples != null) {
+            histogram.add(samples);
+        }
+    }
+
     UntypedMetric pruneData() {
         UntypedMetric pruned = new UntypedMetric(null);
         pruned.outputFormat = this.outputFormat;
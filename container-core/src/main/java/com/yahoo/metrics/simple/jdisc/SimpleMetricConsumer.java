@@ -7,6 +7,7 @@ import com.yahoo.jdisc.Metric.Context;
 import com.yahoo.jdisc.application.MetricConsumer;
 import com.yahoo.metrics.simple.Identifier;
 import com.yahoo.metrics.simple.Measurement;
+import com.yahoo.metrics.simple.MetricHandle;
 import com.yahoo.metrics.simple.Point;
 import com.yahoo.metrics.simple.MetricReceiver;
 import com.yahoo.metrics.simple.Sample;
@@ -35,6 +36,11 @@ public class SimpleMetricConsumer implements MetricConsumer {
         receiver.update(new Sample(new Measurement(val), new Identifier(key, getSimpleCoordinate(ctx)), AssumedType.COUNTER));
     }
 
+    @Override
+    public MetricHandle createHandle(String key, Context ctx) {
+        return receiver.handle(key, getSimpleCoordinate(ctx));
+    }
+
     private Point getSimpleCoordinate(Context ctx) {
         if (ctx instanceof Point) {
             return (Point) ctx;
@@ -2,6 +2,7 @@
 package com.yahoo.container.handler;
 
 import com.yahoo.compress.ZstdCompressor;
+import com.yahoo.log.impl.LogArchiveIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIf;
@@ -15,11 +16,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 import java.util.zip.GZIPOutputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class LogReaderTest {
@@ -112,6 +116,50 @@ public class LogReaderTest {
         assertEquals(log101 + log100b, baos.toString(UTF_8));
     }
 
+    @Test
+    void indexedArchivesAreReadOnlyWhereNeeded() throws IOException {
+        Files.createDirectories(logDirectory.resolve("1970/01/03"));
+        String chunk1 = "172800.1\tnode1.com\t5480\tcontainer\tstdout\tinfo\tfirst\n";
+        String chunk2 = "172801.1\tnode1.com\t5480\tcontainer\tstdout\tinfo\tsecond\n" +
+                        "172802.1\tnode3.com\t5480\tcontainer\tstdout\tinfo\tthird\n";
+        String chunk3 = "172803.1\tnode1.com\t5480\tcontainer\tstdout\tinfo\tfourth\n";
+
+        // The first and last chunks are not valid zstd frames, and reading them would fail
+        Path zstdArchive = logDirectory.resolve("1970/01/03/00-0.zst");
+        ByteArrayOutputStream zstd = new ByteArrayOutputStream();
+        LogArchiveIndex.Builder zstdIndex = LogArchiveIndex.builder();
+        for (String chunk : List.of(chunk1, chunk2, chunk3)) {
+            byte[] compressed = chunk == chunk2 ? compress2(chunk) : new byte[7];
+            zstd.write(compressed);
+            zstdIndex.add(chunk.getBytes(UTF_8), 0, chunk.length(), compressed.length);
+        }
+        Files.write(zstdArchive, zstd.toByteArray());
+        zstdIndex.build().writeFor(zstdArchive);
+
+        Path gzipArchive = logDirectory.resolve("1970/01/03/00-1.gz");
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        LogArchiveIndex.Builder gzipIndex = LogArchiveIndex.builder();
+        for (String chunk : List.of(chunk1, chunk2, chunk3)) {
+            byte[] compressed = compress1(chunk);
+            gzip.write(compressed);
+            gzipIndex.add(chunk.getBytes(UTF_8), 0, chunk.length(), compressed.length);
+        }
+        Files.write(gzipArchive, gzip.toByteArray());
+        gzipIndex.build().writeFor(gzipArchive);
+
+        LogReader logReader = new LogReader(logDirectory, Pattern.compile(".*"));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        logReader.writeLogs(baos, Instant.ofEpochSecond(172801), Instant.ofEpochSecond(172803), 100, Optional.empty());
+        assertEquals(chunk2.lines().flatMap(line -> Stream.of(line, line)).map(line -> line + "\n").collect(joining()),
+                     baos.toString(UTF_8));
+
+        // Neither archive has entries from node2, so neither is read at all
+        Files.write(zstdArchive, new byte[Files.readAllBytes(zstdArchive).length]);
+        baos.reset();
+        logReader.writeLogs(baos, Instant.ofEpochSecond(172800), Instant.ofEpochSecond(172900), 100, Optional.of("node2.com"));
+        assertEquals("", baos.toString(UTF_8));
+    }
+
     private byte[] compress1(String input) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         OutputStream zip = new GZIPOutputStream(baos);
@@ -10,11 +10,19 @@ import com.yahoo.jdisc.Metric;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 /**
@@ -116,6 +124,88 @@ public class ContainerThreadPoolImplTest {
         assertEquals(CPUS * 4 * 100, executor.getQueue().remainingCapacity());
     }
 
+    @Test
+    void testQueueTimeController() {
+        long ms = 1_000_000;
+        QueueTimeController controller = new QueueTimeController(Duration.ofMillis(5), Duration.ofMillis(100), 0);
+        assertFalse(controller.shouldShed(50 * ms, 10 * ms), "Not shed before queue times are above target for an interval");
+        assertFalse(controller.shouldShed(3 * ms, 60 * ms));
+        assertFalse(controller.shouldShed(50 * ms, 110 * ms), "Not shed after an interval where a task started in time");
+        assertFalse(controller.shouldShed(8 * ms, 150 * ms));
+        assertTrue(controller.shouldShed(11 * ms, 215 * ms), "Shed after an interval where all tasks were late, when queued for more than twice the target");
+        assertFalse(controller.shouldShed(9 * ms, 220 * ms), "Not shed when queued for less than twice the target");
+        assertFalse(controller.shouldShed(1 * ms, 230 * ms));
+        assertFalse(controller.shouldShed(50 * ms, 320 * ms), "Not shed after an interval where a task started in time");
+        assertFalse(controller.shouldShed(50 * ms, 700 * ms), "Not shed after an interval where no tasks started");
+        assertTrue(controller.shouldShed(50 * ms, 810 * ms));
+    }
+
+    @Test
+    void testThreadCountController() {
+        long second = 1_000_000_000;
+        ThreadCountController controller = new ThreadCountController(4, 36, Duration.ofSeconds(1), 0);
+        assertEquals(36, controller.update(second / 2, 500, true));
+        assertEquals(34, controller.update(second, 1000, false)); // First saturated window: Try fewer threads
+        assertEquals(32, controller.update(2 * second, 2200, true)); // Throughput increased: Continue
+        assertEquals(34, controller.update(3 * second, 3000, true)); // Throughput decreased: Reverse
+        assertEquals(36, controller.update(4 * second, 4000, true)); // Throughput increased: Continue
+        assertEquals(34, controller.update(5 * second, 5020, true)); // Throughput unchanged: Try fewer threads
+        assertEquals(34, controller.update(6 * second, 5100, false)); // Not saturated: Unchanged
+        assertEquals(32, controller.update(7 * second, 6100, true));
+
+        controller = new ThreadCountController(4, 6, Duration.ofSeconds(1), 0);
+        for (int i = 1; i <= 5; i++)
+            assertEquals(Math.max(4, 6 - i), controller.update(i * second, i * 1000, true));
+    }
+
+    @Test
+    void testThatSheddableTasksAreShedWhenOverloaded() throws InterruptedException {
+        MetricMock metrics = new MetricMock();
+        ContainerThreadpoolConfig config = new ContainerThreadpoolConfig(new ContainerThreadpoolConfig.Builder()
+                                                                                 .maxThreads(1)
+                                                                                 .minThreads(1)
+                                                                                 .queueSize(100)
+                                                                                 .adaptive(true)
+                                                                                 .queueTimeTarget(0.001)
+                                                                                 .queueTimeInterval(0.01));
+        ContainerThreadPool threadPool = new ContainerThreadpoolImpl(config, metrics, new MockProcessTerminator(), CPUS);
+        AtomicInteger run = new AtomicInteger();
+        AtomicInteger shed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            threadPool.executor().execute(new SheddableTask() {
+                @Override public void run() { new Hang(2).run(); run.incrementAndGet(); done.countDown(); }
+                @Override public void shed() { shed.incrementAndGet(); done.countDown(); }
+            });
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        assertEquals(100, run.get() + shed.get());
+        assertTrue(shed.get() > 0, "Some tasks were shed");
+        assertTrue(metrics.innvocations().containsKey(ContainerMetrics.JDISC_THREAD_POOL_WORK_QUEUE_TIME.baseName()));
+        threadPool.close();
+    }
+
+    @Test
+    void testThatQueuedTasksKeepTheirIdentityWhenAdaptive() throws InterruptedException {
+        var executor = new WorkerCompletionTimingThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                                                                    Thread::new, new ThreadPoolMetric(new MetricMock(), "test"),
+                                                                    new QueueTimeController(Duration.ofMillis(5), Duration.ofMillis(100), 0),
+                                                                    null);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> { started.countDown(); try { release.await(); } catch (InterruptedException ignored) { } });
+        assertTrue(started.await(60, TimeUnit.SECONDS));
+        Runnable removed = () -> { };
+        Runnable remaining = () -> { };
+        executor.execute(removed);
+        executor.execute(remaining);
+        assertTrue(executor.remove(removed));
+        assertFalse(executor.remove(removed));
+        assertEquals(List.of(remaining), executor.shutdownNow());
+        release.countDown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+    }
+
     private static class FlipIt implements Runnable {
         public final Receiver<Boolean> didItRun = new Receiver<>();
 
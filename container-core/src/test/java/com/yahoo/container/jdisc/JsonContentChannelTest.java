@@ -0,0 +1,93 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.jdisc;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JsonContentChannelTest {
+
+    private final JsonFactory factory = new JsonFactory();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final CompletionHandler handler = new CompletionHandler() {
+        @Override public void completed() { completed.incrementAndGet(); }
+        @Override public void failed(Throwable t) { throw new AssertionError(t); }
+    };
+
+    @Test
+    void content_is_parsed_as_it_is_written() throws IOException {
+        String json = "{\"fields\":{\"text\":\"blåbær\",\"number\":1.10,\"big\":123456789012345678901234567890,\"list\":[true,null]}}";
+        AtomicReference<JsonParser> parsed = new AtomicReference<>();
+        AtomicReference<Long> bytes = new AtomicReference<>();
+        JsonContentChannel channel = new JsonContentChannel(factory, (length, parser) -> { bytes.set(length); parsed.set(parser); });
+
+        byte[] data = json.getBytes(UTF_8);
+        for (int i = 0; i < data.length; i += 3) // Splits the multi-byte characters, and all other tokens, across writes
+            channel.write(ByteBuffer.wrap(data, i, Math.min(3, data.length - i)), handler);
+        assertEquals((data.length + 2) / 3, completed.get());
+        assertNull(parsed.get());
+
+        channel.close(handler);
+        assertEquals((long) data.length, bytes.get());
+        assertEquals(tokensOf(factory.createParser(json)), tokensOf(parsed.get()));
+    }
+
+    @Test
+    void parse_errors_are_thrown_after_preceding_tokens() throws IOException {
+        AtomicReference<JsonParser> parsed = new AtomicReference<>();
+        JsonContentChannel channel = new JsonContentChannel(factory, (length, parser) -> parsed.set(parser));
+        channel.write(ByteBuffer.wrap("{\"a\":1,".getBytes(UTF_8)), handler);
+        channel.write(ByteBuffer.wrap("\"b\" 2}".getBytes(UTF_8)), handler);
+        channel.write(ByteBuffer.wrap(",\"c\":3}".getBytes(UTF_8)), handler);
+        channel.close(handler);
+        assertEquals(4, completed.get());
+
+        JsonParser parser = parsed.get();
+        assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+        assertEquals(JsonToken.FIELD_NAME, parser.nextToken());
+        assertEquals(JsonToken.VALUE_NUMBER_INT, parser.nextToken());
+        assertEquals(JsonToken.FIELD_NAME, parser.nextToken());
+        assertEquals("b", parser.currentName());
+        assertThrows(JsonParseException.class, parser::nextToken);
+    }
+
+    @Test
+    void content_is_not_passed_on_after_error() {
+        AtomicReference<JsonParser> parsed = new AtomicReference<>();
+        JsonContentChannel channel = new JsonContentChannel(factory, (length, parser) -> parsed.set(parser));
+        channel.write(ByteBuffer.wrap("{}".getBytes(UTF_8)), handler);
+        channel.onError(new RuntimeException("client went away"));
+        channel.close(handler);
+        assertEquals(2, completed.get());
+        assertNull(parsed.get());
+    }
+
+    private static List<String> tokensOf(JsonParser parser) {
+        try {
+            List<String> tokens = new ArrayList<>();
+            for (JsonToken token; (token = parser.nextToken()) != null; )
+                tokens.add(token + ":" + parser.getText());
+            return tokens;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.jdisc;
+
+import com.yahoo.io.ByteBufferPool;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that pooled buffers are returned to the pool when their writes complete.
+ */
+public class PooledContentChannelOutputStreamTestCase {
+
+    private static class RecordingContentChannel implements ContentChannel {
+
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final List<CompletionHandler> pending = new ArrayList<>();
+        final boolean completeImmediately;
+
+        RecordingContentChannel(boolean completeImmediately) {
+            this.completeImmediately = completeImmediately;
+        }
+
+        @Override
+        public void write(ByteBuffer buf, CompletionHandler handler) {
+            byte[] bytes = new byte[buf.remaining()];
+            buf.get(bytes);
+            received.write(bytes, 0, bytes.length);
+            if (completeImmediately)
+                handler.completed();
+            else
+                pending.add(handler);
+        }
+
+        @Override
+        public void close(CompletionHandler handler) { }
+
+    }
+
+    @Test
+    void testBuffersAreRecycledOnCompletion() throws IOException {
+        ByteBufferPool pool = new ByteBufferPool(false);
+        RecordingContentChannel channel = new RecordingContentChannel(false);
+        ContentChannelOutputStream stream = new ContentChannelOutputStream(channel, pool);
+        writeAndVerify(stream, channel);
+
+        assertTrue(pool.outstandingBytes() > 0);
+        channel.pending.get(0).completed();
+        channel.pending.subList(1, channel.pending.size()).forEach(handler -> handler.failed(new RuntimeException()));
+        assertEquals(0, pool.outstandingBytes());
+
+        stream.write(1);
+        stream.flush();
+        assertEquals(1, pool.hits());
+    }
+
+    @Test
+    void testBuffersAreRecycledOnCompletionWithMaxPending() throws IOException {
+        ByteBufferPool pool = new ByteBufferPool(false);
+        RecordingContentChannel channel = new RecordingContentChannel(true);
+        ContentChannelOutputStream stream = new MaxPendingContentChannelOutputStream(channel, 1 << 20, pool);
+        writeAndVerify(stream, channel);
+
+        assertEquals(0, pool.outstandingBytes());
+
+        stream.write(1);
+        stream.flush();
+        assertEquals(1, pool.hits());
+    }
+
+    private void writeAndVerify(ContentChannelOutputStream stream, RecordingContentChannel channel) throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < 10000; i++) {
+            stream.write(i);
+            expected.write(i);
+        }
+        stream.write(new byte[] { 1, 2, 3 });
+        expected.write(new byte[] { 1, 2, 3 });
+        stream.flush();
+        stream.send(ByteBuffer.wrap(new byte[] { 4 })); // Not from the pool
+        expected.write(4);
+
+        assertArrayEquals(expected.toByteArray(), channel.received.toByteArray());
+    }
+
+}
@@ -2,11 +2,15 @@
 package com.yahoo.container.jdisc;
 
 import com.yahoo.container.test.MetricMock;
+import com.yahoo.io.ByteBufferPool;
 import com.yahoo.jdisc.Metric;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.concurrent.Executors;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -27,6 +31,28 @@ public class ThreadedHttpRequestHandlerTest {
                 .containsKey(expectedMetricName));
     }
 
+    @Test
+    void responses_using_pooled_buffers_are_rendered_into_buffers_from_the_response_buffer_pool() {
+        ByteBufferPool pool = ContentChannelOutputStream.responseBufferPool();
+        long acquiredBefore = pool.hits() + pool.misses();
+        byte[] digits = "0123456789".getBytes(UTF_8);
+        ThreadedHttpRequestHandler handler = new ThreadedHttpRequestHandler(Executors.newSingleThreadExecutor(), new MetricMock()) {
+            @Override public HttpResponse handle(HttpRequest request) {
+                return new HttpResponse(200) {
+                    @Override public void render(OutputStream output) throws IOException {
+                        for (int i = 0; i < 100_000; i++)
+                            output.write(digits);
+                    }
+                    @Override public boolean usePooledBuffers() { return true; }
+                };
+            }
+        };
+        try (RequestHandlerTestDriver driver = new RequestHandlerTestDriver(handler)) {
+            assertEquals("0123456789".repeat(100_000), driver.sendRequest("http://localhost/myhandler").readAll());
+        }
+        assertTrue(pool.hits() + pool.misses() > acquiredBefore);
+    }
+
 
     private static class ThreadedHttpRequestHandlerThrowingException extends ThreadedHttpRequestHandler {
         ThreadedHttpRequestHandlerThrowingException(Metric metric) {
@@ -17,7 +17,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.function.BiFunction;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
@@ -206,6 +208,49 @@ public class LogFileHandlerTestCase {
         h.shutdown();
     }
 
+    @Test
+    @Timeout(300_000)
+    void high_throughput_mode_writes_entries_from_all_threads_in_batches() throws InterruptedException, IOException {
+        File root = newFolder(temporaryFolder, "highthroughput");
+        LogFileHandler<String> h = new LogFileHandler<>(
+                Compression.ZSTD, BUFFER_SIZE, root.getAbsolutePath() + "/logfilehandlertest.%Y%m%d%H%M%S%s", new long[]{0}, null,
+                1 << 16, "thread-name", new StringLogWriter(), true, null);
+        int threads = 4, entriesPerThread = 5000;
+        List<Thread> publishers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String prefix = "thread-" + t + "-";
+            Thread publisher = new Thread(() -> {
+                for (int i = 0; i < entriesPerThread; i++)
+                    h.publish(prefix + i);
+            });
+            publisher.start();
+            publishers.add(publisher);
+        }
+        for (Thread publisher : publishers)
+            publisher.join();
+        h.flush();
+
+        assertEquals(0, h.droppedEntries());
+        File uncompressed = new File(h.getFileName());
+        List<String> lines = Files.readAllLines(uncompressed.toPath());
+        assertEquals(threads * entriesPerThread, lines.size());
+        for (int t = 0; t < threads; t++) {
+            String prefix = "thread-" + t + "-";
+            List<String> linesFromThread = lines.stream().filter(line -> line.startsWith(prefix)).toList();
+            for (int i = 0; i < entriesPerThread; i++)
+                assertEquals(prefix + i, linesFromThread.get(i));
+        }
+
+        h.rotateNow();
+        while (uncompressed.exists()) {
+            Thread.sleep(1);
+        }
+        assertTrue(new File(uncompressed + ".zst").exists());
+        h.publishAndWait("last");
+        assertEquals(List.of("last"), Files.readAllLines(Paths.get(h.getFileName())));
+        h.shutdown();
+    }
+
     static class StringLogWriter implements LogWriter<String> {
 
         @Override
@@ -0,0 +1,61 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.container.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MpscRingBufferTest {
+
+    @Test
+    void rejects_elements_when_full_and_drains_in_order() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(3);
+        assertEquals(4, ring.capacity());
+        for (int i = 0; i < 4; i++)
+            assertTrue(ring.offer(i));
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, ring.drain(drained::add, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertTrue(ring.offer(5));
+        assertTrue(ring.offer(6));
+        assertTrue(ring.offer(7));
+        assertFalse(ring.offer(8));
+
+        drained.clear();
+        assertEquals(4, ring.drain(drained::add, 10));
+        assertEquals(List.of(3, 5, 6, 7), drained);
+        assertEquals(0, ring.size());
+        assertEquals(0, ring.drain(drained::add, 10));
+    }
+
+    @Test
+    void concurrent_producers_lose_nothing_which_was_accepted() throws InterruptedException {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(64);
+        int producers = 4, perProducer = 10_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                    while ( ! ring.offer(i)) Thread.yield();
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        long[] sum = new long[1];
+        int consumed = 0;
+        while (consumed < producers * perProducer)
+            consumed += ring.drain(value -> sum[0] += value, 100);
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals((long) producers * perProducer * (perProducer - 1) / 2, sum[0]);
+    }
+
+}
@@ -0,0 +1,107 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.metrics.simple;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Functional tests for metric handles.
+ */
+public class MetricHandleTest {
+
+    MetricReceiver receiver;
+
+    @BeforeEach
+    public void setUp() {
+        receiver = new MetricReceiver.MockReceiver();
+    }
+
+    @Test
+    final void testHandlesAreShared() {
+        Point p = receiver.pointBuilder().set("x", "y").build();
+        assertSame(receiver.handle("metric", p), receiver.handle("metric", p));
+    }
+
+    @Test
+    final void testCounter() {
+        Point p = receiver.pointBuilder().set("x", "y").build();
+        MetricHandle handle = receiver.handle("unitTestCounter", p);
+        handle.add(3);
+        handle.add(4);
+        List<Entry<Point, UntypedMetric>> values = receiver.getSnapshot().getValuesByMetricName().get("unitTestCounter");
+        assertEquals(1, values.size());
+        assertEquals(p, values.get(0).getKey());
+        assertTrue(values.get(0).getValue().isCounter());
+        assertEquals(7L, values.get(0).getValue().getCount());
+
+        assertTrue(receiver.getSnapshot().getValuesByMetricName().isEmpty(), "Not reported when not updated");
+        handle.add(0);
+        assertEquals(0L, receiver.getSnapshot().getValuesForMetric("unitTestCounter").iterator().next().getValue().getCount());
+    }
+
+    @Test
+    final void testGauge() {
+        MetricHandle handle = receiver.handle("unitTestGauge", null);
+        handle.set(2.0d);
+        handle.set(7L);
+        handle.set(3.0d);
+        List<Entry<Point, UntypedMetric>> values = receiver.getSnapshot().getValuesByMetricName().get("unitTestGauge");
+        assertEquals(1, values.size());
+        assertEquals(Point.emptyPoint(), values.get(0).getKey());
+        UntypedMetric value = values.get(0).getValue();
+        assertFalse(value.isCounter());
+        assertEquals(3L, value.getCount());
+        assertEquals(3.0d, value.getLast(), 0.0d);
+        assertEquals(2.0d, value.getMin(), 0.0d);
+        assertEquals(7.0d, value.getMax(), 0.0d);
+        assertEquals(12.0d, value.getSum(), 0.0d);
+
+        assertTrue(receiver.getSnapshot().getValuesByMetricName().isEmpty());
+    }
+
+    @Test
+    final void testHistogram() {
+        receiver.declareGauge("unitTestHistogram", Optional.empty(), new MetricSettings.Builder().histogram(true).build());
+        MetricHandle handle = receiver.handle("unitTestHistogram", null);
+        for (int i = 1; i <= 100; i++)
+            handle.set((double) i);
+        UntypedMetric value = receiver.getSnapshot().getValuesForMetric("unitTestHistogram").iterator().next().getValue();
+        assertNotNull(value.getHistogram());
+        assertEquals(50.0d, value.getHistogram().getValueAtPercentile(50.0d), 1.0d);
+    }
+
+    @Test
+    final void testIdleHandlesAreExpired() {
+        MetricHandle handle = receiver.handle("unitTestCounter", null);
+        handle.add(1);
+        for (int i = 0; i <= MetricHandle.maxIdleIntervals; i++)
+            receiver.getSnapshot();
+        assertNotSame(handle, receiver.handle("unitTestCounter", null), "Expired handle is replaced");
+
+        handle.add(2);
+        receiver.handle("unitTestCounter", null).add(3);
+        assertEquals(5L, receiver.getSnapshot().getValuesForMetric("unitTestCounter").iterator().next().getValue().getCount(),
+                     "Expired handles are collected when used again");
+    }
+
+    @Test
+    final void testHandlesAndSamplesAreMerged() {
+        receiver.declareGauge("unitTestGauge").sample(1.0d);
+        receiver.handle("unitTestGauge", null).set(5.0d);
+        UntypedMetric value = receiver.getSnapshot().getValuesForMetric("unitTestGauge").iterator().next().getValue();
+        assertEquals(2L, value.getCount());
+        assertEquals(6.0d, value.getSum(), 0.0d);
+    }
+
+}
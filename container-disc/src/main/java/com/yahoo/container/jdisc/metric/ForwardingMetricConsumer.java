@@ -47,6 +47,17 @@ public final class ForwardingMetricConsumer implements MetricConsumer {
         return new ForwardingContext(contexts);
     }
 
+    @Override
+    public Metric.Handle createHandle(String key, Metric.Context ctx) {
+        ForwardingContext fwd = (ForwardingContext)ctx;
+        Metric.Handle[] handles = new Metric.Handle[consumers.length];
+        for (int i = 0; i < consumers.length; ++i) {
+            handles[i] = consumers[i].createHandle(key, fwd != null ? fwd.contexts[i] : null);
+            if (handles[i] == null) return null;
+        }
+        return new ForwardingHandle(handles);
+    }
+
     private static class ForwardingContext implements Metric.Context {
 
         final Metric.Context[] contexts;
@@ -56,4 +67,34 @@ public final class ForwardingMetricConsumer implements MetricConsumer {
         }
     }
 
+    private static class ForwardingHandle implements Metric.Handle {
+
+        final Metric.Handle[] handles;
+
+        ForwardingHandle(Metric.Handle[] handles) {
+            this.handles = handles;
+        }
+
+        @Override
+        public void set(long val) {
+            for (Metric.Handle handle : handles) {
+                handle.set(val);
+            }
+        }
+
+        @Override
+        public void set(double val) {
+            for (Metric.Handle handle : handles) {
+                handle.set(val);
+            }
+        }
+
+        @Override
+        public void add(long val) {
+            for (Metric.Handle handle : handles) {
+                handle.add(val);
+            }
+        }
+    }
+
 }
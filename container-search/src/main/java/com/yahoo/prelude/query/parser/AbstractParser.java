@@ -374,7 +374,7 @@ public abstract class AbstractParser implements CustomParser {
         }
 
 
-        Segmenter segmenter = environment.getLinguistics().getSegmenter();
+        Segmenter segmenter = environment.getSegmenter();
         List<String> segments = segmenter.segment(normalizedToken, language);
         if (segments.isEmpty()) {
             return null;
@@ -15,6 +15,8 @@ import com.yahoo.search.Result;
 import com.yahoo.search.Searcher;
 import com.yahoo.language.Language;
 import com.yahoo.language.Linguistics;
+import com.yahoo.language.process.LinguisticsCache;
+import com.yahoo.language.process.Transformer;
 import com.yahoo.search.Query;
 import com.yahoo.search.searchchain.Execution;
 import com.yahoo.search.searchchain.PhaseNames;
@@ -48,20 +50,32 @@ public class NormalizingSearcher extends Searcher {
 
     @Override
     public Result search(Query query, Execution execution) {
-        normalize(query, execution.context().getIndexFacts().newSession(query));
+        normalize(query, execution.context().getIndexFacts().newSession(query), transformer(execution));
         return execution.search(query);
     }
 
+    /** Returns a transformer using the cache of the given execution if it caches processing by the linguistics of this */
+    private Transformer transformer(Execution execution) {
+        LinguisticsCache cache = execution.context().getLinguisticsCache();
+        if (cache != null && cache.linguistics() == linguistics)
+            return cache::accentDrop;
+        return linguistics.getTransformer();
+    }
+
     protected void normalize(Query query, IndexFacts.Session indexFacts) {
+        normalize(query, indexFacts, linguistics.getTransformer());
+    }
+
+    private void normalize(Query query, IndexFacts.Session indexFacts, Transformer transformer) {
         String oldQuery = (query.getTrace().getLevel() >= 2) ? query.getModel().getQueryTree().getRoot().toString() : null;
 
-        normalizeBody(query, indexFacts);
+        normalizeBody(query, indexFacts, transformer);
 
         if (query.getTrace().getLevel() >= 2 && ! query.getModel().getQueryTree().getRoot().toString().equals(oldQuery))
             query.trace(getFunctionName(), true, 2);
     }
 
-    private void normalizeBody(Query query, IndexFacts.Session indexFacts) {
+    private void normalizeBody(Query query, IndexFacts.Session indexFacts, Transformer transformer) {
         Item root = query.getModel().getQueryTree().getRoot();
         Language language = query.getModel().getParsingLanguage();
         if (root instanceof BlockItem) {
@@ -69,26 +83,26 @@ public class NormalizingSearcher extends Searcher {
             rootItems.add(root);
             ListIterator<Item> i = rootItems.listIterator();
             i.next();
-            normalizeBlocks(language, indexFacts, (BlockItem) root, i);
+            normalizeBlocks(transformer, language, indexFacts, (BlockItem) root, i);
             if ( ! rootItems.isEmpty()) // give up normalizing if the root was removed
                 query.getModel().getQueryTree().setRoot(rootItems.get(0));
         } else if (root instanceof CompositeItem) {
-            query.getModel().getQueryTree().setRoot(normalizeComposite(language, indexFacts, (CompositeItem) root));
+            query.getModel().getQueryTree().setRoot(normalizeComposite(transformer, language, indexFacts, (CompositeItem) root));
         }
     }
     
-    private Item normalizeComposite(Language language, IndexFacts.Session indexFacts, CompositeItem item) {
+    private Item normalizeComposite(Transformer transformer, Language language, IndexFacts.Session indexFacts, CompositeItem item) {
         if (item instanceof PhraseItem phrase)  {
-            return normalizePhrase(language, indexFacts, phrase);
+            return normalizePhrase(transformer, language, indexFacts, phrase);
         }
         else {
             for (ListIterator<Item> i = item.getItemIterator(); i.hasNext(); ) {
                 Item current = i.next();
 
                 if (current instanceof BlockItem block) {
-                    normalizeBlocks(language, indexFacts, block, i);
+                    normalizeBlocks(transformer, language, indexFacts, block, i);
                 } else if (current instanceof CompositeItem composite) {
-                    Item currentProcessed = normalizeComposite(language, indexFacts, composite);
+                    Item currentProcessed = normalizeComposite(transformer, language, indexFacts, composite);
                     i.set(currentProcessed);
                 }
             }
@@ -96,20 +110,20 @@ public class NormalizingSearcher extends Searcher {
         }
     }
 
-    private void normalizeBlocks(Language language, IndexFacts.Session indexFacts, BlockItem block, ListIterator<Item> i) {
+    private void normalizeBlocks(Transformer transformer, Language language, IndexFacts.Session indexFacts, BlockItem block, ListIterator<Item> i) {
         if (block instanceof TermItem term) {
             if (block instanceof WordAlternativesItem alternatives) {
-                normalizeAlternatives(language, indexFacts, alternatives);
+                normalizeAlternatives(transformer, language, indexFacts, alternatives);
             } else {
-                normalizeWord(language, indexFacts, term, i);
+                normalizeWord(transformer, language, indexFacts, term, i);
             }
         } else {
             for (ListIterator<Item> j = ((SegmentItem) block).getItemIterator(); j.hasNext();)
-                normalizeWord(language, indexFacts, (TermItem) j.next(), j);
+                normalizeWord(transformer, language, indexFacts, (TermItem) j.next(), j);
         }
     }
 
-    private void normalizeAlternatives(Language language, Session indexFacts, WordAlternativesItem block) {
+    private void normalizeAlternatives(Transformer transformer, Language language, Session indexFacts, WordAlternativesItem block) {
         if ( ! block.isNormalizable()) return;
 
         Index index = indexFacts.getIndex(block.getIndexName());
@@ -118,37 +132,37 @@ public class NormalizingSearcher extends Searcher {
 
         List<Alternative> terms = block.getAlternatives();
         for (Alternative term : terms) {
-            String accentDropped = linguistics.getTransformer().accentDrop(term.word, language);
+            String accentDropped = transformer.accentDrop(term.word, language);
             if ( ! term.word.equals(accentDropped) && !accentDropped.isEmpty())
                 block.addTerm(accentDropped, term.exactness * .7d);
         }
     }
 
-    private Item normalizePhrase(Language language, IndexFacts.Session indexFacts, PhraseItem phrase) {
+    private Item normalizePhrase(Transformer transformer, Language language, IndexFacts.Session indexFacts, PhraseItem phrase) {
         if ( ! indexFacts.getIndex(phrase.getIndexName()).getNormalize()) return phrase;
 
         for (ListIterator<Item> i = phrase.getItemIterator(); i.hasNext();) {
             IndexedItem content = (IndexedItem)i.next();
 
             if (content instanceof TermItem term) {
-                normalizeWord(language, indexFacts, term, i);
+                normalizeWord(transformer, language, indexFacts, term, i);
             }
             else {
                 for (ListIterator<Item> j = ((PhraseSegmentItem)content).getItemIterator(); j.hasNext();)
-                    normalizeWord(language, indexFacts, (TermItem) j.next(), j);
+                    normalizeWord(transformer, language, indexFacts, (TermItem) j.next(), j);
             }
         }
         return phrase;
     }
 
-    private void normalizeWord(Language language, IndexFacts.Session indexFacts, TermItem term, ListIterator<Item> i) {
+    private void normalizeWord(Transformer transformer, Language language, IndexFacts.Session indexFacts, TermItem term, ListIterator<Item> i) {
         if ( ! (term instanceof WordItem word)) return;
         if ( ! term.isNormalizable()) return;
         Index index = indexFacts.getIndex(term.getIndexName());
         if (index.isAttribute()) return;
         if ( ! index.getNormalize()) return;
 
-        String accentDropped = linguistics.getTransformer().accentDrop(word.getWord(), language);
+        String accentDropped = transformer.accentDrop(word.getWord(), language);
         if (accentDropped.isEmpty())
             i.remove();
         else
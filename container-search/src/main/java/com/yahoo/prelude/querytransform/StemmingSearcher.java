@@ -7,6 +7,7 @@ import com.yahoo.component.chain.dependencies.After;
 import com.yahoo.component.chain.dependencies.Provides;
 import com.yahoo.language.Language;
 import com.yahoo.language.Linguistics;
+import com.yahoo.language.process.LinguisticsCache;
 import com.yahoo.language.process.LinguisticsParameters;
 import com.yahoo.language.process.StemMode;
 import com.yahoo.language.process.StemList;
@@ -66,6 +67,7 @@ public class StemmingSearcher extends Searcher {
         public Language language = null;
         public IndexFacts.Session indexFacts = null;
         public Map<Item, TaggableItem> reverseConnectivity = null;
+        public LinguisticsCache linguisticsCache = null;
     }
 
     public static final String STEMMING = "Stemming";
@@ -87,7 +89,8 @@ public class StemmingSearcher extends Searcher {
         if (query.properties().getBoolean(DISABLE)) return execution.search(query);
 
         IndexFacts.Session indexFacts = execution.context().getIndexFacts().newSession(query);
-        Item newRoot = replaceTerms(query, indexFacts);
+        LinguisticsCache linguisticsCache = linguisticsCache(execution);
+        Item newRoot = replaceTerms(query, indexFacts, linguisticsCache);
         query.getModel().getQueryTree().setRoot(newRoot);
 
         query.trace(getFunctionName(), true, 2);
@@ -101,6 +104,7 @@ public class StemmingSearcher extends Searcher {
                     StemContext context = new StemContext();
                     context.language = Language.ENGLISH;
                     context.indexFacts = indexFacts;
+                    context.linguisticsCache = linguisticsCache;
                     Item newHighlight = scan(highlight.getHighlightItems().get(field), context);
                     highlight.getHighlightItems().put(field, (AndItem)newHighlight);
                 }
@@ -111,7 +115,13 @@ public class StemmingSearcher extends Searcher {
 
     public String getFunctionName() { return "Stemming"; }
 
-    private Item replaceTerms(Query q, IndexFacts.Session indexFacts) {
+    /** Returns the cache of the given execution if it caches processing by the linguistics of this, or null */
+    private LinguisticsCache linguisticsCache(Execution execution) {
+        LinguisticsCache cache = execution.context().getLinguisticsCache();
+        return cache != null && cache.linguistics() == linguistics ? cache : null;
+    }
+
+    private Item replaceTerms(Query q, IndexFacts.Session indexFacts, LinguisticsCache linguisticsCache) {
         Language language = q.getModel().getParsingLanguage();
         if (language == Language.UNKNOWN) {
             q.trace("Language is unknown, not stemming", 3);
@@ -122,6 +132,7 @@ public class StemmingSearcher extends Searcher {
         context.isCJK = language.isCjk();
         context.language = language;
         context.indexFacts = indexFacts;
+        context.linguisticsCache = linguisticsCache;
         context.reverseConnectivity = createReverseConnectivities(q.getModel().getQueryTree().getRoot());
         if (q.getTrace().getLevel() >= 3)
             q.trace("Stemming with language " + language + " using " + linguistics, 3);
@@ -201,7 +212,9 @@ public class StemmingSearcher extends Searcher {
         var parameters = new LinguisticsParameters(context.language, index.getStemMode(), index.getNormalize(), index.isLowercase());
         Item blockAsItem = (Item)current;
         CompositeItem composite;
-        List<StemList> segments = linguistics.getStemmer().stem(current.stringValue(), parameters);
+        List<StemList> segments = context.linguisticsCache != null
+                                  ? context.linguisticsCache.stem(current.stringValue(), parameters)
+                                  : linguistics.getStemmer().stem(current.stringValue(), parameters);
         if (segments.isEmpty()) return blockAsItem;
 
         String indexName = current.getIndexName();
@@ -84,7 +84,7 @@ public class StatisticsSearcher extends Searcher {
     private enum DegradedReason { match_phase, adaptive_timeout, timeout, non_ideal_state }
 
     private final Metric metric;
-    private final Map<String, Metric.Context> chainContexts = new CopyOnWriteHashMap<>();
+    private final Map<String, ChainMetrics> chainMetrics = new CopyOnWriteHashMap<>();
     private final Map<String, Metric.Context> statePageOnlyContexts = new CopyOnWriteHashMap<>();
     private final Map<String, Map<DegradedReason, Metric.Context>> degradedReasonContexts = new CopyOnWriteHashMap<>();
     private final Map<String, Map<String, Metric.Context>> relevanceContexts = new CopyOnWriteHashMap<>();
@@ -123,6 +123,45 @@ public class StatisticsSearcher extends Searcher {
         }
     }
 
+    /** The context and the metric handles of a chain, resolved once per chain rather than once per query. */
+    private class ChainMetrics {
+
+        final Metric.Context context;
+        final Metric.Handle queries;
+        final Metric.Handle failedQueries;
+        final Metric.Handle queryTimeout;
+        final Metric.Handle queryLatency;
+        final Metric.Handle meanQueryLatency;
+        final Metric.Handle maxQueryLatency;
+        final Metric.Handle docsCovered;
+        final Metric.Handle docsTotal;
+        final Metric.Handle docsTargetTotal;
+        final Metric.Handle hitsPerQuery;
+        final Metric.Handle totalHitsPerQuery;
+        final Metric.Handle queryHitOffset;
+        final Metric.Handle emptyResults;
+        final Metric.Handle queryItemCount;
+
+        ChainMetrics(Metric.Context context) {
+            this.context = context;
+            this.queries = metric.handle(QUERIES_METRIC, context);
+            this.failedQueries = metric.handle(FAILED_QUERIES_METRIC, context);
+            this.queryTimeout = metric.handle(QUERY_TIMEOUT_METRIC, context);
+            this.queryLatency = metric.handle(QUERY_LATENCY_METRIC, context);
+            this.meanQueryLatency = metric.handle(MEAN_QUERY_LATENCY_METRIC, context);
+            this.maxQueryLatency = metric.handle(MAX_QUERY_LATENCY_METRIC, context);
+            this.docsCovered = metric.handle(DOCS_COVERED_METRIC, context);
+            this.docsTotal = metric.handle(DOCS_TOTAL_METRIC, context);
+            this.docsTargetTotal = metric.handle(DOCS_TARGET_TOTAL_METRIC, context);
+            this.hitsPerQuery = metric.handle(HITS_PER_QUERY_METRIC, context);
+            this.totalHitsPerQuery = metric.handle(TOTALHITS_PER_QUERY_METRIC, context);
+            this.queryHitOffset = metric.handle(QUERY_HIT_OFFSET_METRIC, context);
+            this.emptyResults = metric.handle(EMPTY_RESULTS_METRIC, context);
+            this.queryItemCount = metric.handle(QUERY_ITEM_COUNT, context);
+        }
+
+    }
+
     public StatisticsSearcher(Metric metric, MetricReceiver metricReceiver) {
         this.peakQpsReporter = new PeakQpsReporter();
         this.metric = metric;
@@ -145,15 +184,15 @@ public class StatisticsSearcher extends Searcher {
         peakQpsReporter.countQuery();
     }
 
-    private Metric.Context getChainMetricContext(String chainName) {
-        Metric.Context context = chainContexts.get(chainName);
-        if (context == null) {
+    private ChainMetrics getChainMetrics(String chainName) {
+        ChainMetrics metrics = chainMetrics.get(chainName);
+        if (metrics == null) {
             Map<String, String> dimensions = new HashMap<>();
             dimensions.put("chain", chainName);
-            context = this.metric.createContext(dimensions);
-            chainContexts.put(chainName, context);
+            metrics = new ChainMetrics(this.metric.createContext(dimensions));
+            chainMetrics.put(chainName, metrics);
         }
-        return context;
+        return metrics;
     }
 
     private Metric.Context getDegradedMetricContext(String chainName, Coverage coverage) {
@@ -220,35 +259,35 @@ public class StatisticsSearcher extends Searcher {
             return execution.search(query);
         }
 
-        Metric.Context metricContext = getChainMetricContext(execution.chain().getId().stringValue());
+        ChainMetrics metrics = getChainMetrics(execution.chain().getId().stringValue());
 
-        incrQueryCount(metricContext);
+        incrQueryCount(metrics);
         logQuery(query);
         // Timestamp when request was initially processed by Jetty
         long startMs = Optional.ofNullable(query.getHttpRequest())
                 .map(r -> r.creationTime(TimeUnit.MILLISECONDS)).orElseGet(System::currentTimeMillis);
-        qps(metricContext);
-        metric.set(QUERY_TIMEOUT_METRIC, query.getTimeout(), metricContext);
+        qps(metrics.context);
+        metrics.queryTimeout.set(query.getTimeout());
         Result result;
         //handle exceptions thrown below in searchers
         try {
             result = execution.search(query); // Pass on down the chain
         } catch (Exception e) {
-            incrErrorCount(null, metricContext);
+            incrErrorCount(null, metrics);
             throw e;
         }
 
         long endMs = System.currentTimeMillis();
         long latencyMs = endMs - startMs;
         if (latencyMs >= 0) {
-            addLatency(latencyMs, metricContext);
+            addLatency(latencyMs, metrics);
         } else {
             getLogger().log(Level.WARNING,
                             "Apparently negative latency measure, start: " + startMs
                             + ", end: " + endMs + ", for query: " + query + ". Could be caused by NTP adjustments.");
         }
         if (result.hits().getError() != null) {
-            incrErrorCount(result, metricContext);
+            incrErrorCount(result, metrics);
             incrementStatePageOnlyErrors(result);
         }
         Coverage queryCoverage = result.getCoverage(false);
@@ -257,23 +296,23 @@ public class StatisticsSearcher extends Searcher {
                 Metric.Context degradedContext = getDegradedMetricContext(execution.chain().getId().stringValue(), queryCoverage);
                 metric.add(DEGRADED_QUERIES_METRIC, 1, degradedContext);
             }
-            metric.add(DOCS_COVERED_METRIC, queryCoverage.getDocs(), metricContext);
-            metric.add(DOCS_TOTAL_METRIC, queryCoverage.getActive(), metricContext);
-            metric.add(DOCS_TARGET_TOTAL_METRIC, queryCoverage.getTargetActive(), metricContext);
+            metrics.docsCovered.add(queryCoverage.getDocs());
+            metrics.docsTotal.add(queryCoverage.getActive());
+            metrics.docsTargetTotal.add(queryCoverage.getTargetActive());
         }
         int hitCount = result.getConcreteHitCount();
-        metric.set(HITS_PER_QUERY_METRIC, (double) hitCount, metricContext);
+        metrics.hitsPerQuery.set((double) hitCount);
 
         long totalHitCount = result.getTotalHitCount();
-        metric.set(TOTALHITS_PER_QUERY_METRIC, (double) totalHitCount, metricContext);
-        metric.set(QUERY_HIT_OFFSET_METRIC, (double) (query.getHits() + query.getOffset()), metricContext);
+        metrics.totalHitsPerQuery.set((double) totalHitCount);
+        metrics.queryHitOffset.set((double) (query.getHits() + query.getOffset()));
         if (hitCount == 0) {
-            metric.add(EMPTY_RESULTS_METRIC, 1, metricContext);
+            metrics.emptyResults.add(1);
         }
 
         addRelevanceMetrics(query, execution, result);
 
-        addItemCountMetric(query, metricContext);
+        addItemCountMetric(query, metrics);
 
         return result;
     }
@@ -286,21 +325,21 @@ public class StatisticsSearcher extends Searcher {
         }
     }
 
-    private void addLatency(long latencyMs, Metric.Context metricContext) {
-        metric.set(QUERY_LATENCY_METRIC, (double) latencyMs, metricContext);
-        metric.set(MEAN_QUERY_LATENCY_METRIC, (double) latencyMs, metricContext);
-        metric.set(MAX_QUERY_LATENCY_METRIC, (double) latencyMs, metricContext);
+    private void addLatency(long latencyMs, ChainMetrics metrics) {
+        metrics.queryLatency.set((double) latencyMs);
+        metrics.meanQueryLatency.set((double) latencyMs);
+        metrics.maxQueryLatency.set((double) latencyMs);
     }
 
-    private void incrQueryCount(Metric.Context metricContext) {
-        metric.add(QUERIES_METRIC, 1, metricContext);
+    private void incrQueryCount(ChainMetrics metrics) {
+        metrics.queries.add(1);
     }
 
-    private void incrErrorCount(Result result, Metric.Context metricContext) {
-        metric.add(FAILED_QUERIES_METRIC, 1, metricContext);
+    private void incrErrorCount(Result result, ChainMetrics metrics) {
+        metrics.failedQueries.add(1);
 
         if (result == null) // the chain threw an exception
-            metric.add(ContainerMetrics.ERROR_UNHANDLED_EXCEPTION.baseName(), 1, metricContext);
+            metric.add(ContainerMetrics.ERROR_UNHANDLED_EXCEPTION.baseName(), 1, metrics.context);
     }
 
     /**
@@ -406,8 +445,8 @@ public class StatisticsSearcher extends Searcher {
         }
     }
 
-    private void addItemCountMetric(Query query, Metric.Context context) {
-        metric.set(QUERY_ITEM_COUNT, query.getModel().getQueryTree().treeSize(), context);
+    private void addItemCountMetric(Query query, ChainMetrics metrics) {
+        metrics.queryItemCount.set(query.getModel().getQueryTree().treeSize());
     }
 
 }
@@ -75,6 +75,10 @@ public class HttpSearchResponse extends ExtendedResponse {
         }
     }
 
+    /** Search results are rendered directly to the network, which completes writes once they are done with the content */
+    @Override
+    public boolean usePooledBuffers() { return true; }
+
     public CompletableFuture<Boolean> asyncRender(OutputStream stream) {
         return asyncRender(result, query, rendererCopy, stream);
     }
@@ -83,6 +83,9 @@ public class SearchHandler extends LoggingRequestHandler {
     /** Event name for number of connections to the search subsystem */
     private static final String SEARCH_CONNECTIONS = ContainerMetrics.SEARCH_CONNECTIONS.baseName();
     static final String RENDER_LATENCY_METRIC = ContainerMetrics.JDISC_RENDER_LATENCY.baseName();
+    private static final String LINGUISTICS_CACHE_HITS = ContainerMetrics.QUERY_LINGUISTICS_CACHE_HITS.baseName();
+    private static final String LINGUISTICS_CACHE_MISSES = ContainerMetrics.QUERY_LINGUISTICS_CACHE_MISSES.baseName();
+    private static final String LINGUISTICS_CACHE_SIZE = ContainerMetrics.QUERY_LINGUISTICS_CACHE_SIZE.baseName();
     static final String MIME_DIMENSION = "mime";
     static final String RENDERER_DIMENSION = "renderer";
 
@@ -98,6 +101,8 @@ public class SearchHandler extends LoggingRequestHandler {
     private final String selfHostname = HostName.getLocalhost();
     private final Map<String, Embedder> embedders;
     private final ExecutionFactory executionFactory;
+
+    /** The linguistics cache hits and misses reported to metrics so far */
     private final AtomicLong numRequestsLeftToTrace;
 
     private final ZoneInfo zoneInfo;
@@ -388,6 +393,7 @@ public class SearchHandler extends LoggingRequestHandler {
         }
 
         connectionStatistics();
+        linguisticsCacheStatistics();
 
         try {
             return searchAndFill(query, searchChain);
@@ -415,6 +421,14 @@ public class SearchHandler extends LoggingRequestHandler {
         }
     }
 
+    private void linguisticsCacheStatistics() {
+        executionFactory.linguisticsCache().ifPresent(cache -> {
+            metric.add(LINGUISTICS_CACHE_HITS, cache.takeHitsIncrease(), null);
+            metric.add(LINGUISTICS_CACHE_MISSES, cache.takeMissesIncrease(), null);
+            metric.set(LINGUISTICS_CACHE_SIZE, cache.size(), null);
+        });
+    }
+
     private void connectionStatistics() {
         if (maxThreads <= 3) return;
 
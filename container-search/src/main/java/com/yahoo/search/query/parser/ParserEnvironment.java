@@ -2,6 +2,8 @@
 package com.yahoo.search.query.parser;
 
 import com.yahoo.language.Linguistics;
+import com.yahoo.language.process.LinguisticsCache;
+import com.yahoo.language.process.Segmenter;
 import com.yahoo.language.simple.SimpleLinguistics;
 import com.yahoo.prelude.IndexFacts;
 import com.yahoo.language.process.SpecialTokens;
@@ -34,6 +36,7 @@ public final class ParserEnvironment {
 
     private IndexFacts indexFacts = new IndexFacts();
     private Linguistics linguistics = new SimpleLinguistics();
+    private LinguisticsCache linguisticsCache = null;
     private SpecialTokens specialTokens = SpecialTokens.empty();
     private ParserSettings parserSettings = new ParserSettings();
     private QueryType type = QueryType.from(Query.Type.WEAKAND);
@@ -65,6 +68,23 @@ public final class ParserEnvironment {
         return this;
     }
 
+    /** Returns the cache of linguistics processing to use when parsing, or null if none */
+    public LinguisticsCache getLinguisticsCache() {
+        return linguisticsCache;
+    }
+
+    public ParserEnvironment setLinguisticsCache(LinguisticsCache linguisticsCache) {
+        this.linguisticsCache = linguisticsCache;
+        return this;
+    }
+
+    /** Returns the segmenter to use when parsing, which is cached if there is a cache for the linguistics of this */
+    public Segmenter getSegmenter() {
+        if (linguisticsCache != null && linguisticsCache.linguistics() == linguistics)
+            return linguisticsCache.segmenter();
+        return linguistics.getSegmenter();
+    }
+
     public SpecialTokens getSpecialTokens() {
         return specialTokens;
     }
@@ -94,6 +114,7 @@ public final class ParserEnvironment {
 
         if (context.getLinguistics() != null)
             env.setLinguistics(context.getLinguistics());
+        env.setLinguisticsCache(context.getLinguisticsCache());
 
         if (context.getTokenRegistry() != null)
             env.setSpecialTokens(context.getTokenRegistry().getSpecialTokens("default"));
@@ -106,6 +127,7 @@ public final class ParserEnvironment {
                 .setIndexFacts(environment.indexFacts)
                 .setParserSettings(environment.parserSettings)
                 .setLinguistics(environment.linguistics)
+                .setLinguisticsCache(environment.linguisticsCache)
                 .setSpecialTokens(environment.specialTokens)
                 .setType(environment.type);
     }
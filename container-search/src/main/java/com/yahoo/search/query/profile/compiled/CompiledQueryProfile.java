@@ -31,6 +31,9 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
     /** The values of this */
     private final DimensionalMap<ValueWithSource> entries;
 
+    /** The entries of this by prefix, with their values resolved in recent contexts */
+    private final EntryIndex index;
+
     /** Keys which have a type in this */
     private final DimensionalMap<QueryProfileType> types;
 
@@ -56,6 +59,7 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
             type.freeze();
         this.type = type;
         this.entries = entries;
+        this.index = new EntryIndex(entries);
         this.types = types;
         this.references = references;
         this.unoverridables = unoverridables;
@@ -132,19 +136,11 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
      */
     public Map<String, Object> listValues(CompoundName prefix, Map<String, String> context, Properties substitution) {
         Map<String, Object> values = new HashMap<>();
-        for (Map.Entry<CompoundName, DimensionalValue<ValueWithSource>> entry : entries.entrySet()) {
-            if ( ! entry.getKey().hasPrefix(prefix)) continue;
-
-            ValueWithSource valueWithSource = entry.getValue().get(context);
-            if (valueWithSource == null) continue;
-
+        index.forEach(prefix, context, (suffix, valueWithSource) -> {
             Object value = valueWithSource.value();
-            if (value == null) continue;
-
-            value = substitute(value, context, substitution);
-            CompoundName suffixName = entry.getKey().rest(prefix.size());
-            values.put(suffixName.toString(), value);
-        }
+            if (value == null) return;
+            values.put(suffix.toString(), substitute(value, context, substitution));
+        });
         return values;
     }
 
@@ -152,18 +148,11 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
                                                               Map<String, String> context,
                                                               Properties substitution) {
         Map<String, ValueWithSource> values = new HashMap<>();
-        for (Map.Entry<CompoundName, DimensionalValue<ValueWithSource>> entry : entries.entrySet()) {
-            if ( entry.getKey().size() <= prefix.size()) continue;
-            if ( ! entry.getKey().hasPrefix(prefix)) continue;
-
-            ValueWithSource valueWithSource = entry.getValue().get(context);
-            if (valueWithSource == null) continue;
-            if (valueWithSource.value() == null) continue;
-
-            valueWithSource = valueWithSource.withValue(substitute(valueWithSource.value(), context, substitution));
-            CompoundName suffixName = entry.getKey().rest(prefix.size());
-            values.put(suffixName.toString(), valueWithSource);
-        }
+        index.forEach(prefix, context, (suffix, valueWithSource) -> {
+            if (suffix.isEmpty()) return;
+            if (valueWithSource.value() == null) return;
+            values.put(suffix.toString(), valueWithSource.withValue(substitute(valueWithSource.value(), context, substitution)));
+        });
         return values;
     }
 
@@ -177,7 +166,7 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         return get(new CompoundName(name), context, substitution);
     }
     public final Object get(CompoundName name, Map<String, String> context, Properties substitution) {
-        ValueWithSource value = entries.get(name, context);
+        ValueWithSource value = index.get(name, context);
         if (value == null) return null;
         return substitute(value.value(), context, substitution);
     }
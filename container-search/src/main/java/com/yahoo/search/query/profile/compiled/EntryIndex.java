@@ -0,0 +1,138 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The entries of a compiled query profile indexed by each prefix of their names, together with a bounded cache
+ * of the values they resolve to in the contexts seen, keyed by the values of the dimensions the entries vary over.
+ * Listing the values under a prefix then only visits the entries having that prefix, and values are only resolved
+ * from their variants the first time they are looked up in a context.
+ */
+final class EntryIndex {
+
+    /** The max number of contexts to cache resolved values for */
+    private static final int maxCachedContexts = 64;
+
+    /** Marks an entry as resolved to no value */
+    private static final ValueWithSource noValue = new ValueWithSource(null, null, false, false, null, null);
+
+    private final CompoundName[] names;
+    private final List<DimensionalValue<ValueWithSource>> values;
+    private final Map<CompoundName, Integer> indexes;
+
+    /** The indexes of the entries having each prefix, including the empty one and the full names */
+    private final Map<CompoundName, int[]> indexesByPrefix;
+
+    /** The dimensions any entry varies over, in a stable order */
+    private final String[] dimensions;
+
+    /** The values resolved when there are no dimensions, or null if there are */
+    private final Resolved contextFree;
+
+    private final Map<List<String>, Resolved> resolvedByContext = new ConcurrentHashMap<>();
+
+    EntryIndex(DimensionalMap<ValueWithSource> entries) {
+        int size = entries.entrySet().size();
+        names = new CompoundName[size];
+        values = new ArrayList<>(size);
+        indexes = new HashMap<>();
+        Map<CompoundName, List<Integer>> byPrefix = new HashMap<>();
+        Set<String> dimensions = new TreeSet<>();
+        for (Map.Entry<CompoundName, DimensionalValue<ValueWithSource>> entry : entries.entrySet()) {
+            int index = values.size();
+            CompoundName name = entry.getKey();
+            names[index] = name;
+            values.add(entry.getValue());
+            indexes.put(name, index);
+            byPrefix.computeIfAbsent(CompoundName.empty, __ -> new ArrayList<>()).add(index);
+            for (int length = 1; length <= name.size(); length++)
+                byPrefix.computeIfAbsent(name.first(length), __ -> new ArrayList<>()).add(index);
+            entry.getValue().addDimensionsTo(dimensions);
+        }
+        indexesByPrefix = new HashMap<>();
+        for (Map.Entry<CompoundName, List<Integer>> entry : byPrefix.entrySet())
+            indexesByPrefix.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        this.dimensions = dimensions.toArray(new String[0]);
+        this.contextFree = this.dimensions.length == 0 ? new Resolved(size) : null;
+    }
+
+    /** Returns the value of the entry with this name in the given context, or null if none */
+    ValueWithSource get(CompoundName name, Map<String, String> context) {
+        Integer index = indexes.get(name);
+        if (index == null) return null;
+        return resolved(context).get(index, context);
+    }
+
+    /**
+     * Calls the given consumer with the suffix after the prefix, and the value, of each entry which
+     * has the given prefix and a value in the given context.
+     */
+    void forEach(CompoundName prefix, Map<String, String> context, EntryConsumer consumer) {
+        int[] prefixed = indexesByPrefix.get(prefix);
+        if (prefixed == null) return;
+
+        Resolved resolved = resolved(context);
+        for (int index : prefixed) {
+            ValueWithSource value = resolved.get(index, context);
+            if (value == null) continue;
+            consumer.accept(names[index].rest(prefix.size()), value);
+        }
+    }
+
+    private Resolved resolved(Map<String, String> context) {
+        if (contextFree != null) return contextFree;
+
+        String[] dimensionValues = new String[dimensions.length];
+        for (int i = 0; i < dimensions.length; i++)
+            dimensionValues[i] = context == null ? null : context.get(dimensions[i]);
+        List<String> key = Arrays.asList(dimensionValues);
+        Resolved resolved = resolvedByContext.get(key);
+        if (resolved != null) return resolved;
+
+        if (resolvedByContext.size() >= maxCachedContexts) // Rather than tracking use, start over when full
+            resolvedByContext.clear();
+        return resolvedByContext.computeIfAbsent(key, __ -> new Resolved(names.length));
+    }
+
+    /** The values of the entries in one context, resolved on first lookup */
+    private class Resolved {
+
+        /**
+         * The value of each entry, or null if not resolved yet. Racing threads resolve the same value,
+         * and a value with only final fields is safely published by writing its reference.
+         */
+        private final ValueWithSource[] values;
+
+        Resolved(int size) {
+            values = new ValueWithSource[size];
+        }
+
+        ValueWithSource get(int index, Map<String, String> context) {
+            ValueWithSource value = values[index];
+            if (value == null) {
+                value = EntryIndex.this.values.get(index).get(context);
+                values[index] = value == null ? noValue : value;
+            }
+            return value == noValue ? null : value;
+        }
+
+    }
+
+    @FunctionalInterface
+    interface EntryConsumer {
+
+        void accept(CompoundName suffix, ValueWithSource value);
+
+    }
+
+}
@@ -3,6 +3,7 @@ package com.yahoo.search.searchchain;
 
 import com.yahoo.component.chain.Chain;
 import com.yahoo.language.Linguistics;
+import com.yahoo.language.process.LinguisticsCache;
 import com.yahoo.language.simple.SimpleLinguistics;
 import com.yahoo.prelude.IndexFacts;
 import com.yahoo.prelude.Ping;
@@ -86,6 +87,9 @@ public class Execution extends com.yahoo.processing.execution.Execution {
         /** The current linguistics */
         private Linguistics linguistics = null;
 
+        /** The cache of linguistics processing of query terms, or null if none */
+        private LinguisticsCache linguisticsCache = null;
+
         private Executor executor;
 
         /** Always set if this context belongs to an execution, never set if it does not. */
@@ -203,6 +207,8 @@ public class Execution extends com.yahoo.processing.execution.Execution {
                 rendererRegistry = sourceContext.rendererRegistry;
             if (linguistics == null)
                 linguistics = sourceContext.linguistics;
+            if (linguisticsCache == null)
+                linguisticsCache = sourceContext.linguisticsCache;
             executor = sourceContext.executor; // executor will always either be the same, or we're in a test
         }
 
@@ -220,6 +226,7 @@ public class Execution extends com.yahoo.processing.execution.Execution {
             detailedDiagnostics = other.detailedDiagnostics;
             breakdown = other.breakdown;
             linguistics = other.linguistics;
+            linguisticsCache = other.linguisticsCache;
             executor = other.executor;
         }
 
@@ -234,6 +241,7 @@ public class Execution extends com.yahoo.processing.execution.Execution {
                    && other.detailedDiagnostics == detailedDiagnostics
                    && other.breakdown == breakdown
                    && other.linguistics == linguistics
+                   && other.linguisticsCache == linguisticsCache
                    && other.executor == executor;
         }
 
@@ -243,7 +251,7 @@ public class Execution extends com.yahoo.processing.execution.Execution {
                                           schemaInfo,
                                           rendererRegistry, tokenRegistry, searchChainRegistry,
                                           detailedDiagnostics, breakdown,
-                                          linguistics,
+                                          linguistics, linguisticsCache,
                                           executor);
         }
 
@@ -365,6 +373,14 @@ public class Execution extends com.yahoo.processing.execution.Execution {
 
         public void setLinguistics(Linguistics linguistics) { this.linguistics = linguistics; }
 
+        /**
+         * Returns the cache of segmenting, stemming and accent removal of query terms to use in this,
+         * or null if none. The cache is only valid for the linguistics instance it returns.
+         */
+        public LinguisticsCache getLinguisticsCache() { return linguisticsCache; }
+
+        public void setLinguisticsCache(LinguisticsCache linguisticsCache) { this.linguisticsCache = linguisticsCache; }
+
         /**
          * Returns the executor that should be used to execute tasks as part of this execution.
          * This is never null but will be an executor that runs a single thread if none is passed to this.
@@ -14,6 +14,7 @@ import com.yahoo.container.QrSearchersConfig;
 import com.yahoo.container.core.ChainsConfig;
 import com.yahoo.search.config.SchemaInfoConfig;
 import com.yahoo.language.Linguistics;
+import com.yahoo.language.process.LinguisticsCache;
 import com.yahoo.language.simple.SimpleLinguistics;
 import com.yahoo.prelude.IndexFacts;
 import com.yahoo.prelude.IndexModel;
@@ -25,6 +26,7 @@ import com.yahoo.search.schema.SchemaInfo;
 import com.yahoo.search.rendering.RendererRegistry;
 import com.yahoo.vespa.configdefinition.SpecialtokensConfig;
 
+import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -45,6 +47,7 @@ public class ExecutionFactory extends AbstractComponent {
     private final SchemaInfo schemaInfo;
     private final SpecialTokenRegistry specialTokens;
     private final Linguistics linguistics;
+    private final Optional<LinguisticsCache> linguisticsCache;
     private final ThreadPoolExecutor renderingExecutor;
     private final RendererRegistry rendererRegistry;
     private final Executor executor;
@@ -86,6 +89,9 @@ public class ExecutionFactory extends AbstractComponent {
         this.schemaInfo = schemaInfo;
         this.specialTokens = new SpecialTokenRegistry(specialTokens);
         this.linguistics = linguistics;
+        this.linguisticsCache = clusters.linguisticsCache().maxEntries() > 0 && linguistics != null
+                                ? Optional.of(new LinguisticsCache(linguistics, clusters.linguisticsCache().maxEntries()))
+                                : Optional.empty();
         this.renderingExecutor = new RenderingExecutorFactory().createExecutor();
         this.rendererRegistry = new RendererRegistry(renderers.allComponents(), renderingExecutor);
         this.executor = executor != null ? executor : Executors.newSingleThreadExecutor();
@@ -105,8 +111,7 @@ public class ExecutionFactory extends AbstractComponent {
      * An execution instance should be used once to execute a (tree of) search chains.
      */
     public Execution newExecution(Chain<? extends Searcher> searchChain) {
-        return new Execution(searchChain,
-                             new Execution.Context(searchChainRegistry, indexFacts, schemaInfo, specialTokens, rendererRegistry, linguistics, executor));
+        return new Execution(searchChain, newContext());
     }
 
     /**
@@ -114,8 +119,13 @@ public class ExecutionFactory extends AbstractComponent {
      * An execution instance should be used once to execute a (tree of) search chains.
      */
     public Execution newExecution(String searchChainId) {
-        return new Execution(searchChainRegistry().getChain(searchChainId),
-                             new Execution.Context(searchChainRegistry, indexFacts, schemaInfo, specialTokens, rendererRegistry, linguistics, executor));
+        return new Execution(searchChainRegistry().getChain(searchChainId), newContext());
+    }
+
+    private Execution.Context newContext() {
+        var context = new Execution.Context(searchChainRegistry, indexFacts, schemaInfo, specialTokens, rendererRegistry, linguistics, executor);
+        linguisticsCache.ifPresent(context::setLinguisticsCache);
+        return context;
     }
 
     /** Returns the search chain registry used by this */
@@ -126,6 +136,9 @@ public class ExecutionFactory extends AbstractComponent {
 
     public SchemaInfo schemaInfo() { return schemaInfo; }
 
+    /** Returns the cache of linguistics processing of query terms used by executions created by this, if enabled */
+    public Optional<LinguisticsCache> linguisticsCache() { return linguisticsCache; }
+
     @Override
     public void deconstruct() {
         rendererRegistry.deconstruct();
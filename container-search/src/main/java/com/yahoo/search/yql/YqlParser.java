@@ -271,7 +271,7 @@ public class YqlParser implements Parser {
     public YqlParser(ParserEnvironment environment) {
         indexFacts = environment.getIndexFacts();
         normalizer = environment.getLinguistics().getNormalizer();
-        segmenter = environment.getLinguistics().getSegmenter();
+        segmenter = environment.getSegmenter();
         tokenizer = environment.getLinguistics().getTokenizer();
         detector = environment.getLinguistics().getDetector();
         this.environment = environment;
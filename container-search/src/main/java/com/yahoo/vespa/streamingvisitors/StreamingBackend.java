@@ -227,7 +227,7 @@ public class StreamingBackend extends VespaBackend {
 
         VisitorStatistics stats = visitor.getStatistics();
         result.setTotalHitCount(visitor.getTotalHitCount());
-        result.setCoverage(new Coverage(stats.getDocumentsVisited(), stats.getDocumentsVisited(), 1, 1));
+        result.setCoverage(coverage(stats, visitor.getVisitedFraction()));
         query.trace(visitor.getStatistics().toString(), false, 2);
         query.getContext(true).setProperty(STREAMING_STATISTICS, stats);
 
@@ -294,6 +294,15 @@ public class StreamingBackend extends VespaBackend {
         return result;
     }
 
+    /** Returns the coverage of a visit, where the number of documents in any buckets not visited is estimated */
+    private static Coverage coverage(VisitorStatistics stats, double visitedFraction) {
+        long visited = stats.getDocumentsVisited();
+        Coverage coverage = new Coverage(visited, visited, 1, 1);
+        if (visitedFraction < 1)
+            coverage.setTargetActive(visitedFraction > 0 ? (long) Math.ceil(visited / visitedFraction) : visited + 1);
+        return coverage;
+    }
+
     private FastHit buildSummaryHit(Query query, SearchResult.Hit hit) {
         FastHit fastHit = new FastHit();
         fastHit.setQuery(query);
@@ -4,6 +4,7 @@ package com.yahoo.vespa.streamingvisitors;
 import com.yahoo.document.fieldset.AllFields;
 import com.yahoo.document.select.parser.ParseException;
 import com.yahoo.documentapi.AckToken;
+import com.yahoo.documentapi.ProgressToken;
 import com.yahoo.documentapi.VisitorControlHandler;
 import com.yahoo.documentapi.VisitorDataHandler;
 import com.yahoo.documentapi.VisitorParameters;
@@ -31,6 +32,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -47,6 +49,12 @@ import java.util.logging.Level;
  * groupings. The resulting data can be fetched when the query has
  * completed.
  *
+ * Results are merged as they arrive: Only the best offset + hits hits are kept,
+ * summaries for hits which can no longer be returned are dropped, and groupings
+ * are merged into a single grouping per id. If early completion is requested,
+ * the visit is stopped as soon as the hits to return can no longer change, and
+ * the requested share of the selected buckets has been visited.
+ *
  * @author Ulf Carlin
  */
 class StreamingVisitor extends VisitorDataHandler implements Visitor {
@@ -58,6 +66,10 @@ class StreamingVisitor extends VisitorDataHandler implements Visitor {
     private static final CompoundName streamingTotimestamp = CompoundName.from("streaming.totimestamp");
     private static final CompoundName streamingPriority = CompoundName.from("streaming.priority");
     private static final CompoundName streamingMaxbucketspervisitor = CompoundName.from("streaming.maxbucketspervisitor");
+    private static final CompoundName streamingEarlycompletion = CompoundName.from("streaming.earlycompletion");
+    private static final CompoundName streamingCoverage = CompoundName.from("streaming.coverage");
+
+    private static final String unrankedProfile = "unranked";
 
     protected static final int MAX_BUCKETS_PER_VISITOR = 1024;
 
@@ -67,12 +79,16 @@ class StreamingVisitor extends VisitorDataHandler implements Visitor {
     private final Set<String> errors = new TreeSet<>();
     private int totalHitCount = 0;
 
-    private final Map<String, DocumentSummary.Summary> summaryMap = new HashMap<>();
+    private final Map<String, DocumentSummary.Summary> summaryMap = new HashMap<>(); // guarded by this
     private final Map<Integer, Grouping> groupingMap = new ConcurrentHashMap<>();
     private Query query = null;
     private final VisitorSessionFactory visitorSessionFactory;
     private final int traceLevelOverride;
     private Trace sessionTrace;
+    private final boolean earlyCompletion;
+    private final double coverageTarget;
+    private volatile boolean completedEarly = false;
+    private volatile double visitedFraction = 1.0;
 
     public interface VisitorSessionFactory {
         VisitorSession createVisitorSession(VisitorParameters params) throws ParseException;
@@ -85,9 +101,21 @@ class StreamingVisitor extends VisitorDataHandler implements Visitor {
         this.query = query;
         this.visitorSessionFactory = visitorSessionFactory;
         this.traceLevelOverride = context.traceLevelOverride();
+        this.earlyCompletion = query.properties().getBoolean(streamingEarlycompletion, false) && hitsAreFinalWhenCollected(query);
+        this.coverageTarget = query.properties().getDouble(streamingCoverage, 0.0);
         setVisitorParameters(route, context);
     }
 
+    /**
+     * Returns whether any hits matching the given query are as good as any other, such that the hits to return are
+     * final as soon as enough of them are collected. This requires that hits are neither ranked, sorted nor grouped.
+     */
+    static boolean hitsAreFinalWhenCollected(Query query) {
+        return unrankedProfile.equals(query.getRanking().getProfile())
+               && query.getRanking().getSorting() == null
+               && GroupingExecutor.getGroupingList(query).isEmpty();
+    }
+
     private int inferSessionTraceLevel(Query query) {
         int implicitLevel = traceLevelOverride;
         if (log.isLoggable(Level.FINEST)) {
@@ -292,6 +320,9 @@ class StreamingVisitor extends VisitorDataHandler implements Visitor {
 
         if (params.getControlHandler().getResult().code == VisitorControlHandler.CompletionCode.SUCCESS) {
             log.log(Level.FINE, () -> "StreamingVisitor completed successfully for " + query + " with selection " + params.getDocumentSelection());
+        } else if (completedEarly && params.getControlHandler().getResult().code == VisitorControlHandler.CompletionCode.ABORTED) {
+            log.log(Level.FINE, () -> "StreamingVisitor completed early, after visiting " + visitedFraction * 100 +
+                                      "% of the buckets, for " + query + " with selection " + params.getDocumentSelection());
         } else {
             throw new IllegalArgumentException("Query failed: " +
                                                params.getControlHandler().getResult().code + ": " +
@@ -323,6 +354,12 @@ class StreamingVisitor extends VisitorDataHandler implements Visitor {
     public void onQueryResult(SearchResult sr, DocumentSummary summary) {
         handleSearchResult(sr);
         handleSummary(summary);
+        if (earlyCompletion)
+            completeEarlyIfDone();
+    }
+
+    private int wantedHitCount() {
+        return query.getOffset() + query.getHits();
     }
 
     private void handleSearchResult(SearchResult result) {
@@ -375,14 +412,44 @@ class StreamingVisitor extends VisitorDataHandler implements Visitor {
         int summaryCount = ds.getSummaryCount();
         log.log(Level.FINE, () -> "Got DocumentSummary with " + summaryCount + " summaries for query with selection " +
                                   params.getDocumentSelection());
-        synchronized (summaryMap) {
+        synchronized (this) {
             for (int i = 0; i < summaryCount; i++) {
                 DocumentSummary.Summary summary = ds.getSummary(i);
                 summaryMap.put(summary.getDocId(), summary);
             }
+            if (summaryMap.size() > 2 * wantedHitCount())
+                dropSummariesOfDiscardedHits();
         }
     }
 
+    /**
+     * Drops the summaries of documents which are not among the current best hits. Hits which are merged out
+     * of these can never be returned, as later hits only replace them with better ones, and a hit which is
+     * returned again by another bucket visitor arrives together with its summary.
+     */
+    private void dropSummariesOfDiscardedHits() {
+        Set<String> docIds = new HashSet<>(hits.size() * 2);
+        for (SearchResult.Hit hit : hits)
+            docIds.add(hit.getDocId());
+        summaryMap.keySet().retainAll(docIds);
+    }
+
+    /** Stops the visit if all the hits to return are collected, and the coverage target is reached */
+    private void completeEarlyIfDone() {
+        if (completedEarly) return;
+        synchronized (this) {
+            if (hits.size() < wantedHitCount()) return;
+        }
+        ProgressToken progress = params.getControlHandler().getProgress();
+        double percentFinished = progress != null ? progress.percentFinished() : 0;
+        if (percentFinished < coverageTarget) return;
+        if (session == null) return;
+
+        visitedFraction = percentFinished / 100;
+        completedEarly = true;
+        session.abort();
+    }
+
     @Override
     final public List<SearchResult.Hit> getHits() {
         int fromIndex = Math.min(hits.size(), query.getOffset());
@@ -407,4 +474,7 @@ class StreamingVisitor extends VisitorDataHandler implements Visitor {
 
     @Override
     public Set<String> getErrors() { return Set.copyOf(errors); }
+
+    @Override
+    public double getVisitedFraction() { return completedEarly ? visitedFraction : 1.0; }
 }
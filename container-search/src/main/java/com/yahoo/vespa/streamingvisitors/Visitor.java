@@ -48,6 +48,9 @@ interface Visitor {
 
     Set<String> getErrors();
 
+    /** Returns the share of the selected buckets which was visited, which is less than 1 if the visit was completed early */
+    default double getVisitedFraction() { return 1.0; }
+
     Trace getTrace();
 
 }
@@ -5,6 +5,7 @@ import com.yahoo.component.chain.Chain;
 import com.yahoo.config.subscription.ConfigGetter;
 import com.yahoo.container.QrSearchersConfig;
 import com.yahoo.language.Linguistics;
+import com.yahoo.language.process.LinguisticsCache;
 import com.yahoo.language.simple.SimpleLinguistics;
 import com.yahoo.prelude.IndexFacts;
 import com.yahoo.prelude.IndexFactsFactory;
@@ -173,6 +174,26 @@ public class StemmingSearcherTestCase {
         assertEquals(Optional.of(new DocumentFrequency(13, 100)), stemmedWord.get().getDocumentFrequency());
     }
 
+    @Test
+    void testStemmingWithLinguisticsCache() {
+        var cache = new LinguisticsCache(linguistics, 100);
+        long misses = 0;
+        for (int i = 0; i < 2; i++) {
+            assertStemmed("WEAKAND(100) hole in cvs and subversion nostem:Found",
+                          "/search?query=Holes in CVS and Subversion nostem:Found", cache);
+            assertStemmed("WEAKAND(100) WORD_ALTERNATIVES foobar:[ tree(0.7) trees(1.0) ] " +
+                          "foobar:\"a verb a\" WORD_ALTERNATIVES foobar:[ girl(0.7) girls(1.0) ]",
+                          "/search?language=en&search=four&query=trees \"a verbs a\" girls&default-index=foobar", cache);
+            if (i == 0)
+                misses = cache.misses();
+        }
+        assertEquals(misses, cache.misses(), "Terms are only stemmed the first time");
+
+        var otherLinguisticsCache = new LinguisticsCache(new SimpleLinguistics(), 100);
+        assertStemmed("WEAKAND(100) hole", "/search?query=Holes", otherLinguisticsCache);
+        assertEquals(0, otherLinguisticsCache.size());
+    }
+
     private static Optional<WordItem> getFirstWord(Query query) {
         var item = query.getModel().getQueryTree().getRoot();
         if (item instanceof WeakAndItem weakAndItem) {
@@ -193,12 +214,22 @@ public class StemmingSearcherTestCase {
     }
 
     private void executeStemming(Query query) {
-        new Execution(new Chain<Searcher>(new StemmingSearcher(linguistics)), newExecutionContext()).search(query);
+        executeStemming(query, null);
+    }
+
+    private void executeStemming(Query query, LinguisticsCache linguisticsCache) {
+        Execution.Context context = newExecutionContext();
+        context.setLinguisticsCache(linguisticsCache);
+        new Execution(new Chain<Searcher>(new StemmingSearcher(linguistics)), context).search(query);
     }
 
     private void assertStemmed(String expectedQueryTree, String queryString) {
+        assertStemmed(expectedQueryTree, queryString, null);
+    }
+
+    private void assertStemmed(String expectedQueryTree, String queryString, LinguisticsCache linguisticsCache) {
         Query query = new Query(QueryTestCase.httpEncode(queryString));
-        executeStemming(query);
+        executeStemming(query, linguisticsCache);
         assertEquals(expectedQueryTree, query.getModel().getQueryTree().getRoot().toString());
     }
 
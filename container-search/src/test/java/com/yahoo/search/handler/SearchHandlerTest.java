@@ -3,10 +3,12 @@ package com.yahoo.search.handler;
 
 import com.yahoo.container.Container;
 import com.yahoo.container.core.config.testutil.HandlersConfigurerTestWrapper;
+import com.yahoo.container.jdisc.ContentChannelOutputStream;
 import com.yahoo.container.jdisc.HttpRequest;
 import com.yahoo.container.jdisc.HttpResponse;
 import com.yahoo.container.jdisc.RequestHandlerTestDriver;
 import com.yahoo.container.jdisc.ThreadedHttpRequestHandler;
+import com.yahoo.io.ByteBufferPool;
 import com.yahoo.io.IOUtils;
 import com.yahoo.jdisc.Request;
 import com.yahoo.jdisc.handler.RequestHandler;
@@ -109,6 +111,14 @@ public class SearchHandlerTest {
         );
     }
 
+    @Test
+    void testResultsAreRenderedIntoPooledBuffers() {
+        ByteBufferPool pool = ContentChannelOutputStream.responseBufferPool();
+        long acquiredBefore = pool.hits() + pool.misses();
+        assertTrue(driver.sendRequest("http://localhost?format=xml").readAll().contains("testHit"));
+        assertTrue(pool.hits() + pool.misses() > acquiredBefore);
+    }
+
     @Test
     void testFailing() {
         assertTrue(driver.sendRequest("http://localhost?query=test&searchChain=classLoadingError").readAll().contains("NoClassDefFoundError"));
@@ -0,0 +1,70 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.QueryProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CompiledQueryProfileTestCase {
+
+    @Test
+    void testListingAndGettingValuesInManyContexts() {
+        QueryProfile profile = new QueryProfile("test");
+        profile.setDimensions(new String[] { "x", "y" });
+        profile.set("a", "a", null);
+        profile.set("a.b", "a.b", null);
+        profile.set("a.b.c", "a.b.c", null);
+        profile.set("a.bc", "a.bc", null);
+        profile.set("ab.c", "ab.c", null);
+        profile.set("a.v", "a.v", null);
+        for (int x = 0; x < 10; x++) {
+            profile.set("a.v", "a.v.x" + x, new String[] { "x" + x }, null);
+            for (int y = 0; y < 10; y += 3)
+                profile.set("a.b.d", "a.b.d.x" + x + ".y" + y, new String[] { "x" + x, "y" + y }, null);
+        }
+        profile.set("a.b.e", "a.b.e.y1", new String[] { null, "y1" }, null);
+        CompiledQueryProfile compiled = profile.compile(null);
+
+        // Visit more contexts than are cached, twice, to look up values both cached and not
+        for (int round = 0; round < 2; round++) {
+            for (int x = 0; x < 12; x++) {
+                for (int y = 0; y < 12; y++) {
+                    Map<String, String> context = Map.of("x", "x" + x, "y", "y" + y, "other", "o" + round);
+                    for (String prefix : List.of("", "a", "a.b", "a.b.c", "a.bc", "a.v", "ab", "b", "a.b.c.d"))
+                        assertListing(compiled, new CompoundName(prefix), context);
+                    assertEquals(x < 10 ? "a.v.x" + x : "a.v", compiled.get("a.v", context));
+                    assertEquals(y == 1 ? "a.b.e.y1" : null, compiled.get("a.b.e", context));
+                }
+            }
+        }
+        assertEquals(Map.of("", "a.b", "c", "a.b.c"), compiled.listValues("a.b"));
+        assertEquals(Map.of("", "a.b", "c", "a.b.c"), compiled.listValues(new CompoundName("a.b"), null));
+        assertNull(compiled.get("a.b.d"));
+    }
+
+    private static void assertListing(CompiledQueryProfile profile, CompoundName prefix, Map<String, String> context) {
+        Map<String, Object> expected = new HashMap<>();
+        Map<String, Object> expectedWithSources = new HashMap<>();
+        for (var entry : profile.getEntries().entrySet()) {
+            if ( ! entry.getKey().hasPrefix(prefix)) continue;
+            ValueWithSource value = entry.getValue().get(context);
+            if (value == null || value.value() == null) continue;
+            expected.put(entry.getKey().rest(prefix.size()).toString(), value.value());
+            if (entry.getKey().size() > prefix.size())
+                expectedWithSources.put(entry.getKey().rest(prefix.size()).toString(), value.value());
+        }
+        assertEquals(expected, profile.listValues(prefix, context));
+
+        Map<String, Object> withSources = new HashMap<>();
+        profile.listValuesWithSources(prefix, context, null).forEach((key, value) -> withSources.put(key, value.value()));
+        assertEquals(expectedWithSources, withSources);
+    }
+
+}
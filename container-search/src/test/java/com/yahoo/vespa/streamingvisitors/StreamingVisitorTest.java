@@ -24,6 +24,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -311,6 +312,73 @@ public class StreamingVisitorTest {
         verifyVisitorFails(factory, qa, route, searchCluster);
     }
 
+    @Test
+    void testSummariesOfDiscardedHitsAreDropped() throws Exception {
+        QueryArguments qa = new QueryArguments();
+        qa.hits = 2;
+        StreamingVisitor visitor = new StreamingVisitor(buildQuery(qa), Route.parse("storageClusterRouteSpec"),
+                                                        new MockVisitorSessionFactory(), new Visitor.Context("cluster", "mytype", 0));
+        visitor.doSearch();
+        for (int i = 0; i < 20; i++)
+            visitor.onMessage(createQRM("id:ns:type::" + i, i % 10), null);
+
+        assertEquals(40, visitor.getTotalHitCount());
+        assertEquals(List.of("id:ns:type::9", "id:ns:type::19"), visitor.getHits().stream().map(SearchResult.Hit::getDocId).toList());
+        assertTrue(visitor.getSummaryMap().size() <= 2 * qa.hits, "Summaries are bounded: " + visitor.getSummaryMap().keySet());
+        for (SearchResult.Hit hit : visitor.getHits())
+            assertNotNull(visitor.getSummaryMap().get(hit.getDocId()));
+    }
+
+    @Test
+    void testEarlyCompletion() throws Exception {
+        QueryArguments qa = new QueryArguments();
+        qa.hits = 2;
+        qa.profile = "unranked";
+        Query query = buildQuery(qa);
+        query.properties().set("streaming.earlycompletion", true);
+        assertTrue(StreamingVisitor.hitsAreFinalWhenCollected(query));
+
+        MockVisitorSessionFactory factory = new MockVisitorSessionFactory();
+        factory.duringVisit = handler -> {
+            handler.onMessage(createQRM("id:ns:type::0", 0), null);
+            assertFalse(factory.session.aborted);
+            handler.onMessage(createQRM("id:ns:type::1", 0), null);
+            assertTrue(factory.session.aborted);
+        };
+        StreamingVisitor visitor = new StreamingVisitor(query, Route.parse("storageClusterRouteSpec"),
+                                                        factory, new Visitor.Context("cluster", "mytype", 0));
+        visitor.doSearch();
+        assertEquals(2, visitor.getHits().size());
+        assertEquals(0.0, visitor.getVisitedFraction());
+
+        // Not when hits are ranked
+        qa.profile = null;
+        Query rankedQuery = buildQuery(qa);
+        rankedQuery.properties().set("streaming.earlycompletion", true);
+        assertFalse(StreamingVisitor.hitsAreFinalWhenCollected(rankedQuery));
+        factory.duringVisit = handler -> {
+            handler.onMessage(createQRM("id:ns:type::0", 0), null);
+            handler.onMessage(createQRM("id:ns:type::1", 0), null);
+            assertFalse(factory.session.aborted);
+        };
+        visitor = new StreamingVisitor(rankedQuery, Route.parse("storageClusterRouteSpec"),
+                                       factory, new Visitor.Context("cluster", "mytype", 0));
+        visitor.doSearch();
+        assertEquals(1.0, visitor.getVisitedFraction());
+
+        // Not before the coverage target is reached
+        query.properties().set("streaming.coverage", 50.0);
+        factory.duringVisit = handler -> {
+            handler.onMessage(createQRM("id:ns:type::0", 0), null);
+            handler.onMessage(createQRM("id:ns:type::1", 0), null);
+            assertFalse(factory.session.aborted);
+        };
+        visitor = new StreamingVisitor(query, Route.parse("storageClusterRouteSpec"),
+                                       factory, new Visitor.Context("cluster", "mytype", 0));
+        visitor.doSearch();
+        assertEquals(1.0, visitor.getVisitedFraction());
+    }
+
     private void verifyVisitorOk(MockVisitorSessionFactory factory, QueryArguments qa, Route route, String searchCluster) throws Exception {
         var context = new Visitor.Context(searchCluster, "mytype", 0);
         StreamingVisitor visitor = new StreamingVisitor(buildQuery(qa), route, factory, context);
@@ -378,13 +446,17 @@ public class StreamingVisitorTest {
         private final VisitorParameters params;
         private final boolean timeoutQuery;
         private final boolean failQuery;
+        private final Consumer<VisitorDataHandler> duringVisit;
+        private boolean aborted = false;
 
-        public MockVisitorSession(VisitorParameters params, boolean timeoutQuery, boolean failQuery) {
+        public MockVisitorSession(VisitorParameters params, boolean timeoutQuery, boolean failQuery,
+                                  Consumer<VisitorDataHandler> duringVisit) {
             this.params = params;
             params.setControlHandler(new VisitorControlHandler());
             params.getLocalDataHandler().setSession(this);
             this.timeoutQuery = timeoutQuery;
             this.failQuery = failQuery;
+            this.duringVisit = duringVisit;
         }
 
         @Override
@@ -407,10 +479,14 @@ public class StreamingVisitorTest {
             if (timeoutQuery) {
                 return false;
             }
+            duringVisit.accept(params.getLocalDataHandler());
             VisitorControlHandler.CompletionCode code = VisitorControlHandler.CompletionCode.SUCCESS;
             if (failQuery) {
                 code = VisitorControlHandler.CompletionCode.FAILURE;
             }
+            if (aborted) {
+                code = VisitorControlHandler.CompletionCode.ABORTED;
+            }
             params.getControlHandler().onDone(code, "Message");
             return true;
         }
@@ -421,6 +497,7 @@ public class StreamingVisitorTest {
 
         @Override
         public void abort() {
+            aborted = true;
         }
 
         @Override
@@ -443,13 +520,15 @@ public class StreamingVisitorTest {
         private VisitorParameters params;
         private boolean timeoutQuery = false;
         private boolean failQuery = false;
+        private Consumer<VisitorDataHandler> duringVisit = handler -> { };
+        private MockVisitorSession session;
 
         private MockVisitorSessionFactory() {}
 
         @Override
         public VisitorSession createVisitorSession(VisitorParameters params) throws ParseException {
             this.params = params;
-            return new MockVisitorSession(params, timeoutQuery, failQuery);
+            return session = new MockVisitorSession(params, timeoutQuery, failQuery, duringVisit);
         }
 
         public VisitorParameters getParams() {
@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.docprocs.indexing;
 
+import com.yahoo.collections.LazyMap;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentType;
 import com.yahoo.document.DocumentUpdate;
@@ -17,13 +18,18 @@ import com.yahoo.document.fieldpathupdate.FieldPathUpdate;
 import com.yahoo.document.update.FieldUpdate;
 import com.yahoo.document.update.MapValueUpdate;
 import com.yahoo.document.update.ValueUpdate;
+import com.yahoo.vespa.indexinglanguage.CompiledScript;
+import com.yahoo.vespa.indexinglanguage.DocumentFieldValues;
 import com.yahoo.vespa.indexinglanguage.FieldValuesFactory;
+import com.yahoo.vespa.indexinglanguage.expressions.ExecutionContext;
 import com.yahoo.vespa.indexinglanguage.expressions.Expression;
 import com.yahoo.vespa.indexinglanguage.expressions.ScriptExpression;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -35,23 +41,58 @@ public class DocumentScript {
     private final DocumentType documentType;
     private final Set<String> inputFields;
     private final ScriptExpression expression;
+    private final CompiledScript compiled;
 
     public DocumentScript(DocumentType documentType, Collection<String> inputFields, ScriptExpression expression) {
         this.documentType = documentType;
         this.inputFields = new HashSet<>(inputFields);
         this.expression = expression;
         expression.resolve(documentType);
+        this.compiled = CompiledScript.compile(expression, documentType);
     }
 
     public ScriptExpression getExpression() { return expression; }
 
     public Document execute(FieldValuesFactory fieldValuesFactory, Document document, boolean isReindexing) {
+        prepare(document);
+        DocumentFieldValues adapter = fieldValuesFactory.asFieldValues(document);
+        ExecutionContext context = new ExecutionContext(adapter).setDocumentId(document.getId());
+        if (isReindexing) context.setReindexingOperation();
+        compiled.execute(context);
+        return adapter.getFullOutput();
+    }
+
+    /**
+     * Executes this on a batch of documents, running each step of the script over all of them before the next,
+     * such that steps which can process many values at once, like embedding, are invoked once for the batch.
+     *
+     * @return the output documents in the same order as the input, with null for any document producing no output
+     */
+    public List<Document> execute(FieldValuesFactory fieldValuesFactory, List<Document> documents, boolean isReindexing) {
+        Map<Object, Object> cache = LazyMap.newHashMap();
+        List<DocumentFieldValues> adapters = new ArrayList<>(documents.size());
+        List<ExecutionContext> contexts = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            prepare(document);
+            DocumentFieldValues adapter = fieldValuesFactory.asFieldValues(document);
+            ExecutionContext context = new ExecutionContext(adapter, cache).setDocumentId(document.getId());
+            if (isReindexing) context.setReindexingOperation();
+            adapters.add(adapter);
+            contexts.add(context);
+        }
+        compiled.execute(contexts);
+        List<Document> outputs = new ArrayList<>(adapters.size());
+        for (DocumentFieldValues adapter : adapters)
+            outputs.add(adapter.getFullOutput());
+        return outputs;
+    }
+
+    private void prepare(Document document) {
         for (var i = document.iterator(); i.hasNext(); ) {
             Map.Entry<Field, FieldValue> entry = i.next();
             requireThatFieldIsDeclaredInDocument(entry.getKey());
             removeAnyLinguisticsSpanTree(entry.getValue());
         }
-        return expression.execute(fieldValuesFactory, document, isReindexing);
     }
 
     public DocumentUpdate execute(FieldValuesFactory fieldValuesFactory, DocumentUpdate update) {
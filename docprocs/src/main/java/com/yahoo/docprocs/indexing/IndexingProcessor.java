@@ -84,15 +84,35 @@ public class IndexingProcessor extends DocumentProcessor {
         fieldValuesFactory = new FieldValuesFactory(new ExpressionSelector());
     }
 
+    /**
+     * Processes the document operations of this. Consecutive puts of documents of the same type are indexed
+     * as a batch, such that indexing steps which can process many values at once are invoked once per batch.
+     */
     @Override
     public Progress process(Processing proc) {
         if (proc.getDocumentOperations().isEmpty()) return Progress.DONE;
 
         List<DocumentOperation> out = new ArrayList<>(proc.getDocumentOperations().size());
+        PutBatch batch = null;
         for (DocumentOperation documentOperation : proc.getDocumentOperations()) {
-            if (documentOperation instanceof DocumentPut) {
-                processDocument((DocumentPut)documentOperation, out);
-            } else if (documentOperation instanceof DocumentUpdate) {
+            if (documentOperation instanceof DocumentPut put) {
+                DocumentScript script = scriptManager.getScript(put.getDocument().getDataType());
+                if (script == null) {
+                    out.add(put);
+                    continue;
+                }
+                boolean isReindexing = isReindexingOperation(put);
+                if (batch == null || ! batch.accepts(script, isReindexing)) {
+                    if (batch != null) batch.process(out);
+                    batch = new PutBatch(script, isReindexing);
+                }
+                batch.add(put);
+                continue;
+            }
+
+            if (batch != null) batch.process(out);
+            batch = null;
+            if (documentOperation instanceof DocumentUpdate) {
                 processUpdate((DocumentUpdate)documentOperation, out);
             } else if (documentOperation instanceof DocumentRemove) {
                 processRemove((DocumentRemove)documentOperation, out);
@@ -102,6 +122,7 @@ public class IndexingProcessor extends DocumentProcessor {
                 throw new IllegalArgumentException("Expected document, got null.");
             }
         }
+        if (batch != null) batch.process(out);
         proc.getDocumentOperations().clear();
         proc.getDocumentOperations().addAll(out);
         return Progress.DONE;
@@ -111,29 +132,19 @@ public class IndexingProcessor extends DocumentProcessor {
         return documentTypeManager;
     }
 
-    private void processDocument(DocumentPut input, List<DocumentOperation> out) {
-        DocumentType hadType = input.getDocument().getDataType();
-        DocumentScript script = scriptManager.getScript(hadType);
-        if (script == null) {
-            out.add(input);
-            return;
-        }
+    private Document toIndexableDocument(Document inputDocument) {
+        DocumentType hadType = inputDocument.getDataType();
         DocumentType wantType = documentTypeManager.getDocumentType(hadType.getName());
-        Document inputDocument = input.getDocument();
-        if (hadType != wantType) {
-            // this happens when you have a concrete document; we need to
-            // convert back to a "normal" Document for indexing of complex structures
-            // to work properly.
-            GrowableByteBuffer buffer = new GrowableByteBuffer(64 * 1024, 2.0f);
-            DocumentSerializer serializer = DocumentSerializerFactory.createHead(buffer);
-            serializer.write(inputDocument);
-            buffer.flip();
-            inputDocument = documentTypeManager.createDocument(buffer);
-        }
-        Document output = script.execute(fieldValuesFactory, inputDocument, isReindexingOperation(input));
-        if (output == null) return;
-
-        out.add(new DocumentPut(input, output));
+        if (hadType == wantType) return inputDocument;
+
+        // this happens when you have a concrete document; we need to
+        // convert back to a "normal" Document for indexing of complex structures
+        // to work properly.
+        GrowableByteBuffer buffer = new GrowableByteBuffer(64 * 1024, 2.0f);
+        DocumentSerializer serializer = DocumentSerializerFactory.createHead(buffer);
+        serializer.write(inputDocument);
+        buffer.flip();
+        return documentTypeManager.createDocument(buffer);
     }
 
     private void processUpdate(DocumentUpdate input, List<DocumentOperation> out) {
@@ -152,6 +163,38 @@ public class IndexingProcessor extends DocumentProcessor {
         out.add(input);
     }
 
+    /** Consecutive puts which are indexed by the same script */
+    private class PutBatch {
+
+        private final DocumentScript script;
+        private final boolean isReindexing;
+        private final List<DocumentPut> puts = new ArrayList<>();
+        private final List<Document> documents = new ArrayList<>();
+
+        PutBatch(DocumentScript script, boolean isReindexing) {
+            this.script = script;
+            this.isReindexing = isReindexing;
+        }
+
+        boolean accepts(DocumentScript script, boolean isReindexing) {
+            return this.script == script && this.isReindexing == isReindexing;
+        }
+
+        void add(DocumentPut put) {
+            puts.add(put);
+            documents.add(toIndexableDocument(put.getDocument()));
+        }
+
+        void process(List<DocumentOperation> out) {
+            List<Document> outputs = script.execute(fieldValuesFactory, documents, isReindexing);
+            for (int i = 0; i < puts.size(); i++) {
+                if (outputs.get(i) == null) continue;
+                out.add(new DocumentPut(puts.get(i), outputs.get(i)));
+            }
+        }
+
+    }
+
     private static <T> Map<String, T> toMap(ComponentRegistry<T> registry, Class<?> defaultProviderClass) {
         var map = registry.allComponentsById().entrySet().stream()
                 .collect(Collectors.toMap(e -> e.getKey().stringValue(), Map.Entry::getValue));
@@ -12,6 +12,7 @@ import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.DocumentUpdate;
 import com.yahoo.document.PositionDataType;
 import com.yahoo.document.TensorDataType;
+import com.yahoo.document.datatypes.Array;
 import com.yahoo.document.datatypes.StringFieldValue;
 import com.yahoo.document.update.AssignValueUpdate;
 import com.yahoo.document.update.ClearValueUpdate;
@@ -28,6 +29,7 @@ import com.yahoo.yolean.Exceptions;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -350,6 +352,83 @@ public class IndexingProcessorTestCase {
                                  valueUpdate.getValue().getWrappedValue());
     }
 
+    @Test
+    public void testPutsAreEmbeddedInBatches() {
+        var documentTypes = new DocumentTypeManager();
+        var test = new DocumentType("test");
+        test.addField("myText", DataType.STRING);
+        test.addField("embedding", new TensorDataType(TensorType.fromSpec("tensor<int8>(x[16])")));
+        documentTypes.register(test);
+
+        IlscriptsConfig.Builder config = new IlscriptsConfig.Builder();
+        config.ilscript(new IlscriptsConfig.Ilscript.Builder().doctype("test")
+                                                              .content("input myText | embed | attribute embedding")
+                                                              .docfield("myText"));
+        var embedder = new BatchCountingEmbedder();
+        var scripts = new ScriptManager(documentTypes, new IlscriptsConfig(config), null,
+                                        Chunker.throwsOnUse.asMap(),
+                                        Map.of("test", embedder),
+                                        FieldGenerator.throwsOnUse.asMap());
+        var tester = new IndexingProcessorTester(documentTypes, scripts);
+
+        DocumentUpdate update = new DocumentUpdate(test, "id:ns:test::3");
+        update.addFieldUpdate(FieldUpdate.createAssign(test.getField("myText"), new StringFieldValue("text 3")));
+        List<DocumentOperation> inputs = List.of(put(test, "id:ns:test::1", "text 1"),
+                                                 put(test, "id:ns:test::2", null),
+                                                 put(test, "id:ns:test::3", "text 3"),
+                                                 update,
+                                                 put(test, "id:ns:test::4", "text 4"));
+        List<DocumentOperation> outputs = tester.process(inputs);
+        assertEquals(List.of(2, 1), embedder.batchSizes);
+        assertEquals(inputs.size(), outputs.size());
+        for (int i = 0; i < inputs.size(); i++)
+            assertEquals(inputs.get(i).getId(), outputs.get(i).getId());
+
+        Tensor expected = new TestEmbedder().embed("text 1", null, TensorType.fromSpec("tensor<int8>(x[16])"));
+        assertEquals(expected, ((DocumentPut)outputs.get(0)).getDocument().getFieldValue("embedding").getWrappedValue());
+        assertNull(((DocumentPut)outputs.get(1)).getDocument().getFieldValue("embedding"));
+        assertEquals(expected, ((DocumentPut)outputs.get(4)).getDocument().getFieldValue("embedding").getWrappedValue());
+        assertNotNull(((DocumentUpdate)outputs.get(3)).getFieldUpdate("embedding"));
+    }
+
+    @Test
+    public void testArrayElementsOfAPutAreEmbeddedInOneBatch() {
+        var documentTypes = new DocumentTypeManager();
+        var test = new DocumentType("test");
+        test.addField("myTexts", DataType.getArray(DataType.STRING));
+        test.addField("embeddings", new TensorDataType(TensorType.fromSpec("tensor(p{},x[8])")));
+        documentTypes.register(test);
+
+        IlscriptsConfig.Builder config = new IlscriptsConfig.Builder();
+        config.ilscript(new IlscriptsConfig.Ilscript.Builder().doctype("test")
+                                                              .content("input myTexts | embed | attribute embeddings")
+                                                              .docfield("myTexts"));
+        var embedder = new BatchCountingEmbedder();
+        var scripts = new ScriptManager(documentTypes, new IlscriptsConfig(config), null,
+                                        Chunker.throwsOnUse.asMap(),
+                                        Map.of("test", embedder),
+                                        FieldGenerator.throwsOnUse.asMap());
+        var tester = new IndexingProcessorTester(documentTypes, scripts);
+
+        DocumentPut put = new DocumentPut(test, "id:ns:test::1");
+        var texts = new Array<StringFieldValue>(DataType.getArray(DataType.STRING));
+        texts.add(new StringFieldValue("text 1"));
+        texts.add(new StringFieldValue("text 2"));
+        texts.add(new StringFieldValue("text 3"));
+        put.getDocument().setFieldValue("myTexts", texts);
+        List<DocumentOperation> outputs = tester.process(List.of(put));
+        assertEquals(List.of(3), embedder.batchSizes);
+        Tensor embeddings = (Tensor)((DocumentPut)outputs.get(0)).getDocument().getFieldValue("embeddings").getWrappedValue();
+        assertEquals(3 * 8, embeddings.size());
+    }
+
+    private static DocumentPut put(DocumentType type, String id, String text) {
+        DocumentPut put = new DocumentPut(type, id);
+        if (text != null)
+            put.getDocument().setFieldValue("myText", new StringFieldValue(text));
+        return put;
+    }
+
     static class PartialUpdateTester {
 
         IndexingProcessorTester nestedTester;
@@ -414,4 +493,16 @@ public class IndexingProcessorTestCase {
 
     }
 
+    static class BatchCountingEmbedder extends TestEmbedder {
+
+        final List<Integer> batchSizes = new ArrayList<>();
+
+        @Override
+        public List<Tensor> embed(List<String> texts, Context context, TensorType tensorType) {
+            batchSizes.add(texts.size());
+            return super.embed(texts, context, tensorType);
+        }
+
+    }
+
 }
@@ -73,6 +73,13 @@ public class IndexingProcessorTester {
         return operations.get(0);
     }
 
+    public List<DocumentOperation> process(List<DocumentOperation> inputs) {
+        Processing proc = new Processing();
+        proc.getDocumentOperations().addAll(inputs);
+        indexer.process(proc);
+        return proc.getDocumentOperations();
+    }
+
     @SuppressWarnings("deprecation")
     private static IndexingProcessor newProcessor(String configId) {
         return new IndexingProcessor(new DocumentTypeManager(ConfigGetter.getConfig(DocumentmanagerConfig.class, configId)),
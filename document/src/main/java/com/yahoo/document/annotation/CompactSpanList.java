@@ -0,0 +1,152 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.annotation;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.datatypes.StringFieldValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The content of a span tree whose root is a {@link SpanList} of {@link Span}s, annotated by annotations of a single
+ * type which have either no value or a string value, such as the linguistics tree produced when indexing text.
+ * This is held in parallel arrays of span offsets and lengths, and of annotated spans and indexes into a dictionary of
+ * annotation values, instead of as one object per node, annotation and value.
+ *
+ * A {@link SpanTree} created with this holds it until its nodes or annotations are accessed, and it is then inflated
+ * to a regular tree. Serializers may read it directly. This must not be modified after it is used to create a tree.
+ *
+ * @see SpanTree#SpanTree(String, CompactSpanList)
+ */
+public final class CompactSpanList {
+
+    private final AnnotationType type;
+
+    private int spanCount = 0;
+    private int[] spanFroms = new int[16];
+    private int[] spanLengths = new int[16];
+
+    private int annotationCount = 0;
+    private int[] annotatedSpans = new int[16];
+    private int[] annotationValues = new int[16]; // Index into values, or -1 if none
+
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, Integer> valueIndexes = new HashMap<>();
+
+    /**
+     * Creates an empty list of spans with annotations of the given type.
+     *
+     * @throws IllegalArgumentException if the given type has a value type which is not a string
+     */
+    public CompactSpanList(AnnotationType type) {
+        if (type.getDataType() != null && type.getDataType() != DataType.STRING)
+            throw new IllegalArgumentException("Annotation type " + type + " does not have string values");
+        this.type = type;
+    }
+
+    /** Adds a span with the given offset and length, in characters, and returns its index. */
+    public int span(int from, int length) {
+        if (from < 0) throw new IllegalArgumentException("From cannot be < 0. (Was " + from + ")");
+        if (length < 0) throw new IllegalArgumentException("Length cannot be < 0. (Was " + length + ")");
+        if (spanCount == spanFroms.length) {
+            spanFroms = Arrays.copyOf(spanFroms, spanCount * 2);
+            spanLengths = Arrays.copyOf(spanLengths, spanCount * 2);
+        }
+        spanFroms[spanCount] = from;
+        spanLengths[spanCount] = length;
+        return spanCount++;
+    }
+
+    /** Annotates the span with the given index by an annotation without a value. */
+    public void annotate(int span) {
+        annotate(span, -1);
+    }
+
+    /** Annotates the span with the given index by an annotation with the given value. */
+    public void annotate(int span, String value) {
+        if (type.getDataType() == null)
+            throw new IllegalArgumentException("Annotation type " + type + " can not have a value");
+        annotate(span, valueIndexes.computeIfAbsent(value, __ -> { values.add(value); return values.size() - 1; }));
+    }
+
+    private void annotate(int span, int value) {
+        if (span < 0 || span >= spanCount)
+            throw new IndexOutOfBoundsException("No span with index " + span + " among " + spanCount);
+        if (annotationCount == annotatedSpans.length) {
+            annotatedSpans = Arrays.copyOf(annotatedSpans, annotationCount * 2);
+            annotationValues = Arrays.copyOf(annotationValues, annotationCount * 2);
+        }
+        annotatedSpans[annotationCount] = span;
+        annotationValues[annotationCount] = value;
+        annotationCount++;
+    }
+
+    /** Returns the type of all annotations in this. */
+    public AnnotationType annotationType() { return type; }
+
+    public int numSpans() { return spanCount; }
+
+    /** Returns the character offset of the span with the given index. */
+    public int spanFrom(int span) { return spanFroms[span]; }
+
+    /** Returns the character length of the span with the given index. */
+    public int spanLength(int span) { return spanLengths[span]; }
+
+    public int numAnnotations() { return annotationCount; }
+
+    /** Returns the index of the span annotated by the annotation with the given index. */
+    public int annotatedSpan(int annotation) { return annotatedSpans[annotation]; }
+
+    /** Returns the value of the annotation with the given index, or null if it has no value. */
+    public String annotationValue(int annotation) {
+        int value = annotationValues[annotation];
+        return value < 0 ? null : values.get(value);
+    }
+
+    /**
+     * Returns the indexes of the annotations of this in their natural order, i.e., the order
+     * the annotations of the inflated tree have when sorted, where equal annotations keep the order they were added in.
+     */
+    public int[] sortedAnnotations() {
+        Integer[] order = new Integer[annotationCount];
+        for (int i = 0; i < annotationCount; i++) order[i] = i;
+        Arrays.sort(order, this::compareAnnotations);
+        int[] sorted = new int[annotationCount];
+        for (int i = 0; i < annotationCount; i++) sorted[i] = order[i];
+        return sorted;
+    }
+
+    /** Compares annotations as {@link Annotation#compareTo} does: By span offset, then span end, then value. */
+    private int compareAnnotations(int a, int b) {
+        int spanA = annotatedSpans[a], spanB = annotatedSpans[b];
+        int comp = Integer.compare(spanFroms[spanA], spanFroms[spanB]);
+        if (comp != 0) return comp;
+        comp = Integer.compare(spanFroms[spanA] + spanLengths[spanA], spanFroms[spanB] + spanLengths[spanB]);
+        if (comp != 0) return comp;
+        int valueA = annotationValues[a], valueB = annotationValues[b];
+        if (valueA < 0 || valueB < 0) return Boolean.compare(valueA >= 0, valueB >= 0);
+        return values.get(valueA).compareTo(values.get(valueB));
+    }
+
+    /** Adds the spans and annotations of this to the given tree, which has an empty span list as root. */
+    void inflateInto(SpanTree tree) {
+        SpanList root = tree.spanList();
+        Span[] spans = new Span[spanCount];
+        for (int i = 0; i < spanCount; i++)
+            spans[i] = root.span(spanFroms[i], spanLengths[i]);
+        for (int i = 0; i < annotationCount; i++) {
+            String value = annotationValue(i);
+            tree.annotate(spans[annotatedSpans[i]],
+                          value == null ? new Annotation(type) : new Annotation(type, new StringFieldValue(value)));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return spanCount + " spans with " + annotationCount + " " + type.getName() + " annotations";
+    }
+
+}
@@ -35,6 +35,8 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
     private SpanNode root;
     private AnnotationContainer annotations = new ListAnnotationContainer();
     private StringFieldValue stringFieldValue;
+    private volatile CompactSpanList compact = null; // Set to null once inflated
+    private boolean inflating = false; // Guarded by this
 
     /**
      * WARNING! Only to be used by deserializers! Creates an empty SpanTree instance.
@@ -63,8 +65,26 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
         setRoot(new SpanList());
     }
 
+    /**
+     * Creates a new SpanTree with the given name, and the spans and annotations in the given compact form,
+     * which are inflated to nodes and annotations of this tree when first accessed.
+     *
+     * @param name the name of the span tree
+     * @param spans the content of this tree, which must not be modified after this is created
+     */
+    public SpanTree(String name, CompactSpanList spans) {
+        this(name);
+        this.compact = spans;
+    }
+
     public SpanTree(SpanTree otherToCopy) {
         name = otherToCopy.name;
+        CompactSpanList otherCompact = otherToCopy.compact;
+        if (otherCompact != null) {
+            setRoot(new SpanList());
+            compact = otherCompact;
+            return;
+        }
         setRoot(copySpan(otherToCopy.root));
         List<Annotation> annotationsToCopy = new ArrayList<>(otherToCopy.getAnnotations());
         List<Annotation> newAnnotations = new ArrayList<>(annotationsToCopy.size());
@@ -232,6 +252,7 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
 
     /** Returns the root node of this span tree. */
     public SpanNode getRoot() {
+        inflate();
         return root;
     }
 
@@ -240,6 +261,7 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
      * This must of course only be used when it is known that the root in this tree actually is a SpanList.
      */
     public SpanList spanList() {
+        inflate();
         return (SpanList)root;
     }
 
@@ -250,6 +272,7 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
      * The lower bound is Omega(n), if no SpanNodes had been removed from the tree.
      */
     public void cleanup() {
+        if (compact != null) return; // Always consistent
         Map<Annotation, Annotation> removedAnnotations = removeAnnotationsThatPointToInvalidSpanNodes();
 
         //here:
@@ -405,10 +428,12 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
     }
 
     private void annotateInternal(SpanNode node, Annotation annotation) {
+        inflate();
         annotations.annotate(annotation);
     }
 
     private Collection<Annotation> getAnnotations() {
+        inflate();
         return annotations.annotations();
     }
 
@@ -510,6 +535,8 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
      * @return the total number of annotations in the tree.
      */
     public int numAnnotations() {
+        CompactSpanList spans = compact;
+        if (spans != null) return spans.numAnnotations();
         return annotations.annotations().size();
     }
 
@@ -541,7 +568,7 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
 
     /** Returns an Iterator over all annotations in this tree. Note that the iteration order is non-deterministic. */
     public Iterator<Annotation> iterator() {
-        return annotations.annotations().iterator();
+        return getAnnotations().iterator();
     }
 
     /**
@@ -551,6 +578,7 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
      * @return an Iterator over all annotations that annotate the given node.
      */
     public Iterator<Annotation> iterator(SpanNode node) {
+        inflate();
         return annotations.iterator(node);
     }
 
@@ -561,6 +589,7 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
      * @return a recursive Iterator over all annotations that annotate the given node and its subnodes.
      */
     public Iterator<Annotation> iteratorRecursive(SpanNode node) {
+        inflate();
         return annotations.iteratorRecursive(node);
     }
 
@@ -596,6 +625,7 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
     }
 
     public void createIndex(IndexKey key) {
+        inflate();
         if (key == IndexKey.SPAN_NODE && annotations instanceof ListAnnotationContainer) {
             AnnotationContainer tmpAnnotations = new SpanNode2AnnotationContainer();
             tmpAnnotations.annotateAll(annotations.annotations());
@@ -610,6 +640,7 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
     }
 
     public void clearIndex(IndexKey key) {
+        inflate();
         if (key == IndexKey.SPAN_NODE && annotations instanceof SpanNode2AnnotationContainer) {
             clearIndex();
         } else if (key == IndexKey.ANNOTATION_TYPE && annotations instanceof AnnotationType2AnnotationContainer) {
@@ -618,6 +649,7 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
     }
 
     public void clearIndexes() {
+        inflate();
         if (!(annotations instanceof ListAnnotationContainer)) {
             clearIndex();
         }
@@ -637,8 +669,35 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
         return List.of();
     }
 
+    /** Returns the spans and annotations of this in compact form, if this was created from it and it is not yet inflated, or null. */
+    public CompactSpanList getCompactSpanList() {
+        return compact;
+    }
+
+    /**
+     * Inflates the compact form of this, if any. This is invoked by read-only accessors, so it is thread safe:
+     * The compact form is cleared only once inflated, after which the inflated tree is visible to all threads.
+     * Inflating invokes accessors of this recursively, which then return without inflating.
+     */
+    private void inflate() {
+        if (compact == null) return;
+        synchronized (this) {
+            CompactSpanList spans = compact;
+            if (spans == null || inflating) return;
+            inflating = true;
+            try {
+                spans.inflateInto(this);
+                compact = null;
+            }
+            finally {
+                inflating = false;
+            }
+        }
+    }
+
     @Override
     public String toString() {
+        inflate();
         return "SpanTree '" + name + "' with root: " + root +
                ( annotations.annotations().size() > 5 ? "" :
                  ", annotations: " + annotations.annotations().stream().map(Annotation::toString).collect(Collectors.joining(", ")));
@@ -648,6 +707,8 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof SpanTree tree)) return false;
+        inflate();
+        tree.inflate();
 
         if (!annotationsEquals(tree)) return false;
         if (!name.equals(tree.name)) return false;
@@ -666,6 +727,7 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
 
     @Override
     public int hashCode() {
+        inflate();
         int result = name.hashCode();
         result = 31 * result + root.hashCode();
         result = 31 * result + annotations.hashCode();
@@ -674,6 +736,8 @@ public class SpanTree implements Iterable<Annotation>, SpanNodeParent, Comparabl
 
     @Override
     public int compareTo(SpanTree spanTree) {
+        inflate();
+        spanTree.inflate();
         int comp = name.compareTo(spanTree.name);
         if (comp != 0) {
             comp = root.compareTo(spanTree.root);
@@ -53,6 +53,12 @@ public class JsonReader {
         }
     }
 
+    /** Creates a reader of the tokens of the given parser, which may e.g. have been fed its input incrementally. */
+    public JsonReader(DocumentTypeManager typeManager, JsonParser parser) {
+        this.typeManager = typeManager;
+        this.parser = parser;
+    }
+
     public Optional<DocumentParseInfo> parseDocument() throws IOException {
         DocumentParser documentParser = new DocumentParser(parser);
         return documentParser.parse(Optional.empty());
@@ -8,6 +8,8 @@ import java.util.function.Supplier;
 
 /**
  * A {@link TokenBuffer} which only buffers tokens when needed, i.e., when peeking.
+ * Otherwise, the current token is read directly from the parser, so values which are only read
+ * as numbers are never materialized as text.
  *
  * @author jonmv
  */
@@ -15,22 +17,66 @@ public class LazyTokenBuffer extends TokenBuffer {
 
     private final JsonParser parser;
 
+    /** Whether the current token is that of the parser, rather than the first one buffered. */
+    private boolean live = true;
+
     public LazyTokenBuffer(JsonParser parser) {
         this.parser = parser;
-        try { addFromParser(parser); }
-        catch (IOException e) { throw new IllegalArgumentException("failed parsing document JSON", e); }
         if (JsonToken.START_OBJECT != current())
             throw new IllegalArgumentException("expected start of JSON object, but got " + current());
         updateNesting(current());
     }
 
+    @Override
+    public boolean isEmpty() {
+        return ! live && super.isEmpty();
+    }
+
+    @Override
+    public JsonToken current() {
+        return live ? parser.currentToken() : super.current();
+    }
+
+    @Override
+    public String currentName() {
+        return live ? parserName() : super.currentName();
+    }
+
+    @Override
+    public String currentText() {
+        return live ? parserText() : super.currentText();
+    }
+
+    @Override
+    public double currentDouble() {
+        if ( ! live || ! parser.currentToken().isNumeric()) return super.currentDouble();
+        try { return parser.getDoubleValue(); }
+        catch (IOException e) { throw new IllegalArgumentException("failed reading document JSON", e); }
+    }
+
+    @Override
+    public float currentFloat() {
+        if ( ! live || ! parser.currentToken().isNumeric()) return super.currentFloat();
+        try { return parser.getFloatValue(); }
+        catch (IOException e) { throw new IllegalArgumentException("failed reading document JSON", e); }
+    }
+
+    @Override
     void advance() {
-        super.advance();
-        if (tokens.isEmpty() && nesting() > 0) tokens.add(nextToken()); // Fill current token if needed and possible.
+        if (live) live = false;
+        else super.advance();
+        if (tokens.isEmpty() && nesting() > 0) { // Move the parser to the current token if needed and possible.
+            nextToken();
+            live = true;
+        }
     }
 
     @Override
     public Supplier<Token> lookahead() {
+        if (live) { // The parser is about to move on, so keep the current token
+            tokens.addFirst(new Token(parser.currentToken(), parserName(), parserText()));
+            live = false;
+        }
         return new Supplier<>() {
             int localNesting = nesting();
             final Supplier<Token> buffered = LazyTokenBuffer.super.lookahead();
@@ -40,7 +86,8 @@ public class LazyTokenBuffer extends TokenBuffer {
 
                 Token token = buffered.get();
                 if (token == null) {
-                    token = nextToken();
+                    JsonToken next = nextToken();
+                    token = new Token(next, parserName(), parserText());
                     tokens.add(token);
                 }
                 localNesting += nestingOffset(token.token);
@@ -49,12 +96,22 @@ public class LazyTokenBuffer extends TokenBuffer {
         };
     }
 
-    private Token nextToken() {
+    private String parserName() {
+        try { return parser.currentName(); }
+        catch (IOException e) { throw new IllegalArgumentException("failed reading document JSON", e); }
+    }
+
+    private String parserText() {
+        try { return parser.getText(); }
+        catch (IOException e) { throw new IllegalArgumentException("failed reading document JSON", e); }
+    }
+
+    private JsonToken nextToken() {
         try {
             JsonToken token = parser.nextValue();
             if (token == null)
                 throw new IllegalStateException("no more JSON tokens");
-            return new Token(token, parser.currentName(), parser.getText());
+            return token;
         }
         catch (IOException e) {
             throw new IllegalArgumentException("failed reading document JSON", e);
@@ -54,6 +54,24 @@ public class TokenBuffer {
         return isEmpty() ? null : tokens.peek().text;
     }
 
+    /**
+     * Returns the current numeric token value as a double without changing position.
+     *
+     * @throws NumberFormatException if the current token is not a number
+     */
+    public double currentDouble() {
+        return Double.parseDouble(currentText());
+    }
+
+    /**
+     * Returns the current numeric token value as a float without changing position.
+     *
+     * @throws NumberFormatException if the current token is not a number
+     */
+    public float currentFloat() {
+        return Float.parseFloat(currentText());
+    }
+
     /**
      * Returns a sequence of remaining tokens in this, or nulls when none remain.
      * This may fill the token buffer, but not otherwise modify it.
@@ -144,11 +144,15 @@ public class TensorReader {
             }
             return;
         }
+        boolean floatCells = builder.type().valueType() == TensorType.Value.FLOAT;
         int index = 0;
         int initNesting = buffer.nesting();
         for (buffer.next(); buffer.nesting() >= initNesting; buffer.next()) {
             if (buffer.current() == JsonToken.START_ARRAY || buffer.current() == JsonToken.END_ARRAY) continue; // nested arrays: Skip
-            indexedBuilder.cellByDirectIndex(index++, readDouble(buffer));
+            if (floatCells)
+                indexedBuilder.cellByDirectIndex(index++, readFloat(buffer));
+            else
+                indexedBuilder.cellByDirectIndex(index++, readDouble(buffer));
         }
         if (index == 0)
             throw new IllegalArgumentException("The 'values' array does not contain any values");
@@ -270,7 +274,20 @@ public class TensorReader {
             if (buffer.current() == JsonToken.VALUE_STRING) {
                 return decodeNumberString(buffer.currentText());
             }
-            return Double.parseDouble(buffer.currentText());
+            return buffer.currentDouble();
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number but got '" + buffer.currentText() + "'");
+        }
+    }
+
+    /** Reads a number directly as a float, to avoid rounding twice when it is stored as one. */
+    private static float readFloat(TokenBuffer buffer) {
+        try {
+            if (buffer.current() == JsonToken.VALUE_STRING) {
+                return (float) decodeNumberString(buffer.currentText());
+            }
+            return buffer.currentFloat();
         }
         catch (NumberFormatException e) {
             throw new IllegalArgumentException("Expected a number but got '" + buffer.currentText() + "'");
@@ -0,0 +1,330 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.select;
+
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentGet;
+import com.yahoo.document.DocumentOperation;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentRemove;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentUpdate;
+import com.yahoo.document.FieldPath;
+import com.yahoo.document.datatypes.FieldPathIteratorHandler;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.document.datatypes.TensorFieldValue;
+import com.yahoo.document.select.rule.ArithmeticNode;
+import com.yahoo.document.select.rule.AttributeNode;
+import com.yahoo.document.select.rule.ComparisonNode;
+import com.yahoo.document.select.rule.DocumentNode;
+import com.yahoo.document.select.rule.EmbracedNode;
+import com.yahoo.document.select.rule.ExpressionNode;
+import com.yahoo.document.select.rule.LiteralNode;
+import com.yahoo.document.select.rule.LogicNode;
+import com.yahoo.document.select.rule.NegationNode;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+
+/**
+ * A document selection expression compiled to a tree of specialized conditions, which evaluates to the same result
+ * as interpreting the expression, but faster: Field paths are resolved once per document type, patterns are compiled
+ * once, constant sub-expressions are folded, and logical operators short-circuit, with results represented as bit sets
+ * instead of result lists.
+ *
+ * Only expressions without variables in field paths are compiled, as the results of those depend on variable bindings.
+ * Sub-expressions which are not compiled are interpreted, as values.
+ */
+final class CompiledSelection {
+
+    // The set of results an expression evaluates to, as the interpreter's result list without variables, as bits
+    private static final int TRUE = 1, FALSE = 2, INVALID = 4;
+
+    private static final int[][] and = combinations(true);
+    private static final int[][] or = combinations(false);
+
+    private final Condition condition;
+
+    private CompiledSelection(Condition condition) {
+        this.condition = condition;
+    }
+
+    /** Returns the given expression compiled, or empty if it can only be interpreted. */
+    static Optional<CompiledSelection> compile(ExpressionNode expression) {
+        if (hasVariables(expression)) return Optional.empty();
+        return Optional.of(new CompiledSelection(condition(expression)));
+    }
+
+    Result evaluate(Context context) {
+        return toResult(condition.evaluate(context));
+    }
+
+    private static boolean hasVariables(ExpressionNode node) {
+        if (node instanceof AttributeNode attribute) {
+            for (AttributeNode.Item item : attribute.getItems())
+                if (item.getName().contains("$")) return true;
+            return hasVariables(attribute.getValue());
+        }
+        if (node instanceof ComparisonNode comparison)
+            return hasVariables(comparison.getLHS()) || hasVariables(comparison.getRHS());
+        if (node instanceof LogicNode logic)
+            return logic.getItems().stream().anyMatch(item -> hasVariables(item.getNode()));
+        if (node instanceof ArithmeticNode arithmetic)
+            return arithmetic.getItems().stream().anyMatch(item -> hasVariables(item.getNode()));
+        if (node instanceof NegationNode negation)
+            return hasVariables(negation.getNode());
+        if (node instanceof EmbracedNode embraced)
+            return hasVariables(embraced.getNode());
+        return false;
+    }
+
+    private static Condition condition(ExpressionNode node) {
+        if (node instanceof EmbracedNode embraced)
+            return condition(embraced.getNode());
+        if (node instanceof LogicNode logic)
+            return logic(logic);
+        if (node instanceof NegationNode negation)
+            return negation(condition(negation.getNode()));
+        if (node instanceof ComparisonNode comparison)
+            return comparison(comparison);
+        Value value = value(node);
+        if (value instanceof Constant constant)
+            return new ConstantCondition(toResults(constant.value));
+        return context -> toResults(value.evaluate(context));
+    }
+
+    /** Combines the items of the given node in the same order as the interpreter does. */
+    private static Condition logic(LogicNode node) {
+        record Item(int operator, Condition condition) { }
+        Deque<Item> stack = new ArrayDeque<>();
+        for (LogicNode.NodeItem item : node.getItems()) {
+            if (stack.size() > 1) {
+                while (stack.peek().operator() >= item.getOperator()) {
+                    Item rhs = stack.pop();
+                    Item lhs = stack.pop();
+                    stack.push(new Item(lhs.operator(), combine(lhs.condition(), rhs.operator(), rhs.condition())));
+                }
+            }
+            stack.push(new Item(item.getOperator(), condition(item.getNode())));
+        }
+        while (stack.size() > 1) {
+            Item rhs = stack.pop();
+            Item lhs = stack.pop();
+            stack.push(new Item(lhs.operator(), combine(lhs.condition(), rhs.operator(), rhs.condition())));
+        }
+        return stack.pop().condition();
+    }
+
+    private static Condition combine(Condition lhs, int operator, Condition rhs) {
+        boolean isAnd = switch (operator) {
+            case LogicNode.AND -> true;
+            case LogicNode.OR -> false;
+            default -> throw new IllegalStateException("Logical operator " + operator + " not supported.");
+        };
+        int shortCircuit = isAnd ? FALSE : TRUE;
+        int[][] table = isAnd ? and : or;
+        if (lhs instanceof ConstantCondition constant) {
+            if (toBits(toResult(constant.results)) == shortCircuit)
+                return new ConstantCondition(shortCircuit);
+            if (rhs instanceof ConstantCondition other)
+                return new ConstantCondition(table[constant.results][other.results]);
+        }
+        return context -> {
+            int left = lhs.evaluate(context);
+            if (toBits(toResult(left)) == shortCircuit) return shortCircuit;
+            return table[left][rhs.evaluate(context)];
+        };
+    }
+
+    private static Condition negation(Condition condition) {
+        if (condition instanceof ConstantCondition constant)
+            return new ConstantCondition(toBits(Result.invert(toResult(constant.results))));
+        return context -> toBits(Result.invert(toResult(condition.evaluate(context))));
+    }
+
+    private static Condition comparison(ComparisonNode node) {
+        Value lhs = value(node.getLHS());
+        Value rhs = value(node.getRHS());
+        if (lhs instanceof Constant left && rhs instanceof Constant right) {
+            try {
+                return new ConstantCondition(compare(node, left.value, right.value));
+            }
+            catch (RuntimeException e) {
+                // Fail on evaluation, as the interpreter does
+            }
+        }
+        return context -> compare(node, lhs.evaluate(context), rhs.evaluate(context));
+    }
+
+    /** Returns the results of the given comparison of the given values, as the interpreter would. */
+    private static int compare(ComparisonNode node, Object lhs, Object rhs) {
+        if (lhs == null || rhs == null || lhs == Result.INVALID || rhs == Result.INVALID)
+            return toResults(node.evaluateOperands(lhs, rhs));
+
+        if (lhs instanceof AttributeNode.VariableValueList left) {
+            if (rhs instanceof AttributeNode.VariableValueList)
+                return toResults(node.evaluateOperands(lhs, rhs));
+            if (rhs instanceof TensorFieldValue) return INVALID;
+            int results = 0;
+            for (ResultList.VariableValue value : left)
+                results |= toBits(node.compare(value.getValue(), rhs));
+            return results;
+        }
+        if (rhs instanceof AttributeNode.VariableValueList right) {
+            if (lhs instanceof TensorFieldValue) return INVALID;
+            int results = 0;
+            for (ResultList.VariableValue value : right)
+                results |= toBits(node.compare(lhs, value.getValue()));
+            return results;
+        }
+        return toBits(node.compare(lhs, rhs));
+    }
+
+    private static Value value(ExpressionNode node) {
+        if (node instanceof EmbracedNode embraced)
+            return value(embraced.getNode());
+        if (node instanceof LiteralNode literal)
+            return new Constant(literal.getValue());
+        if (   node instanceof AttributeNode attribute
+            && attribute.getValue() instanceof DocumentNode document
+            && attribute.getItems().stream().allMatch(item -> item.getType() == AttributeNode.Item.ATTRIBUTE))
+            return new FieldValueOf(document.getType(), attribute.getItems().stream()
+                                                                 .map(AttributeNode.Item::getName)
+                                                                 .reduce((a, b) -> a + "." + b)
+                                                                 .orElseThrow());
+        return node::evaluate;
+    }
+
+    /** Returns the bits of the results in the given value, converted to a result list as the interpreter does. */
+    private static int toResults(Object value) {
+        if (value instanceof ResultList list) {
+            int results = 0;
+            for (ResultList.ResultPair pair : list.getResults())
+                results |= toBits(pair.getResult());
+            return results;
+        }
+        if (value instanceof AttributeNode.VariableValueList list)
+            return list.isEmpty() ? 0 : TRUE;
+        return toBits(ResultList.toResultList(value).toResult());
+    }
+
+    private static int toBits(Result result) {
+        return switch (result) {
+            case TRUE -> TRUE;
+            case FALSE -> FALSE;
+            case INVALID -> INVALID;
+        };
+    }
+
+    /** Returns the result of the given set of results, as {@link ResultList#toResult()} does. */
+    private static Result toResult(int results) {
+        if ((results & TRUE) != 0) return Result.TRUE;
+        if ((results & FALSE) != 0 || results == 0) return Result.FALSE;
+        return Result.INVALID;
+    }
+
+    /** Returns the results of combining each pair of sets of results, as {@link ResultList} does. */
+    private static int[][] combinations(boolean isAnd) {
+        int[][] table = new int[8][8];
+        for (int lhs = 0; lhs < 8; lhs++) {
+            for (int rhs = 0; rhs < 8; rhs++) {
+                for (int a = 1; a < 8; a <<= 1) {
+                    for (int b = 1; b < 8; b <<= 1) {
+                        if ((lhs & a) == 0 || (rhs & b) == 0) continue;
+                        boolean anyTrue = a == TRUE || b == TRUE, bothTrue = a == TRUE && b == TRUE;
+                        boolean anyFalse = a == FALSE || b == FALSE, bothFalse = a == FALSE && b == FALSE;
+                        if (isAnd) table[lhs][rhs] |= bothTrue ? TRUE : anyFalse ? FALSE : INVALID;
+                        else table[lhs][rhs] |= anyTrue ? TRUE : bothFalse ? FALSE : INVALID;
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    /** A compiled condition, which returns the set of results it evaluates to, as bits. */
+    private interface Condition {
+
+        int evaluate(Context context);
+
+    }
+
+    private record ConstantCondition(int results) implements Condition {
+
+        @Override
+        public int evaluate(Context context) { return results; }
+
+    }
+
+    /** A compiled value, which returns the same values as the interpreter. */
+    private interface Value {
+
+        Object evaluate(Context context);
+
+    }
+
+    private record Constant(Object value) implements Value {
+
+        @Override
+        public Object evaluate(Context context) { return value; }
+
+    }
+
+    /** The values of a field path in documents of a given type, with the path resolved once per concrete type. */
+    private static class FieldValueOf implements Value {
+
+        private final String documentType;
+        private final String path;
+        private volatile ResolvedPath resolved = null;
+
+        FieldValueOf(String documentType, String path) {
+            this.documentType = documentType;
+            this.path = path;
+        }
+
+        @Override
+        public Object evaluate(Context context) {
+            DocumentOperation operation = context.getDocumentOperation();
+            if (operation instanceof DocumentPut put) {
+                Document document = put.getDocument();
+                if ( ! document.getDataType().isA(documentType)) return Result.FALSE;
+                FieldPath fieldPath = resolve(document.getDataType());
+                if (fieldPath == null) return null; // Imported field, which is only known in the backend
+                ValueCollector collector = new ValueCollector();
+                document.iterateNested(fieldPath, 0, collector);
+                return collector.values.isEmpty() ? null : collector.values;
+            }
+            if (operation instanceof DocumentUpdate update)
+                return update.getDocumentType().isA(documentType) ? Result.INVALID : Result.FALSE;
+            if (operation instanceof DocumentRemove || operation instanceof DocumentGet)
+                return operation.getId().getDocType().equals(documentType) ? Result.INVALID : Result.FALSE;
+            return Result.FALSE;
+        }
+
+        /** Returns the field path in the given type, or null if it is a simple imported field */
+        private FieldPath resolve(DocumentType type) {
+            ResolvedPath resolved = this.resolved;
+            if (resolved == null || resolved.type != type) {
+                boolean imported = ! path.contains(".") && ! path.contains("{") && ! path.contains("[")
+                                   && type.hasImportedField(path);
+                this.resolved = resolved = new ResolvedPath(type, imported ? null : type.buildFieldPath(path));
+            }
+            return resolved.path;
+        }
+
+        private record ResolvedPath(DocumentType type, FieldPath path) { }
+
+    }
+
+    private static class ValueCollector extends FieldPathIteratorHandler {
+
+        private final AttributeNode.VariableValueList values = new AttributeNode.VariableValueList();
+
+        @Override
+        public void onPrimitive(FieldValue fv) {
+            values.add(new ResultList.VariableValue((VariableMap) getVariables().clone(), fv));
+        }
+
+    }
+
+}
@@ -8,6 +8,8 @@ import com.yahoo.document.select.parser.SelectParser;
 import com.yahoo.document.select.parser.TokenMgrException;
 import com.yahoo.document.select.rule.ExpressionNode;
 
+import java.util.Optional;
+
 /**
  * A document selector is a filter which accepts or rejects documents
  * based on their type and content. A document selector has a textual
@@ -21,6 +23,7 @@ import com.yahoo.document.select.rule.ExpressionNode;
 public class DocumentSelector {
 
     private final ExpressionNode expression;
+    private volatile Optional<CompiledSelection> compiled;
 
     /**
      * Creates a document selector from a Document Selection Language string
@@ -41,6 +44,7 @@ public class DocumentSelector {
             throw (ParseException)t.initCause(e instanceof ParseException ?
                                               new ParseException(input.formatException(e.getMessage())) : e);
         }
+        compiled = CompiledSelection.compile(expression);
     }
 
     /**
@@ -62,6 +66,8 @@ public class DocumentSelector {
      * @throws RuntimeException if the evaluation enters an illegal state
      */
     public Result accepts(Context context) {
+        Optional<CompiledSelection> compiled = this.compiled;
+        if (compiled.isPresent()) return compiled.get().evaluate(context);
         return Result.toResult(expression.evaluate(context));
     }
 
@@ -93,9 +99,10 @@ public class DocumentSelector {
         return expression.toString();
     }
 
-    /** Visits the expression tree */
+    /** Visits the expression tree, which the visitor may modify */
     public void visit(Visitor visitor) {
         expression.accept(visitor);
+        compiled = CompiledSelection.compile(expression);
     }
 
 }
@@ -30,6 +30,9 @@ public class ComparisonNode implements ExpressionNode {
     // The operator string for this.
     private String operator;
 
+    // The last pattern matched against by this, as the pattern to match is usually the same each time.
+    private volatile CompiledPattern pattern = null;
+
     /**
      * Constructs a new comparison node.
      *
@@ -130,8 +133,11 @@ public class ComparisonNode implements ExpressionNode {
 
     @Override
     public Object evaluate(Context context) {
-        Object oLeft = lhs.evaluate(context);
-        Object oRight = rhs.evaluate(context);
+        return evaluateOperands(lhs.evaluate(context), rhs.evaluate(context));
+    }
+
+    /** Returns the result of this comparison, given the values its left- and right-hand-sides evaluated to. */
+    public Object evaluateOperands(Object oLeft, Object oRight) {
         if (oLeft == null || oRight == null) {
             return evaluateWithAtLeastOneNullSide(oLeft, oRight);
         }
@@ -151,7 +157,7 @@ public class ComparisonNode implements ExpressionNode {
         } else if (oRight instanceof AttributeNode.VariableValueList) {
             return evaluateLhsSingleAndRhsList(oLeft, (AttributeNode.VariableValueList)oRight);
         }
-        return new ResultList(evaluateBool(oLeft, oRight));
+        return new ResultList(compare(oLeft, oRight));
     }
 
     /**
@@ -204,11 +210,11 @@ public class ComparisonNode implements ExpressionNode {
     }
 
     private ResultList evaluateLhsListAndRhsSingle(AttributeNode.VariableValueList lhs, Object rhs) {
-        return evaluateOneSideListOnly(lhs, rhs, (val) -> evaluateBool(val, rhs));
+        return evaluateOneSideListOnly(lhs, rhs, (val) -> compare(val, rhs));
     }
 
     private ResultList evaluateLhsSingleAndRhsList(Object lhs, AttributeNode.VariableValueList rhs) {
-        return evaluateOneSideListOnly(rhs, lhs, (val) -> evaluateBool(lhs, val));
+        return evaluateOneSideListOnly(rhs, lhs, (val) -> compare(lhs, val));
     }
 
     private static ResultList evaluateOneSideListOnly(AttributeNode.VariableValueList list, Object other,
@@ -244,13 +250,13 @@ public class ComparisonNode implements ExpressionNode {
     }
 
     /**
-     * Evaluate this expression on two operands, given that they are not invalid.
+     * Evaluate this expression on two operands, given that they are not invalid, and neither is a list.
      *
      * @param lhs Left hand side of operation.
      * @param rhs Right hand side of operation.
      * @return The evaluation result.
      */
-    private Result evaluateBool(Object lhs, Object rhs) {
+    public Result compare(Object lhs, Object rhs) {
         if (operator.equals("==")) {
             return evaluateEquals(lhs, rhs);
         } else if (operator.equals("!=")) {
@@ -336,13 +342,18 @@ public class ComparisonNode implements ExpressionNode {
     private Result evaluateString(Object lhs, Object rhs) {
         String left = "" + lhs; // Allows null objects to evaluate to string.
         String right = "" + rhs;
-        if (operator.equals("=~")) {
-            return Result.toResult(Pattern.compile(right).matcher(left).find());
-        } else {
-            return Result.toResult(Pattern.compile(globToRegex(right)).matcher(left).find());
-        }
+        return Result.toResult(pattern(right, operator.equals("=~")).matcher(left).find());
+    }
+
+    private Pattern pattern(String source, boolean isRegex) {
+        CompiledPattern pattern = this.pattern;
+        if (pattern == null || pattern.isRegex != isRegex || ! pattern.source.equals(source))
+            this.pattern = pattern = new CompiledPattern(source, isRegex, Pattern.compile(isRegex ? source : globToRegex(source)));
+        return pattern.pattern;
     }
 
+    private record CompiledPattern(String source, boolean isRegex, Pattern pattern) { }
+
     /**
      * Converts a glob pattern to a corresponding regular expression string.
      *
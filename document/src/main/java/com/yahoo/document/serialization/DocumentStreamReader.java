@@ -0,0 +1,154 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.api.annotations.Beta;
+import com.yahoo.compress.ZstdCompressor;
+import com.yahoo.config.subscription.CfgConfigPayloadBuilder;
+import com.yahoo.config.subscription.ConfigInstanceUtil;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentOperation;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentRemove;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.config.DocumentmanagerConfig;
+import com.yahoo.io.GrowableByteBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Reads the document operations of a stream written by {@link DocumentStreamWriter}.
+ * The continuation token, messages and document count in the stream are made available
+ * as they are read. This is not thread safe.
+ */
+@Beta
+public class DocumentStreamReader implements AutoCloseable {
+
+    private final ZstdCompressor compressor = new ZstdCompressor();
+    private final InputStream in;
+    private final DocumentTypeManager types;
+    private GrowableByteBuffer frame = GrowableByteBuffer.wrap(new byte[0]);
+
+    private String continuation = null;
+    private double percentFinished = 0;
+    private final List<String> messages = new ArrayList<>();
+    private Long documentCount = null;
+
+    /** Creates a reader of documents of the types given in the header of the stream */
+    public DocumentStreamReader(InputStream in) throws IOException {
+        this(in, null);
+    }
+
+    /** Creates a reader of documents of the given types, ignoring the types given in the header of the stream */
+    public DocumentStreamReader(InputStream in, DocumentTypeManager types) throws IOException {
+        this.in = in;
+        byte[] magic = in.readNBytes(DocumentStreamWriter.magic.length);
+        if ( ! Arrays.equals(magic, DocumentStreamWriter.magic))
+            throw new IllegalArgumentException("Not a document stream: Expected magic number " +
+                                               Arrays.toString(DocumentStreamWriter.magic) + ", got " + Arrays.toString(magic));
+        if ( ! readFrame())
+            throw new IllegalArgumentException("Document stream does not start with a header");
+        int size = frame.getInt();
+        if (frame.get() != DocumentStreamWriter.HEADER)
+            throw new IllegalArgumentException("Document stream does not start with a header");
+        if (types == null)
+            types = readTypes(size);
+        else
+            frame.position(frame.position() + size);
+        this.types = types;
+    }
+
+    /** Returns the next document put or remove in the stream, or null if the end of the stream is reached */
+    public DocumentOperation read() throws IOException {
+        while (frame.remaining() > 0 || readFrame()) {
+            int size = frame.getInt();
+            byte type = frame.get();
+            int end = frame.position() + size;
+            switch (type) {
+                case DocumentStreamWriter.PUT -> {
+                    Document document = new Document(DocumentDeserializerFactory.createHead(types, frame));
+                    frame.position(end);
+                    return new DocumentPut(document);
+                }
+                case DocumentStreamWriter.REMOVE -> {
+                    DocumentId id = new DocumentId(DocumentDeserializerFactory.createHead(types, frame));
+                    frame.position(end);
+                    return new DocumentRemove(id);
+                }
+                case DocumentStreamWriter.CONTINUATION -> {
+                    continuation = frame.getUtf8String();
+                    percentFinished = frame.getDouble();
+                }
+                case DocumentStreamWriter.MESSAGE -> messages.add(frame.getUtf8String());
+                case DocumentStreamWriter.DOCUMENT_COUNT -> documentCount = frame.getLong();
+                default -> { } // Skip other records, such as traces
+            }
+            frame.position(end);
+        }
+        return null;
+    }
+
+    private DocumentTypeManager readTypes(int size) {
+        byte[] header = new byte[size];
+        frame.get(header);
+        List<String> lines = List.of(new String(header, StandardCharsets.UTF_8).split("\n"));
+        var payload = new CfgConfigPayloadBuilder().deserialize(lines);
+        return new DocumentTypeManager(ConfigInstanceUtil.getNewInstance(DocumentmanagerConfig.class, "", payload));
+    }
+
+    /** Reads the next frame, or returns false if the end of the stream is reached */
+    private boolean readFrame() throws IOException {
+        byte[] sizeBytes = in.readNBytes(4);
+        if (sizeBytes.length == 0) return false;
+        if (sizeBytes.length < 4)
+            throw new IllegalArgumentException("Truncated document stream: Got " + sizeBytes.length + " bytes of a frame size");
+        int size = ByteBuffer.wrap(sizeBytes).getInt();
+        byte[] compressed = in.readNBytes(size);
+        if (compressed.length < size)
+            throw new IllegalArgumentException("Truncated document stream: Got " + compressed.length +
+                                               " bytes of a frame of " + size + " bytes");
+        frame = GrowableByteBuffer.wrap(compressor.decompress(compressed, 0, size));
+        return true;
+    }
+
+    /** Returns the types of the documents read */
+    public DocumentTypeManager types() { return types; }
+
+    /**
+     * Returns the last continuation token read from the stream,
+     * or empty if none is read or the visit producing the stream is finished.
+     */
+    public Optional<String> continuation() {
+        return Optional.ofNullable(continuation).filter(token -> ! token.isEmpty());
+    }
+
+    /** Returns whether the stream contained a continuation token telling that the visit producing it is finished */
+    public boolean isFinished() {
+        return continuation != null && continuation.isEmpty();
+    }
+
+    /** Returns how much of the visit producing the stream is finished, according to the last continuation token read */
+    public double percentFinished() { return percentFinished; }
+
+    /** Returns the messages read from the stream */
+    public List<String> messages() { return List.copyOf(messages); }
+
+    /** Returns the document count read from the stream, if any */
+    public OptionalLong documentCount() {
+        return documentCount == null ? OptionalLong.empty() : OptionalLong.of(documentCount);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
@@ -0,0 +1,129 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.api.annotations.Beta;
+import com.yahoo.compress.ZstdCompressor;
+import com.yahoo.config.ConfigInstance;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.config.DocumentmanagerConfig;
+import com.yahoo.io.GrowableByteBuffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Writes a stream of documents and document removes in the head document format, as a compact
+ * alternative to JSON for bulk export which can be read by {@link DocumentStreamReader}.
+ *
+ * The stream starts with a magic number, followed by zstd frames each preceded by its 4 byte compressed size.
+ * A frame holds a sequence of records, each preceded by its 4 byte size and 1 byte type.
+ * The first record of a stream holds the document manager config the documents are serialized with,
+ * such that the stream can be read without access to the application which produced it.
+ * Besides puts and removes, a stream may contain the continuation token, messages and document count
+ * of the visit producing it.
+ *
+ * Records are buffered until they are taken as a frame, which should be done whenever
+ * the frame is full, and when the stream ends. This is not thread safe.
+ */
+@Beta
+public class DocumentStreamWriter {
+
+    static final byte[] magic = { 'V', '2' };
+
+    static final byte HEADER = 0;
+    static final byte PUT = 1;
+    static final byte REMOVE = 2;
+    static final byte CONTINUATION = 3;
+    static final byte MESSAGE = 4;
+    static final byte TRACE = 5;
+    static final byte DOCUMENT_COUNT = 6;
+
+    /** The size of record data at which a frame is full */
+    public static final int DEFAULT_FRAME_SIZE = 1 << 20;
+
+    private final ZstdCompressor compressor = new ZstdCompressor();
+    private final int frameSize;
+    private final GrowableByteBuffer buffer;
+    private boolean started = false;
+
+    public DocumentStreamWriter(DocumentmanagerConfig documentTypes) {
+        this(documentTypes, DEFAULT_FRAME_SIZE);
+    }
+
+    public DocumentStreamWriter(DocumentmanagerConfig documentTypes, int frameSize) {
+        this.frameSize = frameSize;
+        this.buffer = new GrowableByteBuffer(frameSize + 64 * 1024);
+        byte[] header = String.join("\n", ConfigInstance.serialize(documentTypes)).getBytes(StandardCharsets.UTF_8);
+        writeRecord(HEADER, buffer -> buffer.put(header));
+    }
+
+    public void writePut(Document document) {
+        writeRecord(PUT, buffer -> DocumentSerializerFactory.createHead(buffer).write(document));
+    }
+
+    public void writeRemove(DocumentId id) {
+        writeRecord(REMOVE, buffer -> DocumentSerializerFactory.createHead(buffer).write(id));
+    }
+
+    /** Writes a continuation token of the visit producing this stream, which is empty if the visit is finished */
+    public void writeContinuation(String token, double percentFinished) {
+        writeRecord(CONTINUATION, buffer -> { buffer.putUtf8String(token); buffer.putDouble(percentFinished); });
+    }
+
+    public void writeMessage(String message) {
+        writeRecord(MESSAGE, buffer -> buffer.putUtf8String(message));
+    }
+
+    public void writeTrace(String trace) {
+        writeRecord(TRACE, buffer -> buffer.putUtf8String(trace));
+    }
+
+    public void writeDocumentCount(long count) {
+        writeRecord(DOCUMENT_COUNT, buffer -> buffer.putLong(count));
+    }
+
+    private void writeRecord(byte type, Consumer<GrowableByteBuffer> payloadWriter) {
+        int start = buffer.position();
+        buffer.putInt(0);
+        buffer.put(type);
+        payloadWriter.accept(buffer);
+        buffer.putInt(start, buffer.position() - start - 5);
+    }
+
+    /** Returns whether the records written since the last frame was taken fill a frame */
+    public boolean isFrameFull() {
+        return buffer.position() >= frameSize;
+    }
+
+    /**
+     * Returns the records written since the last frame was taken as a frame, preceded by the magic number
+     * if this is the first frame, or an empty buffer if no records are written since the last frame.
+     */
+    public ByteBuffer takeFrame() {
+        int size = buffer.position();
+        if (size == 0) return ByteBuffer.allocate(0);
+
+        int prefixSize = started ? 4 : magic.length + 4;
+        byte[] frame = new byte[prefixSize + ZstdCompressor.getMaxCompressedLength(size)];
+        int compressedSize = compressor.compress(buffer.array(), 0, size, frame, prefixSize, frame.length - prefixSize);
+        ByteBuffer prefix = ByteBuffer.wrap(frame);
+        if ( ! started)
+            prefix.put(magic);
+        prefix.putInt(compressedSize);
+        buffer.clear();
+        started = true;
+        return ByteBuffer.wrap(Arrays.copyOf(frame, prefixSize + compressedSize));
+    }
+
+    /** Writes the records written since the last frame was taken as a frame to the given stream */
+    public void writeFrameTo(OutputStream out) throws IOException {
+        ByteBuffer frame = takeFrame();
+        out.write(frame.array(), 0, frame.limit());
+    }
+
+}
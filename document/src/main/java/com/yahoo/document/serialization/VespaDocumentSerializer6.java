@@ -16,6 +16,8 @@ import com.yahoo.document.WeightedSetDataType;
 import com.yahoo.document.annotation.AlternateSpanList;
 import com.yahoo.document.annotation.Annotation;
 import com.yahoo.document.annotation.AnnotationReference;
+import com.yahoo.document.annotation.AnnotationType;
+import com.yahoo.document.annotation.CompactSpanList;
 import com.yahoo.document.annotation.Span;
 import com.yahoo.document.annotation.SpanList;
 import com.yahoo.document.annotation.SpanNode;
@@ -257,18 +259,8 @@ public class VespaDocumentSerializer6 extends BufferSerializer implements Docume
      */
     @Override
     public void write(FieldBase field, StringFieldValue value) {
-        byte[] stringBytes = createUTF8CharArray(value.getString());
-
-        byte coding = 0;
         //Use bit 6 of "coding" to say whether span tree is available or not
-        if (!value.getSpanTrees().isEmpty()) {
-            coding |= 64;
-        }
-        buf.put(coding);
-        buf.putInt1_4Bytes(stringBytes.length + 1);
-
-        buf.put(stringBytes);
-        buf.put(((byte) 0));
+        writeString(value.getString(), value.getSpanTrees().isEmpty() ? 0 : (byte) 64);
 
         Map<String, SpanTree> trees = value.getSpanTreeMap();
         if ((trees != null) && !trees.isEmpty()) {
@@ -490,6 +482,14 @@ public class VespaDocumentSerializer6 extends BufferSerializer implements Docume
         buf.position(end);
     }
 
+    private void writeString(String value, byte coding) {
+        byte[] stringBytes = createUTF8CharArray(value);
+        buf.put(coding);
+        buf.putInt1_4Bytes(stringBytes.length + 1);
+        buf.put(stringBytes);
+        buf.put(((byte) 0));
+    }
+
     @Override
     public void write(SpanTree tree) {
         //we don't support serialization of nested span trees:
@@ -497,6 +497,11 @@ public class VespaDocumentSerializer6 extends BufferSerializer implements Docume
             throw new SerializationException("Serialization of nested SpanTrees is not supported.");
         }
 
+        if (tree.getCompactSpanList() != null) {
+            write(tree.getName(), tree.getCompactSpanList());
+            return;
+        }
+
         //we're going to write a new SpanTree, create a new Map for nodes:
         spanNodeCounter = 0;
 
@@ -532,6 +537,44 @@ public class VespaDocumentSerializer6 extends BufferSerializer implements Docume
         }
     }
 
+    /** Writes a tree in compact form exactly as the inflated tree would be written, without inflating it. */
+    private void write(String name, CompactSpanList spans) {
+        if (bytePositions == null)
+            throw new SerializationException("Cannot serialize span tree '" + name + "', no access to parent StringFieldValue.");
+
+        writeString(name, (byte) 0);
+
+        buf.put(SpanList.ID);
+        buf.putInt1_2_4Bytes(spans.numSpans());
+        for (int i = 0; i < spans.numSpans(); i++) {
+            int byteFrom = bytePositions[spans.spanFrom(i)];
+            buf.put(Span.ID);
+            buf.putInt1_2_4Bytes(byteFrom);
+            buf.putInt1_2_4Bytes(bytePositions[spans.spanFrom(i) + spans.spanLength(i)] - byteFrom);
+        }
+
+        AnnotationType type = spans.annotationType();
+        int[] annotations = spans.sortedAnnotations();
+        buf.putInt1_2_4Bytes(annotations.length);
+        for (int annotation : annotations) {
+            String value = spans.annotationValue(annotation);
+            buf.putInt(type.getId());
+            buf.put(value == null ? (byte) 1 : (byte) 3);
+
+            int posBeforeSize = buf.position();
+            buf.putInt1_2_4BytesAs4(0);
+            buf.putInt1_2_4Bytes(spans.annotatedSpan(annotation) + 1); // the root span list is node 0
+            if (value != null) {
+                buf.putInt(type.getDataType().getId());
+                writeString(value, (byte) 0);
+            }
+            int end = buf.position();
+            buf.position(posBeforeSize);
+            buf.putInt1_2_4BytesAs4(end - posBeforeSize - 4);
+            buf.position(end);
+        }
+    }
+
     @Override
     public void write(SpanNode spanNode) {
         if (spanNodeCounter >= 0) {
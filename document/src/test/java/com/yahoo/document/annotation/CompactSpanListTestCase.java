@@ -0,0 +1,138 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.annotation;
+
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.serialization.DocumentDeserializer;
+import com.yahoo.document.serialization.DocumentDeserializerFactory;
+import com.yahoo.document.serialization.DocumentSerializer;
+import com.yahoo.document.serialization.DocumentSerializerFactory;
+import com.yahoo.io.GrowableByteBuffer;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+public class CompactSpanListTestCase extends AbstractTypesTest {
+
+    private static final String text = "Blåbær er godt, men ikke blåbærsyltetøy; blåbær!";
+
+    @Test
+    public void testInflatedTreeEqualsTreeBuiltDirectly() {
+        SpanTree compact = new SpanTree(SpanTrees.LINGUISTICS, compactSpans());
+        assertEquals(8, compact.numAnnotations());
+        assertNotNull("Counting annotations does not inflate", compact.getCompactSpanList());
+
+        SpanTree copy = new SpanTree(compact);
+        assertSame(compact.getCompactSpanList(), copy.getCompactSpanList());
+
+        assertEquals(regularTree(), compact);
+        assertNull(compact.getCompactSpanList());
+        assertEquals(compact, copy);
+        assertEquals(regularTree().hashCode(), compact.hashCode());
+        assertEquals(4, compact.spanList().numChildren());
+    }
+
+    @Test
+    public void testSerializationIsTheSameAsForInflatedTree() {
+        StringFieldValue compactValue = new StringFieldValue(text);
+        compactValue.setSpanTree(new SpanTree(SpanTrees.LINGUISTICS, compactSpans()));
+        byte[] compact = serialize(compactValue);
+        assertNotNull("Serialization does not inflate", compactValue.getSpanTree(SpanTrees.LINGUISTICS).getCompactSpanList());
+
+        StringFieldValue regularValue = new StringFieldValue(text);
+        regularValue.setSpanTree(regularTree());
+        assertArrayEquals(serialize(regularValue), compact);
+
+        DocumentDeserializer deserializer = DocumentDeserializerFactory.createHead(man, GrowableByteBuffer.wrap(compact));
+        StringFieldValue deserialized = new StringFieldValue();
+        deserializer.read(null, deserialized);
+        assertEquals(regularValue, deserialized);
+    }
+
+    @Test
+    public void testConcurrentAccessorsSeeTheInflatedTree() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 100; round++) {
+                SpanTree tree = new SpanTree(SpanTrees.LINGUISTICS, compactSpans());
+                List<Callable<Integer>> readers = Collections.nCopies(8, () -> {
+                    int annotations = 0;
+                    for (Annotation annotation : tree)
+                        annotations += annotation.getSpanNode() != null ? 1 : 0;
+                    return annotations + tree.spanList().numChildren();
+                });
+                for (Future<Integer> result : executor.invokeAll(readers))
+                    assertEquals(8 + 4, (int) result.get());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testOnlyStringValuesAreAllowed() {
+        assertThrows(IllegalArgumentException.class, () -> new CompactSpanList(number));
+        assertThrows(IllegalArgumentException.class, () -> { CompactSpanList spans = new CompactSpanList(dummy);
+                                                               spans.annotate(spans.span(0, 1), "value"); });
+        assertThrows(IndexOutOfBoundsException.class, () -> new CompactSpanList(AnnotationTypes.TERM).annotate(0));
+    }
+
+    /** Spans which are out of order, and have annotations which are not sorted, and duplicated. */
+    private static CompactSpanList compactSpans() {
+        CompactSpanList spans = new CompactSpanList(AnnotationTypes.TERM);
+        int first = spans.span(25, 15);
+        spans.annotate(first, "blåbærsyltetøy");
+        spans.annotate(first, "blåbær");
+        spans.annotate(first);
+        int second = spans.span(0, 6);
+        spans.annotate(second, "blåbær");
+        spans.annotate(second);
+        spans.span(7, 2);
+        int fourth = spans.span(41, 6);
+        spans.annotate(fourth, "blåbær");
+        spans.annotate(fourth, "blåbær");
+        spans.annotate(second, "bær");
+        return spans;
+    }
+
+    private static SpanTree regularTree() {
+        SpanTree tree = new SpanTree(SpanTrees.LINGUISTICS);
+        SpanList root = tree.spanList();
+        Span first = root.span(25, 15);
+        first.annotate(new Annotation(AnnotationTypes.TERM, new StringFieldValue("blåbærsyltetøy")));
+        first.annotate(new Annotation(AnnotationTypes.TERM, new StringFieldValue("blåbær")));
+        first.annotate(new Annotation(AnnotationTypes.TERM));
+        Span second = root.span(0, 6);
+        second.annotate(new Annotation(AnnotationTypes.TERM, new StringFieldValue("blåbær")));
+        second.annotate(new Annotation(AnnotationTypes.TERM));
+        root.span(7, 2);
+        Span fourth = root.span(41, 6);
+        fourth.annotate(new Annotation(AnnotationTypes.TERM, new StringFieldValue("blåbær")));
+        fourth.annotate(new Annotation(AnnotationTypes.TERM, new StringFieldValue("blåbær")));
+        second.annotate(new Annotation(AnnotationTypes.TERM, new StringFieldValue("bær")));
+        return tree;
+    }
+
+    private static byte[] serialize(StringFieldValue value) {
+        GrowableByteBuffer buffer = new GrowableByteBuffer(1024);
+        DocumentSerializer serializer = DocumentSerializerFactory.createHead(buffer);
+        serializer.write(null, value);
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+}
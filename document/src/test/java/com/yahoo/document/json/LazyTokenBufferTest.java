@@ -11,6 +11,8 @@ import java.util.function.Supplier;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author jonmv
@@ -129,4 +131,44 @@ public class LazyTokenBufferTest {
         assertNull(buffer.next());
     }
 
+    @Test
+    public void testNumbersAndLookaheadFromParser() throws IOException {
+        String json = """
+                      {
+                        "fields": {
+                          "values": [1.5, 2, 3.25e1, "x"]
+                        }
+                      }""";
+        JsonParser parser = new JsonFactory().createParser(json);
+        parser.nextValue();
+        parser.nextValue();
+        LazyTokenBuffer buffer = new LazyTokenBuffer(parser);
+
+        assertEquals(JsonToken.START_ARRAY, buffer.next());
+        assertEquals("values", buffer.currentName());
+        assertEquals(JsonToken.VALUE_NUMBER_FLOAT, buffer.next());
+        assertEquals(1.5, buffer.currentDouble(), 0);
+
+        // Peeking keeps the current token, although the parser moves on.
+        Supplier<Token> lookahead = buffer.lookahead();
+        assertEquals("2", lookahead.get().text);
+        assertEquals(1.5f, buffer.currentFloat(), 0);
+        assertEquals("1.5", buffer.currentText());
+
+        assertEquals(JsonToken.VALUE_NUMBER_INT, buffer.next());
+        assertEquals(2f, buffer.currentFloat(), 0);
+        assertEquals(JsonToken.VALUE_NUMBER_FLOAT, buffer.next());
+        assertEquals(32.5f, buffer.currentFloat(), 0);
+        assertEquals(32.5, buffer.currentDouble(), 0);
+        assertEquals("3.25e1", buffer.currentText());
+        assertEquals(JsonToken.VALUE_STRING, buffer.next());
+        assertThrows(NumberFormatException.class, buffer::currentDouble);
+
+        assertEquals(JsonToken.END_ARRAY, buffer.next());
+        assertEquals(JsonToken.END_OBJECT, buffer.next());
+        assertEquals(0, buffer.nesting());
+        assertNull(buffer.next());
+        assertTrue(buffer.isEmpty());
+    }
+
 }
@@ -0,0 +1,65 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.select;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.select.parser.ParseException;
+
+/**
+ * Compares evaluating a typical routing selection on puts compiled, as done by {@link DocumentSelector#accepts},
+ * with interpreting it, as done by {@link DocumentSelector#getMatchingResultList}.
+ */
+public class DocumentSelectorMicroBenchmark {
+
+    private static final String selection = "music and (music.year > 2000 or music.title =~ \"^best.*\") and not music.artist == \"nobody\"";
+
+    private final DocumentSelector selector;
+    private final DocumentPut[] puts = new DocumentPut[1000];
+
+    public DocumentSelectorMicroBenchmark() throws ParseException {
+        DocumentType type = new DocumentType("music");
+        type.addField("year", DataType.INT);
+        type.addField("title", DataType.STRING);
+        type.addField("artist", DataType.STRING);
+        for (int i = 0; i < puts.length; i++) {
+            Document document = new Document(type, new DocumentId("id:ns:music::" + i));
+            document.setFieldValue("year", new IntegerFieldValue(1990 + i % 20));
+            document.setFieldValue("title", new StringFieldValue((i % 3 == 0 ? "best of " : "some ") + i));
+            document.setFieldValue("artist", new StringFieldValue(i % 7 == 0 ? "nobody" : "artist " + i));
+            puts[i] = new DocumentPut(document);
+        }
+        selector = new DocumentSelector(selection);
+    }
+
+    public void benchmark(String description, int count, boolean compiled) {
+        evaluate(100000, compiled); // warm-up
+        long startTime = System.nanoTime();
+        int accepted = evaluate(count, compiled);
+        long totalTime = System.nanoTime() - startTime;
+        System.out.println(description + ": " + totalTime / 1_000_000 + " ms (" + (float) totalTime / count +
+                           " ns per evaluation, " + accepted + " accepted)");
+    }
+
+    private int evaluate(int count, boolean compiled) {
+        int accepted = 0;
+        for (int i = 0; i < count; i++) {
+            DocumentPut put = puts[i % puts.length];
+            Result result = compiled ? selector.accepts(put) : Result.toResult(selector.getMatchingResultList(put));
+            if (result == Result.TRUE) accepted++;
+        }
+        return accepted;
+    }
+
+    public static void main(String[] args) throws ParseException {
+        int count = 10000000;
+        DocumentSelectorMicroBenchmark benchmark = new DocumentSelectorMicroBenchmark();
+        benchmark.benchmark("Interpreted", count, false);
+        benchmark.benchmark("Compiled   ", count, true);
+    }
+
+}
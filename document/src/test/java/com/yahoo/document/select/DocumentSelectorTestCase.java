@@ -28,6 +28,8 @@ import com.yahoo.document.datatypes.TensorFieldValue;
 import com.yahoo.document.datatypes.WeightedSet;
 import com.yahoo.document.select.convert.SelectionExpressionConverter;
 import com.yahoo.document.select.parser.ParseException;
+import com.yahoo.document.select.parser.SelectInput;
+import com.yahoo.document.select.parser.SelectParser;
 import com.yahoo.document.select.parser.TokenMgrException;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
@@ -857,6 +859,20 @@ public class DocumentSelectorTestCase {
         }
     }
 
+    @Test
+    public void testCompilation() throws ParseException {
+        assertCompiled(true, "test.hint = 24 and (test.hstring =~ \"^foo\" or not test.content)");
+        assertCompiled(true, "id.namespace == \"ns\" and test.mystruct.key > 3 * 5");
+        assertCompiled(true, "test.mymap{3} == \"foo\" or test.structarray[0].key == 15");
+        assertCompiled(true, "test.hstring.lowercase() == \"yes\"");
+        assertCompiled(false, "test.structarray[$x].key == 15 AND test.structarray[$x].value == \"structval1\"");
+        assertCompiled(false, "not (test.mymap{$x} == \"foo\")");
+    }
+
+    private static void assertCompiled(boolean expected, String expression) throws ParseException {
+        assertEquals(expression, expected, CompiledSelection.compile(new SelectParser(new SelectInput(expression)).expression()).isPresent());
+    }
+
     @Test
     public void testTicket1769674() {
         assertParseError("music.uri=\"junk",
@@ -981,7 +997,11 @@ public class DocumentSelectorTestCase {
     }
 
     private static Result evaluate(String expressionString, DocumentOperation op) throws ParseException {
-        return new DocumentSelector(expressionString).accepts(op);
+        DocumentSelector selector = new DocumentSelector(expressionString);
+        Result result = selector.accepts(op);
+        assertEquals("Compiled and interpreted evaluation of '" + expressionString + "' agree",
+                     Result.toResult(selector.getMatchingResultList(op)), result);
+        return result;
     }
 
     private static void assertError(String expressionString, DocumentOperation op, String expectedError) {
@@ -0,0 +1,133 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.config.subscription.CfgConfigPayloadBuilder;
+import com.yahoo.config.subscription.ConfigInstanceUtil;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentOperation;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentRemove;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.config.DocumentmanagerConfig;
+import com.yahoo.document.datatypes.LongFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DocumentStreamTestCase {
+
+    private final DocumentmanagerConfig config = readConfig("src/test/document/documentmanager.cfg");
+    private final DocumentTypeManager types = new DocumentTypeManager(config);
+
+    @Test
+    public void testWrittenOperationsAreReadBack() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DocumentStreamWriter writer = new DocumentStreamWriter(config, 1000);
+        List<DocumentOperation> operations = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            if (i % 10 == 9) {
+                DocumentId id = new DocumentId("id:ns:foobar::" + (i - 1));
+                writer.writeRemove(id);
+                operations.add(new DocumentRemove(id));
+            }
+            else {
+                Document document = new Document(types.getDocumentType("foobar"), "id:ns:foobar::" + i);
+                document.setFieldValue("foobarfield0", new StringFieldValue("value " + i));
+                document.setFieldValue("foobarfield1", new LongFieldValue(i));
+                writer.writePut(document);
+                operations.add(new DocumentPut(document));
+            }
+            if (i % 20 == 0)
+                writer.writeContinuation("token" + i, i);
+            if (writer.isFrameFull())
+                writer.writeFrameTo(out);
+        }
+        writer.writeMessage("Visiting done");
+        writer.writeTrace("Trace");
+        writer.writeDocumentCount(100);
+        writer.writeFrameTo(out);
+        writer.writeFrameTo(out); // Nothing to write
+        byte[] stream = out.toByteArray();
+
+        try (DocumentStreamReader reader = new DocumentStreamReader(new ByteArrayInputStream(stream), types)) {
+            for (DocumentOperation operation : operations)
+                assertEquals(operation, reader.read());
+            assertNull(reader.read());
+            assertEquals("token80", reader.continuation().get());
+            assertEquals(80, reader.percentFinished(), 0);
+            assertFalse(reader.isFinished());
+            assertEquals(List.of("Visiting done"), reader.messages());
+            assertEquals(100, reader.documentCount().getAsLong());
+        }
+
+        try (DocumentStreamReader reader = new DocumentStreamReader(new ByteArrayInputStream(stream))) {
+            assertTrue(reader.types() != types);
+            for (DocumentOperation operation : operations) {
+                DocumentOperation read = reader.read();
+                assertEquals(operation.getId(), read.getId());
+                if (operation instanceof DocumentPut put) {
+                    Document document = ((DocumentPut) read).getDocument();
+                    assertEquals("foobar", document.getDataType().getName());
+                    assertEquals(put.getDocument().getFieldValue("foobarfield0"), document.getFieldValue("foobarfield0"));
+                    assertEquals(put.getDocument().getFieldValue("foobarfield1"), document.getFieldValue("foobarfield1"));
+                }
+                else {
+                    assertTrue(read instanceof DocumentRemove);
+                }
+            }
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    public void testFinishedVisit() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DocumentStreamWriter writer = new DocumentStreamWriter(config);
+        writer.writeContinuation("", 100);
+        writer.writeFrameTo(out);
+
+        try (DocumentStreamReader reader = new DocumentStreamReader(new ByteArrayInputStream(out.toByteArray()))) {
+            assertNull(reader.read());
+            assertTrue(reader.isFinished());
+            assertTrue(reader.continuation().isEmpty());
+            assertTrue(reader.documentCount().isEmpty());
+        }
+    }
+
+    @Test
+    public void testOtherFormatsAreRejected() throws IOException {
+        try {
+            new DocumentStreamReader(new ByteArrayInputStream("[{\"put\":\"id:ns:foobar::1\"}]".getBytes(StandardCharsets.UTF_8)));
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Not a document stream: Expected magic number [86, 50], got [91, 123]", e.getMessage());
+        }
+    }
+
+    private static DocumentmanagerConfig readConfig(String file) {
+        try {
+            var payload = new CfgConfigPayloadBuilder().deserialize(Files.readAllLines(Path.of(file)));
+            return ConfigInstanceUtil.getNewInstance(DocumentmanagerConfig.class, "", payload);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+}
@@ -8,6 +8,7 @@ import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.Parser;
+import com.google.protobuf.UnsafeByteOperations;
 import com.yahoo.document.BucketId;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
@@ -44,6 +45,17 @@ abstract class RoutableFactories80 {
 
     private static final Logger log = Logger.getLogger(RoutableFactories80.class.getName());
 
+    /** Serialization buffers larger than this are not kept for reuse by the encoding thread */
+    private static final int maxReusedBufferSize = 1 << 20;
+
+    /**
+     * Buffer for serializing the single document, or update, of a message, which is reused by later messages encoded
+     * by the same thread. This is safe because the protobuf message wrapping the buffer is written to the payload, and
+     * discarded, before the encoder returns; messages with several documents must use a fresh buffer for each.
+     */
+    private static final ThreadLocal<GrowableByteBuffer> singleDocumentBuffer =
+            ThreadLocal.withInitial(() -> new GrowableByteBuffer(8 * 1024, 2.0f));
+
     private static class ProtobufCodec<DocApiT extends Routable, ProtoT extends AbstractMessage> implements RoutableFactory {
 
         private final Class<DocApiT>                          apiClass;
@@ -202,15 +214,39 @@ abstract class RoutableFactories80 {
         return buf.getByteBuffer();
     }
 
+    /**
+     * Wraps the given buffer of serialized data without copying it. The buffer must not be modified until the
+     * protobuf message is written to the message payload, which is then the only copy made of the data.
+     */
+    private static ByteString wrapSerialized(ByteBuffer serialized) {
+        return UnsafeByteOperations.unsafeWrap(serialized.array(), serialized.arrayOffset() + serialized.position(), serialized.remaining());
+    }
+
     private static DocapiCommon.Document toProtoDocument(Document doc) {
-        // TODO a lot of copying here... Consider adding Document serialization to OutputStream
-        //  so that we can serialize directly into a ByteString.Output instance.
         return toProtoDocument(serializeDoc(doc));
     }
 
+    /** Returns the given document as a protobuf message which must be written before another document is encoded by this thread */
+    private static DocapiCommon.Document toProtoSingleDocument(Document doc) {
+        var buf = singleDocumentBuffer();
+        doc.serialize(DocumentSerializerFactory.createHead(buf));
+        buf.flip();
+        return toProtoDocument(buf.getByteBuffer());
+    }
+
+    private static GrowableByteBuffer singleDocumentBuffer() {
+        var buf = singleDocumentBuffer.get();
+        if (buf.capacity() > maxReusedBufferSize) {
+            singleDocumentBuffer.remove();
+            buf = singleDocumentBuffer.get();
+        }
+        buf.clear();
+        return buf;
+    }
+
     private static DocapiCommon.Document toProtoDocument(ByteBuffer rawDocData) {
         return DocapiCommon.Document.newBuilder()
-                .setPayload(ByteString.copyFrom(rawDocData))
+                .setPayload(wrapSerialized(rawDocData))
                 .build();
     }
 
@@ -250,17 +286,13 @@ abstract class RoutableFactories80 {
         return TestAndSetCondition.NOT_PRESENT_CONDITION;
     }
 
-    private static ByteBuffer serializeUpdate(DocumentUpdate update) {
-        var buf = new GrowableByteBuffer(4 * 1024, 2.0f);
+    /** Returns the given update as a protobuf message which must be written before another document is encoded by this thread */
+    private static DocapiFeed.DocumentUpdate toProtoSingleUpdate(DocumentUpdate update) {
+        var buf = singleDocumentBuffer();
         update.serialize(DocumentSerializerFactory.createHead(buf));
         buf.flip();
-        return buf.getByteBuffer();
-    }
-
-    private static DocapiFeed.DocumentUpdate toProtoUpdate(DocumentUpdate update) {
-        // TODO also consider DocumentUpdate serialization directly to OutputStream to avoid unneeded copying
         return DocapiFeed.DocumentUpdate.newBuilder()
-                .setPayload(ByteString.copyFrom(serializeUpdate(update)))
+                .setPayload(wrapSerialized(buf.getByteBuffer()))
                 .build();
     }
 
@@ -369,7 +401,7 @@ abstract class RoutableFactories80 {
                             .setForceAssignTimestamp(apiMsg.getTimestamp())
                             .setPersistedTimestamp(apiMsg.getPersistedTimestamp())
                             .setCreateIfMissing(apiMsg.getCreateIfNonExistent())
-                            .setDocument(toProtoDocument(apiMsg.getDocumentPut().getDocument()));
+                            .setDocument(toProtoSingleDocument(apiMsg.getDocumentPut().getDocument()));
                     if (apiMsg.getCondition().isPresent()) {
                         builder.setCondition(toProtoTasCondition(apiMsg.getCondition()));
                     }
@@ -413,7 +445,7 @@ abstract class RoutableFactories80 {
                 .of(UpdateDocumentMessage.class, DocapiFeed.UpdateDocumentRequest.class)
                 .encoder((apiMsg) -> {
                     var builder = DocapiFeed.UpdateDocumentRequest.newBuilder()
-                            .setUpdate(toProtoUpdate(apiMsg.getDocumentUpdate()))
+                            .setUpdate(toProtoSingleUpdate(apiMsg.getDocumentUpdate()))
                             .setExpectedOldTimestamp(apiMsg.getOldTimestamp())
                             .setForceAssignTimestamp(apiMsg.getNewTimestamp());
                     if (apiMsg.getCondition().isPresent()) {
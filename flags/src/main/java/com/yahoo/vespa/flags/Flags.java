@@ -401,6 +401,20 @@ public class Flags {
             HOSTNAME
     );
 
+    public static final UnboundBooleanFlag NODE_REPOSITORY_NODE_CACHE = defineFeatureFlag(
+            "node-repository-node-cache", false,
+            List.of("mpolden"), "2026-10-19", "2027-01-01",
+            "Whether the node repository serves node reads from a watch-driven cache of deserialized nodes",
+            "Takes effect on config server restart"
+    );
+
+    public static final UnboundBooleanFlag COLUMNAR_METRICS_DB = defineFeatureFlag(
+            "columnar-metrics-db", false,
+            List.of("bratseth"), "2026-10-19", "2027-01-01",
+            "Whether the node repository keeps autoscaling metrics in memory in a ColumnarMetricsDb, rather than in the configured metrics db",
+            "Takes effect on config server restart"
+    );
+
     /** WARNING: public for testing: All flags should be defined in {@link Flags}. */
     public static UnboundBooleanFlag defineFeatureFlag(String flagId, boolean defaultValue, List<String> owners,
                                                        String createdAt, String expiresAt, String description,
@@ -0,0 +1,335 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.indexinglanguage;
+
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.Field;
+import com.yahoo.document.PrimitiveDataType;
+import com.yahoo.document.TensorDataType;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.vespa.indexinglanguage.expressions.AttributeExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.ClearStateExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.ConstantExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.ExecutionContext;
+import com.yahoo.vespa.indexinglanguage.expressions.Expression;
+import com.yahoo.vespa.indexinglanguage.expressions.GetVarExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.GuardExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.IndexExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.InputExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.OutputExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.ScriptExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.SetVarExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.StatementExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.SummaryExpression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A resolved indexing script compiled for executing on complete documents of one type.
+ * This gives the same result as executing the script, but
+ *
+ * <ul>
+ *     <li>binds the fields read and written by statements to the fields of the document type once,
+ *     such that values are read and written directly rather than through field paths and name lookups,
+ *     <li>decides once whether each part of the script requires an input value, and
+ *     <li>skips checking the input fields of each statement, since all are present in complete documents.
+ * </ul>
+ *
+ * Expressions which are not compiled are interpreted as part of the compiled script.
+ * Contexts which are not for a document of the compiled type, using a {@link SimpleDocumentFieldValues},
+ * are executed by interpreting the script.
+ */
+public final class CompiledScript {
+
+    private final ScriptExpression script;
+    private final DocumentType documentType;
+    private final Stage compiled;
+
+    private CompiledScript(ScriptExpression script, DocumentType documentType) {
+        this.script = script;
+        this.documentType = documentType;
+        this.compiled = compile(script);
+    }
+
+    /** Compiles a script which is resolved for the given document type */
+    public static CompiledScript compile(ScriptExpression script, DocumentType documentType) {
+        return new CompiledScript(script, documentType);
+    }
+
+    /** Returns the script compiled by this */
+    public ScriptExpression script() { return script; }
+
+    /** Executes the script in the given context, as {@link Expression#execute(ExecutionContext)} does. */
+    public FieldValue execute(ExecutionContext context) {
+        if (isCompiledFor(context))
+            compiled.execute(context);
+        else
+            script.execute(context);
+        return context.getCurrentValue();
+    }
+
+    /** Executes the script in each of the given contexts, as {@link Expression#execute(List)} does. */
+    public void execute(List<ExecutionContext> contexts) {
+        for (ExecutionContext context : contexts) {
+            if ( ! isCompiledFor(context)) {
+                script.execute(contexts);
+                return;
+            }
+        }
+        compiled.execute(contexts);
+    }
+
+    /** Returns whether the given expression is compiled, rather than interpreted, by this. For testing. */
+    boolean isCompiled(Expression expression) {
+        return compiled.contains(expression);
+    }
+
+    private boolean isCompiledFor(ExecutionContext context) {
+        return context.getFieldValues() != null
+               && context.getFieldValues().getClass() == SimpleDocumentFieldValues.class
+               && input(context).getDataType() == documentType
+               && output(context).getDataType() == documentType;
+    }
+
+    private static Document input(ExecutionContext context) {
+        return ((SimpleDocumentFieldValues)context.getFieldValues()).input();
+    }
+
+    private static Document output(ExecutionContext context) {
+        return ((SimpleDocumentFieldValues)context.getFieldValues()).getFullOutput();
+    }
+
+    private Stage compile(Expression expression) {
+        if (expression instanceof ScriptExpression script) {
+            List<Stage> statements = new ArrayList<>();
+            for (StatementExpression statement : script)
+                statements.add(compile(statement));
+            return new ScriptStage(script, statements.toArray(new Stage[0]));
+        }
+        if (expression instanceof StatementExpression statement) {
+            List<Stage> stages = new ArrayList<>();
+            for (Expression child : statement)
+                stages.add(compile(child));
+            return new StatementStage(statement, stages.toArray(new Stage[0]));
+        }
+        if (expression instanceof GuardExpression guard) // Guards only apply to updates
+            return new GuardStage(guard, compile(guard.getInnerExpression()));
+        if (expression instanceof InputExpression input) {
+            Field field = documentType.getField(input.getFieldName());
+            if (field != null && (field.getDataType() instanceof PrimitiveDataType || field.getDataType() instanceof TensorDataType))
+                return new Step(input, context -> context.setCurrentValue(input(context).getFieldValue(field)));
+        }
+        if (isPlainOutput(expression)) {
+            Field field = documentType.getField(((OutputExpression)expression).getFieldName());
+            if (field != null)
+                return new Step(expression, context -> output(context).setFieldValue(field, context.getCurrentValue()));
+        }
+        if (expression instanceof ConstantExpression constant)
+            return new Step(constant, context -> context.setCurrentValue(constant.getValue()));
+        if (expression instanceof SetVarExpression setVar)
+            return new Step(setVar, context -> context.setVariable(setVar.getVariableName(), context.getCurrentValue()));
+        if (expression instanceof GetVarExpression getVar)
+            return new Step(getVar, context -> context.setCurrentValue(context.getVariable(getVar.getVariableName())));
+        if (expression instanceof ClearStateExpression clearState)
+            return new Step(clearState, context -> context.clear());
+        return new Interpreted(expression);
+    }
+
+    private static boolean isPlainOutput(Expression expression) {
+        return expression instanceof AttributeExpression
+               || expression instanceof IndexExpression
+               || expression instanceof SummaryExpression;
+    }
+
+    @Override
+    public String toString() {
+        return "compiled " + script + " for " + documentType;
+    }
+
+    /** A compiled expression, which is executed in a single context or a batch */
+    private static abstract class Stage {
+
+        final boolean requiresInput;
+
+        Stage(Expression expression) {
+            this.requiresInput = expression.requiresInput();
+        }
+
+        abstract void execute(ExecutionContext context);
+
+        void execute(List<ExecutionContext> contexts) {
+            for (ExecutionContext context : contexts)
+                execute(context);
+        }
+
+        abstract boolean contains(Expression expression);
+
+    }
+
+    private static final class Step extends Stage {
+
+        private final Expression expression;
+        private final Action action;
+
+        Step(Expression expression, Action action) {
+            super(expression);
+            this.expression = expression;
+            this.action = action;
+        }
+
+        @Override
+        void execute(ExecutionContext context) {
+            if (requiresInput && context.getCurrentValue() == null) return;
+            action.execute(context);
+        }
+
+        @Override
+        boolean contains(Expression expression) { return this.expression == expression; }
+
+    }
+
+    @FunctionalInterface
+    private interface Action {
+
+        void execute(ExecutionContext context);
+
+    }
+
+    /** An expression which is not compiled */
+    private static final class Interpreted extends Stage {
+
+        private final Expression expression;
+
+        Interpreted(Expression expression) {
+            super(expression);
+            this.expression = expression;
+        }
+
+        @Override
+        void execute(ExecutionContext context) { expression.execute(context); }
+
+        @Override
+        void execute(List<ExecutionContext> contexts) { expression.execute(contexts); }
+
+        @Override
+        boolean contains(Expression expression) { return false; }
+
+    }
+
+    private static final class GuardStage extends Stage {
+
+        private final GuardExpression guard;
+        private final Stage inner;
+
+        GuardStage(GuardExpression guard, Stage inner) {
+            super(guard);
+            this.guard = guard;
+            this.inner = inner;
+        }
+
+        @Override
+        void execute(ExecutionContext context) { inner.execute(context); }
+
+        @Override
+        void execute(List<ExecutionContext> contexts) { inner.execute(contexts); }
+
+        @Override
+        boolean contains(Expression expression) { return guard == expression || inner.contains(expression); }
+
+    }
+
+    private static final class StatementStage extends Stage {
+
+        private final StatementExpression statement;
+        private final Stage[] stages;
+
+        StatementStage(StatementExpression statement, Stage[] stages) {
+            super(statement);
+            this.statement = statement;
+            this.stages = stages;
+        }
+
+        @Override
+        void execute(ExecutionContext context) {
+            if (requiresInput && context.getCurrentValue() == null) return;
+            for (Stage stage : stages)
+                stage.execute(context);
+        }
+
+        @Override
+        void execute(List<ExecutionContext> contexts) {
+            contexts = withInputIfRequired(this, contexts);
+            if (contexts.isEmpty()) return;
+            for (Stage stage : stages)
+                stage.execute(contexts);
+        }
+
+        @Override
+        boolean contains(Expression expression) {
+            if (statement == expression) return true;
+            for (Stage stage : stages)
+                if (stage.contains(expression)) return true;
+            return false;
+        }
+
+    }
+
+    private static final class ScriptStage extends Stage {
+
+        private final ScriptExpression script;
+        private final Stage[] statements;
+
+        ScriptStage(ScriptExpression script, Stage[] statements) {
+            super(script);
+            this.script = script;
+            this.statements = statements;
+        }
+
+        @Override
+        void execute(ExecutionContext context) {
+            if (requiresInput && context.getCurrentValue() == null) return;
+            FieldValue input = context.getCurrentValue();
+            for (Stage statement : statements) {
+                context.setCurrentValue(input);
+                statement.execute(context);
+            }
+            context.setCurrentValue(input);
+        }
+
+        @Override
+        void execute(List<ExecutionContext> contexts) {
+            contexts = withInputIfRequired(this, contexts);
+            List<FieldValue> inputs = new ArrayList<>(contexts.size());
+            for (ExecutionContext context : contexts)
+                inputs.add(context.getCurrentValue());
+            for (Stage statement : statements) {
+                for (int i = 0; i < contexts.size(); i++)
+                    contexts.get(i).setCurrentValue(inputs.get(i));
+                statement.execute(contexts);
+            }
+            for (int i = 0; i < contexts.size(); i++)
+                contexts.get(i).setCurrentValue(inputs.get(i));
+        }
+
+        @Override
+        boolean contains(Expression expression) {
+            if (script == expression) return true;
+            for (Stage statement : statements)
+                if (statement.contains(expression)) return true;
+            return false;
+        }
+
+    }
+
+    private static List<ExecutionContext> withInputIfRequired(Stage stage, List<ExecutionContext> contexts) {
+        if ( ! stage.requiresInput) return contexts;
+        List<ExecutionContext> withInput = new ArrayList<>(contexts.size());
+        for (ExecutionContext context : contexts) {
+            if (context.getCurrentValue() != null)
+                withInput.add(context);
+        }
+        return withInput;
+    }
+
+}
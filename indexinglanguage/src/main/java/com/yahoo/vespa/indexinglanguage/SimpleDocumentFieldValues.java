@@ -27,6 +27,9 @@ public class SimpleDocumentFieldValues implements DocumentFieldValues {
         this.output = output;
     }
 
+    /** Returns the document the input values are read from */
+    Document input() { return input; }
+
     @Override
     public Document getFullOutput() {
         return output;
@@ -9,12 +9,15 @@ import com.yahoo.document.TensorDataType;
 import com.yahoo.document.datatypes.Array;
 import com.yahoo.document.datatypes.StringFieldValue;
 import com.yahoo.document.datatypes.TensorFieldValue;
+import com.yahoo.language.Language;
 import com.yahoo.language.Linguistics;
 import com.yahoo.language.process.Embedder;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -132,6 +135,29 @@ public class EmbedExpression extends Expression  {
         context.setCurrentValue(new TensorFieldValue(output));
     }
 
+    /** Embeds all the string values of the batch with a single call per language, and any arrays one document at a time */
+    @Override
+    protected void doExecute(List<ExecutionContext> contexts) {
+        Map<Language, List<ExecutionContext>> contextsByLanguage = new LinkedHashMap<>();
+        for (ExecutionContext context : contexts) {
+            if (context.getCurrentValue().getDataType() == DataType.STRING)
+                contextsByLanguage.computeIfAbsent(context.resolveLanguage(linguistics), __ -> new ArrayList<>()).add(context);
+            else
+                doExecute(context);
+        }
+        for (Map.Entry<Language, List<ExecutionContext>> entry : contextsByLanguage.entrySet()) {
+            List<ExecutionContext> batch = entry.getValue();
+            List<String> inputs = new ArrayList<>(batch.size());
+            for (ExecutionContext context : batch)
+                inputs.add(((StringFieldValue)context.getCurrentValue()).getString());
+            List<Tensor> outputs = embedder.component().embed(inputs,
+                                                              embedderContext(entry.getKey(), batch.get(0)),
+                                                              getOutputTensorType());
+            for (int i = 0; i < batch.size(); i++)
+                batch.get(i).setCurrentValue(new TensorFieldValue(outputs.get(i)));
+        }
+    }
+
     private Tensor embedSingleValue(ExecutionContext context) {
         StringFieldValue input = (StringFieldValue)context.getCurrentValue();
         return embed(input.getString(), getOutputTensorType(), context);
@@ -158,8 +184,14 @@ public class EmbedExpression extends Expression  {
                                               ExecutionContext context) {
         String mappedDimension = builder.type().mappedSubtype().dimensions().get(0).name();
         String indexedDimension = builder.type().indexedSubtype().dimensions().get(0).name();
-        for (int i = 0; i < input.size(); i++) {
-            Tensor tensor = embed(input.get(i).getString(), builder.type().indexedSubtype(), context);
+        List<String> texts = new ArrayList<>(input.size());
+        for (StringFieldValue text : input)
+            texts.add(text.getString());
+        List<Tensor> tensors = embedder.component().embed(texts,
+                                                          embedderContext(context.resolveLanguage(linguistics), context),
+                                                          builder.type().indexedSubtype());
+        for (int i = 0; i < tensors.size(); i++) {
+            Tensor tensor = tensors.get(i);
             for (Iterator<Tensor.Cell> cells = tensor.cellIterator(); cells.hasNext(); ) {
                 Tensor.Cell cell = cells.next();
                 builder.cell()
@@ -215,10 +247,11 @@ public class EmbedExpression extends Expression  {
     }
 
     private Tensor embed(String input, TensorType targetType, ExecutionContext context) {
-        return embedder.component().embed(input,
-                                          new Embedder.Context(destination, context.getCache()).setLanguage(context.resolveLanguage(linguistics))
-                                                                                               .setEmbedderId(embedder.id()),
-                                          targetType);
+        return embedder.component().embed(input, embedderContext(context.resolveLanguage(linguistics), context), targetType);
+    }
+
+    private Embedder.Context embedderContext(Language language, ExecutionContext context) {
+        return new Embedder.Context(destination, context.getCache()).setLanguage(language).setEmbedderId(embedder.id());
     }
 
     private TensorType getOutputTensorType() {
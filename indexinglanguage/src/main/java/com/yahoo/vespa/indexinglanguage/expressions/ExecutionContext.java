@@ -23,7 +23,7 @@ public class ExecutionContext {
     private final FieldValues fieldValues;
     private FieldValue currentValue;
     private Language language;
-    private final Map<Object, Object> cache = LazyMap.newHashMap();
+    private final Map<Object, Object> cache;
     // Document id is practical for logging and informative error messages
     private DocumentId documentId;
     private boolean isReindexingOperation;
@@ -33,7 +33,13 @@ public class ExecutionContext {
     }
 
     public ExecutionContext(FieldValues fieldValue) {
+        this(fieldValue, LazyMap.newHashMap());
+    }
+
+    /** Creates a context using the given cache, which may be shared by the contexts of a batch of documents */
+    public ExecutionContext(FieldValues fieldValue, Map<Object, Object> cache) {
         this.fieldValues = fieldValue;
+        this.cache = Objects.requireNonNull(cache);
         this.language = Language.UNKNOWN;
     }
 
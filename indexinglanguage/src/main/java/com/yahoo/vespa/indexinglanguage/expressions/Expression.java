@@ -24,6 +24,8 @@ import com.yahoo.vespa.indexinglanguage.parser.IndexingInput;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 import com.yahoo.vespa.objects.Selectable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -252,8 +254,31 @@ public abstract class Expression extends Selectable {
         return context.getCurrentValue();
     }
 
+    /**
+     * Executes this in each of the given contexts. Expressions which can process many values more efficiently
+     * than one at the time override {@link #doExecute(List)} to do so.
+     */
+    public final void execute(List<ExecutionContext> contexts) {
+        if (requiresInput()) {
+            List<ExecutionContext> withInput = new ArrayList<>(contexts.size());
+            for (ExecutionContext context : contexts) {
+                if (context.getCurrentValue() != null)
+                    withInput.add(context);
+            }
+            contexts = withInput;
+        }
+        if (contexts.isEmpty()) return;
+        doExecute(contexts);
+    }
+
     protected abstract void doExecute(ExecutionContext context);
 
+    /** Executes this in each of the given contexts, which all have an input if this requires one. */
+    protected void doExecute(List<ExecutionContext> contexts) {
+        for (ExecutionContext context : contexts)
+            doExecute(context);
+    }
+
     /** Creates an expression with simple lingustics for testing */
     public static Expression fromString(String expression) throws ParseException {
         return fromString(expression, new SimpleLinguistics(), Map.of(), Embedder.throwsOnUse.asMap(), Map.of());
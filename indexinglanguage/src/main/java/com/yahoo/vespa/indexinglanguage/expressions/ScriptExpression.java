@@ -14,6 +14,7 @@ import com.yahoo.vespa.indexinglanguage.ScriptParserContext;
 import com.yahoo.vespa.indexinglanguage.parser.IndexingInput;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -95,6 +96,28 @@ public final class ScriptExpression extends ExpressionList<StatementExpression>
         context.setCurrentValue(input);
     }
 
+    /** Executes each statement in all the contexts before the next, such that each step can process a batch. */
+    @Override
+    protected void doExecute(List<ExecutionContext> contexts) {
+        List<FieldValue> inputs = new ArrayList<>(contexts.size());
+        for (ExecutionContext context : contexts)
+            inputs.add(context.getCurrentValue());
+        for (StatementExpression statement : this) {
+            List<ExecutionContext> executing = new ArrayList<>(contexts.size());
+            for (int i = 0; i < contexts.size(); i++) {
+                ExecutionContext context = contexts.get(i);
+                if (context.isComplete() ||
+                    (statement.getInputFields().isEmpty() || containsAtLeastOneInputFrom(statement.getInputFields(), context))) {
+                    context.setCurrentValue(inputs.get(i));
+                    executing.add(context);
+                }
+            }
+            statement.execute(executing);
+        }
+        for (int i = 0; i < contexts.size(); i++)
+            contexts.get(i).setCurrentValue(inputs.get(i));
+    }
+
     private boolean containsAtLeastOneInputFrom(List<String> inputFields, ExecutionContext context) {
         for (String inputField : inputFields)
             if (context.getFieldValue(inputField) != null)
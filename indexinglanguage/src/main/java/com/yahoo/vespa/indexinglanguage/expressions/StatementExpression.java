@@ -123,6 +123,12 @@ public final class StatementExpression extends ExpressionList<Expression> {
         }
     }
 
+    @Override
+    protected void doExecute(List<ExecutionContext> contexts) {
+        for (Expression expression : this)
+            expression.execute(contexts);
+    }
+
     @Override
     public String toString() {
         return asList().stream().map(Expression::toString).collect(Collectors.joining(" | "));
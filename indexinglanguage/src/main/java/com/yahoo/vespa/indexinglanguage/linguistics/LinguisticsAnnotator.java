@@ -5,8 +5,7 @@ import ai.vespa.sampling.ProbabilisticSampleRate;
 import com.yahoo.document.DocumentId;
 import com.yahoo.document.annotation.Annotation;
 import com.yahoo.document.annotation.AnnotationTypes;
-import com.yahoo.document.annotation.Span;
-import com.yahoo.document.annotation.SpanList;
+import com.yahoo.document.annotation.CompactSpanList;
 import com.yahoo.document.annotation.SpanTree;
 import com.yahoo.document.annotation.SpanTrees;
 import com.yahoo.document.datatypes.StringFieldValue;
@@ -105,13 +104,14 @@ public class LinguisticsAnnotator {
 
         Iterable<Token> tokens = tokenizer.tokenize(input, config.asLinguisticsParameters());
         TermOccurrences termOccurrences = new TermOccurrences(config.getMaxTermOccurrences());
-        SpanTree tree = new SpanTree(SpanTrees.LINGUISTICS);
+        // The tree is kept compact, as it is usually just serialized, and only inflated if accessed
+        CompactSpanList spans = new CompactSpanList(AnnotationTypes.TERM);
         for (Token token : tokens)
-            addAnnotationSpan(text.getString(), tree.spanList(), token, config.getStemMode(), config.getLowercase(),
+            addAnnotationSpan(text.getString(), spans, token, config.getStemMode(), config.getLowercase(),
                               termOccurrences, config.getMaxTokenLength());
 
-        if (tree.numAnnotations() == 0) return false;
-        text.setSpanTree(tree);
+        if (spans.numAnnotations() == 0) return false;
+        text.setSpanTree(new SpanTree(SpanTrees.LINGUISTICS, spans));
         return true;
     }
 
@@ -126,14 +126,22 @@ public class LinguisticsAnnotator {
             return new Annotation(AnnotationTypes.TERM, new StringFieldValue(term));
     }
 
-    private static void addAnnotation(Span here, String term, String orig, TermOccurrences termOccurrences,
-                                      int maxTokenLength) {
+    /** Adds a TERM annotation to the given span, which has the term as value (only) if it is different from the original. */
+    private static void addTermAnnotation(CompactSpanList spans, int span, String term, String originalTerm) {
+        if (term.equals(originalTerm))
+            spans.annotate(span);
+        else
+            spans.annotate(span, term);
+    }
+
+    private static void addAnnotation(CompactSpanList spans, int here, String term, String orig,
+                                      TermOccurrences termOccurrences, int maxTokenLength) {
         if (term.length() > maxTokenLength) return;
         if (termOccurrences.termCountBelowLimit(term))
-            here.annotate(termAnnotation(term, orig));
+            addTermAnnotation(spans, here, term, orig);
     }
 
-    private static void addAnnotationSpan(String input, SpanList parent, Token token, StemMode mode,
+    private static void addAnnotationSpan(String input, CompactSpanList parent, Token token, StemMode mode,
                                           boolean lowercase, TermOccurrences termOccurrences, int maxTokenLength) {
         if ( ! token.isSpecialToken()) {
             if (token.getNumComponents() > 0) {
@@ -153,25 +161,25 @@ public class LinguisticsAnnotator {
                                                "the bounds of the input string; " + input);
         }
         if (mode == StemMode.ALL) {
-            Span where = parent.span((int)token.getOffset(), token.getOrig().length());
+            int where = parent.span((int)token.getOffset(), token.getOrig().length());
             String indexableOriginal = lowercase ? toLowerCase(token.getOrig()) : token.getOrig();
             String term = token.getTokenString();
             if (term != null) {
-                addAnnotation(where, term, token.getOrig(), termOccurrences, maxTokenLength);
+                addAnnotation(parent, where, term, token.getOrig(), termOccurrences, maxTokenLength);
                 if ( ! term.equals(indexableOriginal))
-                    addAnnotation(where, indexableOriginal, token.getOrig(), termOccurrences, maxTokenLength);
+                    addAnnotation(parent, where, indexableOriginal, token.getOrig(), termOccurrences, maxTokenLength);
             }
             for (int i = 0; i < token.getNumStems(); i++) {
                 String stem = token.getStem(i);
                 if (! (stem.equals(indexableOriginal) || stem.equals(term)))
-                    addAnnotation(where, stem, token.getOrig(), termOccurrences, maxTokenLength);
+                    addAnnotation(parent, where, stem, token.getOrig(), termOccurrences, maxTokenLength);
             }
         } else {
             String term = token.getTokenString();
             if (term == null || term.trim().isEmpty()) return;
             if (term.length() > maxTokenLength) return;
             if (termOccurrences.termCountBelowLimit(term))
-                parent.span((int)token.getOffset(), token.getOrig().length()).annotate(termAnnotation(term, token.getOrig()));
+                addTermAnnotation(parent, parent.span((int)token.getOffset(), token.getOrig().length()), term, token.getOrig());
         }
     }
 
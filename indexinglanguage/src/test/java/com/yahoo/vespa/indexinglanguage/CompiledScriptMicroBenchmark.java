@@ -0,0 +1,86 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.indexinglanguage;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.TensorDataType;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.LongFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.datatypes.TensorFieldValue;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.vespa.indexinglanguage.expressions.ExecutionContext;
+import com.yahoo.vespa.indexinglanguage.expressions.ScriptExpression;
+import com.yahoo.vespa.indexinglanguage.parser.ParseException;
+
+/**
+ * Compares executing an indexing script of the form produced for a typical schema compiled,
+ * as done for puts by the indexing processor, with interpreting it.
+ */
+public class CompiledScriptMicroBenchmark {
+
+    private static final String script =
+            "{\n" +
+            "clear_state | guard { input title | summary title | tokenize normalize stem:\"BEST\" | index title; };\n" +
+            "clear_state | guard { input artist | summary artist | attribute artist; };\n" +
+            "clear_state | guard { input year | summary year | attribute year; };\n" +
+            "clear_state | guard { input popularity | attribute popularity; };\n" +
+            "clear_state | guard { input embedding | attribute embedding; };\n" +
+            "}";
+
+    private final ScriptExpression expression;
+    private final CompiledScript compiled;
+    private final Document[] documents = new Document[1000];
+
+    public CompiledScriptMicroBenchmark() throws ParseException {
+        DocumentType type = new DocumentType("music");
+        type.addField("title", DataType.STRING);
+        type.addField("artist", DataType.STRING);
+        type.addField("year", DataType.INT);
+        type.addField("popularity", DataType.LONG);
+        type.addField("embedding", new TensorDataType(TensorType.fromSpec("tensor<float>(x[4])")));
+        for (int i = 0; i < documents.length; i++) {
+            Document document = new Document(type, new DocumentId("id:ns:music::" + i));
+            document.setFieldValue("title", new StringFieldValue("Title " + i));
+            document.setFieldValue("artist", new StringFieldValue("Artist " + i % 100));
+            document.setFieldValue("year", new IntegerFieldValue(1990 + i % 20));
+            document.setFieldValue("popularity", new LongFieldValue(i));
+            document.setFieldValue("embedding", new TensorFieldValue(Tensor.from("tensor<float>(x[4]):[1, 2, 3, " + i + "]")));
+            documents[i] = document;
+        }
+        expression = ScriptExpression.fromString(script);
+        expression.resolve(type);
+        compiled = CompiledScript.compile(expression, type);
+    }
+
+    public void benchmark(String description, int count, boolean useCompiled) {
+        execute(100000, useCompiled); // warm-up
+        long startTime = System.nanoTime();
+        execute(count, useCompiled);
+        long totalTime = System.nanoTime() - startTime;
+        System.out.println(description + ": " + totalTime / 1_000_000 + " ms (" + (float) totalTime / count +
+                           " ns per document)");
+    }
+
+    private void execute(int count, boolean useCompiled) {
+        for (int i = 0; i < count; i++) {
+            Document document = documents[i % documents.length].clone(); // Tokenizing adds span trees to the input
+            ExecutionContext context = new ExecutionContext(new SimpleDocumentFieldValues(document, document));
+            if (useCompiled)
+                compiled.execute(context);
+            else
+                expression.execute(context);
+        }
+    }
+
+    public static void main(String[] args) throws ParseException {
+        int count = 2000000;
+        CompiledScriptMicroBenchmark benchmark = new CompiledScriptMicroBenchmark();
+        benchmark.benchmark("Interpreted", count, false);
+        benchmark.benchmark("Compiled   ", count, true);
+    }
+
+}
@@ -0,0 +1,144 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.indexinglanguage;
+
+import com.yahoo.document.ArrayDataType;
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.datatypes.Array;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.vespa.indexinglanguage.expressions.ExecutionContext;
+import com.yahoo.vespa.indexinglanguage.expressions.Expression;
+import com.yahoo.vespa.indexinglanguage.expressions.InputExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.LowerCaseExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.ScriptExpression;
+import com.yahoo.vespa.indexinglanguage.parser.ParseException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompiledScriptTestCase {
+
+    private static final String script =
+            "{\n" +
+            "clear_state | guard { input title | lowercase | summary title_lower | attribute title_lower; };\n" +
+            "input title | set_var t;\n" +
+            "get_var t | attribute title_copy;\n" +
+            "input count | attribute count;\n" +
+            "\"constant\" | summary constant;\n" +
+            "input tags | for_each { lowercase } | attribute tags;\n" +
+            "input missing | attribute missing_copy;\n" +
+            "}";
+
+    private final DocumentType type;
+
+    public CompiledScriptTestCase() {
+        type = new DocumentType("test");
+        type.addField("title", DataType.STRING);
+        type.addField("title_lower", DataType.STRING);
+        type.addField("title_copy", DataType.STRING);
+        type.addField("count", DataType.INT);
+        type.addField("constant", DataType.STRING);
+        type.addField("tags", new ArrayDataType(DataType.STRING));
+        type.addField("missing", DataType.STRING);
+        type.addField("missing_copy", DataType.STRING);
+    }
+
+    @Test
+    public void testCompiledScriptGivesTheSameResultAsInterpreting() throws ParseException {
+        ScriptExpression expression = ScriptExpression.fromString(script);
+        expression.resolve(type);
+        CompiledScript compiled = CompiledScript.compile(expression, type);
+
+        for (Document document : List.of(document("Title 1", 1, "A", "B"), document("Title 2", null), document(null, 3))) {
+            Document interpreted = document.clone();
+            expression.execute(new FieldValuesFactory(), interpreted, false);
+            Document output = document.clone();
+            compiled.execute(new ExecutionContext(new SimpleDocumentFieldValues(output, output)));
+            assertEquals(interpreted, output);
+        }
+        assertEquals(new StringFieldValue("title 2"), executed(compiled, document("Title 2", null)).getFieldValue("title_lower"));
+        assertNull(executed(compiled, document(null, 3)).getFieldValue("title_copy"));
+        assertEquals(new StringFieldValue("constant"), executed(compiled, document(null, null)).getFieldValue("constant"));
+    }
+
+    @Test
+    public void testCompiledScriptGivesTheSameResultAsInterpretingInBatches() throws ParseException {
+        ScriptExpression expression = ScriptExpression.fromString(script);
+        expression.resolve(type);
+        CompiledScript compiled = CompiledScript.compile(expression, type);
+
+        List<Document> documents = List.of(document("Title 1", 1, "A", "B"), document("Title 2", null), document(null, 3));
+        List<ExecutionContext> contexts = new ArrayList<>();
+        List<Document> outputs = new ArrayList<>();
+        for (Document document : documents) {
+            Document output = document.clone();
+            outputs.add(output);
+            contexts.add(new ExecutionContext(new SimpleDocumentFieldValues(output, output)));
+        }
+        compiled.execute(contexts);
+        for (int i = 0; i < documents.size(); i++)
+            assertEquals(executed(compiled, documents.get(i)), outputs.get(i));
+    }
+
+    @Test
+    public void testOnlySomeExpressionsAreCompiled() throws ParseException {
+        ScriptExpression expression = ScriptExpression.fromString(script);
+        expression.resolve(type);
+        CompiledScript compiled = CompiledScript.compile(expression, type);
+        List<Expression> inputs = new ArrayList<>();
+        List<Expression> lowercases = new ArrayList<>();
+        expression.select(o -> o instanceof InputExpression, o -> inputs.add((Expression)o));
+        expression.select(o -> o instanceof LowerCaseExpression, o -> lowercases.add((Expression)o));
+
+        assertEquals(5, inputs.size());
+        assertTrue(compiled.isCompiled(inputs.get(0)));
+        assertFalse("Collections are read through field paths", compiled.isCompiled(inputs.get(3)));
+        assertFalse(compiled.isCompiled(lowercases.get(0)));
+        assertTrue(compiled.isCompiled(expression));
+    }
+
+    @Test
+    public void testOtherDocumentTypesAreInterpreted() throws ParseException {
+        ScriptExpression expression = ScriptExpression.fromString(script);
+        expression.resolve(type);
+        CompiledScript compiled = CompiledScript.compile(expression, type);
+
+        DocumentType otherType = new DocumentType("test");
+        for (var field : type.getFields())
+            otherType.addField(field);
+        Document other = new Document(otherType, "id:ns:test::other");
+        other.setFieldValue("title", "Other");
+        compiled.execute(new ExecutionContext(new SimpleDocumentFieldValues(other, other)));
+        assertEquals(new StringFieldValue("other"), other.getFieldValue("title_lower"));
+    }
+
+    private Document document(String title, Integer count, String ... tags) {
+        Document document = new Document(type, "id:ns:test::" + title);
+        if (title != null)
+            document.setFieldValue("title", new StringFieldValue(title));
+        if (count != null)
+            document.setFieldValue("count", new IntegerFieldValue(count));
+        if (tags.length > 0) {
+            Array<StringFieldValue> array = new Array<>(type.getField("tags").getDataType());
+            for (String tag : tags)
+                array.add(new StringFieldValue(tag));
+            document.setFieldValue("tags", array);
+        }
+        return document;
+    }
+
+    private static Document executed(CompiledScript compiled, Document document) {
+        Document output = document.clone();
+        compiled.execute(new ExecutionContext(new SimpleDocumentFieldValues(output, output)));
+        return output;
+    }
+
+}
@@ -14,6 +14,7 @@ import com.yahoo.language.simple.SimpleLinguistics;
 import com.yahoo.vespa.indexinglanguage.SimpleTestAdapter;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -237,6 +238,37 @@ public class ScriptTestCase {
         assertEquals("595", adapter.values.get("location_zcurve").toString());
     }
 
+    @Test
+    public void requireThatBatchExecutionIsTheSameAsExecutingEachContext() {
+        var script = newScript(newStatement(new InputExpression("in"), new SetVarExpression("tmp")),
+                               newStatement(new InputExpression("in"), new LowerCaseExpression(), new AttributeExpression("lower")),
+                               newStatement(new GetVarExpression("tmp"), new AttributeExpression("copy")));
+        List<SimpleTestAdapter> adapters = new ArrayList<>();
+        List<ExecutionContext> contexts = new ArrayList<>();
+        for (String value : new String[] { "Foo", null, "BAR" }) {
+            var adapter = new SimpleTestAdapter(new Field("in", DataType.STRING),
+                                                new Field("lower", DataType.STRING),
+                                                new Field("copy", DataType.STRING));
+            if (value != null)
+                adapter.setValue("in", new StringFieldValue(value));
+            adapters.add(adapter);
+            contexts.add(new ExecutionContext(adapter));
+        }
+        script.execute(contexts);
+
+        for (var adapter : adapters) {
+            var expected = new SimpleTestAdapter(new Field("in", DataType.STRING),
+                                                 new Field("lower", DataType.STRING),
+                                                 new Field("copy", DataType.STRING));
+            if (adapter.values.containsKey("in"))
+                expected.setValue("in", adapter.getInputValue("in"));
+            script.execute(expected);
+            assertEquals(expected.values, adapter.values);
+        }
+        assertEquals(new StringFieldValue("bar"), adapters.get(2).getInputValue("lower"));
+        assertEquals(new StringFieldValue("Foo"), adapters.get(0).getInputValue("copy"));
+    }
+
     private static ScriptExpression newScript(StatementExpression... args) {
         return new ScriptExpression(args);
     }
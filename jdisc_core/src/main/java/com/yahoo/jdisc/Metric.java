@@ -49,6 +49,25 @@ public interface Metric {
      */
     Context createContext(Map<String, ?> properties);
 
+    /**
+     * Returns a {@link Handle} for updating the named metric in the given context. The metric name and context are
+     * resolved once when the handle is created, so repeated updates through the handle are cheaper than the
+     * equivalent calls to {@link #set(String, Number, Context)} and {@link #add(String, Number, Context)}. Handles
+     * are thread-safe and should be created once and kept, typically for each combination of a metric and a context
+     * which is updated on a hot path.
+     *
+     * @param key the name of the metric to update through the handle
+     * @param ctx the context to further describe the entries made through the handle
+     * @return the created handle
+     */
+    default Handle handle(String key, Context ctx) {
+        return new Handle() {
+            @Override public void set(long val) { Metric.this.set(key, val, ctx); }
+            @Override public void set(double val) { Metric.this.set(key, val, ctx); }
+            @Override public void add(long val) { Metric.this.add(key, val, ctx); }
+        };
+    }
+
     /**
      * Declares the interface for the arbitrary context object to pass to both the {@link
      * #set(String, Number, Context)} and {@link #add(String, Number, Context)} methods. This is intentionally empty so
@@ -58,4 +77,20 @@ public interface Metric {
 
     }
 
+    /**
+     * A metric name and context bound together, see {@link #handle(String, Context)}.
+     */
+    interface Handle {
+
+        /** Set the metric value, as {@link Metric#set(String, Number, Context)}. */
+        void set(long val);
+
+        /** Set the metric value, as {@link Metric#set(String, Number, Context)}. */
+        void set(double val);
+
+        /** Add to the metric value, as {@link Metric#add(String, Number, Context)}. */
+        void add(long val);
+
+    }
+
 }
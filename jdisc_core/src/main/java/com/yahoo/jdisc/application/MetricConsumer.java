@@ -66,4 +66,18 @@ public interface MetricConsumer {
      */
     Metric.Context createContext(Map<String, ?> properties);
 
+    /**
+     * Creates a <code>Metric.Handle</code> which updates the given metric in the given context. The returned handle
+     * must be safe to use from any thread, not only the one owning this consumer. Consumers which cannot offer this
+     * return null, in which case updates through the handle are passed to <code>set</code> and <code>add</code> of the
+     * consumer local to the updating thread.
+     *
+     * @param key the name of the metric to update through the handle
+     * @param ctx the context to further describe the entries made through the handle
+     * @return the created handle, or null if this consumer does not provide handles
+     */
+    default Metric.Handle createHandle(String key, Metric.Context ctx) {
+        return null;
+    }
+
 }
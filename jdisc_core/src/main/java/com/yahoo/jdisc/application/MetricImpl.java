@@ -44,6 +44,13 @@ class MetricImpl implements Metric {
         return consumer.createContext(keys);
     }
 
+    @Override
+    public Handle handle(String key, Context ctx) {
+        MetricConsumer consumer = currentConsumer();
+        Handle handle = consumer != null ? consumer.createHandle(key, ctx) : null;
+        return handle != null ? handle : Metric.super.handle(key, ctx);
+    }
+
     private MetricConsumer currentConsumer() {
         return Thread.currentThread() instanceof ContainerThread thread ? thread.consumer() : consumer.get();
     }
@@ -3,10 +3,12 @@ package com.yahoo.jdisc.handler;
 
 import java.nio.ByteBuffer;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>This class implements a {@link ContentChannel} that has a blocking <em>read</em> interface. Use this class if you
@@ -19,32 +21,39 @@ import java.util.Queue;
  */
 public final class ReadableContentChannel implements ContentChannel, Iterable<ByteBuffer> {
 
+    // Content is passed from the writer to readers through a lock-free queue, and the lock is only taken to
+    // park readers while the queue is empty, and by writers to wake them, when there are readers waiting.
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final AtomicBoolean done = new AtomicBoolean(false); // Set when close is read, or on failure
+    private final AtomicInteger waiting = new AtomicInteger(0);
     private final Object lock = new Object();
-    private Queue<Entry> queue = new LinkedList<>();
-    private boolean closed = false;
+    private volatile Throwable failure = null;
 
+    /** As with any content channel, this must not be called concurrently with {@link #close(CompletionHandler)}. */
     @Override
     public void write(ByteBuffer buf, CompletionHandler handler) {
         Objects.requireNonNull(buf, "buf");
-        synchronized (lock) {
-            if (closed || queue == null) {
-                throw new IllegalStateException(this + " is closed");
-            }
-            queue.add(new Entry(buf, handler));
-            lock.notifyAll();
+        if (closed.get() || done.get()) {
+            throw new IllegalStateException(this + " is closed");
+        }
+        queue.add(new Entry(buf, handler));
+        if (done.get()) { // Failed concurrently, possibly before the entry was added
+            failPending();
         }
+        wakeReaders();
     }
 
     @Override
     public void close(CompletionHandler handler) {
-        synchronized (lock) {
-            if (closed || queue == null) {
-                throw new IllegalStateException(this + " is already closed");
-            }
-            closed = true;
-            queue.add(new Entry(null, handler));
-            lock.notifyAll();
+        if (done.get() || ! closed.compareAndSet(false, true)) {
+            throw new IllegalStateException(this + " is already closed");
         }
+        queue.add(new Entry(null, handler));
+        if (done.get()) {
+            failPending();
+        }
+        wakeReaders();
     }
 
     @Override
@@ -59,13 +68,10 @@ public final class ReadableContentChannel implements ContentChannel, Iterable<By
      * @return The number of bytes available to be read without blocking.
      */
     public int available() {
-        Entry entry;
-        synchronized (lock) {
-            if (queue == null) {
-                return 0;
-            }
-            entry = queue.peek();
+        if (done.get()) {
+            return 0;
         }
+        Entry entry = queue.peek();
         if (entry == null || entry.buf == null) {
             return 0;
         }
@@ -84,21 +90,17 @@ public final class ReadableContentChannel implements ContentChannel, Iterable<By
      */
     public ByteBuffer read() {
         Entry entry;
-        synchronized (lock) {
-            try {
-                while (queue != null && queue.isEmpty()) {
-                    lock.wait();
-                }
-            } catch (InterruptedException e) {
-                throw new IllegalStateException(e);
-            }
-            if (queue == null) {
+        while (true) {
+            if (done.get()) {
                 return null;
             }
-            entry = queue.poll();
-            if (entry.buf == null) {
-                queue = null;
+            if ((entry = queue.poll()) != null) {
+                break;
             }
+            awaitContent();
+        }
+        if (entry.buf == null) {
+            done.set(true);
         }
         if (entry.handler != null) {
             entry.handler.completed();
@@ -117,16 +119,47 @@ public final class ReadableContentChannel implements ContentChannel, Iterable<By
      * @throws IllegalStateException If this method is called more than once.
      */
     public void failed(Throwable t) {
-        Queue<Entry> queue;
+        if (done.get()) {
+            throw new IllegalStateException();
+        }
+        failure = t;
+        if ( ! done.compareAndSet(false, true)) {
+            throw new IllegalStateException();
+        }
+        wakeReaders();
+        failPending();
+    }
+
+    private void failPending() {
+        for (Entry entry; (entry = queue.poll()) != null; ) {
+            if (entry.handler != null) {
+                entry.handler.failed(failure);
+            }
+        }
+    }
+
+    private void awaitContent() {
         synchronized (lock) {
-            if ((queue = this.queue) == null) {
-                throw new IllegalStateException();
+            waiting.incrementAndGet();
+            try {
+                while (queue.isEmpty() && ! done.get()) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                waiting.decrementAndGet();
             }
-            this.queue = null;
-            lock.notifyAll();
         }
-        for (Entry entry : queue) {
-            entry.handler.failed(t);
+    }
+
+    private void wakeReaders() {
+        // Readers increment the count before checking the queue, and writers add to the queue before checking
+        // the count, so either the reader sees the new entry, or the writer sees the waiting reader.
+        if (waiting.get() > 0) {
+            synchronized (lock) {
+                lock.notifyAll();
+            }
         }
     }
 
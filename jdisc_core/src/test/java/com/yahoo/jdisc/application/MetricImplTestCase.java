@@ -15,6 +15,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -82,6 +83,46 @@ public class MetricImplTestCase {
         assertTrue(globalConsumer.map.isEmpty());
     }
 
+    @Test
+    void requireThatHandleFallsBackToConsumer() {
+        final MyConsumer consumer = new MyConsumer();
+        Injector injector = Guice.createInjector(new AbstractModule() {
+
+            @Override
+            protected void configure() {
+                bind(MetricConsumer.class).toInstance(consumer);
+            }
+        });
+        Metric.Handle handle = injector.getInstance(Metric.class).handle("foo", null);
+        handle.set(6);
+        assertEquals(6, consumer.map.get("foo").intValue());
+        handle.add(9);
+        assertEquals(15, consumer.map.get("foo").intValue());
+    }
+
+    @Test
+    void requireThatHandleIsCreatedByConsumer() {
+        final Metric.Handle consumerHandle = new Metric.Handle() {
+            @Override public void set(long val) { }
+            @Override public void set(double val) { }
+            @Override public void add(long val) { }
+        };
+        final MyConsumer consumer = new MyConsumer() {
+            @Override
+            public Metric.Handle createHandle(String key, Metric.Context ctx) {
+                return consumerHandle;
+            }
+        };
+        Injector injector = Guice.createInjector(new AbstractModule() {
+
+            @Override
+            protected void configure() {
+                bind(MetricConsumer.class).toInstance(consumer);
+            }
+        });
+        assertSame(consumerHandle, injector.getInstance(Metric.class).handle("foo", null));
+    }
+
     private static class SetTask implements Runnable {
 
         final Metric metric;
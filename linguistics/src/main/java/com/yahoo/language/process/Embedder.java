@@ -5,6 +5,7 @@ import com.yahoo.api.annotations.Beta;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -65,6 +66,23 @@ public interface Embedder {
      */
     Tensor embed(String text, Context context, TensorType tensorType);
 
+    /**
+     * Converts a batch of texts into tensors. This embeds each text in turn,
+     * and should be overridden by embedders which can embed many texts more efficiently at once.
+     *
+     * @param texts the texts to embed
+     * @param context the context which may influence an embedder's behavior
+     * @param tensorType the type of the tensors to be returned
+     * @return the tensor embedding of each text, in the same order as the texts
+     * @throws IllegalArgumentException if the language or tensor type is not supported by this embedder
+     */
+    default List<Tensor> embed(List<String> texts, Context context, TensorType tensorType) {
+        List<Tensor> embeddings = new ArrayList<>(texts.size());
+        for (String text : texts)
+            embeddings.add(embed(text, context, tensorType));
+        return embeddings;
+    }
+
     class Context extends InvocationContext<Context> {
 
         public Context(String destination) {
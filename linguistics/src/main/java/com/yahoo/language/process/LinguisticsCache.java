@@ -0,0 +1,126 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.process;
+
+import com.yahoo.language.Language;
+import com.yahoo.language.Linguistics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of the results of segmenting, stemming and removing accents from short strings
+ * using a given linguistics instance, for use in query processing where the distribution of terms is skewed.
+ * This is thread safe, and processes strings which are not cached using processors obtained from the linguistics
+ * instance for each operation.
+ *
+ * The lists returned are shared between callers and must not be modified.
+ */
+public final class LinguisticsCache {
+
+    /** Longer strings are processed without being cached, as they are unlikely to be repeated */
+    static final int maxCachedLength = 128;
+
+    private enum Operation { SEGMENT, STEM, ACCENT_DROP }
+
+    private record Key(Operation operation, Language language, LinguisticsParameters parameters, String input) { }
+
+    private final Linguistics linguistics;
+    private final int maxEntries;
+    private final Map<Key, Object> cache = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong takenHits = new AtomicLong();
+    private final AtomicLong takenMisses = new AtomicLong();
+
+    /**
+     * Creates a cache of processing done by the given linguistics.
+     *
+     * @param linguistics the linguistics to process with
+     * @param maxEntries the max number of results to cache
+     */
+    public LinguisticsCache(Linguistics linguistics, int maxEntries) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be positive, but was " + maxEntries);
+        this.linguistics = Objects.requireNonNull(linguistics);
+        this.maxEntries = maxEntries;
+    }
+
+    /** Returns the linguistics processing with, which is cached by this */
+    public Linguistics linguistics() { return linguistics; }
+
+    /** Returns the segments of the given input, as returned by {@link Segmenter#segment} */
+    @SuppressWarnings("unchecked")
+    public List<String> segment(String input, Language language) {
+        if (input.length() > maxCachedLength) return linguistics.getSegmenter().segment(input, language);
+        return (List<String>) get(new Key(Operation.SEGMENT, language, null, input),
+                                  key -> List.copyOf(linguistics.getSegmenter().segment(input, language)));
+    }
+
+    /** Returns the stems of the given input, as returned by {@link Stemmer#stem(String, LinguisticsParameters)} */
+    @SuppressWarnings("unchecked")
+    public List<StemList> stem(String input, LinguisticsParameters parameters) {
+        if (input.length() > maxCachedLength) return linguistics.getStemmer().stem(input, parameters);
+        return (List<StemList>) get(new Key(Operation.STEM, parameters.language(), parameters, input),
+                                    key -> List.copyOf(linguistics.getStemmer().stem(input, parameters)));
+    }
+
+    /** Returns the given input with accents removed, as returned by {@link Transformer#accentDrop} */
+    public String accentDrop(String input, Language language) {
+        if (input.length() > maxCachedLength) return linguistics.getTransformer().accentDrop(input, language);
+        return (String) get(new Key(Operation.ACCENT_DROP, language, null, input),
+                            key -> linguistics.getTransformer().accentDrop(input, language));
+    }
+
+    /** Returns a segmenter which segments using this */
+    public Segmenter segmenter() { return this::segment; }
+
+    /** Returns the number of lookups answered from this cache since it was created */
+    public long hits() { return hits.sum(); }
+
+    /** Returns the number of lookups which were not answered from this cache since it was created */
+    public long misses() { return misses.sum(); }
+
+    /**
+     * Returns the increase in {@link #hits} since the previous invocation of this.
+     * As this is tracked by the cache, each increase is returned once in total, to all callers.
+     */
+    public long takeHitsIncrease() { return takeIncrease(hits(), takenHits); }
+
+    /**
+     * Returns the increase in {@link #misses} since the previous invocation of this.
+     * As this is tracked by the cache, each increase is returned once in total, to all callers.
+     */
+    public long takeMissesIncrease() { return takeIncrease(misses(), takenMisses); }
+
+    /** Returns the number of results currently cached */
+    public int size() { return cache.size(); }
+
+    private static long takeIncrease(long current, AtomicLong taken) {
+        return Math.max(0, current - taken.getAndAccumulate(current, Math::max));
+    }
+
+    private Object get(Key key, Function<Key, Object> processor) {
+        Object result = cache.get(key);
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        result = processor.apply(key);
+        if (result == null) return null;
+        if (cache.size() >= maxEntries) // Rather than tracking use, start over when full
+            cache.clear();
+        cache.put(key, result);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "cache of " + size() + " results from " + linguistics;
+    }
+
+}
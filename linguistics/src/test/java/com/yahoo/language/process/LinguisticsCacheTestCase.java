@@ -0,0 +1,81 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.process;
+
+import com.yahoo.language.Language;
+import com.yahoo.language.Linguistics;
+import com.yahoo.language.simple.SimpleLinguistics;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+public class LinguisticsCacheTestCase {
+
+    private final Linguistics linguistics = new SimpleLinguistics();
+
+    @Test
+    public void requireThatResultsAreTheSameAsWithoutCache() {
+        LinguisticsCache cache = new LinguisticsCache(linguistics, 100);
+        var parameters = new LinguisticsParameters(Language.ENGLISH, StemMode.BEST, true, true);
+        for (int round = 0; round < 2; round++) {
+            for (String input : List.of("cars", "Cars", "blåbær", "foo bar", "i've", "")) {
+                assertEquals(linguistics.getSegmenter().segment(input, Language.ENGLISH), cache.segment(input, Language.ENGLISH));
+                assertEquals(linguistics.getStemmer().stem(input, parameters), cache.stem(input, parameters));
+                assertEquals(linguistics.getTransformer().accentDrop(input, Language.ENGLISH), cache.accentDrop(input, Language.ENGLISH));
+            }
+        }
+        assertEquals(18, cache.size());
+        assertEquals(18, cache.misses());
+        assertEquals(18, cache.hits());
+        assertSame(cache.segment("foo bar", Language.ENGLISH), cache.segmenter().segment("foo bar", Language.ENGLISH));
+    }
+
+    @Test
+    public void requireThatKeysIncludeLanguageAndParameters() {
+        LinguisticsCache cache = new LinguisticsCache(linguistics, 100);
+        cache.stem("cars", new LinguisticsParameters(Language.ENGLISH, StemMode.BEST, true, true));
+        assertEquals(List.of(new StemList("car")),
+                     cache.stem("cars", new LinguisticsParameters(Language.ENGLISH, StemMode.BEST, true, true)));
+        assertEquals(List.of(new StemList("cars")),
+                     cache.stem("cars", new LinguisticsParameters(Language.ENGLISH, StemMode.NONE, true, true)));
+        cache.segment("cars", Language.ENGLISH);
+        cache.segment("cars", Language.FRENCH);
+        assertEquals(4, cache.size());
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    public void requireThatIncreasesAreTakenOnce() {
+        LinguisticsCache cache = new LinguisticsCache(linguistics, 100);
+        cache.accentDrop("foo", Language.ENGLISH);
+        cache.accentDrop("foo", Language.ENGLISH);
+        cache.accentDrop("bar", Language.ENGLISH);
+        assertEquals(1, cache.takeHitsIncrease());
+        assertEquals(2, cache.takeMissesIncrease());
+        assertEquals(0, cache.takeHitsIncrease());
+        assertEquals(0, cache.takeMissesIncrease());
+
+        cache.accentDrop("bar", Language.ENGLISH);
+        assertEquals(1, cache.takeHitsIncrease());
+        assertEquals(0, cache.takeMissesIncrease());
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void requireThatCacheIsBounded() {
+        LinguisticsCache cache = new LinguisticsCache(linguistics, 10);
+        for (int i = 0; i < 25; i++)
+            cache.accentDrop("term" + i, Language.ENGLISH);
+        assertEquals(5, cache.size());
+
+        String longInput = "a".repeat(LinguisticsCache.maxCachedLength + 1);
+        assertEquals(longInput, cache.accentDrop(longInput, Language.ENGLISH));
+        assertEquals(5, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new LinguisticsCache(linguistics, 0));
+    }
+
+}
@@ -2,6 +2,7 @@
 
 package com.yahoo.logserver.handlers.archive;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -13,12 +14,12 @@ import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPOutputStream;
 
-import com.yahoo.compress.ZstdOutputStream;
+import com.yahoo.compress.ZstdCompressor;
 import com.yahoo.io.NativeIO;
+import com.yahoo.log.impl.LogArchiveIndex;
 
-import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
-import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -188,19 +189,26 @@ public final class FilesArchived {
 
     private void compressGzip(File oldFile) {
         File gzippedFile = new File(oldFile.getPath() + ".gz");
-        try (GZIPOutputStream compressor = new GZIPOutputStream(new FileOutputStream(gzippedFile), 0x100000);
-             FileInputStream inputStream = new FileInputStream(oldFile))
-        {
+        try {
             long mtime = oldFile.lastModified();
-            byte [] buffer = new byte[0x100000];
-
-            for (int read = inputStream.read(buffer); read > 0; read = inputStream.read(buffer)) {
-                compressor.write(buffer, 0, read);
+            LogArchiveIndex index;
+            try (FileOutputStream fileOut = new FileOutputStream(gzippedFile);
+                 FileInputStream inputStream = new FileInputStream(oldFile))
+            {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(0x100000);
+                index = transferInChunks(nativeIO, inputStream, 0x100000, (chunk, offset, length) -> {
+                    // Each chunk is a separate gzip member, which may be decompressed on its own
+                    compressed.reset();
+                    try (GZIPOutputStream compressor = new GZIPOutputStream(compressed, 0x10000)) {
+                        compressor.write(chunk, offset, length);
+                    }
+                    compressed.writeTo(fileOut);
+                    return compressed.size();
+                });
             }
-            compressor.finish();
-            compressor.flush();
             oldFile.delete();
             gzippedFile.setLastModified(mtime);
+            index.writeFor(gzippedFile.toPath());
             log.info("Compressed: "+gzippedFile);
         } catch (IOException e) {
             log.warning("Got '" + e + "' while compressing '" + oldFile.getPath() + "'.");
@@ -212,14 +220,24 @@ public final class FilesArchived {
             Path compressedFile = Paths.get(oldFile.toString() + ".zst");
             int bufferSize = 2*1024*1024;
             long mtime = oldFile.lastModified();
+            LogArchiveIndex index;
             try (FileOutputStream fileOut = AtomicFileOutputStream.create(compressedFile);
-                 ZstdOutputStream out = new ZstdOutputStream(fileOut, bufferSize);
                  FileInputStream in = new FileInputStream(oldFile))
             {
-                pageFriendlyTransfer(nativeIO, out, fileOut.getFD(), in, bufferSize);
-                out.flush();
+                ZstdCompressor compressor = new ZstdCompressor();
+                byte[] compressed = new byte[ZstdCompressor.getMaxCompressedLength(bufferSize)];
+                FileChannel channel = fileOut.getChannel();
+                index = transferInChunks(nativeIO, in, bufferSize, (chunk, offset, length) -> {
+                    // Each chunk is a separate zstd frame, which may be decompressed on its own
+                    long start = channel.position();
+                    int compressedLength = compressor.compress(chunk, offset, length, compressed, 0, compressed.length);
+                    fileOut.write(compressed, 0, compressedLength);
+                    nativeIO.dropPartialFileFromCache(fileOut.getFD(), start, compressedLength, false);
+                    return compressedLength;
+                });
             }
             compressedFile.toFile().setLastModified(mtime);
+            index.writeFor(compressedFile);
             oldFile.delete();
             nativeIO.dropFileFromCache(compressedFile.toFile());
         } catch (IOException e) {
@@ -274,9 +292,11 @@ public final class FilesArchived {
         public final String prefix;
         public final int generation;
         public final boolean zsuff;
+        public final boolean index;
 
         public boolean canCompress(long now) {
             if (zsuff) return false; // already compressed
+            if (index) return false; // index of a compressed file
             if (! path.isFile()) return false; // not a file
             long diff = now - path.lastModified();
             if (diff < compressAfterMillis) return false; // too new
@@ -315,9 +335,10 @@ public final class FilesArchived {
             this.prefix = prefixOf(name);
             this.generation = generationOf(name);
             this.zsuff = zSuffix(name);
+            this.index = LogArchiveIndex.isIndex(path.toPath());
         }
         public String toString() {
-            return "FilesArchived.LogFile{name="+path+" prefix="+prefix+" gen="+generation+" z="+zsuff+"}";
+            return "FilesArchived.LogFile{name="+path+" prefix="+prefix+" gen="+generation+" z="+zsuff+" index="+index+"}";
         }
     }
 
@@ -346,18 +367,50 @@ public final class FilesArchived {
         }
     }
 
-    private static void pageFriendlyTransfer(NativeIO nativeIO, OutputStream out, FileDescriptor outDescriptor, FileInputStream in, int bufferSize) throws IOException {
-        int read;
+    /** Writes a chunk of a log file, such that it may be decompressed independently of the others, and returns the number of bytes written */
+    @FunctionalInterface
+    private interface ChunkWriter {
+        long write(byte[] chunk, int offset, int length) throws IOException;
+    }
+
+    /**
+     * Passes the given input to the given writer in chunks of at most the given size, which end at line boundaries
+     * unless a line is longer than a chunk, and returns an index of the chunks written.
+     */
+    private static LogArchiveIndex transferInChunks(NativeIO nativeIO, FileInputStream in, int chunkSize, ChunkWriter writer) throws IOException {
+        LogArchiveIndex.Builder index = LogArchiveIndex.builder();
+        byte[] buffer = new byte[chunkSize];
         long totalBytesRead = 0;
-        byte[] buffer = new byte[bufferSize];
-        while ((read = in.read(buffer)) >= 0) {
-            out.write(buffer, 0, read);
-            if (read > 0) {
-                nativeIO.dropPartialFileFromCache(in.getFD(), totalBytesRead, read, false);
-                nativeIO.dropPartialFileFromCache(outDescriptor, totalBytesRead, read, false);
+        int filled = 0;
+        boolean eof = false;
+        do {
+            while ( ! eof && filled < buffer.length) {
+                int read = in.read(buffer, filled, buffer.length - filled);
+                if (read < 0) {
+                    eof = true;
+                }
+                else if (read > 0) {
+                    nativeIO.dropPartialFileFromCache(in.getFD(), totalBytesRead, read, false);
+                    totalBytesRead += read;
+                    filled += read;
+                }
             }
-            totalBytesRead += read;
-        }
+            if (filled == 0 && totalBytesRead > 0) break; // An empty input is written as a single, empty chunk
+
+            int end = eof ? filled : chunkEnd(buffer, filled);
+            long written = writer.write(buffer, 0, end);
+            index.add(buffer, 0, end, Math.toIntExact(written));
+            System.arraycopy(buffer, end, buffer, 0, filled - end);
+            filled -= end;
+        } while ( ! eof || filled > 0);
+        return index.build();
+    }
+
+    /** Returns the end of the last complete line in the given buffer, or the end of the buffer if there is none */
+    private static int chunkEnd(byte[] buffer, int length) {
+        for (int i = length - 1; i >= 0; i--)
+            if (buffer[i] == '\n') return i + 1;
+        return length;
     }
 
 }
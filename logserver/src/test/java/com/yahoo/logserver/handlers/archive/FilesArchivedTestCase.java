@@ -2,16 +2,28 @@
 
 package com.yahoo.logserver.handlers.archive;
 
+import com.yahoo.compress.ZstdCompressor;
+import com.yahoo.log.impl.LogArchiveIndex;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 
@@ -118,6 +130,63 @@ public class FilesArchivedTestCase {
         checkExist("foo/bar");
     }
 
+    @Test
+    public void testCompressedFilesAreIndexed() throws IOException {
+        tmpDir = temporaryFolder.newFolder();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100_000; i++)
+            content.append(i).append("\thost").append(i % 3).append("\t5480\tcontainer\tstdout\tinfo\tmessage ").append(i).append('\n');
+        for (String name : List.of("zstd/2018/12/31/14-0", "gzip/2018/12/31/14-0")) {
+            File f = new File(tmpDir, name);
+            f.getParentFile().mkdirs();
+            Files.writeString(f.toPath(), content);
+            f.setLastModified(System.currentTimeMillis() - 3 * 3600 * 1000);
+        }
+        FilesArchived zstd = new FilesArchived(new File(tmpDir, "zstd"), "zstd");
+        zstd.maintenance();
+        new FilesArchived(new File(tmpDir, "gzip"), "gzip").maintenance();
+        dumpFiles("after compression");
+
+        Path zstdArchive = tmpDir.toPath().resolve("zstd/2018/12/31/14-0.zst");
+        LogArchiveIndex zstdIndex = LogArchiveIndex.readFor(zstdArchive).get();
+        assertEquals(Optional.of(Set.of("host0", "host1", "host2")), zstdIndex.hostnames());
+        assertTrue(zstdIndex.chunks().size() > 1);
+        assertEquals(content.toString(), decompress(zstdArchive, zstdIndex, chunk -> new ZstdCompressor().decompress(chunk, 0, chunk.length)));
+
+        Path gzipArchive = tmpDir.toPath().resolve("gzip/2018/12/31/14-0.gz");
+        LogArchiveIndex gzipIndex = LogArchiveIndex.readFor(gzipArchive).get();
+        assertTrue(gzipIndex.chunks().size() > 1);
+        assertEquals(content.toString(), decompress(gzipArchive, gzipIndex, chunk -> new GZIPInputStream(new ByteArrayInputStream(chunk)).readAllBytes()));
+
+        double previousMax = Double.NEGATIVE_INFINITY;
+        for (LogArchiveIndex.Chunk chunk : gzipIndex.chunks()) {
+            assertTrue(chunk.minTimestamp() > previousMax);
+            previousMax = chunk.maxTimestamp();
+        }
+        assertEquals(99_999, previousMax, 0);
+
+        zstd.maintenance();
+        checkExist("zstd/2018/12/31/14-0.zst");
+        checkExist("zstd/2018/12/31/14-0.zst.idx");
+        checkNoExist("zstd/2018/12/31/14-0.zst.idx.zst");
+    }
+
+    private interface ChunkDecompressor {
+        byte[] decompress(byte[] chunk) throws IOException;
+    }
+
+    /** Decompresses each indexed chunk separately, and returns the concatenated content */
+    private static String decompress(Path archive, LogArchiveIndex index, ChunkDecompressor decompressor) throws IOException {
+        byte[] compressed = Files.readAllBytes(archive);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (LogArchiveIndex.Chunk chunk : index.chunks()) {
+            byte[] decompressed = decompressor.decompress(Arrays.copyOfRange(compressed, (int) chunk.offset(), (int) chunk.offset() + chunk.compressedLength()));
+            assertEquals(chunk.uncompressedLength(), decompressed.length);
+            content.write(decompressed);
+        }
+        return content.toString(UTF_8);
+    }
+
     private void dumpFiles(String header) {
         System.out.println(">>> " + header + " >>> :");
         List<String> seen = scanDir(tmpDir);
@@ -170,7 +170,7 @@ public final class MessageBus implements ConfigHandler, NetworkOwner, MessageHan
         }
 
         // Start messenger.
-        msn = new Messenger();
+        msn = new Messenger(params.getMessengerThreads());
 
         RetryPolicy retryPolicy = params.getRetryPolicy();
         if (retryPolicy != null) {
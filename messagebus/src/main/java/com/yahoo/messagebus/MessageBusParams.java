@@ -18,6 +18,7 @@ public class MessageBusParams {
     private final List<Protocol> protocols = new ArrayList<>();
     private RetryPolicy retryPolicy;
     private int maxPendingCount;
+    private int messengerThreads;
     private MessagebusConfig config;
 
     /**
@@ -26,6 +27,7 @@ public class MessageBusParams {
     public MessageBusParams() {
         retryPolicy = new RetryTransientErrorsPolicy();
         maxPendingCount = 4096;
+        messengerThreads = 1;
         config = null;
     }
 
@@ -38,6 +40,7 @@ public class MessageBusParams {
         protocols.addAll(params.protocols);
         retryPolicy = params.retryPolicy;
         maxPendingCount = params.maxPendingCount;
+        messengerThreads = params.messengerThreads;
         config = params.config;
     }
 
@@ -145,6 +148,28 @@ public class MessageBusParams {
         return this;
     }
 
+    /**
+     * Returns the number of threads running the tasks of the {@link Messenger}.
+     *
+     * @return The number of threads.
+     */
+    public int getMessengerThreads() {
+        return messengerThreads;
+    }
+
+    /**
+     * Sets the number of threads running the tasks of the {@link Messenger}, which is 1 by default.
+     * Tasks for the same sequence id are always run by the same thread, in order, but tasks for different
+     * sequence ids are only run in the order they were enqueued when there is a single thread.
+     *
+     * @param numThreads The number of threads to set.
+     * @return This, to allow chaining.
+     */
+    public MessageBusParams setMessengerThreads(int numThreads) {
+        this.messengerThreads = numThreads;
+        return this;
+    }
+
     public MessagebusConfig getMessageBusConfig() {
         return config;
     }
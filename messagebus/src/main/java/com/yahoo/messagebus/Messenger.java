@@ -6,18 +6,24 @@ import com.yahoo.concurrent.SystemTimer;
 import java.time.Duration;
 import java.util.logging.Level;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Logger;
 
 /**
- * <p>This class implements a single thread that is able to process arbitrary
- * tasks. Tasks are enqueued using the synchronized {@link #enqueue(Task)}
- * method, and are run in the order they were enqueued.</p>
+ * <p>This class implements a set of threads that are able to process arbitrary
+ * tasks. Each thread owns a shard with a lock-free queue of tasks. Tasks
+ * enqueued using {@link #enqueue(Task)} are all run by the first shard, in the
+ * order they were enqueued, while tasks enqueued using {@link
+ * #enqueue(long, Task)} are run by the shard given by their key, in the order
+ * they were enqueued for that key. Recurrent tasks are run by the first
+ * shard.</p>
  *
  * @author Simon Thoresen Hult
  */
@@ -26,13 +32,27 @@ public final class Messenger implements Runnable {
     private static final Logger log = Logger.getLogger(Messenger.class.getName());
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final List<Task> children = new ArrayList<>();
-    private final Queue<Task> queue = new ArrayDeque<>();
-
-    private final Thread thread;
+    private final Shard[] shards;
 
     public Messenger() {
-        thread = new Thread(this, "Messenger");
-        thread.setDaemon(true);
+        this(1);
+    }
+
+    /**
+     * Creates a messenger with the given number of threads.
+     *
+     * @param numThreads the number of threads, and shards, of this
+     */
+    public Messenger(int numThreads) {
+        if (numThreads < 1) throw new IllegalArgumentException("Number of messenger threads must be positive, but was " + numThreads);
+        shards = new Shard[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            Shard shard = new Shard();
+            Thread thread = new Thread(i == 0 ? this : () -> shard.run(List.of()), i == 0 ? "Messenger" : "Messenger-" + i);
+            thread.setDaemon(true);
+            shard.thread = thread;
+            shards[i] = shard;
+        }
     }
 
     /**
@@ -48,13 +68,20 @@ public final class Messenger implements Runnable {
     }
 
     /**
-     * <p>Starts the internal thread. This must be done AFTER all recurrent
+     * <p>Starts the internal threads. This must be done AFTER all recurrent
      * tasks have been added.</p>
      *
      * @see #addRecurrentTask(Task)
      */
     public void start() {
-        thread.start();
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    /** Returns the number of threads, and shards, of this */
+    public int threadCount() {
+        return shards.length;
     }
 
     /**
@@ -90,36 +117,63 @@ public final class Messenger implements Runnable {
     }
 
     /**
-     * <p>Enqueues the given task in the list of tasks that this worker is to
-     * process. If this thread has been destroyed previously, this method
+     * <p>Enqueues the given task in the list of tasks that the first shard of
+     * this is to process. If this has been destroyed previously, this method
      * invokes {@link Messenger.Task#destroy()}.</p>
      *
      * @param task The task to enqueue.
      */
     public void enqueue(Task task) {
+        enqueue(shards[0], task);
+    }
+
+    /**
+     * <p>Enqueues the given task in the list of tasks that the shard owning
+     * the given key is to process. Tasks with the same key are run in the
+     * order they were enqueued, by the same thread. If this has been destroyed
+     * previously, this method invokes {@link Messenger.Task#destroy()}.</p>
+     *
+     * @param key  The key, e.g., a session or sequence id, which selects the shard.
+     * @param task The task to enqueue.
+     */
+    public void enqueue(long key, Task task) {
+        enqueue(shards[shardOf(key, shards.length)], task);
+    }
+
+    private void enqueue(Shard shard, Task task) {
         if (destroyed.get()) {
             task.destroy();
             return;
         }
-        synchronized (this) {
-            queue.offer(task);
-            if (queue.size() == 1) {
-                notify();
-            }
-        }
+        shard.offer(task);
+    }
+
+    static int shardOf(long key, int numShards) {
+        return Math.floorMod(Long.hashCode(key * 0x9e3779b97f4a7c15L), numShards);
     }
 
     /**
-     * <p>Handshakes with the internal thread. If this method is called using
-     * the messenger thread, this will deadlock.</p>
+     * <p>Handshakes with the internal threads, i.e., waits until all tasks
+     * enqueued before this call have been run. When called from one of the
+     * messenger threads, this returns immediately, as a messenger thread
+     * can not wait for itself, and waiting for the other shards could deadlock
+     * if they are syncing with this one.</p>
      */
     public void sync() {
-        if (Thread.currentThread() == thread) {
-            return; // no need to wait for self
+        for (Shard shard : shards) {
+            if (Thread.currentThread() == shard.thread) {
+                return;
+            }
+        }
+        List<SyncTask> tasks = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            SyncTask task = new SyncTask();
+            enqueue(shard, task);
+            tasks.add(task);
+        }
+        for (SyncTask task : tasks) {
+            task.await();
         }
-        SyncTask task = new SyncTask();
-        enqueue(task);
-        task.await();
     }
 
     /**
@@ -132,15 +186,19 @@ public final class Messenger implements Runnable {
      */
     public boolean destroy() {
         boolean done = false;
-        enqueue(TERMINATE);
+        for (Shard shard : shards) {
+            enqueue(shard, TERMINATE);
+        }
         if (!destroyed.getAndSet(true)) {
             try {
-                synchronized (this) {
-                    while (!queue.isEmpty()) {
-                        wait();
+                for (Shard shard : shards) {
+                    if (shard.thread.isAlive()) {
+                        shard.thread.join();
+                    }
+                    else {
+                        shard.drain();
                     }
                 }
-                thread.join();
             } catch (InterruptedException e) {
                 // ignore
             }
@@ -149,57 +207,10 @@ public final class Messenger implements Runnable {
         return done;
     }
 
+    /** Runs the main loop of the first shard, which also runs all recurrent tasks. */
     @Override
     public void run() {
-        long timeoutMS = SystemTimer.adjustTimeoutByDetectedHz(Duration.ofMillis(100)).toMillis();
-        while (true) {
-            Task task = null;
-            synchronized (this) {
-                if (queue.isEmpty()) {
-                    try {
-                        if (children.isEmpty()) {
-                            wait();
-                        } else {
-                            wait(timeoutMS);
-                        }
-                    } catch (InterruptedException e) {
-                        continue;
-                    }
-                }
-                if (!queue.isEmpty()) {
-                    task = queue.poll();
-                }
-            }
-            if (task == TERMINATE) {
-                break;
-            }
-            if (task != null) {
-                try {
-                    task.run();
-                } catch (Exception e) {
-                    log.log(Level.SEVERE, "An exception was thrown while running " + task.getClass().getName(), e);
-                }
-                try {
-                    task.destroy();
-                } catch (Exception e) {
-                    log.warning("An exception was thrown while destroying " + task.getClass().getName() + ": " + e);
-                    log.warning("Someone, somewhere might have to wait indefinitely for something.");
-                }
-            }
-            for (Task child : children) {
-                child.run();
-            }
-        }
-        for (Task child : children) {
-            child.destroy();
-        }
-        synchronized (this) {
-            while (!queue.isEmpty()) {
-                Task task = queue.poll();
-                task.destroy();
-            }
-            notify();
-        }
+        shards[0].run(children);
     }
 
     /**
@@ -220,6 +231,75 @@ public final class Messenger implements Runnable {
         void destroy();
     }
 
+    /** A thread, and the queue of tasks it runs. */
+    private static class Shard {
+
+        private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+        private volatile boolean sleeping = false;
+        private Thread thread;
+
+        void offer(Task task) {
+            queue.offer(task);
+            if (sleeping) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        void run(List<Task> children) {
+            long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(SystemTimer.adjustTimeoutByDetectedHz(Duration.ofMillis(100)).toMillis());
+            while (true) {
+                Task task = queue.poll();
+                if (task == null) {
+                    sleeping = true;
+                    task = queue.poll(); // the task may have been offered before we started sleeping
+                    if (task == null) {
+                        if (children.isEmpty()) {
+                            LockSupport.park(this);
+                        } else {
+                            LockSupport.parkNanos(this, timeoutNanos);
+                        }
+                        task = queue.poll();
+                    }
+                    sleeping = false;
+                }
+                if (task == TERMINATE) {
+                    break;
+                }
+                if (task != null) {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        log.log(Level.SEVERE, "An exception was thrown while running " + task.getClass().getName(), e);
+                    }
+                    destroy(task);
+                }
+                for (Task child : children) {
+                    child.run();
+                }
+            }
+            for (Task child : children) {
+                child.destroy();
+            }
+            drain();
+        }
+
+        void drain() {
+            for (Task task; (task = queue.poll()) != null; ) {
+                destroy(task);
+            }
+        }
+
+        private static void destroy(Task task) {
+            try {
+                task.destroy();
+            } catch (Exception e) {
+                log.warning("An exception was thrown while destroying " + task.getClass().getName() + ": " + e);
+                log.warning("Someone, somewhere might have to wait indefinitely for something.");
+            }
+        }
+
+    }
+
     private static class SyncTask implements Task {
 
         final CountDownLatch latch = new CountDownLatch(1);
@@ -12,14 +12,17 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * linked message handlers. Each message that carries a sequencing id is queued in an internal list of messages for that
  * id, and messages are only sent when they are at the front of their list. When a reply arrives, the current front of
  * the list is removed and the next message, if any, is sent.
+ * The lists are partitioned by sequencing id into stripes with separate locks, so that unrelated ids do not contend.
  *
  * @author Simon Thoresen Hult
  */
 public class Sequencer implements MessageHandler, ReplyHandler {
 
+    private static final int numStripes = 64;
+
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final MessageHandler sender;
-    private final Map<Long, Queue<Message>> seqMap = new HashMap<>();
+    private final Stripe[] stripes = new Stripe[numStripes];
     private final Messenger msn;
     private final static ThreadLocal<Boolean> isSending = ThreadLocal.withInitial(() -> Boolean.FALSE);
 
@@ -31,6 +34,9 @@ public class Sequencer implements MessageHandler, ReplyHandler {
     public Sequencer(MessageHandler sender, Messenger msn) {
         this.sender = sender;
         this.msn = msn;
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new Stripe();
+        }
     }
     public Sequencer(MessageHandler sender) {
         this(sender, null);
@@ -44,15 +50,17 @@ public class Sequencer implements MessageHandler, ReplyHandler {
      */
     public boolean destroy() {
         if (!destroyed.getAndSet(true)) {
-            synchronized (this) {
-                for (Queue<Message> queue : seqMap.values()) {
-                    if (queue != null) {
-                        for (Message msg : queue) {
-                            msg.discard();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    for (Queue<Message> queue : stripe.seqMap.values()) {
+                        if (queue != null) {
+                            for (Message msg : queue) {
+                                msg.discard();
+                            }
                         }
                     }
+                    stripe.seqMap.clear();
                 }
-                seqMap.clear();
             }
             return true;
         }
@@ -71,9 +79,10 @@ public class Sequencer implements MessageHandler, ReplyHandler {
     private boolean filter(Message msg) {
         long seqId = msg.getSequenceId();
         msg.setContext(seqId);
-        synchronized (this) {
-            if (seqMap.containsKey(seqId)) {
-                Queue<Message> queue = seqMap.computeIfAbsent(seqId, k -> new LinkedList<>());
+        Stripe stripe = stripeOf(seqId);
+        synchronized (stripe) {
+            if (stripe.seqMap.containsKey(seqId)) {
+                Queue<Message> queue = stripe.seqMap.computeIfAbsent(seqId, k -> new LinkedList<>());
                 if (msg.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
                     msg.getTrace().trace(TraceLevel.COMPONENT,
                                          "Sequencer queued message with sequence id '" + seqId + "'.");
@@ -81,11 +90,15 @@ public class Sequencer implements MessageHandler, ReplyHandler {
                 queue.add(msg);
                 return false;
             }
-            seqMap.put(seqId, null);
+            stripe.seqMap.put(seqId, null);
         }
         return true;
     }
 
+    private Stripe stripeOf(long seqId) {
+        return stripes[Messenger.shardOf(seqId, numStripes)];
+    }
+
     /**
      * Internal method for forwarding a sequenced message to the underlying sender.
      *
@@ -153,10 +166,11 @@ public class Sequencer implements MessageHandler, ReplyHandler {
 
     private void sendNextInSequence(long seqId) {
         Message msg = null;
-        synchronized (this) {
-            Queue<Message> queue = seqMap.get(seqId);
+        Stripe stripe = stripeOf(seqId);
+        synchronized (stripe) {
+            Queue<Message> queue = stripe.seqMap.get(seqId);
             if (queue == null || queue.isEmpty()) {
-                seqMap.remove(seqId);
+                stripe.seqMap.remove(seqId);
             } else {
                 msg = queue.remove();
             }
@@ -165,7 +179,8 @@ public class Sequencer implements MessageHandler, ReplyHandler {
             Boolean alreadySending = isSending.get();
             if (alreadySending && (msn != null)) {
                 // Dispatch in another thread to break possibly very long recursion.
-                msn.enqueue(new SequencedSendTask(msg));
+                // Messages with the same id are dispatched by the same thread, in order.
+                msn.enqueue(seqId, new SequencedSendTask(msg));
             } else {
                 isSending.set(Boolean.TRUE);
                 sequencedSend(msg);
@@ -174,4 +189,9 @@ public class Sequencer implements MessageHandler, ReplyHandler {
         }
     }
 
+    /** The sequencing state of the ids in one partition of the id space, guarded by the monitor of this */
+    private static class Stripe {
+        final Map<Long, Queue<Message>> seqMap = new HashMap<>();
+    }
+
 }
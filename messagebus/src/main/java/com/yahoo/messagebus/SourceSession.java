@@ -8,6 +8,7 @@ import java.util.Deque;
 import java.util.LinkedList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A session supporting sending new messages.
@@ -19,13 +20,13 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final CountDownLatch done = new CountDownLatch(1);
     private final AtomicBoolean sendingBlockedToken = new AtomicBoolean(false);
-    private final Object lock = new Object();
+    private final Object lock = new Object(); // guards the throttle policy, which is not thread-safe
     private final MessageBus mbus;
     private final Sequencer sequencer;
     private final ReplyHandler replyHandler;
     private final ThrottlePolicy throttlePolicy;
     private volatile double timeout;  // volatile only for tests
-    private volatile int pendingCount = 0;
+    private final AtomicInteger pendingCount = new AtomicInteger(0);
     private volatile boolean closed = false;
     private final Deque<BlockedMessage> blockedQ = new LinkedList<>();
     private final static class Counter {
@@ -70,9 +71,7 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
         if (destroyed.getAndSet(true)) {
             return false;
         }
-        synchronized (lock) {
-            closed = true;
-        }
+        closed = true;
         sequencer.destroy();
         mbus.sync();
         return true;
@@ -83,10 +82,8 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
      * returning, this method calls {@link #destroy()}.
      */
     public void close() {
-        synchronized (lock) {
-            closed = true;
-        }
-        if (pendingCount == 0) {
+        closed = true;
+        if (pendingCount.get() == 0) {
             done.countDown();
         }
         try {
@@ -135,32 +132,48 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
     }
 
     private Result sendInternal(Message message) {
-        synchronized (lock) {
-            if (closed) {
-                return new Result(ErrorCode.SEND_QUEUE_CLOSED, "Source session is closed.");
-            }
-            if (throttlePolicy != null) {
-                if (! throttlePolicy.canSend(message, pendingCount)) {
+        if (closed) {
+            return new Result(ErrorCode.SEND_QUEUE_CLOSED, "Source session is closed.");
+        }
+        if (throttlePolicy != null) {
+            synchronized (lock) {
+                int pending = pendingCount.get();
+                if (! throttlePolicy.canSend(message, pending)) {
                     return new Result(ErrorCode.SEND_QUEUE_FULL,
-                            "Too much pending data (" + pendingCount + " messages).");
+                            "Too much pending data (" + pending + " messages).");
+                }
+                pendingCount.incrementAndGet();
+                if (closed) {
+                    return backOutClosed();
                 }
                 message.pushHandler(replyHandler);
                 throttlePolicy.processMessage(message);
-            } else {
-                message.pushHandler(replyHandler);
             }
-            ++pendingCount;
+        } else {
+            pendingCount.incrementAndGet();
+            if (closed) {
+                return backOutClosed();
+            }
+            message.pushHandler(replyHandler);
         }
         if (message.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
             message.getTrace().trace(TraceLevel.COMPONENT,
                                      "Source session accepted a " + message.getApproxSize() + " byte message. " +
-                                     pendingCount + " message(s) now pending.");
+                                     pendingCount.get() + " message(s) now pending.");
         }
         message.pushHandler(this);
         sequencer.handleMessage(message);
         return Result.ACCEPTED;
     }
 
+    /** Backs out of sending when closed concurrently, and lets close() complete if this was the last one pending. */
+    private Result backOutClosed() {
+        if (pendingCount.decrementAndGet() == 0) {
+            done.countDown();
+        }
+        return new Result(ErrorCode.SEND_QUEUE_CLOSED, "Source session is closed.");
+    }
+
     @Override
     public boolean trySend() {
         if (destroyed.get()) return false;
@@ -293,18 +306,17 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
             reply.discard();
             return;
         }
-        boolean done;
-        synchronized (lock) {
-            --pendingCount;
-            if (throttlePolicy != null) {
+        if (throttlePolicy != null) {
+            synchronized (lock) {
                 throttlePolicy.processReply(reply);
             }
-            done = (closed && pendingCount == 0);
         }
+        int pending = pendingCount.decrementAndGet();
+        boolean done = (closed && pending == 0);
         sendBlockedMessages();
         if (reply.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
             reply.getTrace().trace(TraceLevel.COMPONENT,
-                                   "Source session received reply. " + pendingCount + " message(s) now pending.");
+                                   "Source session received reply. " + pending + " message(s) now pending.");
         }
         ReplyHandler handler = reply.popHandler();
         handler.handleReply(reply);
@@ -381,7 +393,7 @@ public final class SourceSession implements ReplyHandler, MessageBus.SendBlocked
 
     /** Returns the number of messages sent that have not been replied to yet */
     public int getPendingCount() {
-        return pendingCount;
+        return pendingCount.get();
     }
 
     /**
@@ -40,6 +40,8 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -74,6 +76,9 @@ public class RPCNetwork implements Network, MethodHandler {
             new ThreadPoolExecutor(getNumThreads(), getNumThreads(), 0L, TimeUnit.SECONDS,
                                    new LinkedBlockingQueue<>(),
                                    ThreadFactoryFactory.getDaemonThreadFactory("mbus.net"));
+    private final Duration batchLinger;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService batchScheduler;
 
     private static int getNumThreads() {
         return Math.max(2, Runtime.getRuntime().availableProcessors()/2);
@@ -100,6 +105,15 @@ public class RPCNetwork implements Network, MethodHandler {
         orb.setMaxOutputBufferSize(params.getMaxOutputBufferSize());
         targetPool = new RPCTargetPool(params.getConnectionExpireSecs(), params.getNumTargetsPerSpec());
         servicePool = new RPCServicePool(4096);
+        batchLinger = params.getBatchLinger();
+        maxBatchSize = params.getMaxBatchSize();
+        if (batchLinger.isZero()) {
+            batchScheduler = null;
+        } else {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, ThreadFactoryFactory.getDaemonThreadFactory("mbus.batch"));
+            scheduler.setRemoveOnCancelPolicy(true); // Message timeouts are cancelled as replies arrive
+            batchScheduler = scheduler;
+        }
 
         Method method = new Method("mbus.getVersion", "", "s", this);
         method.requireCapabilities(CapabilitySet.none());
@@ -296,6 +310,9 @@ public class RPCNetwork implements Network, MethodHandler {
             orb.transport().shutdown().join();
             targetPool.flushTargets(true);
             executor.shutdown();
+            if (batchScheduler != null) {
+                batchScheduler.shutdown();
+            }
             return true;
         }
         return false;
@@ -401,6 +418,20 @@ public class RPCNetwork implements Network, MethodHandler {
         return executor;
     }
 
+    /** Returns how long messages may wait to be sent in a batch, which is zero if batching is disabled. */
+    Duration getBatchLinger() {
+        return batchLinger;
+    }
+
+    int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /** Returns the scheduler used to send batches when their linger time is up, or null if batching is disabled. */
+    ScheduledExecutorService getBatchScheduler() {
+        return batchScheduler;
+    }
+
     private class SendTask implements Runnable {
 
         final Protocol protocol;
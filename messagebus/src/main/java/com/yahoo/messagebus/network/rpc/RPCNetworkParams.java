@@ -4,6 +4,8 @@ package com.yahoo.messagebus.network.rpc;
 import com.yahoo.messagebus.network.Identity;
 import com.yahoo.cloud.config.SlobroksConfig;
 
+import java.time.Duration;
+
 /**
  * To facilitate several configuration parameters to the {@link RPCNetwork} constructor, all parameters are held by this
  * class. This class has reasonable default values for each parameter.
@@ -25,6 +27,8 @@ public class RPCNetworkParams {
     private int transportEventsBeforeWakeup = 1;
     public enum Optimization {LATENCY, THROUGHPUT}
     Optimization optimization = Optimization.LATENCY;
+    private Duration batchLinger = Duration.ZERO;
+    private int maxBatchSize = 128;
 
     /**
      * Constructs a new instance of this class with reasonable default values.
@@ -49,6 +53,8 @@ public class RPCNetworkParams {
         numTargetsPerSpec = params.numTargetsPerSpec;
         numNetworkThreads = params.numNetworkThreads;
         optimization = params.optimization;
+        batchLinger = params.batchLinger;
+        maxBatchSize = params.maxBatchSize;
     }
 
     /**
@@ -227,4 +233,42 @@ public class RPCNetworkParams {
         this.transportEventsBeforeWakeup = transportEventsBeforeWakeup;
         return this;
     }
+
+    /**
+     * Returns how long a message may wait for more messages to the same target, to be sent together with them in
+     * a single RPC. Zero, the default, means messages are always sent by themselves.
+     */
+    public Duration getBatchLinger() {
+        return batchLinger;
+    }
+
+    /**
+     * Sets how long a message may wait for more messages to the same target, to be sent together with them in
+     * a single RPC, whose content is compressed as a whole. Targets which do not support this receive messages
+     * one by one, as usual. Messages whose replies are ignored are never batched.
+     *
+     * @param batchLinger The longest time a message may wait before it is sent, or zero to disable batching.
+     * @return This, to allow chaining.
+     */
+    public RPCNetworkParams setBatchLinger(Duration batchLinger) {
+        this.batchLinger = batchLinger;
+        return this;
+    }
+
+    /** Returns the maximum number of messages in a single batch. */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of messages in a single batch. A batch is sent as soon as it is full.
+     *
+     * @param maxBatchSize The maximum number of messages.
+     * @return This, to allow chaining.
+     */
+    public RPCNetworkParams setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
 }
@@ -23,8 +23,24 @@ import com.yahoo.messagebus.routing.Route;
 import com.yahoo.messagebus.routing.RoutingNode;
 import com.yahoo.text.Utf8Array;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
- * Implements the request adapter for method "mbus.send1/mbus.slime".
+ * Implements the request adapter for method "mbus.send1/mbus.slime", and for sending batches of messages
+ * to a single target in one request.
  *
  * @author baldersheim
  */
@@ -33,6 +49,7 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
     private final RPCNetwork net;
     private final String clientIdent;
     private final String serverIdent;
+    private final Batcher batcher; // null if batching is disabled
 
     protected abstract Method buildMethod();
     protected abstract String getReturnSpec();
@@ -41,6 +58,11 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
     protected abstract Reply createReply(Values ret, String serviceName, Trace trace);
     protected abstract Params toParams(Values req);
     protected abstract void createResponse(Values ret, Reply reply, Version version, byte [] payload);
+    protected abstract Method buildBatchMethod();
+    protected abstract Request encodeBatchRequest(List<BatchedMessage> messages);
+    protected abstract List<Reply> createBatchReplies(Values ret, List<BatchedMessage> messages);
+    protected abstract List<Params> toBatchParams(Values req);
+    protected abstract void createBatchResponse(Values ret, List<BatchedReply> replies);
 
     protected RPCSend(RPCNetwork net) {
         this.net = net;
@@ -53,6 +75,8 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
             this.serverIdent = "server";
         }
         net.getSupervisor().addMethod(buildMethod());
+        net.getSupervisor().addMethod(buildBatchMethod());
+        this.batcher = net.getBatchLinger().isZero() ? null : new Batcher(net.getBatchLinger(), net.getMaxBatchSize(), net.getBatchScheduler());
     }
 
     @Override
@@ -63,7 +87,20 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
         Route route = new Route(recipient.getRoute());
         Hop hop = route.removeHop(0);
 
-        Request req = encodeRequest(version, route, address,msg, timeRemaining, payload, ctx.trace.getLevel());
+        if ( ! hop.getIgnoreResult() && batcher != null && batcher.add(new BatchedMessage(ctx, version, route, address, msg, payload), timeRemaining)) {
+            if (ctx.trace.shouldTrace(TraceLevel.SEND_RECEIVE)) {
+                ctx.trace.trace(TraceLevel.SEND_RECEIVE,
+                        "Sending message (version " + version + ") from " + clientIdent + " to '" +
+                                address.getServiceName() + "' in a batch with " + ctx.timeout + " seconds timeout.");
+            }
+            return;
+        }
+        send(ctx, version, route, address, msg, payload, hop.getIgnoreResult());
+    }
+
+    private void send(SendContext ctx, Version version, Route route, RPCServiceAddress address, Message msg,
+                      byte[] payload, boolean ignoreResult) {
+        Request req = encodeRequest(version, route, address, msg, ctx.timeRemaining, payload, ctx.trace.getLevel());
 
         if (ctx.trace.shouldTrace(TraceLevel.SEND_RECEIVE)) {
             ctx.trace.trace(TraceLevel.SEND_RECEIVE,
@@ -71,7 +108,7 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
                             address.getServiceName() + "' with " + ctx.timeout + " seconds timeout.");
         }
 
-        if (hop.getIgnoreResult()) {
+        if (ignoreResult) {
             address.getTarget().getJRTTarget().invokeVoid(req);
             if (ctx.trace.shouldTrace(TraceLevel.SEND_RECEIVE)) {
                 ctx.trace.trace(TraceLevel.SEND_RECEIVE,
@@ -79,7 +116,7 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
             }
             Reply reply = new EmptyReply();
             reply.getTrace().swap(ctx.trace);
-            recipient.handleReply(reply);
+            ctx.recipient.handleReply(reply);
         } else {
             req.setContext(ctx);
             address.getTarget().getJRTTarget().invokeAsync(req, ctx.timeout, this);
@@ -116,23 +153,27 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
     private void doRequestDone(Request req) {
         SendContext ctx = (SendContext)req.getContext();
         String serviceName = ((RPCServiceAddress)ctx.recipient.getServiceAddress()).getServiceName();
-        Reply reply;
-        Error error = null;
         if (!req.checkReturnTypes(getReturnSpec())) {
-            // Map all known JRT errors to the appropriate message bus error.
-            reply = new EmptyReply();
-            error = switch (req.errorCode()) {
-                case com.yahoo.jrt.ErrorCode.TIMEOUT -> new Error(ErrorCode.TIMEOUT,
-                        "A timeout occurred while waiting for '" + serviceName + "' (" +
-                                ctx.timeout + " seconds expired); " + req.errorMessage());
-                case com.yahoo.jrt.ErrorCode.CONNECTION -> new Error(ErrorCode.CONNECTION_ERROR,
-                        "A connection error occurred for '" + serviceName + "'; " + req.errorMessage());
-                default -> new Error(ErrorCode.NETWORK_ERROR,
-                        "A network error occurred for '" + serviceName + "'; " + req.errorMessage());
-            };
+            handleReply(ctx, new EmptyReply(), toError(req, serviceName, ctx.timeout));
         } else {
-            reply = createReply(req.returnValues(), serviceName, ctx.trace);
+            handleReply(ctx, createReply(req.returnValues(), serviceName, ctx.trace), null);
         }
+    }
+
+    /** Maps all known JRT errors to the appropriate message bus error. */
+    private static Error toError(Request req, String serviceName, double timeout) {
+        return switch (req.errorCode()) {
+            case com.yahoo.jrt.ErrorCode.TIMEOUT -> new Error(ErrorCode.TIMEOUT,
+                    "A timeout occurred while waiting for '" + serviceName + "' (" +
+                            timeout + " seconds expired); " + req.errorMessage());
+            case com.yahoo.jrt.ErrorCode.CONNECTION -> new Error(ErrorCode.CONNECTION_ERROR,
+                    "A connection error occurred for '" + serviceName + "'; " + req.errorMessage());
+            default -> new Error(ErrorCode.NETWORK_ERROR,
+                    "A network error occurred for '" + serviceName + "'; " + req.errorMessage());
+        };
+    }
+
+    private void handleReply(SendContext ctx, Reply reply, Error error) {
         if (ctx.trace.shouldTrace(TraceLevel.SEND_RECEIVE)) {
             ctx.trace.trace(TraceLevel.SEND_RECEIVE,
                     "Reply (type " + reply.getType() + ") received at " + clientIdent + ".");
@@ -162,28 +203,49 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
         net.getExecutor().execute(() -> doInvoke(request));
     }
 
+    /** Handles a request holding a batch of messages, which is returned when all of them have been replied to. */
+    protected final void invokeBatch(Request request) {
+        request.detach();
+        net.getExecutor().execute(() -> doInvokeBatch(request));
+    }
+
     private void doInvoke(Request request) {
         Params p = toParams(request.parameters());
 
         request.discardParameters(); // allow garbage collection of request parameters
 
+        deliver(p, request, null, 0);
+    }
+
+    private void doInvokeBatch(Request request) {
+        List<Params> batch = toBatchParams(request.parameters());
+
+        request.discardParameters(); // allow garbage collection of request parameters
+
+        BatchResponse response = new BatchResponse(request, batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            deliver(batch.get(i), request, response, i);
+        }
+    }
+
+    private void deliver(Params p, Request request, BatchResponse batch, int index) {
         // Make sure that the owner understands the protocol.
         Protocol protocol = net.getOwner().getProtocol(p.protocolName);
         if (protocol == null) {
-            replyError(request, p.version, protocol, p.traceLevel,
+            replyError(request, batch, index, p.version, protocol, p.traceLevel,
                     new Error(ErrorCode.UNKNOWN_PROTOCOL,
                             "Protocol '" + p.protocolName + "' is not known by " + serverIdent + "."));
             return;
         }
         Routable routable = protocol.decode(p.version, p.payload);
         if (routable == null) {
-            replyError(request, p.version, protocol, p.traceLevel,
+            replyError(request, batch, index, p.version, protocol, p.traceLevel,
                     new Error(ErrorCode.DECODE_ERROR,
                             "Protocol '" + protocol.getName() + "' failed to decode routable."));
             return;
         }
         if (routable instanceof Reply) {
-            replyError(request, p.version, protocol, p.traceLevel,
+            replyError(request, batch, index, p.version, protocol, p.traceLevel,
                     new Error(ErrorCode.DECODE_ERROR,
                             "Payload decoded to a reply when expecting a message."));
             return;
@@ -192,7 +254,7 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
         if (p.route != null && !p.route.isEmpty()) {
             msg.setRoute(net.getRoute(p.route));
         }
-        msg.setContext(new ReplyContext(request, p.version, protocol));
+        msg.setContext(new ReplyContext(request, p.version, protocol, batch, index));
         msg.pushHandler(this);
         msg.setRetryEnabled(p.retryEnabled);
         msg.setRetry(p.retry);
@@ -228,39 +290,260 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
                         "An error occurred while encoding the reply."));
             }
         }
-        createResponse(ctx.request.returnValues(), reply, ctx.version, payload);
-        ctx.request.returnRequest();
+        if (ctx.batch == null) {
+            createResponse(ctx.request.returnValues(), reply, ctx.version, payload);
+            ctx.request.returnRequest();
+        } else {
+            ctx.batch.complete(ctx.index, new BatchedReply(reply, ctx.version, payload));
+        }
     }
 
     /**
      * Send an error reply for a given request.
      *
      * @param request    The JRT request to reply to.
+     * @param batch      The batch response the reply is part of, or null if it is the only reply to the request.
+     * @param index      The index of the reply in the batch response.
      * @param version    The version to serialize for.
      * @param traceLevel The trace level to set in the reply.
      * @param protocol   The message protocol to serialize with.
      * @param err        The error to reply with.
      */
-    private void replyError(Request request, Version version, Protocol protocol, int traceLevel, Error err) {
+    private void replyError(Request request, BatchResponse batch, int index, Version version, Protocol protocol, int traceLevel, Error err) {
         Reply reply = new EmptyReply();
-        reply.setContext(new ReplyContext(request, version, protocol));
+        reply.setContext(new ReplyContext(request, version, protocol, batch, index));
         reply.getTrace().setLevel(traceLevel);
         reply.addError(err);
         handleReply(reply);
     }
 
-    private static class SendContext {
+    static class SendContext {
 
         final RoutingNode recipient;
         final Trace trace;
+        final long timeRemaining;
         final double timeout;
 
         SendContext(RoutingNode recipient, long timeRemaining) {
+            this(recipient, new Trace(recipient.getTrace().getLevel()), timeRemaining);
+        }
+
+        private SendContext(RoutingNode recipient, Trace trace, long timeRemaining) {
             this.recipient = recipient;
-            trace = new Trace(recipient.getTrace().getLevel());
+            this.timeRemaining = timeRemaining;
+            this.trace = trace;
             timeout = timeRemaining * 0.001;
         }
+
+        /** Returns a copy of this, with the given time remaining */
+        SendContext withTimeRemaining(long timeRemaining) {
+            return new SendContext(recipient, trace, timeRemaining);
+        }
+    }
+
+    private record ReplyContext(Request request, Version version, Protocol protocol, BatchResponse batch, int index) { }
+
+    /** A message which is sent as part of a batch. */
+    protected record BatchedMessage(SendContext ctx, Version version, Route route, RPCServiceAddress address,
+                                    Message msg, byte[] payload) {
+
+        String serviceName() { return address.getServiceName(); }
+
+        int traceLevel() { return ctx.trace.getLevel(); }
+
+    }
+
+    /** A reply which is returned as part of a batch. */
+    protected record BatchedReply(Reply reply, Version version, byte[] payload) { }
+
+    /** Collects the replies to a batch of messages, and returns the request when all have been replied to. */
+    private final class BatchResponse {
+
+        private final Request request;
+        private final BatchedReply[] replies;
+        private final AtomicInteger pending;
+
+        BatchResponse(Request request, int size) {
+            this.request = request;
+            this.replies = new BatchedReply[size];
+            this.pending = new AtomicInteger(size);
+        }
+
+        void complete(int index, BatchedReply reply) {
+            replies[index] = reply;
+            if (pending.decrementAndGet() == 0) { // Also orders the writes to replies before the reads below
+                createBatchResponse(request.returnValues(), List.of(replies));
+                request.returnRequest();
+            }
+        }
+
+    }
+
+    /**
+     * Collects messages to each target for a short while, and sends them together in a single request.
+     * Only messages with similar timeouts are batched together, and each message times out at its own deadline,
+     * even if the request holding it is still waiting for other replies.
+     * Targets which do not support batches are remembered, and sent messages one by one.
+     */
+    private final class Batcher {
+
+        private final long lingerNanos;
+        private final int maxBatchSize;
+        private final ScheduledExecutorService scheduler;
+        private final Map<BatchKey, Batch> batches = new HashMap<>();
+        private final Set<RPCTarget> unsupported = Collections.newSetFromMap(new WeakHashMap<>());
+
+        Batcher(Duration linger, int maxBatchSize, ScheduledExecutorService scheduler) {
+            this.lingerNanos = linger.toNanos();
+            this.maxBatchSize = maxBatchSize;
+            this.scheduler = scheduler;
+        }
+
+        /** Adds the given message to the batch for its target, and returns true, or returns false if the target does not support batches */
+        boolean add(BatchedMessage message, long timeRemaining) {
+            RPCTarget target = message.address().getTarget();
+            // Timeouts within a factor of two of each other are batched together
+            BatchKey key = new BatchKey(target, 63 - Long.numberOfLeadingZeros(Math.max(1, timeRemaining)));
+            Batch full = null;
+            synchronized (this) {
+                if (unsupported.contains(target)) return false;
+
+                Batch batch = batches.get(key);
+                if (batch == null) {
+                    batch = new Batch(key);
+                    Batch scheduled = batch;
+                    try {
+                        scheduler.schedule(() -> flush(scheduled), lingerNanos, TimeUnit.NANOSECONDS);
+                    } catch (RejectedExecutionException e) {
+                        return false; // Shutting down
+                    }
+                    batches.put(key, batch);
+                }
+                batch.messages.add(message);
+                if (batch.messages.size() >= maxBatchSize) {
+                    batches.remove(key);
+                    full = batch;
+                }
+            }
+            if (full != null) {
+                full.send();
+            }
+            return true;
+        }
+
+        private void flush(Batch batch) {
+            synchronized (this) {
+                if ( ! batches.remove(batch.key, batch)) return; // Already sent because it was full
+            }
+            batch.send();
+        }
+
+        private synchronized void setUnsupported(RPCTarget target) {
+            unsupported.add(target);
+        }
+
+        private record BatchKey(RPCTarget target, int timeoutClass) { }
+
+        private class Batch implements RequestWaiter {
+
+            final BatchKey key;
+            final List<BatchedMessage> messages = new ArrayList<>();
+            private List<BatchedMessage> sent;
+            private AtomicBoolean[] replied;
+            private ScheduledFuture<?>[] timeouts;
+
+            Batch(BatchKey key) {
+                this.key = key;
+            }
+
+            void send() {
+                if (messages.size() == 1) {
+                    sendSingly(messages.get(0));
+                    return;
+                }
+                sent = new ArrayList<>(messages.size());
+                for (BatchedMessage message : messages) {
+                    if ( ! expired(message))
+                        sent.add(message);
+                }
+                if (sent.isEmpty()) return;
+
+                Request req = encodeBatchRequest(sent);
+                replied = new AtomicBoolean[sent.size()];
+                timeouts = new ScheduledFuture<?>[sent.size()];
+                long maxTimeRemaining = 0;
+                for (int i = 0; i < sent.size(); i++) {
+                    int index = i;
+                    long timeRemaining = Math.max(1, sent.get(i).msg().getTimeRemainingNow());
+                    maxTimeRemaining = Math.max(maxTimeRemaining, timeRemaining);
+                    replied[i] = new AtomicBoolean();
+                    try {
+                        timeouts[i] = scheduler.schedule(() -> net.getExecutor().execute(() -> timeOut(index)),
+                                                         timeRemaining, TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException e) {
+                        // Shutting down; the request times out with the last message
+                    }
+                }
+                key.target().getJRTTarget().invokeAsync(req, maxTimeRemaining * 0.001, this);
+                req.discardParameters(); // allow garbage collection of request parameters
+            }
+
+            private void timeOut(int index) {
+                BatchedMessage message = sent.get(index);
+                reply(index, new EmptyReply(),
+                      new Error(ErrorCode.TIMEOUT, "A timeout occurred while waiting for '" + message.serviceName() + "' (" +
+                                                   message.ctx().timeout + " seconds expired); in a batch of " + sent.size()));
+            }
+
+            /** Hands the given reply to the routing node of the message at the given index, unless it already has one */
+            private void reply(int index, Reply reply, Error error) {
+                if ( ! replied[index].compareAndSet(false, true)) return;
+                if (timeouts[index] != null) timeouts[index].cancel(false);
+                handleReply(sent.get(index).ctx(), reply, error);
+            }
+
+            @Override
+            public void handleRequestDone(Request req) {
+                net.getExecutor().execute(() -> doRequestDone(req));
+            }
+
+            private void doRequestDone(Request req) {
+                if (req.checkReturnTypes(getReturnSpec())) {
+                    List<Reply> replies = createBatchReplies(req.returnValues(), sent);
+                    for (int i = 0; i < sent.size(); i++) {
+                        reply(i, replies.get(i), null);
+                    }
+                } else if (req.errorCode() == com.yahoo.jrt.ErrorCode.NO_SUCH_METHOD) {
+                    setUnsupported(key.target());
+                    for (int i = 0; i < sent.size(); i++) {
+                        // Hand over each message which has not timed out already, under the same guard as replies
+                        if ( ! replied[i].compareAndSet(false, true)) continue;
+                        if (timeouts[i] != null) timeouts[i].cancel(false);
+                        sendSingly(sent.get(i));
+                    }
+                } else {
+                    for (int i = 0; i < sent.size(); i++) {
+                        reply(i, new EmptyReply(), toError(req, sent.get(i).serviceName(), sent.get(i).ctx().timeout));
+                    }
+                }
+            }
+
+            private void sendSingly(BatchedMessage message) {
+                if (expired(message)) return;
+                RPCSend.this.send(message.ctx().withTimeRemaining(message.msg().getTimeRemainingNow()),
+                                  message.version(), message.route(), message.address(), message.msg(), message.payload(), false);
+            }
+
+            /** Replies with a timeout error, and returns true, if the given message has expired while lingering */
+            private boolean expired(BatchedMessage message) {
+                if (message.msg().getTimeRemainingNow() > 0) return false;
+                handleReply(message.ctx(), new EmptyReply(),
+                            new Error(ErrorCode.TIMEOUT, "Aborting transmission because zero time remains."));
+                return true;
+            }
+
+        }
+
     }
 
-    private record ReplyContext(Request request, Version version, Protocol protocol) { }
 }
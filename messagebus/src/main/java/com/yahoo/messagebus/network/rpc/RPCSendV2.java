@@ -24,8 +24,12 @@ import com.yahoo.slime.Inspector;
 import com.yahoo.slime.Slime;
 import com.yahoo.text.Utf8Array;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- * Implements the request adapter for method "mbus.slime".
+ * Implements the request adapter for method "mbus.slime", and "mbus.slime.batch" for batches of messages,
+ * where the slime objects of all messages or replies in the batch are compressed together.
  *
  * @author baldersheim
  */
@@ -34,6 +38,7 @@ public class RPCSendV2 extends RPCSend {
     private final static String METHOD_NAME = "mbus.slime";
     private final static String METHOD_PARAMS = "bixbix";
     private final static String METHOD_RETURN = "bixbix";
+    private final static String BATCH_METHOD_NAME = "mbus.slime.batch";
     private final Compressor compressor = new Compressor(CompressionType.LZ4, 3, 0.90, 1024);
 
     protected RPCSendV2(RPCNetwork net) { super(net); }
@@ -76,6 +81,28 @@ public class RPCSendV2 extends RPCSend {
     private static final String CODE_F = "code";
     private static final String BLOB_F = "msg";
     private static final String MSG_F = "msg";
+    private static final String MESSAGES_F = "messages";
+    private static final String REPLIES_F = "replies";
+
+    @Override
+    protected Method buildBatchMethod() {
+        Method method = new Method(BATCH_METHOD_NAME, METHOD_PARAMS, METHOD_RETURN, this::invokeBatch)
+                .requireCapabilities(Capability.CONTAINER__DOCUMENT_API);
+        method.methodDesc("Send a batch of message bus requests and get a batch of replies back, in the same order.");
+        method.paramDesc(0, "header_encoding", "Encoding type of header.")
+                .paramDesc(1, "header_decodedSize", "Number of bytes after header decoding.")
+                .paramDesc(2, "header_payload", "Slime encoded header payload.")
+                .paramDesc(3, "body_encoding", "Encoding type of body.")
+                .paramDesc(4, "body_decoded_ize", "Number of bytes after body decoding.")
+                .paramDesc(5, "body_payload", "Slime encoded body payload, with an array of messages.");
+        method.returnDesc(0, "header_encoding", "Encoding type of header.")
+                .returnDesc(1, "header_decoded_size", "Number of bytes after header decoding.")
+                .returnDesc(2, "header_payload", "Slime encoded header payload.")
+                .returnDesc(3, "body_encoding", "Encoding type of body.")
+                .returnDesc(4, "body_encoded_size", "Number of bytes after body decoding.")
+                .returnDesc(5, "body_payload", "Slime encoded body payload, with an array of replies.");
+        return method;
+    }
 
     @Override
     protected Request encodeRequest(Version version, Route route, RPCServiceAddress address, Message msg,
@@ -90,34 +117,73 @@ public class RPCSendV2 extends RPCSend {
         v.add(new DataValue(new byte[0]));
 
         Slime slime = new Slime();
-        Cursor root = slime.setObject();
+        encodeMessage(slime.setObject(), version, route, address, msg, msg.getTimeRemaining(), payload, traceLevel);
+        addCompressed(v, slime);
+        return req;
+    }
+
+    @Override
+    protected Request encodeBatchRequest(List<BatchedMessage> messages) {
+        Request req = new Request(BATCH_METHOD_NAME);
+        Values v = req.parameters();
+
+        v.add(new Int8Value(CompressionType.NONE.getCode()));
+        v.add(new Int32Value(0));
+        v.add(new DataValue(new byte[0]));
 
+        Slime slime = new Slime();
+        Cursor array = slime.setObject().setArray(MESSAGES_F);
+        for (BatchedMessage message : messages) { // Time remaining is stamped as the batch is sent, after lingering
+            encodeMessage(array.addObject(), message.version(), message.route(), message.address(), message.msg(),
+                          Math.max(1, message.msg().getTimeRemainingNow()), message.payload(), message.traceLevel());
+        }
+        addCompressed(v, slime);
+        return req;
+    }
+
+    private static void encodeMessage(Cursor root, Version version, Route route, RPCServiceAddress address, Message msg,
+                                      long timeRemaining, byte[] payload, int traceLevel) {
         root.setString(VERSION_F, version.toUtf8().getBytes());
         root.setString(ROUTE_F, route.toString());
         root.setString(SESSION_F, address.getSessionName());
         root.setString(PROTOCOL_F, msg.getProtocol().toString());
         root.setBool(USERETRY_F, msg.getRetryEnabled());
         root.setLong(RETRY_F, msg.getRetry());
-        root.setLong(TIMEREMAINING_F, msg.getTimeRemaining());
+        root.setLong(TIMEREMAINING_F, timeRemaining);
         root.setLong(TRACELEVEL_F, traceLevel);
         root.setData(BLOB_F, payload);
+    }
 
+    private void addCompressed(Values values, Slime slime) {
         Compressor.Compression compressionResult = BinaryFormat.encode_and_compress(slime, compressor);
 
-        v.add(new Int8Value(compressionResult.type().getCode()));
-        v.add(new Int32Value(compressionResult.uncompressedSize()));
-        v.add(new DataValue(compressionResult.data()));
+        values.add(new Int8Value(compressionResult.type().getCode()));
+        values.add(new Int32Value(compressionResult.uncompressedSize()));
+        values.add(new DataValue(compressionResult.data()));
+    }
 
-        return req;
+    private Inspector decompress(Values values) {
+        CompressionType compression = CompressionType.valueOf(values.get(3).asInt8());
+        byte[] slimeBytes = compressor.decompress(values.get(5).asData(), compression, values.get(4).asInt32());
+        return BinaryFormat.decode(slimeBytes).get();
     }
 
     @Override
     protected Reply createReply(Values ret, String serviceName, Trace trace) {
-        CompressionType compression = CompressionType.valueOf(ret.get(3).asInt8());
-        byte[] slimeBytes = compressor.decompress(ret.get(5).asData(), compression, ret.get(4).asInt32());
-        Slime slime = BinaryFormat.decode(slimeBytes);
-        Inspector root = slime.get();
+        return createReply(decompress(ret), serviceName, trace);
+    }
+
+    @Override
+    protected List<Reply> createBatchReplies(Values ret, List<BatchedMessage> messages) {
+        Inspector replies = decompress(ret).field(REPLIES_F);
+        List<Reply> result = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            result.add(createReply(replies.entry(i), messages.get(i).serviceName(), messages.get(i).ctx().trace));
+        }
+        return result;
+    }
 
+    private Reply createReply(Inspector root, String serviceName, Trace trace) {
         Version version = new Version(new Utf8Array(root.field(VERSION_F).asUtf8()));
         byte[] payload = root.field(BLOB_F).asData();
 
@@ -154,10 +220,20 @@ public class RPCSendV2 extends RPCSend {
     }
 
     protected Params toParams(Values args) {
-        CompressionType compression = CompressionType.valueOf(args.get(3).asInt8());
-        byte[] slimeBytes = compressor.decompress(args.get(5).asData(), compression, args.get(4).asInt32());
-        Slime slime = BinaryFormat.decode(slimeBytes);
-        Inspector root = slime.get();
+        return toParams(decompress(args));
+    }
+
+    @Override
+    protected List<Params> toBatchParams(Values args) {
+        Inspector messages = decompress(args).field(MESSAGES_F);
+        List<Params> result = new ArrayList<>(messages.entries());
+        for (int i = 0; i < messages.entries(); i++) {
+            result.add(toParams(messages.entry(i)));
+        }
+        return result;
+    }
+
+    private static Params toParams(Inspector root) {
         Params p = new Params();
         p.version = new Version(new Utf8Array(root.field(VERSION_F).asUtf8()));
         p.route = root.field(ROUTE_F).asString();
@@ -178,8 +254,25 @@ public class RPCSendV2 extends RPCSend {
         ret.add(new DataValue(new byte[0]));
 
         Slime slime = new Slime();
-        Cursor root = slime.setObject();
+        encodeReply(slime.setObject(), reply, version, payload);
+        addCompressed(ret, slime);
+    }
+
+    @Override
+    protected void createBatchResponse(Values ret, List<BatchedReply> replies) {
+        ret.add(new Int8Value(CompressionType.NONE.getCode()));
+        ret.add(new Int32Value(0));
+        ret.add(new DataValue(new byte[0]));
+
+        Slime slime = new Slime();
+        Cursor array = slime.setObject().setArray(REPLIES_F);
+        for (BatchedReply reply : replies) {
+            encodeReply(array.addObject(), reply.reply(), reply.version(), reply.payload());
+        }
+        addCompressed(ret, slime);
+    }
 
+    private static void encodeReply(Cursor root, Reply reply, Version version, byte[] payload) {
         root.setString(VERSION_F, version.toUtf8().getBytes());
         root.setDouble(RETRYDELAY_F, reply.getRetryDelay());
         root.setString(PROTOCOL_F, reply.getProtocol().getBytes());
@@ -200,12 +293,6 @@ public class RPCSendV2 extends RPCSend {
                 }
             }
         }
-
-        Compressor.Compression compressionResult = BinaryFormat.encode_and_compress(slime, compressor);
-
-        ret.add(new Int8Value(compressionResult.type().getCode()));
-        ret.add(new Int32Value(compressionResult.uncompressedSize()));
-        ret.add(new DataValue(compressionResult.data()));
     }
 
 }
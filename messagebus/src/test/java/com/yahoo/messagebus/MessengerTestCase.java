@@ -3,9 +3,15 @@ package com.yahoo.messagebus;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -34,6 +40,38 @@ public class MessengerTestCase {
         assertTrue(latch.await(60, TimeUnit.SECONDS));
     }
 
+    @Test
+    void requireThatShardsSyncingEachOtherDoNotCauseDeadLock() throws InterruptedException {
+        Messenger msn = new Messenger(2);
+        msn.start();
+        long[] keys = { 0, 1 };
+        while (Messenger.shardOf(keys[0], 2) == Messenger.shardOf(keys[1], 2)) keys[1]++;
+
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch latch = new CountDownLatch(2);
+        for (long key : keys) {
+            msn.enqueue(key, new Messenger.Task() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        started.await(); // both shards are now running a task which syncs
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    msn.sync();
+                }
+
+                @Override
+                public void destroy() {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        assertTrue(msn.destroy());
+    }
+
     @Test
     void requireThatTaskIsExecuted() throws InterruptedException {
         Messenger msn = new Messenger();
@@ -95,6 +133,51 @@ public class MessengerTestCase {
         assertTrue(tryMessenger(msn));
     }
 
+    @Test
+    void requireThatKeyedTasksAreRunInOrderPerKey() throws InterruptedException {
+        Messenger msn = new Messenger(4);
+        msn.start();
+        int numKeys = 16, numTasks = 1000;
+        Map<Long, List<Integer>> runs = new ConcurrentHashMap<>();
+        Map<Long, Set<Thread>> threads = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(numKeys * numTasks);
+        for (int i = 0; i < numTasks; i++) {
+            for (long key = 0; key < numKeys; key++) {
+                long k = key;
+                int n = i;
+                msn.enqueue(key, new Messenger.Task() {
+                    @Override
+                    public void run() {
+                        runs.computeIfAbsent(k, __ -> new ArrayList<>()).add(n);
+                        threads.computeIfAbsent(k, __ -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread());
+                    }
+
+                    @Override
+                    public void destroy() {
+                        latch.countDown();
+                    }
+                });
+            }
+        }
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        for (long key = 0; key < numKeys; key++) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < numTasks; i++) expected.add(i);
+            assertEquals(expected, runs.get(key));
+            assertEquals(1, threads.get(key).size());
+        }
+        assertTrue(threads.values().stream().distinct().count() > 1);
+        msn.sync();
+        assertTrue(msn.destroy());
+        assertTrue(tryMessengerDestroyed(msn));
+    }
+
+    private static boolean tryMessengerDestroyed(Messenger msn) {
+        MyTask task = new MyTask();
+        msn.enqueue(7, task);
+        return task.runLatch.getCount() == 1 && task.destroyLatch.getCount() == 0;
+    }
+
     private static boolean tryMessenger(Messenger msn) {
         MyTask task = new MyTask();
         msn.enqueue(task);
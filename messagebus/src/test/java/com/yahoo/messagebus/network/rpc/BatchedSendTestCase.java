@@ -0,0 +1,180 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus.network.rpc;
+
+import com.yahoo.jrt.ErrorCode;
+import com.yahoo.jrt.ListenFailedException;
+import com.yahoo.jrt.Method;
+import com.yahoo.jrt.slobrok.server.Slobrok;
+import com.yahoo.messagebus.DestinationSession;
+import com.yahoo.messagebus.DestinationSessionParams;
+import com.yahoo.messagebus.Message;
+import com.yahoo.messagebus.MessageBusParams;
+import com.yahoo.messagebus.Reply;
+import com.yahoo.messagebus.SourceSession;
+import com.yahoo.messagebus.SourceSessionParams;
+import com.yahoo.messagebus.network.Identity;
+import com.yahoo.messagebus.network.rpc.test.TestServer;
+import com.yahoo.messagebus.routing.Route;
+import com.yahoo.messagebus.test.Receptor;
+import com.yahoo.messagebus.test.SimpleMessage;
+import com.yahoo.messagebus.test.SimpleProtocol;
+import com.yahoo.messagebus.test.SimpleReply;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests sending messages in batches.
+ */
+public class BatchedSendTestCase {
+
+    private static final int messageCount = 100;
+
+    Slobrok slobrok;
+    TestServer srcServer, dstServer;
+    SourceSession srcSession;
+    DestinationSession dstSession;
+
+    @BeforeEach
+    public void setUp() throws ListenFailedException, UnknownHostException {
+        slobrok = new Slobrok();
+        dstServer = new TestServer(
+                new MessageBusParams().addProtocol(new SimpleProtocol()),
+                new RPCNetworkParams().setIdentity(new Identity("dst")).setSlobrokConfigId(TestServer.getSlobrokConfig(slobrok)));
+        dstSession = dstServer.mb.createDestinationSession(
+                new DestinationSessionParams().setName("session").setMessageHandler(new Receptor()));
+        srcServer = new TestServer(
+                new MessageBusParams().addProtocol(new SimpleProtocol()),
+                new RPCNetworkParams().setSlobrokConfigId(TestServer.getSlobrokConfig(slobrok))
+                                      .setBatchLinger(Duration.ofMillis(20))
+                                      .setMaxBatchSize(16));
+        srcSession = srcServer.mb.createSourceSession(
+                new SourceSessionParams().setTimeout(600.0).setThrottlePolicy(null).setReplyHandler(new Receptor()));
+        assertTrue(srcServer.waitSlobrok("dst/session", 1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        slobrok.stop();
+        dstSession.destroy();
+        dstServer.destroy();
+        srcSession.destroy();
+        srcServer.destroy();
+    }
+
+    @Test
+    void requireThatMessagesAreSentAndRepliedToInBatches() {
+        assertTrue(sendAndReply().contains("in a batch"));
+    }
+
+    @Test
+    void requireThatMessagesAreSentOneByOneToTargetsWithoutBatchSupport() {
+        // Simulate an older target, which does not know the batch method
+        dstServer.net.getSupervisor().addMethod(new Method("mbus.slime.batch", "bixbix", "bixbix",
+                                                           request -> request.setError(ErrorCode.NO_SUCH_METHOD, "No such method")));
+        sendAndReply();
+        String trace = sendAndReply();
+        assertFalse(trace.contains("in a batch"), trace);
+    }
+
+    @Test
+    void requireThatEachMessageInABatchTimesOutAtItsOwnDeadline() {
+        long startNanos = System.nanoTime();
+        Message early = new SimpleMessage("early").setTimeRemaining(1100);
+        Message late = new SimpleMessage("late").setTimeRemaining(2000);
+        assertTrue(srcSession.send(early, Route.parse("dst/session")).isAccepted());
+        assertTrue(srcSession.send(late, Route.parse("dst/session")).isAccepted());
+        for (int i = 0; i < 2; i++) // Received in a single batch, which is held by the unanswered messages
+            assertNotNull(((Receptor)dstSession.getMessageHandler()).getMessage(60));
+
+        Reply first = ((Receptor)srcSession.getReplyHandler()).getReply(60);
+        assertNotNull(first);
+        assertTrue(System.nanoTime() - startNanos < Duration.ofMillis(1900).toNanos());
+        assertEquals("early", ((SimpleMessage)first.getMessage()).getValue());
+        assertEquals(com.yahoo.messagebus.ErrorCode.TIMEOUT, first.getError(0).getCode());
+
+        Reply second = ((Receptor)srcSession.getReplyHandler()).getReply(60);
+        assertNotNull(second);
+        assertEquals("late", ((SimpleMessage)second.getMessage()).getValue());
+        assertEquals(com.yahoo.messagebus.ErrorCode.TIMEOUT, second.getError(0).getCode());
+    }
+
+    @Test
+    void requireThatMessagesTimedOutBeforeLearningTheTargetHasNoBatchSupportAreNotResent() {
+        // Simulate an older target, which does not know the batch method, and is slow to say so
+        dstServer.net.getSupervisor().addMethod(new Method("mbus.slime.batch", "bixbix", "bixbix", request -> {
+            request.detach();
+            new Thread(() -> {
+                try { Thread.sleep(2700); } catch (InterruptedException e) { throw new RuntimeException(e); }
+                request.setError(ErrorCode.NO_SUCH_METHOD, "No such method");
+                request.returnRequest();
+            }).start();
+        }));
+        Message early = new SimpleMessage("early").setTimeRemaining(2200); // Same timeout class: Batched together
+        Message late = new SimpleMessage("late").setTimeRemaining(4000);
+        assertTrue(srcSession.send(early, Route.parse("dst/session")).isAccepted());
+        assertTrue(srcSession.send(late, Route.parse("dst/session")).isAccepted());
+
+        Receptor replies = (Receptor)srcSession.getReplyHandler();
+        Reply timedOut = replies.getReply(60);
+        assertNotNull(timedOut);
+        assertEquals("early", ((SimpleMessage)timedOut.getMessage()).getValue());
+        assertEquals(com.yahoo.messagebus.ErrorCode.TIMEOUT, timedOut.getError(0).getCode());
+
+        // Only the message which has not timed out is resent, singly
+        Message resent = ((Receptor)dstSession.getMessageHandler()).getMessage(60);
+        assertNotNull(resent);
+        assertEquals("late", ((SimpleMessage)resent).getValue());
+        Reply reply = new SimpleReply("reply to late");
+        reply.swapState(resent);
+        dstSession.reply(reply);
+
+        Reply replied = replies.getReply(60);
+        assertNotNull(replied);
+        assertFalse(replied.hasErrors(), replied.getTrace().toString());
+        assertEquals("reply to late", ((SimpleReply)replied).getValue());
+        assertNull(replies.getReply(1), "Each message is replied to once");
+        assertNull(((Receptor)dstSession.getMessageHandler()).getMessage(0));
+    }
+
+    /** Sends a number of messages, replies to them, verifies the replies, and returns the trace of the last one */
+    private String sendAndReply() {
+        for (int i = 0; i < messageCount; i++) {
+            Message msg = new SimpleMessage("message " + i);
+            msg.getTrace().setLevel(9);
+            assertTrue(srcSession.send(msg, Route.parse("dst/session")).isAccepted());
+        }
+        for (int i = 0; i < messageCount; i++) {
+            Message msg = ((Receptor)dstSession.getMessageHandler()).getMessage(60);
+            assertNotNull(msg);
+            Reply reply = new SimpleReply("reply to " + ((SimpleMessage)msg).getValue());
+            reply.swapState(msg);
+            dstSession.reply(reply);
+        }
+        Set<String> replies = new HashSet<>();
+        String trace = null;
+        for (int i = 0; i < messageCount; i++) {
+            Reply reply = ((Receptor)srcSession.getReplyHandler()).getReply(60);
+            assertNotNull(reply);
+            assertFalse(reply.hasErrors(), reply.getTrace().toString());
+            replies.add(((SimpleReply)reply).getValue());
+            trace = reply.getTrace().toString();
+        }
+        assertEquals(messageCount, replies.size());
+        for (int i = 0; i < messageCount; i++)
+            assertTrue(replies.contains("reply to message " + i));
+        return trace;
+    }
+
+}
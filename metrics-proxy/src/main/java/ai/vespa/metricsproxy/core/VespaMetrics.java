@@ -14,15 +14,22 @@ import ai.vespa.metricsproxy.metric.model.MetricId;
 import ai.vespa.metricsproxy.metric.model.MetricsPacket;
 import ai.vespa.metricsproxy.service.MetricsParser;
 import ai.vespa.metricsproxy.service.VespaService;
+import com.yahoo.concurrent.DaemonThreadFactory;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static ai.vespa.metricsproxy.metric.dimensions.PublicDimensions.INTERNAL_SERVICE_ID;
 import static ai.vespa.metricsproxy.metric.model.DimensionId.toDimensionId;
@@ -41,6 +48,10 @@ public class VespaMetrics {
 
     private static final MetricsFormatter formatter = new MetricsFormatter(false, false);
 
+    // Fetching is I/O bound, so services are fetched concurrently to avoid one slow service delaying all the others.
+    private static final int FETCH_THREADS = 8;
+    private static final ThreadPoolExecutor fetchExecutor = createFetchExecutor();
+
     public VespaMetrics(MetricsConsumers metricsConsumers) {
         this.metricsConsumers = metricsConsumers;
     }
@@ -66,41 +77,58 @@ public class VespaMetrics {
      * @return a list of metrics packet builders (to allow modification by the caller)
      */
     public List<MetricsPacket.Builder> getMetrics(List<VespaService> services, ConsumerId consumerId) {
-        List<MetricsPacket.Builder> metricsPackets = new ArrayList<>();
-
+        List<CompletableFuture<List<MetricsPacket.Builder>>> fetches = new ArrayList<>(services.size());
         for (VespaService service : services) {
-            // One metrics packet for system metrics
-            Optional<MetricsPacket.Builder> systemCheck = getSystemMetrics(service);
-            systemCheck.ifPresent(metricsPackets::add);
-
-            MetricAggregator aggregator = new MetricAggregator(service.getDimensions());
-            MetricsParser.Collector metricsConsumer = (consumerId != null)
-                    ? new ServiceMetricsCollector(metricsConsumers, aggregator, consumerId)
-                    : new ServiceMetricsCollectorForAll(metricsConsumers, aggregator);
-            service.consumeMetrics(metricsConsumer);
-
-            if (! aggregator.getAggregated().isEmpty()) {
-
-                // One metrics packet per set of metrics that share the same dimensions+consumers
-                aggregator.getAggregated().forEach((aggregationKey, metrics) -> {
-                    MetricsPacket.Builder builder = new MetricsPacket.Builder(service.getMonitoringName())
-                            .putMetrics(metrics)
-                            .putDimension(METRIC_TYPE_DIMENSION_ID, "standard")
-                            .putDimension(INSTANCE_DIMENSION_ID, service.getInstanceName())
-                            .putDimensions(aggregationKey.getDimensions());
-                    setMetaInfo(builder, metrics.get(0).getTimeStamp());
-                    builder.addConsumers(aggregationKey.getConsumers());
-                    metricsPackets.add(builder);
-                });
-            } else {
-                // Service did not return any metrics, so add metrics packet based on service health.
-                // TODO: Make VespaService.getMetrics return MetricsPacket and handle health on its own.
-                metricsPackets.add(getHealth(service));
+            fetches.add(CompletableFuture.supplyAsync(() -> getMetrics(service, consumerId), fetchExecutor));
+        }
+
+        // Joined in order, to keep the output order independent of which service answers first
+        List<MetricsPacket.Builder> metricsPackets = new ArrayList<>();
+        for (CompletableFuture<List<MetricsPacket.Builder>> fetch : fetches) {
+            try {
+                metricsPackets.addAll(fetch.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
             }
         }
         return metricsPackets;
     }
 
+    private List<MetricsPacket.Builder> getMetrics(VespaService service, ConsumerId consumerId) {
+        List<MetricsPacket.Builder> metricsPackets = new ArrayList<>();
+
+        // One metrics packet for system metrics
+        Optional<MetricsPacket.Builder> systemCheck = getSystemMetrics(service);
+        systemCheck.ifPresent(metricsPackets::add);
+
+        MetricAggregator aggregator = new MetricAggregator(service.getDimensions());
+        MetricsParser.Collector metricsConsumer = (consumerId != null)
+                ? new ServiceMetricsCollector(metricsConsumers, aggregator, consumerId)
+                : new ServiceMetricsCollectorForAll(metricsConsumers, aggregator);
+        service.consumeMetrics(metricsConsumer);
+
+        if (! aggregator.getAggregated().isEmpty()) {
+
+            // One metrics packet per set of metrics that share the same dimensions+consumers
+            aggregator.getAggregated().forEach((aggregationKey, metrics) -> {
+                MetricsPacket.Builder builder = new MetricsPacket.Builder(service.getMonitoringName())
+                        .putMetrics(metrics)
+                        .putDimension(METRIC_TYPE_DIMENSION_ID, "standard")
+                        .putDimension(INSTANCE_DIMENSION_ID, service.getInstanceName())
+                        .putDimensions(aggregationKey.getDimensions());
+                setMetaInfo(builder, metrics.get(0).getTimeStamp());
+                builder.addConsumers(aggregationKey.getConsumers());
+                metricsPackets.add(builder);
+            });
+        } else {
+            // Service did not return any metrics, so add metrics packet based on service health.
+            // TODO: Make VespaService.getMetrics return MetricsPacket and handle health on its own.
+            metricsPackets.add(getHealth(service));
+        }
+        return metricsPackets;
+    }
+
     private MetricsPacket.Builder getHealth(VespaService service) {
         HealthMetric health = service.getHealth();
         return new MetricsPacket.Builder(service.getMonitoringName())
@@ -206,20 +234,32 @@ public class VespaMetrics {
 
     private static class MetricAggregator {
         private final Map<AggregationKey, List<Metric>> aggregated = new HashMap<>();
+        // The parser interns dimension maps, so most metrics share a few instances
+        private final Map<Map<DimensionId, String>, Map<DimensionId, String>> mergedDimensions = new IdentityHashMap<>();
         private final Map<DimensionId, String> serviceDimensions;
         MetricAggregator(Map<DimensionId, String> serviceDimensions) {
             this.serviceDimensions = serviceDimensions;
         }
         Map<AggregationKey, List<Metric>> getAggregated() { return aggregated; }
         void aggregate(Metric metric) {
-            Map<DimensionId, String> mergedDimensions = new LinkedHashMap<>();
-            mergedDimensions.putAll(metric.getDimensions());
-            mergedDimensions.putAll(serviceDimensions);
-            AggregationKey aggregationKey = new AggregationKey(mergedDimensions, metric.getConsumers());
+            Map<DimensionId, String> merged = mergedDimensions.computeIfAbsent(metric.getDimensions(), dimensions -> {
+                Map<DimensionId, String> result = new LinkedHashMap<>(dimensions);
+                result.putAll(serviceDimensions);
+                return result;
+            });
+            AggregationKey aggregationKey = new AggregationKey(merged, metric.getConsumers());
             aggregated.computeIfAbsent(aggregationKey, key -> new ArrayList<>()).add(metric);
         }
     }
 
+    private static ThreadPoolExecutor createFetchExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(FETCH_THREADS, FETCH_THREADS, 60, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>(),
+                                                             new DaemonThreadFactory("metrics-fetcher-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     private List<ConfiguredMetric> getMetricDefinitions(ConsumerId consumer) {
         if (metricsConsumers == null) return List.of();
 
@@ -0,0 +1,108 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.metricsproxy.http;
+
+import ai.vespa.metricsproxy.core.MetricsConsumers;
+import ai.vespa.metricsproxy.metric.model.ConsumerId;
+import com.yahoo.container.jdisc.HttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static ai.vespa.metricsproxy.http.ValuesFetcher.getConsumerOrDefault;
+import static com.yahoo.jdisc.Response.Status.OK;
+
+/**
+ * Keeps the rendered output of successful responses for a short while, so that scrapes arriving
+ * within the same collection interval reuse it instead of fetching from all services and rendering again.
+ * Responses are cached per configured consumer, and unknown consumers resolve to the default consumer,
+ * so the number of cached responses is bounded by the number of configured consumers.
+ * Concurrent requests for the same consumer wait for a single render.
+ */
+public class RenderedResponseCache {
+
+    public static final Duration DEFAULT_TTL = Duration.ofSeconds(10);
+
+    private final MetricsConsumers consumers;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<ConsumerId, Entry> entries = new ConcurrentHashMap<>();
+
+    public RenderedResponseCache(MetricsConsumers consumers) {
+        this(consumers, DEFAULT_TTL, Clock.systemUTC());
+    }
+
+    public RenderedResponseCache(MetricsConsumers consumers, Duration ttl, Clock clock) {
+        this.consumers = consumers;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the cached response for the given requested consumer, which may be null, if it is still fresh.
+     * Otherwise, renders the response for the consumer it resolves to, and caches it if the status is OK.
+     */
+    public HttpResponse get(String requestedConsumer, Function<ConsumerId, HttpResponse> renderer) {
+        ConsumerId consumer = getConsumerOrDefault(requestedConsumer, consumers);
+        Entry entry = entries.computeIfAbsent(consumer, __ -> new Entry());
+        synchronized (entry) {
+            Instant now = clock.instant();
+            if (entry.response != null && now.isBefore(entry.expiry)) return entry.response;
+
+            HttpResponse response = renderer.apply(consumer);
+            if (response.getStatus() != OK) return response;
+
+            entry.response = new CachedResponse(response);
+            entry.expiry = now.plus(ttl);
+            return entry.response;
+        }
+    }
+
+    /** Returns the number of consumers with a cached response */
+    int size() { return entries.size(); }
+
+    private static class Entry {
+        private CachedResponse response = null;
+        private Instant expiry = Instant.EPOCH;
+    }
+
+    private static class CachedResponse extends HttpResponse {
+
+        private final byte[] data;
+        private final String contentType;
+        private final String characterEncoding;
+
+        CachedResponse(HttpResponse response) {
+            super(response.getStatus());
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try {
+                response.render(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.data = buffer.toByteArray();
+            this.contentType = response.getContentType();
+            this.characterEncoding = response.getCharacterEncoding();
+        }
+
+        @Override
+        public void render(OutputStream outputStream) throws IOException {
+            outputStream.write(data);
+        }
+
+        @Override
+        public String getContentType() { return contentType; }
+
+        @Override
+        public String getCharacterEncoding() { return characterEncoding; }
+
+    }
+
+}
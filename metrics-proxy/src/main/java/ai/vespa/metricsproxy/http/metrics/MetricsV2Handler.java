@@ -4,6 +4,7 @@ package ai.vespa.metricsproxy.http.metrics;
 import ai.vespa.metricsproxy.core.MetricsConsumers;
 import ai.vespa.metricsproxy.core.MetricsManager;
 import ai.vespa.metricsproxy.http.MetricsJsonResponse;
+import ai.vespa.metricsproxy.http.RenderedResponseCache;
 import ai.vespa.metricsproxy.http.ValuesFetcher;
 import ai.vespa.metricsproxy.http.application.ClusterIdDimensionProcessor;
 import ai.vespa.metricsproxy.http.application.Node;
@@ -43,6 +44,7 @@ public class MetricsV2Handler  extends HttpHandlerBase {
     public static final String VALUES_PATH = V2_PATH + "/values";
 
     private final ValuesFetcher valuesFetcher;
+    private final RenderedResponseCache responseCache;
     private final NodeInfoConfig nodeInfoConfig;
 
     @Inject
@@ -54,12 +56,13 @@ public class MetricsV2Handler  extends HttpHandlerBase {
         super(executor);
         this.nodeInfoConfig = nodeInfoConfig;
         valuesFetcher = new ValuesFetcher(metricsManager, vespaServices, metricsConsumers);
+        responseCache = new RenderedResponseCache(metricsConsumers);
     }
 
     @Override
     public Optional<HttpResponse> doHandle(URI requestUri, Path apiPath, String consumer) {
         if (apiPath.matches(V2_PATH)) return Optional.of(resourceListResponse(requestUri, List.of(VALUES_PATH)));
-        if (apiPath.matches(VALUES_PATH)) return Optional.of(valuesResponse(consumer));
+        if (apiPath.matches(VALUES_PATH)) return Optional.of(responseCache.get(consumer, consumerId -> valuesResponse(consumerId.id)));
         return Optional.empty();
     }
 
@@ -5,6 +5,7 @@ import ai.vespa.metricsproxy.core.MetricsConsumers;
 import ai.vespa.metricsproxy.core.MetricsManager;
 import ai.vespa.metricsproxy.http.PrometheusResponse;
 import ai.vespa.metricsproxy.http.TextResponse;
+import ai.vespa.metricsproxy.http.RenderedResponseCache;
 import ai.vespa.metricsproxy.http.ValuesFetcher;
 import ai.vespa.metricsproxy.metric.dimensions.ApplicationDimensions;
 import ai.vespa.metricsproxy.metric.dimensions.NodeDimensions;
@@ -36,6 +37,7 @@ public class PrometheusHandler extends HttpHandlerBase {
     static final String VALUES_PATH = V1_PATH + "/values";
 
     private final ValuesFetcher valuesFetcher;
+    private final RenderedResponseCache responseCache;
     private final NodeMetricGatherer nodeMetricGatherer;
     private final ApplicationDimensions applicationDimensions;
     private final NodeDimensions nodeDimensions;
@@ -49,6 +51,7 @@ public class PrometheusHandler extends HttpHandlerBase {
                              NodeDimensions nodeDimensions) {
         super(executor);
         valuesFetcher = new ValuesFetcher(metricsManager, vespaServices, metricsConsumers);
+        responseCache = new RenderedResponseCache(metricsConsumers);
         this.nodeMetricGatherer = new NodeMetricGatherer(metricsManager, applicationDimensions, nodeDimensions);
         this.applicationDimensions = applicationDimensions;
         this.nodeDimensions = nodeDimensions;
@@ -57,7 +60,7 @@ public class PrometheusHandler extends HttpHandlerBase {
     @Override
     public Optional<HttpResponse> doHandle(URI requestUri, Path apiPath, String consumer) {
         if (apiPath.matches(V1_PATH)) return Optional.of(resourceListResponse(requestUri, List.of(VALUES_PATH)));
-        if (apiPath.matches(VALUES_PATH)) return Optional.of(valuesResponse(consumer));
+        if (apiPath.matches(VALUES_PATH)) return Optional.of(responseCache.get(consumer, consumerId -> valuesResponse(consumerId.id)));
         return Optional.empty();
     }
 
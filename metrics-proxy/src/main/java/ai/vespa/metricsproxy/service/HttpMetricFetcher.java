@@ -24,7 +24,7 @@ public abstract class HttpMetricFetcher {
 
     private final static Logger log = Logger.getLogger(HttpMetricFetcher.class.getName());
     public final static String STATE_PATH = "/state/v1/";
-    // The call to apache will do 3 retries. As long as we check the services in series, we can't have this too high.
+    // The call to apache will do 3 retries. Services are fetched concurrently, but a scrape still waits for the slowest one.
     public static volatile int CONNECTION_TIMEOUT = 5000;
     private final static int SOCKET_TIMEOUT = 60000;
     final static int BUFFER_SIZE = 0x40000; // 256k
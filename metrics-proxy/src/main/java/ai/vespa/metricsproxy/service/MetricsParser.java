@@ -13,11 +13,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static ai.vespa.metricsproxy.metric.model.DimensionId.toDimensionId;
@@ -35,6 +35,11 @@ public class MetricsParser {
 
     private static final ObjectMapper jsonMapper = Jackson.mapper();
 
+    // Dimension sets interned across responses and services, as the same sets recur in every fetch.
+    // Cleared when full rather than evicting, since the sets in use are re-interned on the next fetch.
+    private static final int MAX_INTERNED_DIMENSION_SETS = 10000;
+    private static final Map<Set<Dimension>, Map<DimensionId, String>> uniqueDimensions = new ConcurrentHashMap<>();
+
     public static void parse(String data, Collector consumer) throws IOException {
         try (JsonParser parser = jsonMapper.createParser(data)) {
             parse(parser, consumer);
@@ -113,15 +118,13 @@ public class MetricsParser {
             throw new IOException("Expected start of 'metrics:values' array, got " + parser.currentToken());
         }
 
-        Map<Set<Dimension>, Map<DimensionId, String>> uniqueDimensions = new HashMap<>();
         while (parser.nextToken() == JsonToken.START_OBJECT) {
-            handleValue(parser, timestamp, consumer, uniqueDimensions);
+            handleValue(parser, timestamp, consumer);
         }
     }
 
     // One item in the 'values' array, where each item has 'name', 'values' and 'dimensions'
-    static private void handleValue(JsonParser parser, Instant timestamp, Collector consumer,
-                                    Map<Set<Dimension>, Map<DimensionId, String>> uniqueDimensions) throws IOException {
+    static private void handleValue(JsonParser parser, Instant timestamp, Collector consumer) throws IOException {
         String name = "";
         String description = "";
         Map<DimensionId, String> dim = Map.of();
@@ -132,7 +135,7 @@ public class MetricsParser {
             switch (fieldName) {
                 case "name" -> name = parser.getText();
                 case "description" -> description = parser.getText();
-                case "dimensions" -> dim = parseDimensions(parser, uniqueDimensions);
+                case "dimensions" -> dim = parseDimensions(parser);
                 case "values" -> values = parseValues(parser);
                 default -> {
                     if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
@@ -149,8 +152,7 @@ public class MetricsParser {
         }
     }
 
-    private static Map<DimensionId, String> parseDimensions(JsonParser parser,
-                                                            Map<Set<Dimension>, Map<DimensionId, String>> uniqueDimensions) throws IOException {
+    private static Map<DimensionId, String> parseDimensions(JsonParser parser) throws IOException {
 
         Set<Dimension> dimensions = new HashSet<>();
 
@@ -167,6 +169,16 @@ public class MetricsParser {
                 throw new IllegalArgumentException("Dimension '" + fieldName + "' must be a string");
             }
         }
+        return internDimensions(dimensions);
+    }
+
+    private static Map<DimensionId, String> internDimensions(Set<Dimension> dimensions) {
+        Map<DimensionId, String> interned = uniqueDimensions.get(dimensions);
+        if (interned != null) return interned;
+
+        if (uniqueDimensions.size() >= MAX_INTERNED_DIMENSION_SETS) {
+            uniqueDimensions.clear();
+        }
         return uniqueDimensions.computeIfAbsent(dimensions,
                                                 key -> dimensions.stream().collect(Collectors.toUnmodifiableMap(
                                                         dim -> toDimensionId(dim.id), dim -> dim.value)));
@@ -0,0 +1,76 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.metricsproxy.http;
+
+import ai.vespa.metricsproxy.core.ConsumersConfig;
+import ai.vespa.metricsproxy.core.MetricsConsumers;
+import com.yahoo.container.jdisc.HttpResponse;
+import com.yahoo.test.ManualClock;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.yahoo.jdisc.Response.Status.INTERNAL_SERVER_ERROR;
+import static com.yahoo.jdisc.Response.Status.OK;
+import static org.junit.Assert.assertEquals;
+
+public class RenderedResponseCacheTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final MetricsConsumers consumers = new MetricsConsumers(new ConsumersConfig.Builder()
+                                                                           .consumer(new ConsumersConfig.Consumer.Builder().name("default"))
+                                                                           .consumer(new ConsumersConfig.Consumer.Builder().name("custom"))
+                                                                           .build());
+    private final RenderedResponseCache cache = new RenderedResponseCache(consumers, Duration.ofSeconds(10), clock);
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private HttpResponse render(int status) {
+        return new TextResponse(status, "render " + renders.incrementAndGet());
+    }
+
+    private static String content(HttpResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.render(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void response_is_reused_until_it_expires() throws IOException {
+        assertEquals("render 1", content(cache.get("default", __ -> render(OK))));
+        clock.advance(Duration.ofSeconds(9));
+        assertEquals("render 1", content(cache.get("default", __ -> render(OK))));
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals("render 2", content(cache.get("default", __ -> render(OK))));
+    }
+
+    @Test
+    public void responses_are_cached_per_consumer() throws IOException {
+        assertEquals("render 1", content(cache.get("default", __ -> render(OK))));
+        assertEquals("render 2", content(cache.get("custom", __ -> render(OK))));
+        assertEquals("render 1", content(cache.get(null, __ -> render(OK))));
+        assertEquals("render 2", content(cache.get("CUSTOM", __ -> render(OK))));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void unknown_consumers_are_not_retained() throws IOException {
+        assertEquals("render 1", content(cache.get("default", __ -> render(OK))));
+        for (int i = 0; i < 100; i++)
+            assertEquals("render 1", content(cache.get("unknown" + i, consumer -> {
+                assertEquals("default", consumer.id);
+                return render(OK);
+            })));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void errors_are_not_cached() throws IOException {
+        HttpResponse error = cache.get("default", __ -> render(INTERNAL_SERVER_ERROR));
+        assertEquals(INTERNAL_SERVER_ERROR, error.getStatus());
+        assertEquals("render 2", content(cache.get("default", __ -> render(OK))));
+    }
+
+}
@@ -9,6 +9,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author gjoranv
@@ -44,6 +45,16 @@ public class MetricsParserTest {
                 collector.metrics.get(1).getDimensions());
     }
 
+    @Test
+    public void equal_dimensions_are_shared_across_responses() throws Exception {
+        var first = new MetricsCollector();
+        var second = new MetricsCollector();
+        MetricsParser.parse(metricsJsonDistinctButDuplicateDimensionDalues(), first);
+        MetricsParser.parse(metricsJsonDistinctButDuplicateDimensionDalues(), second);
+        assertSame(first.metrics.get(0).getDimensions(), second.metrics.get(0).getDimensions());
+        assertSame(first.metrics.get(1).getDimensions(), second.metrics.get(1).getDimensions());
+    }
+
     // The duplicate dimension values for 'cluster' and 'clusterid' exposed a bug in a previously used hashing algo for dimensions.
     private String metricsJsonDistinctButDuplicateDimensionDalues() {
         return """
@@ -20,6 +20,9 @@ public enum ClusterControllerMetrics implements VespaMetrics {
     BUSY_TICK_TIME_MS("cluster-controller.busy-tick-time-ms", Unit.MILLISECOND, "Time busy"),
     IDLE_TICK_TIME_MS("cluster-controller.idle-tick-time-ms", Unit.MILLISECOND, "Time idle"),
     WORK_MS("cluster-controller.work-ms", Unit.MILLISECOND, "Time used for actual work"),
+    TICK_PHASE_LATENCY_MS("cluster-controller.tick-phase-latency-ms", Unit.MILLISECOND, "Time spent in each phase of a controller tick"),
+    TICK_WAIT_TIME_MS("cluster-controller.tick-wait-time-ms", Unit.MILLISECOND, "Time the controller thread slept between two ticks"),
+    TICK_WAIT_TIME_MAX_MS("cluster-controller.tick-wait-time-max-ms", Unit.MILLISECOND, "Time the controller thread was allowed to sleep between two ticks"),
     IS_MASTER("cluster-controller.is-master", Unit.BINARY, "1 if this cluster controller is currently the master, or 0 if not"),
     REMOTE_TASK_QUEUE_SIZE("cluster-controller.remote-task-queue.size", Unit.OPERATION, "Number of remote tasks queued"),
     // TODO(hakonhall): Update this name once persistent "count" metrics has been implemented.
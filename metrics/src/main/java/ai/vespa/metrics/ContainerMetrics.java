@@ -25,6 +25,7 @@ public enum ContainerMetrics implements VespaMetrics {
     JDISC_THREAD_POOL_UNHANDLED_EXCEPTIONS("jdisc.thread_pool.unhandled_exceptions", Unit.THREAD, "Number of exceptions thrown by tasks"),
     JDISC_THREAD_POOL_WORK_QUEUE_CAPACITY("jdisc.thread_pool.work_queue.capacity", Unit.THREAD, "Capacity of the task queue"),
     JDISC_THREAD_POOL_WORK_QUEUE_SIZE("jdisc.thread_pool.work_queue.size", Unit.THREAD, "Size of the task queue"),
+    JDISC_THREAD_POOL_WORK_QUEUE_TIME("jdisc.thread_pool.work_queue.time", Unit.MILLISECOND, "Time tasks spend in the task queue before they are started"),
     JDISC_THREAD_POOL_REJECTED_TASKS("jdisc.thread_pool.rejected_tasks", Unit.THREAD, "Number of tasks rejected by the thread pool"),
     JDISC_THREAD_POOL_SIZE("jdisc.thread_pool.size", Unit.THREAD, "Size of the thread pool"),
     JDISC_THREAD_POOL_MAX_ALLOWED_SIZE("jdisc.thread_pool.max_allowed_size", Unit.THREAD, "The maximum allowed number of threads in the pool"),
@@ -77,6 +78,11 @@ public enum ContainerMetrics implements VespaMetrics {
     JETTY_THREADPOOL_IDLE_THREADS("jdisc.http.jetty.threadpool.thread.idle", Unit.THREAD, "Number of idle threads"),
     JETTY_THREADPOOL_TOTAL_THREADS("jdisc.http.jetty.threadpool.thread.total", Unit.THREAD, "Current number of threads"),
     JETTY_THREADPOOL_QUEUE_SIZE("jdisc.http.jetty.threadpool.queue.size", Unit.THREAD, "Current size of the job queue"),
+    JDISC_HTTP_RESPONSE_BUFFER_POOL_HITS("jdisc.http.response.buffer_pool.hits", Unit.BUFFER, "Number of response buffers reused from the response buffer pool"),
+    JDISC_HTTP_RESPONSE_BUFFER_POOL_MISSES("jdisc.http.response.buffer_pool.misses", Unit.BUFFER, "Number of response buffers allocated because the response buffer pool had none to reuse"),
+    JDISC_HTTP_RESPONSE_BUFFER_POOL_OUTSTANDING_BYTES("jdisc.http.response.buffer_pool.outstanding_bytes", Unit.BYTE, "Bytes in pooled response buffers which are not yet written"),
+    JDISC_HTTP_ACCESS_LOG_QUEUE_SIZE("jdisc.http.access_log.queue.size", Unit.ITEM, "Number of access log entries waiting to be written"),
+    JDISC_HTTP_ACCESS_LOG_DROPPED_ENTRIES("jdisc.http.access_log.dropped_entries", Unit.RECORD, "Number of access log entries dropped because the queue was full"),
     JETTY_HTTP_COMPLIANCE_VIOLATION("jdisc.http.jetty.http_compliance.violation", Unit.FAILURE, "Number of HTTP compliance violations"),
 
     SERVER_NUM_OPEN_CONNECTIONS("serverNumOpenConnections", Unit.CONNECTION, "The number of currently open connections"),
@@ -142,6 +148,9 @@ public enum ContainerMetrics implements VespaMetrics {
     DOCUMENTS_TARGET_TOTAL("documents_target_total", Unit.DOCUMENT, "The target number of total documents to be evaluated when all data is in sync"),
     JDISC_RENDER_LATENCY("jdisc.render.latency", Unit.NANOSECOND, "The time used by the container to render responses"),
     QUERY_ITEM_COUNT("query_item_count", Unit.ITEM, "The number of query items (terms, phrases, etc.)"),
+    QUERY_LINGUISTICS_CACHE_HITS("query.linguistics.cache.hits", Unit.OPERATION, "The number of query term segmenting, stemming and accent removal operations answered from the cache"),
+    QUERY_LINGUISTICS_CACHE_MISSES("query.linguistics.cache.misses", Unit.OPERATION, "The number of query term segmenting, stemming and accent removal operations not answered from the cache"),
+    QUERY_LINGUISTICS_CACHE_SIZE("query.linguistics.cache.size", Unit.ITEM, "The number of query term linguistics results cached"),
     DOCPROC_PROC_TIME("docproc.proctime", Unit.MILLISECOND, "Time spent processing document"),
     DOCPROC_DOCUMENTS("docproc.documents", Unit.DOCUMENT, "Number of processed documents"),
     
@@ -135,6 +135,7 @@ public class Vespa9VespaMetricSet {
         addMetric(metrics, ContainerMetrics.JDISC_THREAD_POOL_UNHANDLED_EXCEPTIONS, EnumSet.of(sum, count));
         addMetric(metrics, ContainerMetrics.JDISC_THREAD_POOL_WORK_QUEUE_CAPACITY, EnumSet.of(max));
         addMetric(metrics, ContainerMetrics.JDISC_THREAD_POOL_WORK_QUEUE_SIZE, EnumSet.of(sum, count, min, max));
+        addMetric(metrics, ContainerMetrics.JDISC_THREAD_POOL_WORK_QUEUE_TIME, EnumSet.of(sum, count, max));
         addMetric(metrics, ContainerMetrics.JDISC_THREAD_POOL_REJECTED_TASKS, EnumSet.of(sum, count));
         addMetric(metrics, ContainerMetrics.JDISC_THREAD_POOL_SIZE.max());
         addMetric(metrics, ContainerMetrics.JDISC_THREAD_POOL_MAX_ALLOWED_SIZE.max());
@@ -240,6 +241,9 @@ public class Vespa9VespaMetricSet {
         addMetric(metrics, ClusterControllerMetrics.IDLE_TICK_TIME_MS, EnumSet.of(max, sum, count));
 
         addMetric(metrics, ClusterControllerMetrics.WORK_MS, EnumSet.of(sum, count));
+        addMetric(metrics, ClusterControllerMetrics.TICK_PHASE_LATENCY_MS, EnumSet.of(max, sum, count));
+        addMetric(metrics, ClusterControllerMetrics.TICK_WAIT_TIME_MS, EnumSet.of(max, sum, count));
+        addMetric(metrics, ClusterControllerMetrics.TICK_WAIT_TIME_MAX_MS, EnumSet.of(max, sum, count));
 
         addMetric(metrics, ClusterControllerMetrics.IS_MASTER.max());
 
@@ -287,6 +291,9 @@ public class Vespa9VespaMetricSet {
         addMetric(metrics, ContainerMetrics.DOCUMENTS_TARGET_TOTAL.count());
         addMetric(metrics, ContainerMetrics.JDISC_RENDER_LATENCY, EnumSet.of(min, max, count, sum));
         addMetric(metrics, ContainerMetrics.QUERY_ITEM_COUNT, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.QUERY_LINGUISTICS_CACHE_HITS.count());
+        addMetric(metrics, ContainerMetrics.QUERY_LINGUISTICS_CACHE_MISSES.count());
+        addMetric(metrics, ContainerMetrics.QUERY_LINGUISTICS_CACHE_SIZE.max());
         addMetric(metrics, ContainerMetrics.TOTAL_HITS_PER_QUERY, EnumSet.of(sum, count, max, ninety_five_percentile, ninety_nine_percentile));
         addMetric(metrics, ContainerMetrics.EMPTY_RESULTS.rate());
         addMetric(metrics, ContainerMetrics.REQUESTS_OVER_QUOTA, EnumSet.of(rate, count));
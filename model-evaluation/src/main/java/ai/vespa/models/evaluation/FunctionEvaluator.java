@@ -7,7 +7,9 @@ import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -38,6 +40,11 @@ public class FunctionEvaluator {
     public FunctionEvaluator bind(String name, Tensor value) {
         if (evaluated)
             throw new IllegalStateException("Cannot bind a new value in a used evaluator");
+        bind(context, name, value);
+        return this;
+    }
+
+    private void bind(LazyArrayContext context, String name, Tensor value) {
         TensorType requiredType = function.getArgumentType(name);
         if (requiredType == null)
             throw new IllegalArgumentException("'" + name + "' is not a valid argument in " + function +
@@ -48,7 +55,6 @@ public class FunctionEvaluator {
         if ( ! value.type().isAssignableTo(requiredType))
             throw new IllegalArgumentException("'" + name + "' must be of type " + requiredType + ", not " + value.type());
         context.put(name, new TensorValue(value));
-        return this;
     }
 
     /**
@@ -102,14 +108,49 @@ public class FunctionEvaluator {
     }
 
     public Tensor evaluate() {
-        function.argumentTypes().entrySet().stream().sorted(Map.Entry.comparingByKey())
-                .forEach(argument -> checkArgument(argument.getKey(), argument.getValue()));
+        checkArguments(context);
         evaluated = true;
-        evaluateOnnxModels();
+        evaluateOnnxModels(List.of(context));
         return function.getBody().evaluate(context).asTensor();
     }
 
-    private void checkArgument(String name, TensorType type) {
+    /**
+     * Evaluates this function once for each of the given argument bindings, and returns the results in the same order.
+     * Values bound in this evaluator, and its missing value, are used by all the evaluations.
+     * This is faster than evaluating each binding with a separate evaluator, as each ONNX model used by this function,
+     * also through the functions it references, is evaluated with all the bindings as a single batch, where the model
+     * has a batch dimension. A model is evaluated for the batch when it is first needed by any of the evaluations,
+     * so models which are not needed by any, such as in branches which are not taken, are not evaluated.
+     *
+     * @param bindings the argument values of each evaluation
+     * @return the result of each evaluation
+     */
+    public List<Tensor> evaluate(List<Map<String, Tensor>> bindings) {
+        if (evaluated)
+            throw new IllegalStateException("Cannot evaluate a used evaluator again");
+        List<LazyArrayContext> contexts = new ArrayList<>(bindings.size());
+        for (Map<String, Tensor> binding : bindings) {
+            LazyArrayContext itemContext = context.copy();
+            binding.forEach((name, value) -> bind(itemContext, name, value));
+            checkArguments(itemContext);
+            contexts.add(itemContext);
+        }
+        evaluated = true;
+        evaluateOnnxModels(contexts);
+        if (contexts.size() > 1)
+            contexts.forEach(itemContext -> itemContext.setBatch(contexts));
+        List<Tensor> results = new ArrayList<>(contexts.size());
+        for (LazyArrayContext itemContext : contexts)
+            results.add(function.getBody().evaluate(itemContext).asTensor());
+        return results;
+    }
+
+    private void checkArguments(LazyArrayContext context) {
+        function.argumentTypes().entrySet().stream().sorted(Map.Entry.comparingByKey())
+                .forEach(argument -> checkArgument(context, argument.getKey(), argument.getValue()));
+    }
+
+    private void checkArgument(LazyArrayContext context, String name, TensorType type) {
         if (context.isMissing(name))
             throw new IllegalStateException("Missing argument '" + name + "': Must be bound to a value of type " + type);
         if (! context.get(name).type().isAssignableTo(type))
@@ -117,9 +158,9 @@ public class FunctionEvaluator {
     }
 
     /**
-     * Evaluate ONNX models (if not already evaluated) and add the result back to the context.
+     * Evaluate ONNX models (if not already evaluated) and add the result back to the contexts.
      */
-    private void evaluateOnnxModels() {
+    private void evaluateOnnxModels(List<LazyArrayContext> contexts) {
         for (Map.Entry<String, OnnxModel> entry : context().onnxModels().entrySet()) {
             String onnxFeature = entry.getKey();
             String outputName = function.getName(); // Function name is output of model (sometimes)
@@ -129,14 +170,21 @@ public class FunctionEvaluator {
                 outputName = onnxFeature.substring(idx+2);
             }
             OnnxModel onnxModel = entry.getValue();
-            if (context.get(onnxFeature).equals(context.defaultValue())) {
-                Map<String, Tensor> inputs = new HashMap<>();
+            List<LazyArrayContext> unevaluated = new ArrayList<>();
+            List<Map<String, Tensor>> inputs = new ArrayList<>();
+            for (LazyArrayContext context : contexts) {
+                if ( ! context.get(onnxFeature).equals(context.defaultValue())) continue;
+                Map<String, Tensor> contextInputs = new HashMap<>();
                 for (Map.Entry<String, TensorType> input: onnxModel.inputs().entrySet()) {
-                    inputs.put(input.getKey(), context.get(input.getKey()).asTensor());
+                    contextInputs.put(input.getKey(), context.get(input.getKey()).asTensor());
                 }
-                Tensor result = onnxModel.evaluate(inputs, outputName);
-                context.put(onnxFeature, new TensorValue(result));
+                unevaluated.add(context);
+                inputs.add(contextInputs);
             }
+            if (unevaluated.isEmpty()) continue;
+            List<Tensor> results = onnxModel.evaluate(inputs, outputName);
+            for (int i = 0; i < unevaluated.size(); i++)
+                unevaluated.get(i).put(onnxFeature, new TensorValue(results.get(i)));
         }
     }
 
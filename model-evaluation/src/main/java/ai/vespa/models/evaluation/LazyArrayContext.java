@@ -20,6 +20,7 @@ import static com.yahoo.searchlib.rankingexpression.Reference.RANKING_EXPRESSION
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +38,12 @@ public final class LazyArrayContext extends Context implements ContextIndex {
     private final ExpressionFunction function;
     private final IndexedBindings indexedBindings;
 
+    /** Outputs of ONNX models which are already evaluated for this context, as part of a batch */
+    private Map<OnnxExpressionNode, Value> onnxOutputs = Map.of();
+
+    /** The contexts evaluated together with this, including this, or empty if this is not part of a batch */
+    private List<LazyArrayContext> batch = List.of();
+
     private LazyArrayContext(ExpressionFunction function, IndexedBindings indexedBindings) {
         this.function = function;
         this.indexedBindings = indexedBindings.copy(this);
@@ -147,6 +154,25 @@ public final class LazyArrayContext extends Context implements ContextIndex {
         return indexedBindings.missingValue;
     }
 
+    void putOnnxOutput(OnnxExpressionNode node, Value output) {
+        if (onnxOutputs.isEmpty())
+            onnxOutputs = new IdentityHashMap<>();
+        onnxOutputs.put(node, output.freeze());
+    }
+
+    /** Returns the output of the given node if it is already evaluated for this context, or null if not */
+    Value getOnnxOutput(OnnxExpressionNode node) {
+        return onnxOutputs.get(node);
+    }
+
+    /** Sets the contexts, including this, whose ONNX models are evaluated as a batch when first evaluated in any of them */
+    void setBatch(List<LazyArrayContext> batch) {
+        this.batch = batch;
+    }
+
+    /** Returns the contexts evaluated as a batch with this, including this, or empty if this is not part of a batch */
+    List<LazyArrayContext> batch() { return batch; }
+
     /**
      * Creates a copy of this context suitable for evaluating against the same ranking expression
      * in a different thread or for re-binding free variables.
@@ -250,7 +276,9 @@ public final class LazyArrayContext extends Context implements ContextIndex {
             Value[] valueCopy = new Value[values.length];
             for (int i = 0; i < values.length; i++)
                 valueCopy[i] = values[i] instanceof LazyValue ? ((LazyValue) values[i]).copyFor(context) : values[i];
-            return new IndexedBindings(nameToIndex, valueCopy, arguments, onnxModels);
+            IndexedBindings copy = new IndexedBindings(nameToIndex, valueCopy, arguments, onnxModels);
+            copy.missingValue = missingValue;
+            return copy;
         }
 
     }
@@ -5,6 +5,7 @@ import com.yahoo.api.annotations.Beta;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
 import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
 import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.compilation.ExpressionCompiler;
 import com.yahoo.stream.CustomCollectors;
 import com.yahoo.tensor.TensorType;
 
@@ -127,6 +128,7 @@ public class Model implements AutoCloseable {
           List<Constant> constants,
           List<OnnxModel> onnxModels) {
         this.name = name;
+        expressionOptimizer.getOptimizer(ExpressionCompiler.class).setEnabled(true);
 
         var bindingExtractor = new BindingExtractor(referencedFunctions, onnxModels);
 
@@ -185,9 +187,11 @@ public class Model implements AutoCloseable {
 
     /** Returns an optimized version of the given function */
     private ExpressionFunction optimize(ExpressionFunction function, ContextIndex context) {
-        // Note: Optimization is in-place but we do not depend on that outside this method
-        expressionOptimizer.optimize(function.getBody(), context);
-        return function;
+        // Optimize a copy, as the optimized expression binds to the indexes of this function's context,
+        // while the body is also evaluated in the contexts of functions referencing it
+        RankingExpression body = new RankingExpression(function.getBody().getName(), function.getBody().getRoot());
+        expressionOptimizer.optimize(body, context);
+        return function.withBody(body);
     }
 
     public String name() { return name; }
@@ -75,14 +75,37 @@ class OnnxExpressionNode extends CompositeNode {
         return this;
     }
 
+    /**
+     * Evaluates the model in the given context. If the context is part of a batch, this is first evaluated
+     * for all the contexts of the batch at once, and the output stored in each of them.
+     */
     @Override
     public Value evaluate(Context context) {
+        if (context instanceof LazyArrayContext lazyContext && ! lazyContext.batch().isEmpty()) {
+            Value output = lazyContext.getOnnxOutput(this);
+            if (output != null) return output;
+            evaluate(lazyContext.batch());
+            return lazyContext.getOnnxOutput(this);
+        }
+        return new TensorValue(model.unmappedEvaluate(inputs(context), onnxOutputName));
+    }
+
+    private void evaluate(List<LazyArrayContext> contexts) {
+        List<Map<String, Tensor>> inputs = new ArrayList<>(contexts.size());
+        for (LazyArrayContext context : contexts)
+            inputs.add(inputs(context));
+        List<Tensor> outputs = model.unmappedEvaluate(inputs, onnxOutputName);
+        for (int i = 0; i < contexts.size(); i++)
+            contexts.get(i).putOnnxOutput(this, new TensorValue(outputs.get(i)));
+    }
+
+    private Map<String, Tensor> inputs(Context context) {
         Map<String, Tensor> inputs = new HashMap<>();
         for (int i = 0; i < modelInputs.size(); i++) {
             Value inputValue = inputRefs.get(i).evaluate(context);
             inputs.put(modelInputs.get(i), inputValue.asTensor());
         }
-        return new TensorValue(model.unmappedEvaluate(inputs, onnxOutputName));
+        return inputs;
     }
 
     @Override
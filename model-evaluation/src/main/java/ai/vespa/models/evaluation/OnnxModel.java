@@ -5,12 +5,17 @@ import ai.vespa.modelintegration.evaluator.OnnxEvaluator;
 import ai.vespa.modelintegration.evaluator.OnnxEvaluatorOptions;
 import ai.vespa.modelintegration.evaluator.OnnxRuntime;
 import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -174,6 +179,21 @@ class OnnxModel implements AutoCloseable {
     }
 
     public Tensor evaluate(Map<String, Tensor> inputs, String output) {
+        return unmappedEvaluate(mapInputs(inputs), onnxOutputName(output));
+    }
+
+    /**
+     * Evaluates this model for each of the given inputs, in a single evaluation of the
+     * ONNX model where possible. See {@link #unmappedEvaluate(List, String)}.
+     */
+    public List<Tensor> evaluate(List<Map<String, Tensor>> inputs, String output) {
+        List<Map<String, Tensor>> mapped = new ArrayList<>(inputs.size());
+        for (var itemInputs : inputs)
+            mapped.add(mapInputs(itemInputs));
+        return unmappedEvaluate(mapped, onnxOutputName(output));
+    }
+
+    private Map<String, Tensor> mapInputs(Map<String, Tensor> inputs) {
         var mapped = new HashMap<String, Tensor>();
         for (var spec : inputSpecs) {
             Tensor val = inputs.get(spec.source);
@@ -182,6 +202,10 @@ class OnnxModel implements AutoCloseable {
             }
             mapped.put(spec.onnxName, val);
         }
+        return mapped;
+    }
+
+    private String onnxOutputName(String output) {
         String onnxName = null;
         for (var spec : outputSpecs) {
             if (spec.outputAs.equals(output)) {
@@ -191,13 +215,123 @@ class OnnxModel implements AutoCloseable {
         if (onnxName == null) {
             throw new IllegalArgumentException("evaluate ONNX model " + name() + ": no output available as: " + output);
         }
-        return unmappedEvaluate(mapped, onnxName);
+        return onnxName;
     }
 
     Tensor unmappedEvaluate(Map<String, Tensor> inputs, String onnxOutputName) {
         return evaluator().evaluate(inputs, onnxOutputName);
     }
 
+    /**
+     * Evaluates this model for each of the given inputs and returns the outputs in the same order.
+     * When the first dimension of all the inputs and of the output is an unbound batch dimension,
+     * and the inputs only differ in the size of that dimension, the inputs are concatenated along it
+     * and the model is evaluated once for all of them. Otherwise, the model is evaluated once per input.
+     */
+    List<Tensor> unmappedEvaluate(List<Map<String, Tensor>> inputs, String onnxOutputName) {
+        if (inputs.size() > 1 && canBatch(inputs, onnxOutputName)) {
+            int[] batchSizes = new int[inputs.size()];
+            for (int i = 0; i < inputs.size(); i++)
+                batchSizes[i] = (int)((IndexedTensor)inputs.get(i).values().iterator().next()).dimensionSizes().size(0);
+            var batchInputs = new HashMap<String, Tensor>();
+            for (var spec : inputSpecs)
+                batchInputs.put(spec.onnxName, concatenate(inputs, spec.onnxName, batchSizes));
+            Tensor batchOutput = unmappedEvaluate(batchInputs, onnxOutputName);
+            if (batchOutput instanceof IndexedTensor indexedOutput && batchOutput.type().rank() > 0 &&
+                indexedOutput.dimensionSizes().size(0) == Arrays.stream(batchSizes).sum())
+                return split(indexedOutput, batchSizes);
+        }
+        List<Tensor> outputs = new ArrayList<>(inputs.size());
+        for (var itemInputs : inputs)
+            outputs.add(unmappedEvaluate(itemInputs, onnxOutputName));
+        return outputs;
+    }
+
+    private boolean canBatch(List<Map<String, Tensor>> inputs, String onnxOutputName) {
+        if (inputSpecs.isEmpty()) return false;
+        for (var spec : outputSpecs)
+            if (spec.onnxName.equals(onnxOutputName) && ! hasBatchDimension(spec.expectedType)) return false;
+        for (var spec : inputSpecs)
+            if ( ! hasBatchDimension(spec.wantedType)) return false;
+        for (var itemInputs : inputs) {
+            long batchSize = -1;
+            for (var spec : inputSpecs) {
+                if ( ! (itemInputs.get(spec.onnxName) instanceof IndexedTensor input)) return false;
+                IndexedTensor first = (IndexedTensor)inputs.get(0).get(spec.onnxName);
+                if (input.type().valueType() != first.type().valueType()) return false;
+                DimensionSizes sizes = input.dimensionSizes();
+                DimensionSizes firstSizes = first.dimensionSizes();
+                if (sizes.dimensions() != spec.wantedType.rank()) return false;
+                for (int i = 1; i < sizes.dimensions(); i++)
+                    if (sizes.size(i) != firstSizes.size(i)) return false;
+                if (batchSize >= 0 && sizes.size(0) != batchSize) return false;
+                batchSize = sizes.size(0);
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasBatchDimension(TensorType type) {
+        return type != null && type.rank() > 0 &&
+               type.dimensions().get(0).type() == TensorType.Dimension.Type.indexedUnbound;
+    }
+
+    /** Returns the tensors of the given input concatenated along the first dimension */
+    private static Tensor concatenate(List<Map<String, Tensor>> inputs, String name, int[] batchSizes) {
+        IndexedTensor first = (IndexedTensor)inputs.get(0).get(name);
+        Tensor.Builder builder = Tensor.Builder.of(batchType(first, Arrays.stream(batchSizes).sum()));
+        long offset = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            for (Iterator<Tensor.Cell> cells = inputs.get(i).get(name).cellIterator(); cells.hasNext(); ) {
+                Tensor.Cell cell = cells.next();
+                long[] labels = labelsOf(cell.getKey());
+                labels[0] += offset;
+                builder.cell(cell.getValue(), labels);
+            }
+            offset += batchSizes[i];
+        }
+        return builder.build();
+    }
+
+    /** Splits the given output along the first dimension into tensors of the given sizes */
+    private static List<Tensor> split(IndexedTensor output, int[] batchSizes) {
+        Tensor.Builder[] builders = new Tensor.Builder[batchSizes.length];
+        int[] itemOf = new int[Arrays.stream(batchSizes).sum()];
+        int[] offsetOf = new int[batchSizes.length];
+        for (int i = 0, offset = 0; i < batchSizes.length; offset += batchSizes[i++]) {
+            builders[i] = Tensor.Builder.of(batchType(output, batchSizes[i]));
+            offsetOf[i] = offset;
+            Arrays.fill(itemOf, offset, offset + batchSizes[i], i);
+        }
+        for (Iterator<Tensor.Cell> cells = output.cellIterator(); cells.hasNext(); ) {
+            Tensor.Cell cell = cells.next();
+            long[] labels = labelsOf(cell.getKey());
+            int item = itemOf[(int)labels[0]];
+            labels[0] -= offsetOf[item];
+            builders[item].cell(cell.getValue(), labels);
+        }
+        List<Tensor> outputs = new ArrayList<>(builders.length);
+        for (Tensor.Builder builder : builders)
+            outputs.add(builder.build());
+        return outputs;
+    }
+
+    private static long[] labelsOf(TensorAddress address) {
+        long[] labels = new long[address.size()];
+        for (int i = 0; i < labels.length; i++)
+            labels[i] = address.numericLabel(i);
+        return labels;
+    }
+
+    /** Returns the type of the given tensor with the given size of the first dimension and the actual size of the others */
+    private static TensorType batchType(IndexedTensor tensor, long batchSize) {
+        TensorType.Builder builder = new TensorType.Builder(tensor.type().valueType());
+        DimensionSizes sizes = tensor.dimensionSizes();
+        for (int i = 0; i < sizes.dimensions(); i++)
+            builder.indexed(tensor.type().dimensions().get(i).name(), i == 0 ? batchSize : sizes.size(i));
+        return builder.build();
+    }
+
     private OnnxEvaluator evaluator() {
         if (evaluator == null) {
             throw new IllegalStateException("ONNX model has not been loaded.");
@@ -10,24 +10,35 @@ import com.yahoo.container.jdisc.HttpRequest;
 import com.yahoo.container.jdisc.HttpResponse;
 import com.yahoo.container.jdisc.ThreadedHttpRequestHandler;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.slime.ArrayTraverser;
 import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Inspector;
+import com.yahoo.slime.JsonParseException;
+import com.yahoo.slime.ObjectTraverser;
 import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
+import com.yahoo.slime.Type;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.serialization.JsonFormat;
+import com.yahoo.text.JSON;
 import com.yahoo.yolean.Exceptions;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Executor;
 
 public class ModelsEvaluationHandler extends ThreadedHttpRequestHandler {
@@ -39,6 +50,8 @@ public class ModelsEvaluationHandler extends ThreadedHttpRequestHandler {
     public static final String VERSION_V1 = "v1";
     public static final String EVALUATE = "eval";
 
+    private static final Set<String> formats = Set.of("short", "long", "short-value", "long-value", "string", "string-long ");
+
     private final ModelsEvaluator modelsEvaluator;
 
     @Inject
@@ -102,15 +115,97 @@ public class ModelsEvaluationHandler extends ThreadedHttpRequestHandler {
                 }
             }
         }
-        Tensor result = evaluator.evaluate();
-        return switch (property(request, "format.tensors").orElse("short").toLowerCase()) {
-            case "short"        -> new Response(200, JsonFormat.encode(result, true,  false));
-            case "long"         -> new Response(200, JsonFormat.encode(result, false, false));
-            case "short-value"  -> new Response(200, JsonFormat.encode(result, true,  true));
-            case "long-value"   -> new Response(200, JsonFormat.encode(result, false, true));
-            case "string"       -> new Response(200, result.toString(true, true).getBytes(StandardCharsets.UTF_8));
-            case "string-long " -> new Response(200, result.toString(true, false ).getBytes(StandardCharsets.UTF_8));
-            default             -> new ErrorResponse(400, "Unknown tensor format '" + property(request, "format.tensors") + "'");
+        String format = property(request, "format.tensors").orElse("short").toLowerCase();
+        if ( ! formats.contains(format))
+            return new ErrorResponse(400, "Unknown tensor format '" + property(request, "format.tensors") + "'");
+
+        Optional<Inspector> batch;
+        try {
+            batch = batchInputs(request);
+        } catch (JsonParseException e) {
+            return new ErrorResponse(400, "Invalid batch inputs: " + Exceptions.toMessageString(e));
+        }
+        if (batch.isPresent())
+            return evaluateBatch(evaluator, batch.get(), format);
+        return new Response(200, encode(evaluator.evaluate(), format));
+    }
+
+    /**
+     * Evaluates the function for each of the argument bindings in a request body on the form
+     * {"inputs":[{"argument1":tensor, ...}, ...]}, where each tensor is given in the JSON tensor format
+     * (where dense values may be hex encoded), or as a tensor literal string.
+     * Arguments bound by request properties are used by all the evaluations, and unknown arguments are ignored.
+     */
+    private HttpResponse evaluateBatch(FunctionEvaluator evaluator, Inspector batch, String format) {
+        Inspector inputs = batch.field("inputs");
+        if (inputs.type() != Type.ARRAY)
+            return new ErrorResponse(400, "A batch evaluation request must contain an 'inputs' array");
+        List<Map<String, Tensor>> bindings = new ArrayList<>(inputs.entries());
+        List<Tensor> results;
+        try {
+            inputs.traverse((ArrayTraverser) (index, input) -> {
+                Map<String, Tensor> binding = new HashMap<>();
+                input.traverse((ObjectTraverser) (name, value) -> {
+                    TensorType type = evaluator.function().getArgumentType(name);
+                    if (type != null)
+                        binding.put(name, decode(type, value));
+                });
+                bindings.add(binding);
+            });
+            results = evaluator.evaluate(bindings);
+        } catch (IllegalArgumentException e) { // On inputs which are not valid values of their argument types
+            return new ErrorResponse(400, "Invalid batch inputs: " + Exceptions.toMessageString(e));
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.writeBytes("{\"results\":[".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < results.size(); i++) {
+            if (i > 0)
+                output.write(',');
+            byte[] result = encode(results.get(i), format);
+            if (format.startsWith("string"))
+                result = ("\"" + JSON.escape(new String(result, StandardCharsets.UTF_8)) + "\"").getBytes(StandardCharsets.UTF_8);
+            output.writeBytes(result);
+        }
+        output.writeBytes("]}".getBytes(StandardCharsets.UTF_8));
+        return new Response(200, output.toByteArray());
+    }
+
+    private static Tensor decode(TensorType type, Inspector value) {
+        if (value.type() == Type.STRING) // a literal which may specify its own, assignable type
+            return value.asString().startsWith("tensor") ? Tensor.from(value.asString()) : Tensor.from(type, value.asString());
+        try {
+            if (value.field("type").valid()) // as above
+                type = TensorType.fromSpec(value.field("type").asString());
+            return JsonFormat.decode(type, SlimeUtils.toJsonBytes(value));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Returns the request body if it contains batch inputs, and empty if it does not */
+    private static Optional<Inspector> batchInputs(HttpRequest request) {
+        if (request.getMethod() != com.yahoo.jdisc.http.HttpRequest.Method.POST || request.getData() == null)
+            return Optional.empty();
+        try {
+            byte[] data = request.getData().readAllBytes();
+            if (data.length == 0)
+                return Optional.empty();
+            return Optional.of(SlimeUtils.jsonToSlimeOrThrow(data).get());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encode(Tensor result, String format) {
+        return switch (format) {
+            case "short"        -> JsonFormat.encode(result, true,  false);
+            case "long"         -> JsonFormat.encode(result, false, false);
+            case "short-value"  -> JsonFormat.encode(result, true,  true);
+            case "long-value"   -> JsonFormat.encode(result, false, true);
+            case "string"       -> result.toString(true, true).getBytes(StandardCharsets.UTF_8);
+            case "string-long " -> result.toString(true, false ).getBytes(StandardCharsets.UTF_8);
+            default             -> throw new IllegalArgumentException("Unknown tensor format '" + format + "'");
         };
     }
 
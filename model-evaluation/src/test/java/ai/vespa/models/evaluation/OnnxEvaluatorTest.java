@@ -1,11 +1,14 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.models.evaluation;
 
+import ai.vespa.modelintegration.evaluator.OnnxEvaluator;
+import ai.vespa.modelintegration.evaluator.OnnxEvaluatorOptions;
 import ai.vespa.modelintegration.evaluator.OnnxRuntime;
 import com.yahoo.config.subscription.ConfigGetter;
 import com.yahoo.filedistribution.fileacquirer.FileAcquirer;
 import com.yahoo.filedistribution.fileacquirer.MockFileAcquirer;
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
 import com.yahoo.vespa.config.search.RankProfilesConfig;
 import com.yahoo.vespa.config.search.core.OnnxModelsConfig;
 import com.yahoo.vespa.config.search.core.RankingConstantsConfig;
@@ -14,6 +17,7 @@ import org.junit.Test;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
@@ -51,9 +55,57 @@ public class OnnxEvaluatorTest {
         assertEquals(function.evaluate(), Tensor.from("tensor<float>(d0[2],d1[1]):[0.63931,0.67574]"));
     }
 
-    @SuppressWarnings("deprecation")
+    @Test
+    public void testOnnxBatchEvaluation() {
+        assumeTrue(OnnxRuntime.isRuntimeAvailable());
+        ModelsEvaluator models = createModels();
+
+        // Batched as a single evaluation along the d0 dimension
+        List<Map<String, Tensor>> inputs = List.of(Map.of("input", Tensor.from("tensor<float>(d0[2],d1[3]):[[0.1, 0.2, 0.3],[0.4,0.5,0.6]]")),
+                                                   Map.of("input", Tensor.from("tensor<float>(d0[1],d1[3]):[[0.4, 0.5, 0.6]]")),
+                                                   Map.of("input", Tensor.from("tensor<float>(d0[2],d1[3]):[[0.4, 0.5, 0.6],[0.1,0.2,0.3]]")));
+        List<Tensor> results = models.evaluatorOf("one_layer").evaluate(inputs);
+        assertEquals(3, results.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            FunctionEvaluator function = models.evaluatorOf("one_layer");
+            function.bind("input", inputs.get(i).get("input"));
+            assertEquals(function.evaluate(), results.get(i));
+        }
+        assertEquals(Tensor.from("tensor<float>(d0[1],d1[1]):[0.67574]"), results.get(1));
+
+        // No batch dimension: Evaluated once per input
+        results = models.evaluatorOf("add_mul", "output1")
+                        .bind("input2", Tensor.from("tensor<float>(d0[1]):[3]"))
+                        .evaluate(List.of(Map.of("input1", Tensor.from("tensor<float>(d0[1]):[2]")),
+                                          Map.of("input1", Tensor.from("tensor<float>(d0[1]):[4]"))));
+        assertEquals(6.0, results.get(0).sum().asDouble(), delta);
+        assertEquals(12.0, results.get(1).sum().asDouble(), delta);
+    }
+
+    @Test
+    public void testOnnxBatchEvaluationIsLazy() {
+        assumeTrue(OnnxRuntime.isRuntimeAvailable());
+        EvaluationCountingRuntime onnx = new EvaluationCountingRuntime();
+        ModelsEvaluator models = createModels("rank-profiles-conditional.cfg", onnx);
+
+        // one_layer is used through a referenced function and add_mul in a branch which is not taken
+        List<Map<String, Tensor>> inputs = List.of(Map.of("input", Tensor.from("tensor<float>(d0[2],d1[3]):[[0.1, 0.2, 0.3],[0.4,0.5,0.6]]")),
+                                                   Map.of("input", Tensor.from("tensor<float>(d0[1],d1[3]):[[0.4, 0.5, 0.6]]")));
+        List<Tensor> results = models.evaluatorOf("conditional", "output")
+                                     .bind("input1", Tensor.from("tensor<float>(d0[1]):[2]"))
+                                     .bind("input2", Tensor.from("tensor<float>(d0[1]):[3]"))
+                                     .evaluate(inputs);
+        assertEquals(0.67574, results.get(1).asDouble(), 0.00001);
+        assertEquals(Map.of("one_layer.onnx", 1), onnx.evaluations);
+    }
+
     private ModelsEvaluator createModels() {
-        RankProfilesConfig config = ConfigGetter.getConfig(RankProfilesConfig.class, fileConfigId("rank-profiles.cfg"));
+        return createModels("rank-profiles.cfg", OnnxRuntime.testInstance());
+    }
+
+    @SuppressWarnings("deprecation")
+    private ModelsEvaluator createModels(String rankProfilesFile, OnnxRuntime onnx) {
+        RankProfilesConfig config = ConfigGetter.getConfig(RankProfilesConfig.class, fileConfigId(rankProfilesFile));
         RankingConstantsConfig constantsConfig = ConfigGetter.getConfig(RankingConstantsConfig.class, fileConfigId("ranking-constants.cfg"));
         RankingExpressionsConfig expressionsConfig = ConfigGetter.getConfig(RankingExpressionsConfig.class, fileConfigId("ranking-expressions.cfg"));
         OnnxModelsConfig onnxModelsConfig = ConfigGetter.getConfig(OnnxModelsConfig.class, fileConfigId("onnx-models.cfg"));
@@ -64,11 +116,40 @@ public class OnnxEvaluatorTest {
         }
         FileAcquirer fileAcquirer = MockFileAcquirer.returnFiles(fileMap);
 
-        return new ModelsEvaluator(config, constantsConfig, expressionsConfig, onnxModelsConfig, fileAcquirer);
+        return new ModelsEvaluator(config, constantsConfig, expressionsConfig, onnxModelsConfig, fileAcquirer, onnx);
     }
 
     private static String fileConfigId(String filename) {
         return "file:" + CONFIG_DIR + filename;
     }
 
+    /** Counts the evaluations of each model, by file name */
+    private static class EvaluationCountingRuntime implements OnnxRuntime {
+
+        final Map<String, Integer> evaluations = new HashMap<>();
+        private final OnnxRuntime runtime = OnnxRuntime.testInstance();
+
+        @Override
+        public OnnxEvaluator evaluatorOf(String modelPath, OnnxEvaluatorOptions options) {
+            OnnxEvaluator evaluator = runtime.evaluatorOf(modelPath, options);
+            String model = new File(modelPath).getName();
+            return new OnnxEvaluator() {
+                @Override public Tensor evaluate(Map<String, Tensor> inputs, String output) {
+                    evaluations.merge(model, 1, Integer::sum);
+                    return evaluator.evaluate(inputs, output);
+                }
+                @Override public Map<String, Tensor> evaluate(Map<String, Tensor> inputs) {
+                    evaluations.merge(model, 1, Integer::sum);
+                    return evaluator.evaluate(inputs);
+                }
+                @Override public Map<String, IdAndType> getInputs() { return evaluator.getInputs(); }
+                @Override public Map<String, IdAndType> getOutputs() { return evaluator.getOutputs(); }
+                @Override public Map<String, TensorType> getInputInfo() { return evaluator.getInputInfo(); }
+                @Override public Map<String, TensorType> getOutputInfo() { return evaluator.getOutputInfo(); }
+                @Override public void close() { evaluator.close(); }
+            };
+        }
+
+    }
+
 }
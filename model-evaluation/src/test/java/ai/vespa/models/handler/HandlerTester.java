@@ -8,6 +8,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.serialization.JsonFormat;
 import com.yahoo.text.JSON;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -104,6 +105,13 @@ class HandlerTester {
         checkResponse(postRequest, expectedCode, check);
     }
 
+    void assertPostResponse(String url, Map<String, String> properties, String data, int expectedCode, String expectedResult) {
+        HttpRequest postRequest = HttpRequest.createTestRequest(url, com.yahoo.jdisc.http.HttpRequest.Method.POST,
+                                                                new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)),
+                                                                properties);
+        checkResponse(postRequest, expectedCode, matchJsonString(expectedResult));
+    }
+
     void assertResponse(String url, Map<String, String> properties, int expectedCode, Tensor expectedResult) {
         HttpRequest getRequest = HttpRequest.createTestRequest(url, com.yahoo.jdisc.http.HttpRequest.Method.GET, null, properties);
         assertResponse(getRequest, expectedCode, expectedResult);
@@ -111,6 +111,41 @@ public class ModelsEvaluationHandlerTest {
         handler.assertResponse(url, properties, 200, expected);
     }
 
+    @Test
+    public void testXgBoostBatchEvaluation() {
+        String url = "http://localhost/model-evaluation/v1/xgboost_2_2/eval";
+        String inputs = "{\"inputs\":[{\"f29\":\"-1.0\",\"f56\":\"0.2\",\"f60\":{\"type\":\"tensor()\",\"values\":[0.3]},\"f109\":\"0.4\"},{}]}";
+        String expected = "{\"results\":[{\"type\":\"tensor()\",\"values\":[-7.936679999999999]}," +
+                                         "{\"type\":\"tensor()\",\"values\":[-4.376589999999999]}]}";
+        handler.assertPostResponse(url, Map.of(), inputs, 200, expected);
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put("missing-value", "-1.0");
+        properties.put("f56", "0.2");
+        properties.put("f60", "0.3");
+        properties.put("f109", "0.4");
+        properties.put("format.tensors", "string");
+        inputs = "{\"inputs\":[{},{\"f29\":\"-1.0\"}]}";
+        expected = "{\"results\":[\"tensor():{-7.936679999999999}\",\"tensor():{-7.936679999999999}\"]}";
+        handler.assertPostResponse(url, properties, inputs, 200, expected);
+
+        // Unknown arguments are ignored, as when bound by request properties
+        inputs = "{\"inputs\":[{\"non-existing-binding\":\"-1\"}]}";
+        expected = "{\"results\":[\"tensor():{-7.936679999999999}\"]}";
+        handler.assertPostResponse(url, properties, inputs, 200, expected);
+    }
+
+    @Test
+    public void testBatchEvaluationWithInvalidInputs() {
+        String url = "http://localhost/model-evaluation/v1/xgboost_2_2/eval";
+        handler.assertPostResponse(url, Map.of(), "{\"input\":[]}", 400,
+                                   "{\"error\":\"A batch evaluation request must contain an 'inputs' array\"}");
+        handler.assertPostResponse(url, Map.of(), "{\"inputs\":[{\"f29\":{\"type\":\"tensor(x[1])\",\"values\":[1.0]}}]}", 400,
+                                   "{\"error\":\"Invalid batch inputs: 'f29' must be of type tensor(), not tensor(x[1])\"}");
+        handler.assertPostResponse(url, Map.of(), "{\"inputs\":[", 400,
+                                   "{\"error\":\"Invalid batch inputs: Expected start of value but got end of data\"}");
+    }
+
     @Test
     public void testLightGBMEvaluationWithoutBindings() {
         String url = "http://localhost/model-evaluation/v1/lightgbm_regression/eval";
@@ -121,6 +121,20 @@ public class OnnxEvaluationHandlerTest {
         handler.assertResponse(url, properties, 200, expected);
     }
 
+    @Test
+    public void testBatchDimensionBatchEvaluation() {
+        String url = "http://localhost/model-evaluation/v1/one_layer/eval";
+        String inputs = "{\"inputs\":[" +
+                        "{\"input\":\"tensor<float>(d0[2],d1[3]):[[0.1, 0.2, 0.3],[0.4,0.5,0.6]]\"}," +
+                        "{\"input\":{\"type\":\"tensor<float>(d0[1],d1[3])\",\"values\":\"3ecccccd3f0000003f19999a\"}}" +
+                        "]}";
+        String expected = "{\"results\":[" +
+                          "{\"type\":\"tensor<float>(d0[2],d1[1])\",\"values\":[[0.6393113136291504],[0.6757428646087646]]}," +
+                          "{\"type\":\"tensor<float>(d0[1],d1[1])\",\"values\":[[0.6757428646087646]]}" +
+                          "]}";
+        handler.assertPostResponse(url, Map.of(), inputs, 200, expected);
+    }
+
     @SuppressWarnings("deprecation")
     static private ModelsEvaluator createModels() {
         RankProfilesConfig config = ConfigGetter.getConfig(RankProfilesConfig.class, fileConfigId("rank-profiles.cfg"));
@@ -10,6 +10,7 @@ import com.yahoo.api.annotations.Beta;
 import com.yahoo.component.AbstractComponent;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.embedding.huggingface.HuggingFaceEmbedderConfig;
+import com.yahoo.language.huggingface.Encoding;
 import com.yahoo.language.huggingface.HuggingFaceTokenizer;
 import com.yahoo.language.process.Embedder;
 import com.yahoo.tensor.IndexedTensor;
@@ -17,8 +18,12 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.Tensors;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 import static com.yahoo.language.huggingface.ModelInfo.TruncationStrategy.LONGEST_FIRST;
@@ -127,13 +132,44 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
 
     @Override
     public Tensor embed(String text, Context context, TensorType targetType) {
+        validateTargetType(targetType);
+        return toEmbedding(lookupOrEvaluate(context, prependInstruction(text, context)), targetType);
+    }
+
+    /** Embeds the given texts, evaluating the model once for all those which are not already cached in the context */
+    @Override
+    public List<Tensor> embed(List<String> texts, Context context, TensorType targetType) {
+        validateTargetType(targetType);
+        List<String> inputs = new ArrayList<>(texts.size());
+        Set<String> uncached = new LinkedHashSet<>();
+        for (String text : texts) {
+            String input = prependInstruction(text, context);
+            inputs.add(input);
+            if (context.getCachedValue(new HFEmbedderCacheKey(context.getEmbedderId(), input)) == null)
+                uncached.add(input);
+        }
+        if (uncached.size() > 1) {
+            List<String> batch = List.copyOf(uncached);
+            List<HFEmbeddingResult> results = evaluate(context, batch);
+            for (int i = 0; i < batch.size(); i++)
+                context.putCachedValue(new HFEmbedderCacheKey(context.getEmbedderId(), batch.get(i)), results.get(i));
+        }
+        List<Tensor> embeddings = new ArrayList<>(inputs.size());
+        for (String input : inputs)
+            embeddings.add(toEmbedding(lookupOrEvaluate(context, input), targetType));
+        return embeddings;
+    }
+
+    private static void validateTargetType(TensorType targetType) {
         if (targetType.dimensions().size() != 1) {
             throw new IllegalArgumentException("Error in embedding to type '" + targetType + "': should only have one dimension.");
         }
         if (!targetType.dimensions().get(0).isIndexed()) {
             throw new IllegalArgumentException("Error in embedding to type '" + targetType + "': dimension should be indexed.");
         }
-        var embeddingResult = lookupOrEvaluate(context, prependInstruction(text, context));
+    }
+
+    private Tensor toEmbedding(HFEmbeddingResult embeddingResult, TensorType targetType) {
         IndexedTensor tokenEmbeddings = embeddingResult.output;
         if (targetType.valueType() == TensorType.Value.INT8) {
             return binaryQuantization(embeddingResult, targetType);
@@ -177,6 +213,51 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
                     tokenTypeIdsName, tokenTypeIds.expand("d0"));
         }
         IndexedTensor tokenEmbeddings = (IndexedTensor) evaluator.evaluate(inputs).get(outputName);
+        validateOutputShape(tokenEmbeddings);
+        runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
+        return new HFEmbeddingResult(tokenEmbeddings, attentionMask, context.getEmbedderId());
+    }
+
+    /**
+     * Evaluates the model once for all the given texts, padded to the longest of them.
+     * The result of each text is sliced out of the batch output without the padding,
+     * such that it is the same as when evaluating the text alone.
+     */
+    private List<HFEmbeddingResult> evaluate(Context context, List<String> texts) {
+        var start = System.nanoTime();
+        List<Encoding> encodings = new ArrayList<>(texts.size());
+        int maxLength = 0;
+        boolean withTokenTypeIds = ! tokenTypeIdsName.isEmpty();
+        for (String text : texts) {
+            var encoding = tokenizer.encode(text, context.getLanguage());
+            runtime.sampleSequenceLength(encoding.ids().size(), context);
+            encodings.add(encoding);
+            maxLength = Math.max(maxLength, encoding.ids().size());
+            withTokenTypeIds &= ! encoding.typeIds().isEmpty();
+        }
+        Map<String, Tensor> inputs;
+        if ( ! withTokenTypeIds) {
+            inputs = Map.of(inputIdsName, createPaddedTensorRepresentation(encodings, Encoding::ids, maxLength),
+                            attentionMaskName, createPaddedTensorRepresentation(encodings, Encoding::attentionMask, maxLength));
+        } else {
+            inputs = Map.of(inputIdsName, createPaddedTensorRepresentation(encodings, Encoding::ids, maxLength),
+                            attentionMaskName, createPaddedTensorRepresentation(encodings, Encoding::attentionMask, maxLength),
+                            tokenTypeIdsName, createPaddedTensorRepresentation(encodings, Encoding::typeIds, maxLength));
+        }
+        IndexedTensor tokenEmbeddings = (IndexedTensor) evaluator.evaluate(inputs).get(outputName);
+        validateOutputShape(tokenEmbeddings);
+        List<HFEmbeddingResult> results = new ArrayList<>(texts.size());
+        for (int i = 0; i < encodings.size(); i++) {
+            List<Long> attentionMask = encodings.get(i).attentionMask();
+            results.add(new HFEmbeddingResult(slice(tokenEmbeddings, i, attentionMask.size()),
+                                              createTensorRepresentation(attentionMask, "d1"),
+                                              context.getEmbedderId()));
+        }
+        runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
+        return results;
+    }
+
+    private void validateOutputShape(IndexedTensor tokenEmbeddings) {
         long[] resultShape = tokenEmbeddings.shape();
         //shape batch, sequence, embedding dimensionality
         if (resultShape.length == 2) {
@@ -187,8 +268,26 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
             throw new IllegalArgumentException("Expected 3 output dimensions for output name '" +
                                                outputName + "': [batch, sequence, embedding], got " + resultShape.length);
         }
-        runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
-        return new HFEmbeddingResult(tokenEmbeddings, attentionMask, context.getEmbedderId());
+    }
+
+    /** Returns the output of the given entry in a batch as a batch of one, with the sequence cut to the given length */
+    private static IndexedTensor slice(IndexedTensor batchOutput, int entry, int length) {
+        long[] shape = batchOutput.shape();
+        List<TensorType.Dimension> dimensions = batchOutput.type().dimensions();
+        var type = new TensorType.Builder(batchOutput.type().valueType()).indexed(dimensions.get(0).name(), 1);
+        if (shape.length == 2) {
+            type.indexed(dimensions.get(1).name(), shape[1]);
+            IndexedTensor.Builder builder = IndexedTensor.Builder.of(type.build());
+            for (int i = 0; i < shape[1]; i++)
+                builder.cell(batchOutput.get(entry, i), 0, i);
+            return builder.build();
+        }
+        type.indexed(dimensions.get(1).name(), length).indexed(dimensions.get(2).name(), shape[2]);
+        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type.build());
+        for (int token = 0; token < length; token++)
+            for (int i = 0; i < shape[2]; i++)
+                builder.cell(batchOutput.get(entry, token, i), 0, token, i);
+        return builder.build();
     }
 
     private Tensor binaryQuantization(HuggingFaceEmbedder.HFEmbeddingResult embeddingResult, TensorType targetType) {
@@ -221,6 +320,21 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
         return builder.build();
     }
 
+    private IndexedTensor createPaddedTensorRepresentation(List<Encoding> encodings,
+                                                         Function<Encoding, List<Long>> field,
+                                                         int length) {
+        TensorType type = new TensorType.Builder(TensorType.Value.FLOAT).indexed("d0", encodings.size())
+                                                                        .indexed("d1", length)
+                                                                        .build();
+        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type);
+        for (int i = 0; i < encodings.size(); i++) {
+            List<Long> input = field.apply(encodings.get(i));
+            for (int j = 0; j < input.size(); j++)
+                builder.cell(input.get(j), i, j);
+        }
+        return builder.build(); // Padded with zeroes, which are masked out by the attention mask
+    }
+
     protected record HFEmbeddingResult(IndexedTensor output, Tensor attentionMask, String embedderId) {}
     protected record HFEmbedderCacheKey(String embedderId, Object embeddedValue) { }
 
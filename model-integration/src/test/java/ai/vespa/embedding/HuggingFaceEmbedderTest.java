@@ -19,6 +19,7 @@ import org.junit.Test;
 
 import java.nio.file.Path;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.assertNotEquals;
@@ -118,6 +119,23 @@ public class HuggingFaceEmbedderTest {
         assertEquals(-0.666, float16Result.sum().asDouble(),1e-3);
     }
 
+    @Test
+    public void testBatchEmbedding() {
+        var runtime = new EvaluationCountingRuntime();
+        var batchEmbedder = getEmbedder(runtime);
+        List<String> texts = List.of("This is a test",
+                                     "This is a somewhat longer test, which pads the others in the batch",
+                                     "This is a test");
+        for (var type : List.of(TensorType.fromSpec("tensor<float>(x[8])"), TensorType.fromSpec("tensor<int8>(x[2])"))) {
+            runtime.evaluations = 0;
+            List<Tensor> results = batchEmbedder.embed(texts, new Embedder.Context("schema.indexing"), type);
+            assertEquals(1, runtime.evaluations);
+            assertEquals(texts.size(), results.size());
+            for (int i = 0; i < texts.size(); i++)
+                assertEquals(embedder.embed(texts.get(i), new Embedder.Context("schema.indexing"), type), results.get(i));
+        }
+    }
+
     @Test
     public void testEmbedderWithNormalization() {
         String input = "This is a test";
@@ -209,6 +227,10 @@ public class HuggingFaceEmbedderTest {
     }
 
     private static HuggingFaceEmbedder getEmbedder() {
+        return getEmbedder(Embedder.Runtime.testInstance());
+    }
+
+    private static HuggingFaceEmbedder getEmbedder(Embedder.Runtime runtime) {
         String vocabPath = "src/test/models/onnx/transformer/real_tokenizer.json";
         String modelPath = "src/test/models/onnx/transformer/embedding_model.onnx";
         assumeTrue(OnnxRuntime.isRuntimeAvailable(modelPath));
@@ -217,7 +239,7 @@ public class HuggingFaceEmbedderTest {
         builder.transformerModel(ModelReference.valueOf(modelPath));
         builder.transformerGpuDevice(-1);
         var mockModelPathHelper = new MockModelPathHelper();
-        HuggingFaceEmbedder huggingFaceEmbedder = new HuggingFaceEmbedder(OnnxRuntime.testInstance(), Embedder.Runtime.testInstance(), builder.build(), mockModelPathHelper);
+        HuggingFaceEmbedder huggingFaceEmbedder = new HuggingFaceEmbedder(OnnxRuntime.testInstance(), runtime, builder.build(), mockModelPathHelper);
 
         assertTrue(mockModelPathHelper.invokedPaths.containsAll(Set.of(
                 "src/test/models/onnx/transformer/real_tokenizer.json",
@@ -276,6 +298,15 @@ public class HuggingFaceEmbedderTest {
         return unpacker.evaluate(context).asTensor();
     }
 
+    static class EvaluationCountingRuntime implements Embedder.Runtime {
+
+        int evaluations = 0;
+
+        @Override public void sampleEmbeddingLatency(double millis, Embedder.Context ctx) { evaluations++; }
+        @Override public void sampleSequenceLength(long length, Embedder.Context ctx) { }
+
+    }
+
     static class MockModelPathHelper implements ModelPathHelper {
         Set<String> invokedPaths = new HashSet<>();
 
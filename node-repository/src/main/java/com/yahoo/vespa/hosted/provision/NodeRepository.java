@@ -18,10 +18,12 @@ import com.yahoo.config.provision.Zone;
 import com.yahoo.config.provisioning.NodeRepositoryConfig;
 import com.yahoo.vespa.curator.Curator;
 import com.yahoo.vespa.flags.FlagSource;
+import com.yahoo.vespa.flags.Flags;
 import com.yahoo.vespa.flags.PermanentFlags;
 import com.yahoo.vespa.hosted.provision.Node.State;
 import com.yahoo.vespa.hosted.provision.applications.Applications;
 import com.yahoo.vespa.hosted.provision.archive.ArchiveUriManager;
+import com.yahoo.vespa.hosted.provision.autoscale.ColumnarMetricsDb;
 import com.yahoo.vespa.hosted.provision.autoscale.MetricsDb;
 import com.yahoo.vespa.hosted.provision.backup.Snapshots;
 import com.yahoo.vespa.hosted.provision.lb.LoadBalancer;
@@ -135,7 +137,8 @@ public class NodeRepository extends AbstractComponent implements HealthCheckerPr
                     zone.cloud().dynamicProvisioning(), provisionServiceProvider.getHostProvisioner().map(__ -> "present").orElse("empty")));
 
         this.flagSource = flagSource;
-        this.db = new CuratorDb(flavors, curator, clock, useCuratorClientCache, zone.cloud().account());
+        this.db = new CuratorDb(flavors, curator, clock, useCuratorClientCache,
+                                Flags.NODE_REPOSITORY_NODE_CACHE.bindTo(flagSource).value(), zone.cloud().account());
         this.clock = clock;
         this.zone = zone;
         this.applications = new Applications(db);
@@ -152,7 +155,7 @@ public class NodeRepository extends AbstractComponent implements HealthCheckerPr
         this.archiveUriManager = new ArchiveUriManager(db, zone);
         this.jobControl = new JobControl(new JobControlFlags(db, flagSource));
         this.loadBalancers = new LoadBalancers(db);
-        this.metricsDb = metricsDb;
+        this.metricsDb = Flags.COLUMNAR_METRICS_DB.bindTo(flagSource).value() ? new ColumnarMetricsDb(clock) : metricsDb;
         this.orchestrator = orchestrator;
         this.spareCount = spareCount;
         this.healthChecker = provisionServiceProvider.getHealthChecker();
@@ -278,4 +281,9 @@ public class NodeRepository extends AbstractComponent implements HealthCheckerPr
         return snapshots;
     }
 
+    @Override
+    public void deconstruct() {
+        db.close();
+    }
+
 }
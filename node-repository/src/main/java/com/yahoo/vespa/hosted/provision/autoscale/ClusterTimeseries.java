@@ -43,6 +43,14 @@ public class ClusterTimeseries {
 
     public ClusterSpec.Id cluster() { return cluster; }
 
+    /** Returns a copy of this with only the snapshots at or after the given time */
+    public ClusterTimeseries keepAfter(Instant oldestTime) {
+        return new ClusterTimeseries(cluster,
+                                     snapshots.stream()
+                                              .filter(snapshot -> ! snapshot.at().isBefore(oldestTime))
+                                              .toList());
+    }
+
     public ClusterTimeseries add(ClusterMetricSnapshot snapshot) {
         List<ClusterMetricSnapshot> list = new ArrayList<>(snapshots);
         list.add(snapshot);
@@ -0,0 +1,274 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision.autoscale;
+
+import com.yahoo.collections.Pair;
+import com.yahoo.component.annotation.Inject;
+import com.yahoo.config.provision.ApplicationId;
+import com.yahoo.config.provision.ClusterSpec;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory implementation of the metrics Db which stores the snapshots of each node as primitive columns
+ * in a ring buffer allocated outside the Java heap, rather than as snapshot objects.
+ * This keeps the heap and GC cost independent of the number of snapshots.
+ * Timestamps are stored with millisecond resolution.
+ *
+ * Thread model: Writes to each node are serialized, so there is one writer of a node at a time, and many readers.
+ * Readers never take locks: Each segment is a seqlock, where the writer bumps a version before and after
+ * writing a snapshot, and publishes it by advancing a volatile sequence number in between. Readers validate
+ * their reads against both afterwards, retrying in the rare case where the writer overwrote what they read.
+ *
+ * This is used instead of the configured metrics db when the columnar-metrics-db feature flag is set.
+ */
+public class ColumnarMetricsDb implements MetricsDb {
+
+    private static final int initialCapacity = 64;
+
+    private final Clock clock;
+
+    /** The snapshot columns of each node (hostname) */
+    private final Map<String, NodeColumns> nodeColumns = new ConcurrentHashMap<>();
+
+    private final Map<Pair<ApplicationId, ClusterSpec.Id>, ClusterTimeseries> clusterTimeseries = new ConcurrentHashMap<>();
+
+    @Inject
+    public ColumnarMetricsDb() {
+        this(Clock.systemUTC());
+    }
+
+    public ColumnarMetricsDb(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Clock clock() { return clock; }
+
+    @Override
+    public void addNodeMetrics(Collection<Pair<String, NodeMetricSnapshot>> nodeMetrics) {
+        for (var value : nodeMetrics) {
+            // Metrics of different applications are added concurrently, so serialize writes to each node
+            nodeColumns.compute(value.getFirst(), (hostname, columns) -> {
+                if (columns == null)
+                    columns = new NodeColumns(hostname);
+                columns.add(value.getSecond());
+                return columns;
+            });
+        }
+    }
+
+    @Override
+    public void addClusterMetrics(ApplicationId application, Map<ClusterSpec.Id, ClusterMetricSnapshot> clusterMetrics) {
+        for (var value : clusterMetrics.entrySet()) {
+            clusterTimeseries.compute(new Pair<>(application, value.getKey()),
+                                      (__, existing) -> (existing == null ? new ClusterTimeseries(value.getKey(), new ArrayList<>())
+                                                                          : existing).add(value.getValue()));
+        }
+    }
+
+    @Override
+    public List<NodeTimeseries> getNodeTimeseries(Duration period, Set<String> hostnames) {
+        long startTime = clock().instant().minus(period).toEpochMilli();
+        if (hostnames.isEmpty())
+            return nodeColumns.values().stream().map(columns -> columns.timeseriesAfter(startTime)).toList();
+        else
+            return hostnames.stream()
+                            .map(hostname -> {
+                                NodeColumns columns = nodeColumns.get(hostname);
+                                return columns == null ? new NodeTimeseries(hostname, List.of()) : columns.timeseriesAfter(startTime);
+                            })
+                            .toList();
+    }
+
+    @Override
+    public ClusterTimeseries getClusterTimeseries(ApplicationId application, ClusterSpec.Id cluster) {
+        return clusterTimeseries.computeIfAbsent(new Pair<>(application, cluster),
+                                                 __ -> new ClusterTimeseries(cluster, new ArrayList<>()));
+    }
+
+    @Override
+    public void gc() {
+        Instant startTime = clock().instant().minus(Autoscaler.maxScalingWindow());
+        // Snapshots older than the window within kept nodes are overwritten as new ones arrive
+        for (String hostname : nodeColumns.keySet()) {
+            nodeColumns.computeIfPresent(hostname, (__, columns) -> columns.lastTimestamp() < startTime.toEpochMilli() ? null
+                                                                                                                      : columns);
+        }
+        for (var key : clusterTimeseries.keySet()) {
+            clusterTimeseries.computeIfPresent(key, (__, timeseries) -> {
+                ClusterTimeseries kept = timeseries.keepAfter(startTime);
+                return kept.isEmpty() ? null : kept;
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        nodeColumns.clear();
+        clusterTimeseries.clear();
+    }
+
+    /** The snapshots of a single node. */
+    private static class NodeColumns {
+
+        private final String hostname;
+        private volatile Segment segment = new Segment(initialCapacity);
+
+        NodeColumns(String hostname) {
+            this.hostname = hostname;
+        }
+
+        /** Adds a snapshot. Must only be called by the writer of this node. */
+        void add(NodeMetricSnapshot snapshot) {
+            Segment current = segment;
+            if (current.isFull() && current.oldestTimestamp() >= snapshot.at().minus(Autoscaler.maxScalingWindow()).toEpochMilli()) {
+                // All snapshots are still within the scaling window: Grow rather than overwrite
+                current = current.grown();
+                segment = current;
+            }
+            current.add(snapshot);
+        }
+
+        long lastTimestamp() {
+            return segment.lastTimestamp();
+        }
+
+        NodeTimeseries timeseriesAfter(long startTime) {
+            while (true) {
+                Segment current = segment;
+                long version = current.version;
+                long end = current.written;
+                long start = current.first(end);
+                List<NodeMetricSnapshot> snapshots = new ArrayList<>();
+                for (long i = start; i < end; i++) {
+                    int slot = current.slot(i);
+                    if (current.at.get(slot) >= startTime)
+                        snapshots.add(current.snapshot(slot));
+                }
+                if (current.isValid(version, start, end)) return new NodeTimeseries(hostname, snapshots);
+            }
+        }
+
+    }
+
+    /** A fixed capacity ring buffer of snapshot columns, stored in a single direct buffer. */
+    private static class Segment {
+
+        static final int cpu = 0, memory = 1, disk = 2, gpu = 3, gpuMemory = 4, queryRate = 5;
+        private static final int valueColumns = 6;
+        private static final byte inServiceFlag = 1, stableFlag = 2;
+        private static final int bytesPerSnapshot = Long.BYTES * 2 + Double.BYTES * valueColumns + 1;
+
+        final int capacity;
+        final LongBuffer at;
+        final LongBuffer generation;
+        final DoubleBuffer[] values = new DoubleBuffer[valueColumns];
+        final ByteBuffer flags;
+
+        /** The number of snapshots written to this, ever. Written by the writer only, after the columns */
+        volatile long written = 0;
+
+        /** Incremented by the writer before and after writing a snapshot, so it is odd while one is being written */
+        volatile long version = 0;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(capacity * bytesPerSnapshot);
+            at = column(buffer, 0, Long.BYTES).asLongBuffer();
+            generation = column(buffer, capacity * Long.BYTES, Long.BYTES).asLongBuffer();
+            int offset = capacity * Long.BYTES * 2;
+            for (int i = 0; i < valueColumns; i++, offset += capacity * Double.BYTES)
+                values[i] = column(buffer, offset, Double.BYTES).asDoubleBuffer();
+            flags = column(buffer, offset, 1);
+        }
+
+        private ByteBuffer column(ByteBuffer buffer, int offset, int bytesPerValue) {
+            return buffer.slice(offset, capacity * bytesPerValue).order(ByteOrder.nativeOrder());
+        }
+
+        boolean isFull() { return written >= capacity; }
+
+        /** Returns the sequence number of the first snapshot still held when the given number has been written */
+        long first(long written) { return Math.max(0, written - capacity); }
+
+        int slot(long sequence) { return (int) (sequence % capacity); }
+
+        /**
+         * Returns whether the snapshots in the given sequence range, read after reading the given version,
+         * have not been overwritten, or been in the process of being overwritten, since they were read.
+         */
+        boolean isValid(long version, long start, long end) {
+            VarHandle.acquireFence(); // Order the reads of the columns before the reads below, like StampedLock.validate
+            if (version == this.version && (version & 1) == 0) return true;
+            // The slot which may be being written now is the one of sequence number 'written'
+            return end == start || first(written + 1) <= start;
+        }
+
+        long oldestTimestamp() {
+            long end = written;
+            return end == 0 ? Long.MIN_VALUE : at.get(slot(first(end)));
+        }
+
+        long lastTimestamp() {
+            long end = written;
+            return end == 0 ? Long.MIN_VALUE : at.get(slot(end - 1));
+        }
+
+        void add(NodeMetricSnapshot snapshot) {
+            long startVersion = version;
+            version = startVersion + 1;
+            VarHandle.storeStoreFence(); // Order the write of the version above before the writes of the columns
+            long sequence = written;
+            int slot = slot(sequence);
+            at.put(slot, snapshot.at().toEpochMilli());
+            generation.put(slot, snapshot.generation());
+            values[cpu].put(slot, snapshot.load().cpu());
+            values[memory].put(slot, snapshot.load().memory());
+            values[disk].put(slot, snapshot.load().disk());
+            values[gpu].put(slot, snapshot.load().gpu());
+            values[gpuMemory].put(slot, snapshot.load().gpuMemory());
+            values[queryRate].put(slot, snapshot.queryRate());
+            flags.put(slot, (byte)((snapshot.inService() ? inServiceFlag : 0) | (snapshot.stable() ? stableFlag : 0)));
+            written = sequence + 1;
+            version = startVersion + 2;
+        }
+
+        NodeMetricSnapshot snapshot(int slot) {
+            byte flagBits = flags.get(slot);
+            return new NodeMetricSnapshot(Instant.ofEpochMilli(at.get(slot)),
+                                          new Load(values[cpu].get(slot),
+                                                   values[memory].get(slot),
+                                                   values[disk].get(slot),
+                                                   values[gpu].get(slot),
+                                                   values[gpuMemory].get(slot)),
+                                          generation.get(slot),
+                                          (flagBits & inServiceFlag) != 0,
+                                          (flagBits & stableFlag) != 0,
+                                          values[queryRate].get(slot));
+        }
+
+        /** Returns a copy of this with twice the capacity. Must only be called by the writer. */
+        Segment grown() {
+            Segment grown = new Segment(capacity * 2);
+            long end = written;
+            for (long i = first(end); i < end; i++)
+                grown.add(snapshot(slot(i)));
+            return grown;
+        }
+
+    }
+
+}
@@ -19,6 +19,7 @@ import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
@@ -100,6 +101,18 @@ public class CachingCurator {
         return curator.exists(path);
     }
 
+    /**
+     * Returns a started cache of the subtree rooted at the given path, holding the data of each node as mapped by
+     * the given function, and kept up to date by a watch, or empty if caching is disabled.
+     * Unlike the cache of this, it need not be invalidated on writes, but must be synced before it is read.
+     */
+    <T> Optional<Curator.TreeCache<T>> createTreeCache(Path path, Function<byte[], T> mapper) {
+        if ( ! enabled) return Optional.empty();
+        Curator.TreeCache<T> treeCache = curator.createTreeCache(path, mapper);
+        treeCache.start();
+        return Optional.of(treeCache);
+    }
+
     // --------- Read operations -------------------------------------------------------------------------------
     // These can read from the memory file system, which accurately mirrors the ZooKeeper content IF
     // the current generation counter is the same as it was when data was put into the cache, AND
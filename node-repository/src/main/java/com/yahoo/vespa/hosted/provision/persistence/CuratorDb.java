@@ -46,6 +46,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.logging.Level;
@@ -84,6 +85,7 @@ public class CuratorDb {
     private static final Path snapshotsPath = root.append("snapshots");
 
     private static final Duration defaultLockTimeout = Duration.ofMinutes(1);
+    private static final Duration nodeCacheSyncTimeout = Duration.ofSeconds(10);
 
     private final NodeSerializer nodeSerializer;
     private final CachingCurator db;
@@ -96,7 +98,20 @@ public class CuratorDb {
     /** Simple cache for deserialized node objects, based on their ZK node version. */
     private final Cache<Path, Pair<Integer, Node>> cachedNodes = CacheBuilder.newBuilder().recordStats().build();
 
-    public CuratorDb(NodeFlavors flavors, Curator curator, Clock clock, boolean useCache, CloudAccount systemAccount) {
+    /** Deserialized node objects, updated as they change in ZK, when caching is enabled. Preferred over the above. */
+    private final Optional<Curator.TreeCache<Node>> nodeCache;
+
+    /** Incremented when the node cache must be synced before it is read: After node writes, and when node locks are taken */
+    private final AtomicLong nodeCacheSyncsRequired = new AtomicLong();
+
+    /** The value of the above when the last successful sync of the node cache was started */
+    private final AtomicLong nodeCacheSyncedAt = new AtomicLong();
+
+    /** Reads served by the node cache */
+    private final AtomicLong nodeCacheReads = new AtomicLong();
+
+    public CuratorDb(NodeFlavors flavors, Curator curator, Clock clock, boolean useCache, boolean useNodeCache,
+                     CloudAccount systemAccount) {
         this.nodeSerializer = new NodeSerializer(flavors, systemAccount);
         this.db = new CachingCurator(curator, root, useCache);
         this.clock = clock;
@@ -105,6 +120,12 @@ public class CuratorDb {
         this.loadBalancerPoolTail = new CuratorCounter(curator, root.append("loadBalancerPoolTail"));
         this.systemAccount = systemAccount;
         initZK();
+        this.nodeCache = useNodeCache ? db.createTreeCache(nodesPath, data -> data.length == 0 ? null : nodeSerializer.fromJson(data))
+                                      : Optional.empty();
+    }
+
+    public void close() {
+        nodeCache.ifPresent(Curator.TreeCache::close);
     }
 
     public List<String> cluster() {
@@ -129,7 +150,7 @@ public class CuratorDb {
 
     /** Adds a set of nodes. Rollbacks/fails transaction if any node is not in the expected state. */
     public List<Node> addNodesInState(LockedNodeList nodes, Node.State expectedState, Agent agent, NestedTransaction transaction) {
-        CuratorTransaction curatorTransaction = db.newCuratorTransactionIn(transaction);
+        CuratorTransaction curatorTransaction = newNodeTransactionIn(transaction);
         for (Node node : nodes) {
             if (node.state() != expectedState)
                 throw new IllegalArgumentException(node + " is not in the " + expectedState + " state");
@@ -152,7 +173,7 @@ public class CuratorDb {
     /** Removes given nodes in transaction */
     public void removeNodes(List<Node> nodes, NestedTransaction transaction) {
         for (Node node : nodes) {
-            CuratorTransaction curatorTransaction = db.newCuratorTransactionIn(transaction);
+            CuratorTransaction curatorTransaction = newNodeTransactionIn(transaction);
             curatorTransaction.add(CuratorOperations.delete(nodePath(node).getAbsolute()));
         }
         transaction.onCommitted(() -> nodes.forEach(node -> log.log(Level.INFO, "Removed node " + node.hostname() + " in state " + node.state())));
@@ -227,7 +248,7 @@ public class CuratorDb {
 
         List<Node> writtenNodes = new ArrayList<>(nodes.size());
 
-        CuratorTransaction curatorTransaction = db.newCuratorTransactionIn(transaction);
+        CuratorTransaction curatorTransaction = newNodeTransactionIn(transaction);
         for (Node node : nodes) {
             Node newNode = new Node(node.id(), node.extraId(), node.ipConfig(), node.hostname(),
                                     node.parentHostname(), node.flavor(),
@@ -252,6 +273,13 @@ public class CuratorDb {
         return writtenNodes;
     }
 
+    /** Creates a curator transaction for node writes in the given transaction, after which the node cache must be synced */
+    private CuratorTransaction newNodeTransactionIn(NestedTransaction transaction) {
+        CuratorTransaction curatorTransaction = db.newCuratorTransactionIn(transaction);
+        transaction.onCommitted(nodeCacheSyncsRequired::incrementAndGet);
+        return curatorTransaction;
+    }
+
     private Status newNodeStatus(Node node, Node.State toState) {
         if (node.state() != Node.State.failed && toState == Node.State.failed) return node.status().withIncreasedFailCount();
         if (node.state() == Node.State.failed && toState == Node.State.active) return node.status().withDecreasedFailCount(); // fail undo
@@ -260,6 +288,9 @@ public class CuratorDb {
 
     /** Returns all existing nodes */
     public List<Node> readNodes() {
+        Optional<Curator.TreeCache<Node>> nodeCache = currentNodeCache();
+        if (nodeCache.isPresent()) return List.copyOf(nodeCache.get().getChildren(nodesPath));
+
         CachingCurator.Session session = db.getSession();
         return session.getChildren(nodesPath).stream()
                       .flatMap(hostname -> readNode(session, hostname).stream())
@@ -282,9 +313,30 @@ public class CuratorDb {
 
     /** Read node with given hostname, if any such node exists */
     public Optional<Node> readNode(String hostname) {
+        Optional<Curator.TreeCache<Node>> nodeCache = currentNodeCache();
+        if (nodeCache.isPresent()) return nodeCache.get().get(nodePath(hostname));
+
         return readNode(db.getSession(), hostname);
     }
 
+    /**
+     * Returns the node cache, if enabled and current. The cache is first synced if there have been node writes,
+     * or node locks taken, since it was last synced, as those callers must see all changes made before that.
+     */
+    private Optional<Curator.TreeCache<Node>> currentNodeCache() {
+        return nodeCache.filter(cache -> {
+            if ( ! cache.isCurrent()) return false;
+
+            long required = nodeCacheSyncsRequired.get();
+            if (nodeCacheSyncedAt.get() < required) {
+                if ( ! cache.sync(nodeCacheSyncTimeout)) return false;
+                nodeCacheSyncedAt.accumulateAndGet(required, Math::max);
+            }
+            nodeCacheReads.incrementAndGet();
+            return true;
+        });
+    }
+
     private Path nodePath(Node node) {
         return nodePath(node.hostname());
     }
@@ -302,6 +354,13 @@ public class CuratorDb {
         return lockPath;
     }
 
+    /** Acquires a lock guarding node writes, after which the node cache must be synced to see all writes made before */
+    private Lock lockNodes(Path path, Duration timeout) {
+        Lock lock = db.lock(path, timeout);
+        nodeCacheSyncsRequired.incrementAndGet();
+        return lock;
+    }
+
     /** Acquires the single cluster-global, reentrant lock for all non-active nodes */
     public Lock lockInactive() {
         return lockInactive(defaultLockTimeout);
@@ -309,7 +368,7 @@ public class CuratorDb {
 
     /** Acquires the single cluster-global, reentrant lock for all non-active nodes */
     public Lock lockInactive(Duration timeout) {
-        return db.lock(lockPath.append("unallocatedLock"), timeout);
+        return lockNodes(lockPath.append("unallocatedLock"), timeout);
     }
 
     /** Acquires the single cluster-global, reentrant lock for active nodes of this application */
@@ -320,7 +379,7 @@ public class CuratorDb {
     /** Acquires the single cluster-global, reentrant lock with the specified timeout for active nodes of this application */
     public Lock lock(ApplicationId application, Duration timeout) {
         try {
-            return db.lock(lockPath(application), timeout);
+            return lockNodes(lockPath(application), timeout);
         }
         catch (UncheckedTimeoutException e) {
             throw new ApplicationLockException(e);
@@ -566,7 +625,14 @@ public class CuratorDb {
 
     public CacheStats nodeSerializerCacheStats() {
         var stats = cachedNodes.stats();
-        return new CacheStats(stats.hitRate(), stats.evictionCount(), cachedNodes.size());
+        if (nodeCache.isEmpty())
+            return new CacheStats(stats.hitRate(), stats.evictionCount(), cachedNodes.size());
+
+        // Nodes in the node cache are deserialized as they change, so reads served by it are hits
+        long nodeCacheReads = this.nodeCacheReads.get();
+        long requests = stats.requestCount() + nodeCacheReads;
+        double hitRate = requests == 0 ? 1 : (double) (stats.hitCount() + nodeCacheReads) / requests;
+        return new CacheStats(hitRate, stats.evictionCount(), cachedNodes.size() + nodeCache.get().getChildren(nodesPath).size());
     }
 
     private <T> Optional<T> read(Path path, Function<byte[], T> mapper) {
@@ -0,0 +1,180 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision.autoscale;
+
+import com.yahoo.collections.Pair;
+import com.yahoo.config.provision.ApplicationId;
+import com.yahoo.config.provision.ClusterSpec;
+import com.yahoo.test.ManualClock;
+import com.yahoo.vespa.flags.Flags;
+import com.yahoo.vespa.flags.InMemoryFlagSource;
+import com.yahoo.vespa.hosted.provision.provisioning.ProvisioningTester;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnarMetricsDbTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final ColumnarMetricsDb db = new ColumnarMetricsDb(clock);
+
+    @Test
+    public void testNodeTimeseries() {
+        NodeMetricSnapshot snapshot = new NodeMetricSnapshot(clock.instant().truncatedTo(ChronoUnit.MILLIS), new Load(0.1, 0.2, 0.3, 0.4, 0.5), 7, true, false, 12.5);
+        db.addNodeMetrics(List.of(new Pair<>("host1", snapshot)));
+        clock.advance(Duration.ofMinutes(1));
+
+        List<NodeTimeseries> timeseries = db.getNodeTimeseries(Duration.ofHours(1), Set.of("host1", "host2"));
+        assertEquals(2, timeseries.size());
+        NodeTimeseries host1 = timeseries.stream().filter(t -> t.hostname().equals("host1")).findFirst().get();
+        assertEquals(1, host1.size());
+        assertEquals(snapshot.toString(), host1.asList().get(0).toString());
+        assertTrue(timeseries.stream().filter(t -> t.hostname().equals("host2")).findFirst().get().isEmpty());
+
+        assertEquals(1, db.getNodeTimeseries(Duration.ofHours(1), Set.of()).size());
+        assertTrue(db.getNodeTimeseries(Duration.ofSeconds(30), Set.of("host1")).get(0).isEmpty());
+    }
+
+    @Test
+    public void testGrowsWithinScalingWindowAndOverwritesOutside() {
+        // One snapshot per minute for 72 hours
+        for (int i = 0; i < 72 * 60; i++) {
+            add("host1", 0.5, i);
+            clock.advance(Duration.ofMinutes(1));
+        }
+        int inWindow = db.getNodeTimeseries(Autoscaler.maxScalingWindow(), Set.of("host1")).get(0).size();
+        assertEquals(48 * 60, inWindow);
+        List<NodeMetricSnapshot> all = db.getNodeTimeseries(Duration.ofHours(100), Set.of("host1")).get(0).asList();
+        assertTrue(all.size() >= inWindow);
+        assertTrue(all.size() < 72 * 60);
+        for (int i = 1; i < all.size(); i++)
+            assertEquals(Duration.ofMinutes(1), Duration.between(all.get(i - 1).at(), all.get(i).at()));
+        assertEquals(72 * 60 - 1, all.get(all.size() - 1).generation());
+    }
+
+    @Test
+    public void testGc() {
+        add("host1", 0.5, 0);
+        clock.advance(Autoscaler.maxScalingWindow().dividedBy(2));
+        add("host2", 0.5, 0);
+        clock.advance(Autoscaler.maxScalingWindow().dividedBy(2).plusMinutes(1));
+        db.gc();
+        assertEquals(List.of("host2"), db.getNodeTimeseries(Duration.ofDays(7), Set.of()).stream().map(NodeTimeseries::hostname).toList());
+    }
+
+    @Test
+    public void testClusterTimeseries() {
+        ApplicationId application = ApplicationId.defaultId();
+        ClusterSpec.Id cluster = ClusterSpec.Id.from("c1");
+        assertTrue(db.getClusterTimeseries(application, cluster).isEmpty());
+        db.addClusterMetrics(application, Map.of(cluster, new ClusterMetricSnapshot(clock.instant(), 10, 20)));
+        clock.advance(Duration.ofMinutes(1));
+        db.addClusterMetrics(application, Map.of(cluster, new ClusterMetricSnapshot(clock.instant(), 15, 20)));
+        assertEquals(2, db.getClusterTimeseries(application, cluster).size());
+    }
+
+    @Test
+    public void testGcOfClusterTimeseries() {
+        ApplicationId application = ApplicationId.defaultId();
+        ClusterSpec.Id cluster1 = ClusterSpec.Id.from("c1");
+        ClusterSpec.Id cluster2 = ClusterSpec.Id.from("c2");
+        db.addClusterMetrics(application, Map.of(cluster1, new ClusterMetricSnapshot(clock.instant(), 10, 20),
+                                                 cluster2, new ClusterMetricSnapshot(clock.instant(), 10, 20)));
+        clock.advance(Autoscaler.maxScalingWindow().dividedBy(2));
+        db.addClusterMetrics(application, Map.of(cluster1, new ClusterMetricSnapshot(clock.instant(), 15, 20)));
+        clock.advance(Autoscaler.maxScalingWindow().dividedBy(2).plusMinutes(1));
+        db.gc();
+        assertEquals(1, db.getClusterTimeseries(application, cluster1).size());
+        assertEquals(15, db.getClusterTimeseries(application, cluster1).get(0).queryRate(), 0);
+        assertTrue(db.getClusterTimeseries(application, cluster2).isEmpty());
+    }
+
+    @Test
+    public void testEnabledByFlag() {
+        var flagSource = new InMemoryFlagSource().withBooleanFlag(Flags.COLUMNAR_METRICS_DB.id(), true);
+        var tester = new ProvisioningTester.Builder().flagSource(flagSource).build();
+        assertTrue(tester.nodeRepository().metricsDb() instanceof ColumnarMetricsDb);
+        assertFalse(new ProvisioningTester.Builder().build().nodeRepository().metricsDb() instanceof ColumnarMetricsDb);
+    }
+
+    @Test
+    public void testConcurrentReadsDuringWrites() throws InterruptedException {
+        List<Throwable> failures = new ArrayList<>();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 100_000; i++)
+                add("host1", 0.5, i);
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            try {
+                Instant previous = Instant.MIN;
+                for (NodeMetricSnapshot snapshot : db.getNodeTimeseries(Duration.ofDays(1), Set.of("host1")).get(0).asList()) {
+                    assertEquals(0.5, snapshot.load().cpu(), 0);
+                    assertFalse(snapshot.at().isBefore(previous));
+                    previous = snapshot.at();
+                }
+            }
+            catch (Throwable e) {
+                failures.add(e);
+                break;
+            }
+        }
+        writer.join();
+        assertEquals(List.of(), failures);
+    }
+
+    @Test
+    public void testConcurrentReadsDuringOverwritesSeeNoTornSnapshots() throws InterruptedException {
+        Instant start = clock.instant().truncatedTo(ChronoUnit.MILLIS);
+        int snapshots = 1_000_000; // One per minute, so the ring wraps after the scaling window
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < snapshots; i++) {
+                double value = (i % 1000) / 1000.0;
+                clock.setInstant(start.plus(Duration.ofMinutes(i)));
+                db.addNodeMetrics(List.of(new Pair<>("host1", new NodeMetricSnapshot(start.plus(Duration.ofMinutes(i)),
+                                                                                     new Load(value, value, value, 0, 0),
+                                                                                     i, true, true, i))));
+            }
+        });
+        List<Throwable> failures = new ArrayList<>();
+        writer.start();
+        while (writer.isAlive()) {
+            try {
+                // Read only the most recent snapshots, which is fast, but includes any torn oldest one with a new timestamp
+                for (NodeMetricSnapshot snapshot : db.getNodeTimeseries(Duration.ofMinutes(10), Set.of("host1")).get(0).asList()) {
+                    long i = snapshot.generation();
+                    String row = "Snapshot " + i + ": " + snapshot;
+                    assertEquals(row, start.plus(Duration.ofMinutes(i)), snapshot.at());
+                    assertEquals(row, (i % 1000) / 1000.0, snapshot.load().cpu(), 0);
+                    assertEquals(row, (i % 1000) / 1000.0, snapshot.load().disk(), 0);
+                    assertEquals(row, i, snapshot.queryRate(), 0);
+                }
+            }
+            catch (Throwable e) {
+                failures.add(e);
+                break;
+            }
+        }
+        writer.join();
+        assertEquals(List.of(), failures);
+    }
+
+    private void add(String hostname, double cpu, long generation) {
+        db.addNodeMetrics(List.of(new Pair<>(hostname, new NodeMetricSnapshot(clock.instant(),
+                                                                              new Load(cpu, 0.5, 0.5, 0, 0),
+                                                                              generation,
+                                                                              true,
+                                                                              true,
+                                                                              10))));
+    }
+
+}
@@ -7,6 +7,7 @@ import com.yahoo.config.provision.CloudAccount;
 import com.yahoo.config.provision.InstanceName;
 import com.yahoo.config.provision.NodeType;
 import com.yahoo.config.provision.TenantName;
+import com.yahoo.path.Path;
 import com.yahoo.vespa.curator.Curator;
 import com.yahoo.vespa.curator.mock.MockCurator;
 import com.yahoo.vespa.hosted.provision.Node;
@@ -15,8 +16,10 @@ import org.junit.Test;
 
 import java.time.Clock;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author mpolden
@@ -25,7 +28,7 @@ public class CuratorDbTest {
 
     private final Curator curator = new MockCurator();
     private final CuratorDb zkClient = new CuratorDb(
-            FlavorConfigBuilder.createDummies("default"), curator, Clock.systemUTC(), true, CloudAccount.from("aws:999123456789"));
+            FlavorConfigBuilder.createDummies("default"), curator, Clock.systemUTC(), true, true, CloudAccount.from("aws:999123456789"));
 
     @Test
     public void can_read_stored_host_information() throws Exception {
@@ -37,6 +40,31 @@ public class CuratorDbTest {
         assertEquals(NodeType.host, allocatedNodes.get(0).type());
     }
 
+    @Test
+    public void nodes_are_read_from_cache_updated_on_changes() throws Exception {
+        String host1 = "{\"hostname\":\"host1\",\"state\":\"ready\",\"ipAddresses\":[\"127.0.0.1\"],\"flavor\":\"default\",\"created\":1421054425159, \"type\":\"tenant\"}";
+        String host2 = "{\"hostname\":\"host2\",\"state\":\"ready\",\"ipAddresses\":[\"127.0.0.2\"],\"flavor\":\"default\",\"created\":1421054425159, \"type\":\"proxy\"}";
+        curator.set(Path.fromString("/provision/v1/nodes/host1"), host1.getBytes());
+        Node node1 = zkClient.readNode("host1").get();
+        assertSame(node1, zkClient.readNodes().get(0));
+
+        curator.set(Path.fromString("/provision/v1/nodes/host2"), host2.getBytes());
+        assertEquals(2, zkClient.readNodes().size());
+        assertSame(node1, zkClient.readNode("host1").get());
+        assertEquals(NodeType.proxy, zkClient.readNode("host2").get().type());
+
+        curator.set(Path.fromString("/provision/v1/nodes/host1"), host1.replace("ready", "dirty").getBytes());
+        assertEquals(Node.State.dirty, zkClient.readNode("host1").get().state());
+
+        curator.delete(Path.fromString("/provision/v1/nodes/host2"));
+        assertEquals(Optional.empty(), zkClient.readNode("host2"));
+        assertEquals(List.of("host1"), zkClient.readNodes().stream().map(Node::hostname).toList());
+
+        CacheStats stats = zkClient.nodeSerializerCacheStats();
+        assertEquals(1.0, stats.hitRate(), 0);
+        assertEquals(1, stats.size());
+    }
+
     @Test
     public void locks_can_be_acquired_and_released() {
         ApplicationId app = ApplicationId.from(TenantName.from("testTenant"), ApplicationName.from("testApp"), InstanceName.from("testInstance"));
@@ -2,6 +2,7 @@
 package com.yahoo.searchlib.rankingexpression.evaluation;
 
 import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.compilation.ExpressionCompiler;
 import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestOptimizer;
 import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTOptimizer;
 import com.yahoo.searchlib.rankingexpression.evaluation.tensoroptimization.TensorOptimizer;
@@ -35,6 +36,11 @@ public class ExpressionOptimizer {
     private final GBDTOptimizer gbdtOptimizer = new GBDTOptimizer();
     private final GBDTForestOptimizer gbdtForestOptimizer = new GBDTForestOptimizer();
     private final TensorOptimizer tensorOptimizer = new TensorOptimizer();
+    private final ExpressionCompiler expressionCompiler = new ExpressionCompiler();
+
+    public ExpressionOptimizer() {
+        expressionCompiler.setEnabled(false); // Enable by getOptimizer(ExpressionCompiler.class).setEnabled(true)
+    }
 
     /** Gets an optimizer instance used by this by class name, or null if the optimizer is not known */
     public Optimizer getOptimizer(Class<?> clazz) {
@@ -44,6 +50,8 @@ public class ExpressionOptimizer {
             return gbdtForestOptimizer;
         if (clazz == tensorOptimizer.getClass())
             return tensorOptimizer;
+        if (clazz == expressionCompiler.getClass())
+            return expressionCompiler;
         return null;
     }
 
@@ -53,6 +61,7 @@ public class ExpressionOptimizer {
         gbdtOptimizer.optimize(expression, contextIndex, report);
         gbdtForestOptimizer.optimize(expression, contextIndex, report);
         tensorOptimizer.optimize(expression, contextIndex, report);
+        expressionCompiler.optimize(expression, contextIndex, report);
         return report;
     }
 
@@ -0,0 +1,75 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compilation;
+
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleCompatibleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleOnlyArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.StringValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.SerializationContext;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.TypeContext;
+
+import java.util.Deque;
+import java.util.Objects;
+
+/**
+ * A scalar expression compiled to be evaluated without creating intermediate values.
+ * This is serialized as, and has the type of, the expression it is compiled from.
+ *
+ * The compiled expression assumes that the values it looks up by index in the context are scalars.
+ * This is always true in a {@link DoubleOnlyArrayContext}. In other contexts, the values are checked before evaluation,
+ * and the original expression is evaluated instead if any is not a scalar.
+ */
+public final class CompiledNode extends ExpressionNode {
+
+    private final ExpressionNode original;
+    private final Scalar compiled;
+    private final boolean isBoolean;
+    private final int[] checkedIndexes;
+
+    CompiledNode(ExpressionNode original, Scalar compiled, boolean isBoolean, int[] checkedIndexes) {
+        this.original = original;
+        this.compiled = compiled;
+        this.isBoolean = isBoolean;
+        this.checkedIndexes = checkedIndexes;
+    }
+
+    /** Returns the expression this is compiled from */
+    public ExpressionNode original() { return original; }
+
+    @Override
+    public Value evaluate(Context context) {
+        if ( ! (context instanceof DoubleOnlyArrayContext) && ! hasScalarValues(context))
+            return original.evaluate(context);
+        double value = compiled.evaluate(context);
+        return isBoolean ? new BooleanValue(Scalar.isTrue(value)) : new DoubleValue(value);
+    }
+
+    private boolean hasScalarValues(Context context) {
+        for (int index : checkedIndexes) {
+            Value value = context.get(index);
+            if (value instanceof DoubleCompatibleValue) continue;
+            if (value instanceof TensorValue || value instanceof StringValue || ! value.hasDouble()) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public TensorType type(TypeContext<Reference> context) { return original.type(context); }
+
+    @Override
+    public StringBuilder toString(StringBuilder string, SerializationContext context, Deque<String> path, CompositeNode parent) {
+        return original.toString(string, context, path, parent);
+    }
+
+    @Override
+    public int hashCode() { return Objects.hash("compiled", original); }
+
+}
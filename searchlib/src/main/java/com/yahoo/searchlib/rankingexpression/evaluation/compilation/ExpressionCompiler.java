@@ -0,0 +1,313 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compilation;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleCompatibleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.Optimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTNode;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.OperationNode;
+import com.yahoo.searchlib.rankingexpression.rule.Operator;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.SetMembershipNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTNode.MAX_LEAF_VALUE;
+import static com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTNode.MAX_VARIABLES;
+
+/**
+ * Compiles the scalar parts of ranking expressions, including GBDT trees and forests optimized by the
+ * GBDT optimizers, into {@link CompiledNode}s which are evaluated to doubles directly, with trees evaluated
+ * as nested branches and variables looked up by index in the context.
+ * Other parts of expressions, such as tensor functions, are left as-is.
+ *
+ * The compiled expressions <b>must</b> be evaluated using a context which looks up values by the same indexes as the
+ * context given when optimizing, and should be run after the other optimizers.
+ *
+ * This class is multithread safe.
+ */
+public class ExpressionCompiler extends Optimizer {
+
+    @Override
+    public void optimize(RankingExpression expression, ContextIndex context, OptimizationReport report) {
+        if ( ! isEnabled()) return;
+        expression.setRoot(optimize(expression.getRoot(), context, report));
+        report.note("Scalar expression compilation done");
+    }
+
+    private ExpressionNode optimize(ExpressionNode node, ContextIndex context, OptimizationReport report) {
+        if ( ! isCompilable(node)) return node;
+
+        Compilation compilation = new Compilation(context);
+        Compiled compiled = compilation.compile(node);
+        if (compiled != null) {
+            report.incMetric("Compiled scalar expressions", 1);
+            return new CompiledNode(node, compiled.scalar(), compiled.isBoolean(), compilation.checkedIndexes());
+        }
+
+        if ( ! (node instanceof CompositeNode composite)) return node;
+        List<ExpressionNode> children = new ArrayList<>();
+        boolean changed = false;
+        for (ExpressionNode child : composite.children()) {
+            ExpressionNode optimizedChild = optimize(child, context, report);
+            children.add(optimizedChild);
+            changed |= optimizedChild != child;
+        }
+        return changed ? composite.setChildren(children) : node;
+    }
+
+    /** Returns whether this is a node which may be worth compiling, by itself or by some of its children */
+    private static boolean isCompilable(ExpressionNode node) {
+        return node instanceof GBDTNode
+               || node instanceof GBDTForestNode
+               || node instanceof OperationNode
+               || node instanceof IfNode
+               || node instanceof FunctionNode
+               || node instanceof SetMembershipNode
+               || node instanceof EmbracedNode
+               || node instanceof NegativeNode
+               || node instanceof NotNode;
+    }
+
+    /** A compiled node and whether it produces a boolean */
+    private record Compiled(Scalar scalar, boolean isBoolean) {}
+
+    /** The compilation of a single node */
+    private static class Compilation {
+
+        private final ContextIndex context;
+
+        /** The indexes looked up outside GBDT nodes, which are not known to be scalars */
+        private final Set<Integer> checkedIndexes = new TreeSet<>();
+
+        Compilation(ContextIndex context) {
+            this.context = context;
+        }
+
+        int[] checkedIndexes() {
+            return checkedIndexes.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /** Returns the compiled node, or null if this node cannot be compiled */
+        Compiled compile(ExpressionNode node) {
+            if (node instanceof ConstantNode constant)
+                return compileConstant(constant.getValue());
+            if (node instanceof ReferenceNode reference)
+                return compileReference(reference);
+            if (node instanceof EmbracedNode embraced)
+                return compile(embraced.children().get(0));
+            if (node instanceof NegativeNode negative) {
+                Compiled argument = compile(negative.children().get(0));
+                return argument == null ? null : new Compiled(new Scalar.Negate(argument.scalar()), false);
+            }
+            if (node instanceof NotNode not) {
+                Compiled argument = compile(not.children().get(0));
+                return argument == null ? null : new Compiled(new Scalar.Not(argument.scalar()), true);
+            }
+            if (node instanceof OperationNode operation)
+                return compileOperation(operation);
+            if (node instanceof IfNode ifNode)
+                return compileIf(ifNode);
+            if (node instanceof FunctionNode function)
+                return compileFunction(function);
+            if (node instanceof SetMembershipNode setMembership)
+                return compileSetMembership(setMembership);
+            if (node instanceof GBDTNode tree)
+                return new Compiled(new TreeCompiler(tree.values()).compileTree(), false);
+            if (node instanceof GBDTForestNode forest)
+                return new Compiled(new TreeCompiler(forest.values()).compileForest(), false);
+            return null;
+        }
+
+        private Compiled compileConstant(Value value) {
+            if ( ! (value instanceof DoubleCompatibleValue)) return null;
+            return new Compiled(new Scalar.Constant(value.asDouble()), value instanceof BooleanValue);
+        }
+
+        private Compiled compileReference(ReferenceNode reference) {
+            int index;
+            try {
+                index = context.getIndex(reference.toString());
+            }
+            catch (RuntimeException e) { // Not known to the context
+                return null;
+            }
+            checkedIndexes.add(index);
+            return new Compiled(new Scalar.Slot(index), false);
+        }
+
+        /** Compiles the operations of this node into binary operations, in the precedence order used in evaluation */
+        private Compiled compileOperation(OperationNode operation) {
+            List<Compiled> children = new ArrayList<>();
+            for (ExpressionNode child : operation.children()) {
+                Compiled compiled = compile(child);
+                if (compiled == null) return null;
+                children.add(compiled);
+            }
+
+            Deque<Item> stack = new ArrayDeque<>();
+            stack.push(new Item(null, children.get(0)));
+            for (int i = 0; i < operation.operators().size() && i + 1 < children.size(); i++) {
+                Operator operator = operation.operators().get(i);
+                while (stack.size() > 1 && ! operator.hasPrecedenceOver(stack.peek().operator))
+                    pop(stack);
+                stack.push(new Item(operator, children.get(i + 1)));
+            }
+            while (stack.size() > 1)
+                pop(stack);
+            return stack.getFirst().compiled;
+        }
+
+        private void pop(Deque<Item> stack) {
+            Item right = stack.pop();
+            Item left = stack.peek();
+            left.compiled = binary(right.operator, left.compiled.scalar(), right.compiled.scalar());
+        }
+
+        private Compiled binary(Operator operator, Scalar x, Scalar y) {
+            return switch (operator) {
+                case or -> new Compiled(new Scalar.Or(x, y), true);
+                case and -> new Compiled(new Scalar.And(x, y), true);
+                case largerOrEqual -> comparison(Scalar.Comparison.Type.LARGER_OR_EQUAL, x, y);
+                case larger -> comparison(Scalar.Comparison.Type.LARGER, x, y);
+                case smallerOrEqual -> comparison(Scalar.Comparison.Type.SMALLER_OR_EQUAL, x, y);
+                case smaller -> comparison(Scalar.Comparison.Type.SMALLER, x, y);
+                case approxEqual -> comparison(Scalar.Comparison.Type.APPROX_EQUAL, x, y);
+                case notEqual -> comparison(Scalar.Comparison.Type.NOT_EQUAL, x, y);
+                case equal -> comparison(Scalar.Comparison.Type.EQUAL, x, y);
+                case plus -> new Compiled(new Scalar.Add(x, y), false);
+                case minus -> new Compiled(new Scalar.Subtract(x, y), false);
+                case multiply -> new Compiled(new Scalar.Multiply(x, y), false);
+                case divide -> new Compiled(new Scalar.Divide(x, y), false);
+                case modulo -> new Compiled(new Scalar.Modulo(x, y), false);
+                case power -> new Compiled(new Scalar.FunctionCall(Function.pow, x, y), false);
+            };
+        }
+
+        private Compiled comparison(Scalar.Comparison.Type type, Scalar x, Scalar y) {
+            return new Compiled(new Scalar.Comparison(type, x, y), true);
+        }
+
+        private Compiled compileIf(IfNode ifNode) {
+            Compiled condition = compile(ifNode.getCondition());
+            Compiled ifTrue = compile(ifNode.getTrueExpression());
+            Compiled ifFalse = compile(ifNode.getFalseExpression());
+            if (condition == null || ifTrue == null || ifFalse == null) return null;
+            return new Compiled(new Scalar.Conditional(condition.scalar(), ifTrue.scalar(), ifFalse.scalar()),
+                                ifTrue.isBoolean() && ifFalse.isBoolean());
+        }
+
+        private Compiled compileFunction(FunctionNode function) {
+            List<ExpressionNode> arguments = function.children();
+            Compiled x = arguments.size() > 0 ? compile(arguments.get(0)) : compileConstant(Value.of(0));
+            Compiled y = arguments.size() > 1 ? compile(arguments.get(1)) : compileConstant(Value.of(0));
+            if (x == null || y == null) return null;
+            return new Compiled(new Scalar.FunctionCall(function.getFunction(), x.scalar(), y.scalar()), false);
+        }
+
+        private Compiled compileSetMembership(SetMembershipNode setMembership) {
+            Compiled testValue = compile(setMembership.getTestValue());
+            if (testValue == null || testValue.isBoolean()) return null; // booleans are compared as booleans
+            double[] set = new double[setMembership.getSetValues().size()];
+            for (int i = 0; i < set.length; i++) {
+                if ( ! (setMembership.getSetValues().get(i) instanceof ConstantNode constant)) return null;
+                if ( ! (constant.getValue() instanceof DoubleCompatibleValue value)) return null;
+                set[i] = value.asDouble();
+            }
+            return new Compiled(new Scalar.In(testValue.scalar(), set), true);
+        }
+
+        private static class Item {
+
+            final Operator operator;
+            Compiled compiled;
+
+            Item(Operator operator, Compiled compiled) {
+                this.operator = operator;
+                this.compiled = compiled;
+            }
+
+        }
+
+    }
+
+    /** Compiles the encoded trees of GBDT nodes into nested branches. See {@link GBDTNode} for the encoding. */
+    private static class TreeCompiler {
+
+        private final double[] values;
+        private int pc = 0;
+
+        TreeCompiler(double[] values) {
+            this.values = values;
+        }
+
+        Scalar compileForest() {
+            List<Scalar> trees = new ArrayList<>();
+            while (pc < values.length) {
+                int nextTree = (int)values[pc++];
+                int treeStart = pc;
+                trees.add(compileTree());
+                pc = treeStart + nextTree;
+            }
+            return new Scalar.Sum(trees.toArray(new Scalar[0]));
+        }
+
+        Scalar compileTree() {
+            double nextValue = values[pc++];
+            if (nextValue < MAX_LEAF_VALUE)
+                return new Scalar.Constant(nextValue);
+
+            int offset = (int)nextValue - MAX_LEAF_VALUE;
+            if (offset < MAX_VARIABLES) {
+                double value = values[pc++];
+                return new Scalar.SmallerBranch(offset, value, trueBranch(), falseBranch());
+            }
+            else if (offset < MAX_VARIABLES * 2) {
+                double value = values[pc++];
+                return new Scalar.EqualBranch(offset - MAX_VARIABLES, value, trueBranch(), falseBranch());
+            }
+            else if (offset < MAX_VARIABLES * 3) {
+                double[] set = new double[(int)values[pc++]];
+                for (int i = 0; i < set.length; i++)
+                    set[i] = values[pc++];
+                return new Scalar.InBranch(offset - MAX_VARIABLES * 2, set, trueBranch(), falseBranch());
+            }
+            else {
+                double value = values[pc++];
+                return new Scalar.NotLargerOrEqualBranch(offset - MAX_VARIABLES * 3, value, trueBranch(), falseBranch());
+            }
+        }
+
+        /** Compiles the true branch following the jump value at the current position */
+        private Scalar trueBranch() {
+            pc++;
+            return compileTree();
+        }
+
+        /** Compiles the false branch, which follows the true branch */
+        private Scalar falseBranch() {
+            return compileTree();
+        }
+
+    }
+
+}
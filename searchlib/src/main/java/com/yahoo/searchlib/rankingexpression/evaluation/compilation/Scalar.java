@@ -0,0 +1,341 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compilation;
+
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+
+import java.io.Serializable;
+
+/**
+ * A compiled scalar expression, evaluated directly to a double without creating values.
+ * Booleans are represented as 1 and 0, and any other value than 0 is true.
+ */
+abstract class Scalar implements Serializable {
+
+    abstract double evaluate(Context context);
+
+    static boolean isTrue(double value) { return value != 0; }
+
+    static double of(boolean value) { return value ? 1 : 0; }
+
+    static final class Constant extends Scalar {
+
+        private final double value;
+
+        Constant(double value) { this.value = value; }
+
+        @Override
+        double evaluate(Context context) { return value; }
+
+    }
+
+    /** A value looked up by index in the context */
+    static final class Slot extends Scalar {
+
+        private final int index;
+
+        Slot(int index) { this.index = index; }
+
+        @Override
+        double evaluate(Context context) { return context.getDouble(index); }
+
+    }
+
+    static final class Negate extends Scalar {
+
+        private final Scalar argument;
+
+        Negate(Scalar argument) { this.argument = argument; }
+
+        @Override
+        double evaluate(Context context) { return - argument.evaluate(context); }
+
+    }
+
+    static final class Not extends Scalar {
+
+        private final Scalar argument;
+
+        Not(Scalar argument) { this.argument = argument; }
+
+        @Override
+        double evaluate(Context context) { return of( ! isTrue(argument.evaluate(context))); }
+
+    }
+
+    static final class Conditional extends Scalar {
+
+        private final Scalar condition, ifTrue, ifFalse;
+
+        Conditional(Scalar condition, Scalar ifTrue, Scalar ifFalse) {
+            this.condition = condition;
+            this.ifTrue = ifTrue;
+            this.ifFalse = ifFalse;
+        }
+
+        @Override
+        double evaluate(Context context) {
+            return isTrue(condition.evaluate(context)) ? ifTrue.evaluate(context) : ifFalse.evaluate(context);
+        }
+
+    }
+
+    static final class In extends Scalar {
+
+        private final Scalar argument;
+        private final double[] set;
+
+        In(Scalar argument, double[] set) {
+            this.argument = argument;
+            this.set = set;
+        }
+
+        @Override
+        double evaluate(Context context) {
+            double value = argument.evaluate(context);
+            for (double member : set)
+                if (value == member) return 1;
+            return 0;
+        }
+
+    }
+
+    static final class FunctionCall extends Scalar {
+
+        private final Function function;
+        private final Scalar x, y;
+
+        FunctionCall(Function function, Scalar x, Scalar y) {
+            this.function = function;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        double evaluate(Context context) { return function.evaluate(x.evaluate(context), y.evaluate(context)); }
+
+    }
+
+    /** The sum of the given scalars, such as the trees of a forest */
+    static final class Sum extends Scalar {
+
+        private final Scalar[] terms;
+
+        Sum(Scalar[] terms) { this.terms = terms; }
+
+        @Override
+        double evaluate(Context context) {
+            double sum = 0;
+            for (Scalar term : terms)
+                sum += term.evaluate(context);
+            return sum;
+        }
+
+    }
+
+    static final class Add extends Scalar {
+
+        private final Scalar x, y;
+
+        Add(Scalar x, Scalar y) { this.x = x; this.y = y; }
+
+        @Override
+        double evaluate(Context context) { return x.evaluate(context) + y.evaluate(context); }
+
+    }
+
+    static final class Subtract extends Scalar {
+
+        private final Scalar x, y;
+
+        Subtract(Scalar x, Scalar y) { this.x = x; this.y = y; }
+
+        @Override
+        double evaluate(Context context) { return x.evaluate(context) - y.evaluate(context); }
+
+    }
+
+    static final class Multiply extends Scalar {
+
+        private final Scalar x, y;
+
+        Multiply(Scalar x, Scalar y) { this.x = x; this.y = y; }
+
+        @Override
+        double evaluate(Context context) { return x.evaluate(context) * y.evaluate(context); }
+
+    }
+
+    static final class Divide extends Scalar {
+
+        private final Scalar x, y;
+
+        Divide(Scalar x, Scalar y) { this.x = x; this.y = y; }
+
+        @Override
+        double evaluate(Context context) { return x.evaluate(context) / y.evaluate(context); }
+
+    }
+
+    static final class Modulo extends Scalar {
+
+        private final Scalar x, y;
+
+        Modulo(Scalar x, Scalar y) { this.x = x; this.y = y; }
+
+        @Override
+        double evaluate(Context context) { return x.evaluate(context) % y.evaluate(context); }
+
+    }
+
+    static final class Or extends Scalar {
+
+        private final Scalar x, y;
+
+        Or(Scalar x, Scalar y) { this.x = x; this.y = y; }
+
+        @Override
+        double evaluate(Context context) { return of(isTrue(x.evaluate(context)) || isTrue(y.evaluate(context))); }
+
+    }
+
+    static final class And extends Scalar {
+
+        private final Scalar x, y;
+
+        And(Scalar x, Scalar y) { this.x = x; this.y = y; }
+
+        @Override
+        double evaluate(Context context) { return of(isTrue(x.evaluate(context)) && isTrue(y.evaluate(context))); }
+
+    }
+
+    static final class Comparison extends Scalar {
+
+        enum Type { LARGER_OR_EQUAL, LARGER, SMALLER_OR_EQUAL, SMALLER, APPROX_EQUAL, NOT_EQUAL, EQUAL }
+
+        private final Type type;
+        private final Scalar x, y;
+
+        Comparison(Type type, Scalar x, Scalar y) {
+            this.type = type;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        double evaluate(Context context) {
+            double xValue = x.evaluate(context);
+            double yValue = y.evaluate(context);
+            return of(switch (type) {
+                case LARGER_OR_EQUAL -> xValue >= yValue;
+                case LARGER -> xValue > yValue;
+                case SMALLER_OR_EQUAL -> xValue <= yValue;
+                case SMALLER -> xValue < yValue;
+                case APPROX_EQUAL -> approxEqual(xValue, yValue);
+                case NOT_EQUAL -> xValue != yValue;
+                case EQUAL -> xValue == yValue;
+            });
+        }
+
+        /** Same as approximate equality of double values */
+        private static boolean approxEqual(double x, double y) {
+            if (y < -1.0 || y > 1.0) {
+                x = Math.nextAfter(x/y, 1.0);
+                y = 1.0;
+            } else {
+                x = Math.nextAfter(x, y);
+            }
+            return x == y;
+        }
+
+    }
+
+    /** A decision tree branch on whether the value at an index is smaller than a constant */
+    static final class SmallerBranch extends Scalar {
+
+        private final int index;
+        private final double value;
+        private final Scalar ifTrue, ifFalse;
+
+        SmallerBranch(int index, double value, Scalar ifTrue, Scalar ifFalse) {
+            this.index = index;
+            this.value = value;
+            this.ifTrue = ifTrue;
+            this.ifFalse = ifFalse;
+        }
+
+        @Override
+        double evaluate(Context context) {
+            return context.getDouble(index) < value ? ifTrue.evaluate(context) : ifFalse.evaluate(context);
+        }
+
+    }
+
+    /** A decision tree branch on whether the value at an index is not larger than or equal to a constant */
+    static final class NotLargerOrEqualBranch extends Scalar {
+
+        private final int index;
+        private final double value;
+        private final Scalar ifTrue, ifFalse;
+
+        NotLargerOrEqualBranch(int index, double value, Scalar ifTrue, Scalar ifFalse) {
+            this.index = index;
+            this.value = value;
+            this.ifTrue = ifTrue;
+            this.ifFalse = ifFalse;
+        }
+
+        @Override
+        double evaluate(Context context) {
+            return ! (context.getDouble(index) >= value) ? ifTrue.evaluate(context) : ifFalse.evaluate(context);
+        }
+
+    }
+
+    /** A decision tree branch on whether the value at an index is equal to a constant */
+    static final class EqualBranch extends Scalar {
+
+        private final int index;
+        private final double value;
+        private final Scalar ifTrue, ifFalse;
+
+        EqualBranch(int index, double value, Scalar ifTrue, Scalar ifFalse) {
+            this.index = index;
+            this.value = value;
+            this.ifTrue = ifTrue;
+            this.ifFalse = ifFalse;
+        }
+
+        @Override
+        double evaluate(Context context) {
+            return context.getDouble(index) == value ? ifTrue.evaluate(context) : ifFalse.evaluate(context);
+        }
+
+    }
+
+    /** A decision tree branch on whether the value at an index is in a set of constants */
+    static final class InBranch extends Scalar {
+
+        private final int index;
+        private final double[] set;
+        private final Scalar ifTrue, ifFalse;
+
+        InBranch(int index, double[] set, Scalar ifTrue, Scalar ifFalse) {
+            this.index = index;
+            this.set = set;
+            this.ifTrue = ifTrue;
+            this.ifFalse = ifFalse;
+        }
+
+        @Override
+        double evaluate(Context context) {
+            double value = context.getDouble(index);
+            for (double member : set)
+                if (value == member) return ifTrue.evaluate(context);
+            return ifFalse.evaluate(context);
+        }
+
+    }
+
+}
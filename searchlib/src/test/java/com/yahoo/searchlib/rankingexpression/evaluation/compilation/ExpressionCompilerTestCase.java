@@ -0,0 +1,128 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.compilation;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleOnlyArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestNode;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import com.yahoo.searchlib.rankingexpression.rule.OperationNode;
+import com.yahoo.tensor.Tensor;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExpressionCompilerTestCase {
+
+    private static final List<String> expressions = List.of("a + b * c - a / 2 ^ 2 % 3 - -c",
+                                                            "if (a < b && !(c >= 1) || a ~= b, a, -b)",
+                                                            "max(a, b) + log(c) + pow(a, 2) + fmod(b, 2)",
+                                                            "a in [1, 2, 3]",
+                                                            "(a > b) + (a == 1) * (b != c) + (a <= c)",
+                                                            "if (a < 2, if (b < 2, 5, 6), 4) + if (b in [1, 3], 7, 8)",
+                                                            "if (a > 0, true, c > 2)",
+                                                            "10 * (a + 1.5)");
+
+    @Test
+    public void testCompiledExpressionsGiveTheSameResultAsInterpreting() throws ParseException {
+        for (String expressionString : expressions) {
+            RankingExpression expression = new RankingExpression(expressionString);
+            RankingExpression compiledForDoubles = new RankingExpression(expressionString);
+            DoubleOnlyArrayContext doubleContext = new DoubleOnlyArrayContext(compiledForDoubles, true);
+            OptimizationReport report = compilingOptimizer().optimize(compiledForDoubles, doubleContext);
+            assertEquals(expressionString, 1, report.getMetric("Compiled scalar expressions"));
+            assertTrue(compiledForDoubles.getRoot() instanceof CompiledNode);
+            RankingExpression compiled = new RankingExpression(expressionString);
+            ArrayContext context = new ArrayContext(compiled, true);
+            compilingOptimizer().optimize(compiled, context);
+
+            for (double[] values : List.of(new double[] { 1, 2, 3 }, new double[] { 2, 1, 0.5 }, new double[] { -3, 3, 1 })) {
+                String description = expressionString + " with values " + List.of(values[0], values[1], values[2]);
+                Value interpreted = expression.evaluate(bind(new MapContext(), values));
+                assertSameValue(description, interpreted, compiledForDoubles.evaluate(bind(doubleContext.clone(), values)));
+                assertSameValue(description, interpreted, compiled.evaluate(bind(context.clone(), values)));
+            }
+        }
+    }
+
+    @Test
+    public void testGBDTForestsAreCompiledToBranches() throws ParseException {
+        String gbdtString = "if (a < 2, if (b < 2, 5, 6), 4) + if (b in [1, 3], 7, 8) + if (c == 1, 1, if (!(a >= 0.5), 2, 3))";
+        RankingExpression expression = new RankingExpression(gbdtString);
+        RankingExpression compiled = new RankingExpression(gbdtString);
+        DoubleOnlyArrayContext context = new DoubleOnlyArrayContext(compiled, true);
+        OptimizationReport report = compilingOptimizer().optimize(compiled, context);
+        assertEquals(3, report.getMetric("Optimized GDBT trees"));
+        assertEquals(1, report.getMetric("Compiled scalar expressions"));
+        assertTrue(((CompiledNode)compiled.getRoot()).original() instanceof GBDTForestNode);
+
+        for (double[] values : List.of(new double[] { 1, 2, 3 }, new double[] { 0.3, 1, 1 }, new double[] { 2, 3, 0 })) {
+            assertSameValue(gbdtString, expression.evaluate(bind(new MapContext(), values)),
+                            compiled.evaluate(bind(context.clone(), values)));
+        }
+    }
+
+    @Test
+    public void testOnlyScalarSubexpressionsAreCompiled() throws ParseException {
+        String expressionString = "reduce(t, sum) * (a + b) + c";
+        RankingExpression expression = new RankingExpression(expressionString);
+        RankingExpression compiled = new RankingExpression(expressionString);
+        ArrayContext context = new ArrayContext(compiled);
+        OptimizationReport report = compilingOptimizer().optimize(compiled, context);
+        assertEquals(1, report.getMetric("Compiled scalar expressions"));
+        assertTrue(compiled.getRoot() instanceof OperationNode);
+        assertEquals(expression.toString(), compiled.toString());
+
+        context.put("t", new TensorValue(Tensor.from("tensor(x[2]):[1, 2]")));
+        MapContext mapContext = new MapContext();
+        mapContext.put("t", new TensorValue(Tensor.from("tensor(x[2]):[1, 2]")));
+        double[] values = { 1, 2, 3 };
+        assertSameValue(expressionString, expression.evaluate(bind(mapContext, values)), compiled.evaluate(bind(context, values)));
+    }
+
+    @Test
+    public void testNonScalarValuesAreInterpreted() throws ParseException {
+        String expressionString = "a * 2 + b";
+        RankingExpression compiled = new RankingExpression(expressionString);
+        ArrayContext context = new ArrayContext(compiled);
+        compilingOptimizer().optimize(compiled, context);
+        assertTrue(compiled.getRoot() instanceof CompiledNode);
+
+        context.put("a", new TensorValue(Tensor.from("tensor(x[2]):[1, 2]")));
+        context.put("b", 1.0);
+        assertEquals(Tensor.from("tensor(x[2]):[3, 5]"), compiled.evaluate(context).asTensor());
+        context.put("a", 3.0);
+        assertEquals(7.0, compiled.evaluate(context).asDouble(), 0);
+        assertFalse(compiled.evaluate(context) instanceof TensorValue);
+    }
+
+    private static ExpressionOptimizer compilingOptimizer() {
+        ExpressionOptimizer optimizer = new ExpressionOptimizer();
+        optimizer.getOptimizer(ExpressionCompiler.class).setEnabled(true);
+        return optimizer;
+    }
+
+    private static Context bind(Context context, double[] values) {
+        context.put("a", values[0]);
+        context.put("b", values[1]);
+        context.put("c", values[2]);
+        return context;
+    }
+
+    private static void assertSameValue(String description, Value expected, Value actual) {
+        assertEquals(description, expected.asDouble(), actual.asDouble(), 0.000000001);
+        assertEquals(description, expected instanceof BooleanValue, actual instanceof BooleanValue);
+    }
+
+}
@@ -26,7 +26,7 @@ public final class ClusterState implements Cloneable {
      * Maintains a bitset where all non-down nodes have a bit set. All nodes that differ from defaultUp
      * and defaultDown are stored explicitly in a hash map.
      */
-    private static class Nodes {
+    static class Nodes {
         private int logicalNodeCount;
         private final NodeType type;
         private final BitSet upNodes;
@@ -51,6 +51,24 @@ public final class ClusterState implements Cloneable {
 
         int getLogicalNodeCount() { return logicalNodeCount; }
 
+        BitSet upNodes() { return upNodes; }
+
+        Map<Integer, NodeState> explicitNodeStates() { return nodeStates; }
+
+        /** Sets the logical node count, dropping any state of nodes at or above the new count. */
+        void setLogicalNodeCount(int count) {
+            if (count < logicalNodeCount) {
+                upNodes.clear(count, logicalNodeCount);
+                nodeStates.keySet().removeIf(index -> index >= count);
+            }
+            logicalNodeCount = count;
+        }
+
+        /** Sets the state of a node without validation or changing the node count. Used when decoding. */
+        void restoreNodeState(int index, NodeState ns) {
+            setNodeStateInternal(index, ns);
+        }
+
         NodeState getNodeState(int index) {
             NodeState ns = nodeStates.get(index);
             if (ns != null) return ns;
@@ -173,6 +191,9 @@ public final class ClusterState implements Cloneable {
 
     private final Nodes distributorNodes;
     private final Nodes storageNodes;
+    // Encoded node sections of a compact binary cluster state which are decoded on first access.
+    // States are read from several threads, so this is only cleared, under the lock of this, once decoded.
+    private volatile CompactClusterStateCodec.PendingNodes pendingNodes = null;
 
     public ClusterState(String serialized) throws ParseException {
         distributorNodes = new Nodes(NodeType.DISTRIBUTOR);
@@ -181,6 +202,7 @@ public final class ClusterState implements Cloneable {
     }
 
     public ClusterState(ClusterState b) {
+        b.decodePendingNodes();
         version = b.version;
         state = b.state;
         description = b.description;
@@ -189,7 +211,37 @@ public final class ClusterState implements Cloneable {
         storageNodes = new Nodes(b.storageNodes);
     }
 
-    private Nodes getNodes(NodeType type) {
+    /** Creates an empty cluster state to be populated by {@link CompactClusterStateCodec}. */
+    ClusterState(int version, State state, int distributionBits, String description) {
+        this.version = version;
+        this.state = state;
+        this.distributionBits = distributionBits;
+        this.description = description;
+        distributorNodes = new Nodes(NodeType.DISTRIBUTOR);
+        storageNodes = new Nodes(NodeType.STORAGE);
+    }
+
+    void setPendingNodes(CompactClusterStateCodec.PendingNodes pendingNodes) {
+        this.pendingNodes = pendingNodes;
+    }
+
+    private void decodePendingNodes() {
+        if (pendingNodes == null) return;
+        synchronized (this) {
+            CompactClusterStateCodec.PendingNodes pending = pendingNodes;
+            if (pending == null) return;
+            pending.decodeInto(this);
+            pendingNodes = null;
+        }
+    }
+
+    Nodes getNodes(NodeType type) {
+        decodePendingNodes();
+        return getUndecodedNodes(type);
+    }
+
+    /** Returns the nodes of the given type, without decoding any pending nodes into them first */
+    Nodes getUndecodedNodes(NodeType type) {
         return (type == NodeType.STORAGE)
                 ? storageNodes
                 : (type == NodeType.DISTRIBUTOR) ? distributorNodes : null;
@@ -218,6 +270,8 @@ public final class ClusterState implements Cloneable {
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof ClusterState other)) { return false; }
+        decodePendingNodes();
+        other.decodePendingNodes();
         if (version != other.version
             || !state.equals(other.state)
             || distributionBits != other.distributionBits
@@ -231,6 +285,7 @@ public final class ClusterState implements Cloneable {
 
     @Override
     public int hashCode() {
+        decodePendingNodes();
         return java.util.Objects.hash(version, state, distributionBits, distributorNodes, storageNodes);
     }
 
@@ -262,6 +317,8 @@ public final class ClusterState implements Cloneable {
         if (!metaInformationSimilarTo(other)) {
             return false;
         }
+        decodePendingNodes();
+        other.decodePendingNodes();
         if (distributorNodes.notSimilarTo(other.distributorNodes, nodeStateCmp)) return false;
         if (storageNodes.notSimilarTo(other.storageNodes, nodeStateCmp)) return false;
         return true;
@@ -515,6 +572,7 @@ public final class ClusterState implements Cloneable {
     public String toString() { return toString(false); }
 
     public String toString(boolean verbose) {
+        decodePendingNodes();
         StringBuilder sb = new StringBuilder();
 
         if (version != 0) {
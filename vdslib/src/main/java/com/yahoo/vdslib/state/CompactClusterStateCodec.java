@@ -0,0 +1,225 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vdslib.state;
+
+import com.yahoo.io.GrowableByteBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compact binary encoding of cluster states, as an alternative to the textual "distributor:N storage:N .i.s:d" form.
+ *
+ * For each node type the encoding contains the logical node count, a bitset of the nodes which are not down, and a
+ * sparse list of the nodes whose state differs from the default up or down state (capacity, init progress,
+ * description etc.). Decoding of the node sections is deferred until a node level property of the returned
+ * cluster state is first accessed, so receivers which only look at the version and cluster-wide state
+ * never pay for the per-node state objects.
+ *
+ * A cluster state may also be encoded as a delta from another cluster state, which then only contains the
+ * nodes whose state differs between the two. Decoding a delta requires the exact base state it was encoded against.
+ *
+ * The encoding is only understood by the Java implementation of ClusterState.
+ */
+public final class CompactClusterStateCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte KIND_FULL = 0;
+    private static final byte KIND_DELTA = 1;
+
+    private static final byte HAS_CAPACITY = 0x01;
+    private static final byte HAS_INIT_PROGRESS = 0x02;
+    private static final byte HAS_START_TIMESTAMP = 0x04;
+    private static final byte HAS_MIN_USED_BITS = 0x08;
+    private static final byte HAS_DESCRIPTION = 0x10;
+
+    private static final NodeType[] nodeTypes = { NodeType.DISTRIBUTOR, NodeType.STORAGE };
+
+    private CompactClusterStateCodec() {}
+
+    /** Returns the compact binary encoding of the given cluster state. */
+    public static byte[] encode(ClusterState state) {
+        GrowableByteBuffer buffer = new GrowableByteBuffer(256);
+        writeHeader(buffer, KIND_FULL, state);
+        for (NodeType type : nodeTypes) {
+            ClusterState.Nodes nodes = state.getNodes(type);
+            buffer.putInt1_4Bytes(nodes.getLogicalNodeCount());
+            long[] upWords = nodes.upNodes().toLongArray();
+            buffer.putInt1_4Bytes(upWords.length);
+            for (long word : upWords) buffer.putLong(word);
+            Map<Integer, NodeState> exceptions = new TreeMap<>(nodes.explicitNodeStates());
+            buffer.putInt1_4Bytes(exceptions.size());
+            exceptions.forEach((index, nodeState) -> writeNodeState(buffer, index, nodeState));
+        }
+        return toArray(buffer);
+    }
+
+    /**
+     * Returns a cluster state decoded from the given compact binary encoding. Only the cluster-wide
+     * properties are decoded immediately; node states are decoded on first access.
+     *
+     * @throws IllegalArgumentException if the input is not a full compact cluster state encoding
+     */
+    public static ClusterState decode(byte[] encoded) {
+        GrowableByteBuffer buffer = GrowableByteBuffer.wrap(encoded);
+        if (readHeaderKind(buffer) != KIND_FULL)
+            throw new IllegalArgumentException("Expected a full cluster state encoding, got a delta");
+        ClusterState state = readClusterWideState(buffer);
+        state.setPendingNodes(new PendingNodes(encoded, buffer.position()));
+        return state;
+    }
+
+    /**
+     * Returns the compact binary encoding of the given cluster state as a delta from the given base state.
+     * The encoding only contains the nodes whose state differs between the two.
+     */
+    public static byte[] encodeDelta(ClusterState base, ClusterState state) {
+        GrowableByteBuffer buffer = new GrowableByteBuffer(64);
+        writeHeader(buffer, KIND_DELTA, state);
+        buffer.putInt(base.getVersion());
+        for (NodeType type : nodeTypes) {
+            int nodeCount = state.getNodeCount(type);
+            Map<Integer, NodeState> changed = new TreeMap<>();
+            for (int i = 0; i < nodeCount; i++) {
+                Node node = new Node(type, i);
+                NodeState nodeState = state.getNodeState(node);
+                if ( ! identical(base.getNodeState(node), nodeState)) {
+                    changed.put(i, nodeState);
+                }
+            }
+            buffer.putInt1_4Bytes(nodeCount);
+            buffer.putInt1_4Bytes(changed.size());
+            changed.forEach((index, nodeState) -> writeNodeState(buffer, index, nodeState));
+        }
+        return toArray(buffer);
+    }
+
+    /**
+     * Returns the cluster state decoded from a delta encoding against the given base state.
+     *
+     * @throws IllegalArgumentException if the input is not a delta, or the delta was not encoded against
+     *                                  a base state with the same version as the given one
+     */
+    public static ClusterState decodeDelta(ClusterState base, byte[] encoded) {
+        GrowableByteBuffer buffer = GrowableByteBuffer.wrap(encoded);
+        if (readHeaderKind(buffer) != KIND_DELTA)
+            throw new IllegalArgumentException("Expected a delta cluster state encoding, got a full state");
+        ClusterState header = readClusterWideState(buffer);
+        int baseVersion = buffer.getInt();
+        if (baseVersion != base.getVersion())
+            throw new IllegalArgumentException("Delta was encoded against cluster state version " + baseVersion +
+                                               ", but base cluster state has version " + base.getVersion());
+
+        ClusterState state = new ClusterState(base);
+        state.setVersion(header.getVersion());
+        state.setClusterState(header.getClusterState());
+        state.setDistributionBits(header.getDistributionBitCount());
+        state.setDescription(header.getDescription());
+        for (NodeType type : nodeTypes) {
+            ClusterState.Nodes nodes = state.getNodes(type);
+            nodes.setLogicalNodeCount(buffer.getInt1_4Bytes());
+            int changed = buffer.getInt1_4Bytes();
+            for (int i = 0; i < changed; i++) {
+                int index = buffer.getInt1_4Bytes();
+                nodes.restoreNodeState(index, readNodeState(buffer, type));
+            }
+        }
+        return state;
+    }
+
+    /** Node sections of a compact encoding which have yet to be decoded into a cluster state. */
+    static final class PendingNodes {
+
+        private final byte[] encoded;
+        private final int offset;
+
+        private PendingNodes(byte[] encoded, int offset) {
+            this.encoded = encoded;
+            this.offset = offset;
+        }
+
+        void decodeInto(ClusterState state) {
+            GrowableByteBuffer buffer = GrowableByteBuffer.wrap(encoded);
+            buffer.position(offset);
+            for (NodeType type : nodeTypes) {
+                ClusterState.Nodes nodes = state.getUndecodedNodes(type);
+                nodes.setLogicalNodeCount(buffer.getInt1_4Bytes());
+                long[] upWords = new long[buffer.getInt1_4Bytes()];
+                for (int i = 0; i < upWords.length; i++) upWords[i] = buffer.getLong();
+                nodes.upNodes().or(BitSet.valueOf(upWords));
+                int exceptions = buffer.getInt1_4Bytes();
+                for (int i = 0; i < exceptions; i++) {
+                    int index = buffer.getInt1_4Bytes();
+                    nodes.restoreNodeState(index, readNodeState(buffer, type));
+                }
+            }
+        }
+
+    }
+
+    private static void writeHeader(GrowableByteBuffer buffer, byte kind, ClusterState state) {
+        buffer.put(FORMAT_VERSION);
+        buffer.put(kind);
+        buffer.putInt(state.getVersion());
+        buffer.put((byte) state.getClusterState().serialize().charAt(0));
+        buffer.put((byte) state.getDistributionBitCount());
+        buffer.putUtf8String(state.getDescription());
+    }
+
+    private static byte readHeaderKind(GrowableByteBuffer buffer) {
+        byte formatVersion = buffer.get();
+        if (formatVersion != FORMAT_VERSION)
+            throw new IllegalArgumentException("Unsupported compact cluster state format version " + formatVersion);
+        return buffer.get();
+    }
+
+    private static ClusterState readClusterWideState(GrowableByteBuffer buffer) {
+        int version = buffer.getInt();
+        State state = State.get(String.valueOf((char) buffer.get()));
+        int distributionBits = buffer.get();
+        String description = buffer.getUtf8String();
+        return new ClusterState(version, state, distributionBits, description);
+    }
+
+    private static void writeNodeState(GrowableByteBuffer buffer, int index, NodeState nodeState) {
+        byte flags = 0;
+        if (nodeState.getCapacity() != 1.0) flags |= HAS_CAPACITY;
+        if (nodeState.getInitProgress() != 1.0) flags |= HAS_INIT_PROGRESS;
+        if (nodeState.getStartTimestamp() != 0) flags |= HAS_START_TIMESTAMP;
+        if (nodeState.getMinUsedBits() != 16) flags |= HAS_MIN_USED_BITS;
+        if (nodeState.hasDescription()) flags |= HAS_DESCRIPTION;
+
+        buffer.putInt1_4Bytes(index);
+        buffer.put((byte) nodeState.getState().serialize().charAt(0));
+        buffer.put(flags);
+        if ((flags & HAS_CAPACITY) != 0) buffer.putDouble(nodeState.getCapacity());
+        if ((flags & HAS_INIT_PROGRESS) != 0) buffer.putDouble(nodeState.getInitProgress());
+        if ((flags & HAS_START_TIMESTAMP) != 0) buffer.putLong(nodeState.getStartTimestamp());
+        if ((flags & HAS_MIN_USED_BITS) != 0) buffer.put((byte) nodeState.getMinUsedBits());
+        if ((flags & HAS_DESCRIPTION) != 0) buffer.putUtf8String(nodeState.getDescription());
+    }
+
+    private static NodeState readNodeState(GrowableByteBuffer buffer, NodeType type) {
+        NodeState nodeState = new NodeState(type, State.get(String.valueOf((char) buffer.get())));
+        byte flags = buffer.get();
+        if ((flags & HAS_CAPACITY) != 0) nodeState.setCapacity((float) buffer.getDouble());
+        if ((flags & HAS_INIT_PROGRESS) != 0) nodeState.setInitProgress((float) buffer.getDouble());
+        if ((flags & HAS_START_TIMESTAMP) != 0) nodeState.setStartTimestamp(buffer.getLong());
+        if ((flags & HAS_MIN_USED_BITS) != 0) nodeState.setMinUsedBits(buffer.get());
+        if ((flags & HAS_DESCRIPTION) != 0) nodeState.setDescription(buffer.getUtf8String());
+        return nodeState;
+    }
+
+    /** NodeState.equals does not consider the description, but a delta must preserve it. */
+    private static boolean identical(NodeState a, NodeState b) {
+        return a.equals(b) && a.getDescription().equals(b.getDescription());
+    }
+
+    private static byte[] toArray(GrowableByteBuffer buffer) {
+        ByteBuffer bytes = buffer.getByteBuffer();
+        return Arrays.copyOf(bytes.array(), bytes.position());
+    }
+
+}
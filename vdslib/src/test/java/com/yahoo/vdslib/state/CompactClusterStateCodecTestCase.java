@@ -0,0 +1,128 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vdslib.state;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class CompactClusterStateCodecTestCase {
+
+    private static ClusterState roundtrip(String serialized) {
+        ClusterState state = ClusterState.stateFromString(serialized);
+        ClusterState decoded = CompactClusterStateCodec.decode(CompactClusterStateCodec.encode(state));
+        assertEquals(state, decoded);
+        assertEquals(state.toString(true), decoded.toString(true));
+        return decoded;
+    }
+
+    @Test
+    public void testRoundtrip() {
+        roundtrip("");
+        roundtrip("version:123 cluster:d bits:20 distributor:3 storage:5");
+        roundtrip("distributor:10 .0.s:d .3.s:m .3.m:foo\\x20bar storage:10 .1.s:i .1.i:0.5 .2.c:1.5 .4.t:12345 .9.s:r");
+        roundtrip("distributor:200 .120.s:d storage:200 .7.s:d .7.m:gone .199.s:m");
+    }
+
+    @Test
+    public void testRoundtripPreservesValuesWhichAreNotExactFloats() {
+        String serialized = "distributor:3 storage:3 .0.c:0.1 .1.s:i .1.i:0.3 .2.c:2.7";
+        ClusterState state = ClusterState.stateFromString(serialized);
+        ClusterState decoded = roundtrip(serialized);
+        for (int i = 0; i < 3; i++) {
+            Node node = new Node(NodeType.STORAGE, i);
+            assertEquals(state.getNodeState(node).getCapacity(), decoded.getNodeState(node).getCapacity(), 0);
+            assertEquals(state.getNodeState(node).getInitProgress(), decoded.getNodeState(node).getInitProgress(), 0);
+        }
+    }
+
+    @Test
+    public void testConcurrentFirstAccessSeesFullyDecodedNodes() throws Exception {
+        ClusterState state = ClusterState.stateFromString("distributor:300 .5.s:d storage:300 .7.s:m .299.c:0.1");
+        byte[] encoded = CompactClusterStateCodec.encode(state);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 100; round++) {
+                ClusterState decoded = CompactClusterStateCodec.decode(encoded);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<String>> results = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    results.add(executor.submit(() -> { start.await(); return decoded.toString(true); }));
+                }
+                start.countDown();
+                for (Future<String> result : results)
+                    assertEquals(state.toString(true), result.get());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRoundtripPreservesDescriptionsAndMinUsedBits() {
+        ClusterState state = ClusterState.stateFromString("distributor:2 storage:2");
+        state.setDescription("all is well");
+        state.setNodeState(new Node(NodeType.STORAGE, 1),
+                           new NodeState(NodeType.STORAGE, State.UP).setMinUsedBits(14).setDescription("tiny"));
+        ClusterState decoded = CompactClusterStateCodec.decode(CompactClusterStateCodec.encode(state));
+        assertEquals(state, decoded);
+        assertEquals("all is well", decoded.getDescription());
+        assertEquals(14, decoded.getNodeState(new Node(NodeType.STORAGE, 1)).getMinUsedBits());
+        assertEquals("tiny", decoded.getNodeState(new Node(NodeType.STORAGE, 1)).getDescription());
+    }
+
+    @Test
+    public void testNodesAreDecodedLazily() {
+        ClusterState state = ClusterState.stateFromString("version:7 distributor:4 .1.s:d storage:4 .2.s:m");
+        ClusterState decoded = CompactClusterStateCodec.decode(CompactClusterStateCodec.encode(state));
+        assertEquals(7, decoded.getVersion());
+        assertEquals(State.UP, decoded.getClusterState());
+
+        decoded.setNodeState(new Node(NodeType.STORAGE, 5), new NodeState(NodeType.STORAGE, State.UP));
+        assertEquals("version:7 distributor:4 .1.s:d storage:6 .2.s:m .4.s:d", decoded.toString());
+    }
+
+    @Test
+    public void testDeltaRoundtrip() {
+        ClusterState base = ClusterState.stateFromString("version:10 distributor:5 .2.s:d storage:5 .3.s:m .3.m:upgrade");
+        ClusterState next = ClusterState.stateFromString("version:11 distributor:6 storage:4 .0.s:d .1.c:0.5");
+        byte[] delta = CompactClusterStateCodec.encodeDelta(base, next);
+        ClusterState decoded = CompactClusterStateCodec.decodeDelta(base, delta);
+        assertEquals(next, decoded);
+        assertEquals(next.toString(true), decoded.toString(true));
+    }
+
+    @Test
+    public void testDeltaIsSmallerThanFullEncodingForSmallChanges() {
+        StringBuilder sb = new StringBuilder("version:1 distributor:500 storage:500");
+        for (int i = 0; i < 500; i += 3) sb.append(" .").append(i).append(".s:m .").append(i).append(".m:maintenance");
+        ClusterState base = ClusterState.stateFromString(sb.toString());
+        ClusterState next = base.clone();
+        next.setVersion(2);
+        next.setNodeState(new Node(NodeType.STORAGE, 1), new NodeState(NodeType.STORAGE, State.DOWN));
+
+        byte[] delta = CompactClusterStateCodec.encodeDelta(base, next);
+        assertTrue(delta.length < CompactClusterStateCodec.encode(next).length / 10);
+        assertEquals(next, CompactClusterStateCodec.decodeDelta(base, delta));
+    }
+
+    @Test
+    public void testDeltaRequiresMatchingBaseVersion() {
+        ClusterState base = ClusterState.stateFromString("version:10 distributor:5 storage:5");
+        ClusterState next = ClusterState.stateFromString("version:11 distributor:5 storage:5 .1.s:d");
+        byte[] delta = CompactClusterStateCodec.encodeDelta(base, next);
+        assertThrows(IllegalArgumentException.class,
+                     () -> CompactClusterStateCodec.decodeDelta(ClusterState.stateFromString("version:9"), delta));
+        assertThrows(IllegalArgumentException.class, () -> CompactClusterStateCodec.decode(delta));
+    }
+
+}
@@ -0,0 +1,191 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.restapi.resource;
+
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.config.DocumentmanagerConfig;
+import com.yahoo.document.serialization.DocumentStreamWriter;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.messagebus.Trace;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * <p>A response writer where puts and removes are written in the binary document stream format
+ * of {@link DocumentStreamWriter}, which is read by {@link com.yahoo.document.serialization.DocumentStreamReader}.
+ * This avoids the cost of rendering documents as JSON, and of the larger size of JSON, on bulk exports.</p>
+ *
+ * <p>Records are written in zstd frames once a frame is full, and the rest are written when this is closed.
+ * Buffered documents are acked immediately, except the one filling a frame, which is acked when the frame
+ * is written. This bounds the data buffered by this to a frame, while visiting is held back by slow clients.
+ * Like {@link StreamingJsonLinesResponse}, continuation tokens are written inline as they are updated.</p>
+ *
+ * <p>Frames are written outside the lock, but in the order they are taken, by whichever thread is not
+ * already writing, so a continuation token is never received before the documents it covers.</p>
+ */
+class BinaryDocumentStreamResponse implements StreamableJsonResponse {
+
+    private final ResponseWriter responseWriter;
+    private final DocumentStreamWriter writer;
+    private final Object lock = new Object();
+    private VisitorContinuation pendingContinuation = null;
+    private final Deque<Frame> pendingFrames = new ArrayDeque<>(); // Guarded by lock
+    private boolean writingFrames = false; // Guarded by lock
+    private boolean closeRequested = false; // Guarded by lock
+
+    BinaryDocumentStreamResponse(ResponseWriter responseWriter, DocumentmanagerConfig documentTypes) {
+        this(responseWriter, documentTypes, DocumentStreamWriter.DEFAULT_FRAME_SIZE);
+    }
+
+    BinaryDocumentStreamResponse(ResponseWriter responseWriter, DocumentmanagerConfig documentTypes, int frameSize) {
+        this.responseWriter = responseWriter;
+        this.writer = new DocumentStreamWriter(documentTypes, frameSize);
+        responseWriter.write(writer.takeFrame(), null); // The header
+    }
+
+    @Override
+    public void commit(int status, boolean fullyApplied) throws IOException {
+        responseWriter.commit(status, "application/octet-stream", fullyApplied);
+    }
+
+    @Override
+    public void writeDocumentsArrayStart() {
+        // Ignored; not part of the binary format
+    }
+
+    @Override
+    public void writeDocumentsArrayEnd() {
+        // Ignored; not part of the binary format
+    }
+
+    @Override
+    public void writeDocumentValue(Document document, CompletionHandler completionHandler) {
+        write(writer -> writer.writePut(document), completionHandler);
+    }
+
+    @Override
+    public void writeDocumentRemoval(DocumentId id, CompletionHandler completionHandler) {
+        write(writer -> writer.writeRemove(id), completionHandler);
+    }
+
+    private void write(Consumer<DocumentStreamWriter> operationWriter, CompletionHandler completionHandler) {
+        boolean frameTaken = false;
+        synchronized (lock) {
+            operationWriter.accept(writer);
+            if (pendingContinuation != null) {
+                writeContinuation(pendingContinuation);
+                pendingContinuation = null;
+            }
+            if (writer.isFrameFull()) {
+                pendingFrames.add(new Frame(writer.takeFrame(), completionHandler));
+                frameTaken = true;
+            }
+        }
+        if (frameTaken)
+            writeFrames();
+        else if (completionHandler != null)
+            completionHandler.completed();
+    }
+
+    /**
+     * Writes all pending frames in order, unless another thread is already doing so, and closes the response
+     * writer after the last frame, if this is closed. Frames are written outside the lock to avoid the locking
+     * cycle described in StreamingJsonLinesResponse. Completion handlers may write more frames recursively,
+     * which are then written by the outer invocation.
+     */
+    private void writeFrames() {
+        synchronized (lock) {
+            if (writingFrames) return;
+            writingFrames = true;
+        }
+        while (true) {
+            Frame frame;
+            boolean close;
+            synchronized (lock) {
+                frame = pendingFrames.poll();
+                close = frame == null && closeRequested;
+                if (frame == null) {
+                    writingFrames = false;
+                    closeRequested = false;
+                    if ( ! close) return;
+                }
+            }
+            if (close) {
+                try {
+                    responseWriter.close();
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            responseWriter.write(frame.buffer(), frame.completionHandler());
+        }
+    }
+
+    @Override
+    public void reportUpdatedContinuation(Supplier<VisitorContinuation> continuationSupplier) {
+        // Called within the visitor session lock: Buffer it up to write it with the next put or remove.
+        VisitorContinuation continuation = continuationSupplier.get();
+        synchronized (lock) {
+            pendingContinuation = continuation;
+        }
+    }
+
+    private void writeContinuation(VisitorContinuation continuation) {
+        writer.writeContinuation(continuation.hasRemaining() ? continuation.token() : "", continuation.percentFinished());
+    }
+
+    @Override
+    public void writeEpilogueContinuation(VisitorContinuation continuation) {
+        synchronized (lock) {
+            writeContinuation(continuation);
+        }
+    }
+
+    @Override
+    public void writeTrace(Trace trace) {
+        synchronized (lock) {
+            writer.writeTrace(trace.toString());
+        }
+    }
+
+    @Override
+    public void writeMessage(String message) {
+        synchronized (lock) {
+            writer.writeMessage(message);
+        }
+    }
+
+    @Override
+    public void writeDocumentCount(long count) {
+        synchronized (lock) {
+            writer.writeDocumentCount(count);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            ByteBuffer frame = writer.takeFrame();
+            if (frame.hasRemaining())
+                pendingFrames.add(new Frame(frame, null));
+            closeRequested = true;
+        }
+        try {
+            writeFrames();
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record Frame(ByteBuffer buffer, CompletionHandler completionHandler) { }
+
+}
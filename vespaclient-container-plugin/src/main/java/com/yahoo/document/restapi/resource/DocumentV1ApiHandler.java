@@ -4,6 +4,7 @@ package com.yahoo.document.restapi.resource;
 import ai.vespa.utils.BytesQuantity;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.StreamReadConstraints;
 import com.yahoo.cloud.config.ClusterListConfig;
 import com.yahoo.component.annotation.Inject;
@@ -11,6 +12,7 @@ import com.yahoo.concurrent.DaemonThreadFactory;
 import com.yahoo.concurrent.SystemTimer;
 import com.yahoo.container.core.HandlerMetricContextUtil;
 import com.yahoo.container.core.documentapi.VespaDocumentAccess;
+import com.yahoo.container.jdisc.JsonContentChannel;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentPut;
@@ -54,9 +56,7 @@ import com.yahoo.jdisc.Response.Status;
 import com.yahoo.jdisc.handler.AbstractRequestHandler;
 import com.yahoo.jdisc.handler.CompletionHandler;
 import com.yahoo.jdisc.handler.ContentChannel;
-import com.yahoo.jdisc.handler.ReadableContentChannel;
 import com.yahoo.jdisc.handler.ResponseHandler;
-import com.yahoo.jdisc.handler.UnsafeContentInputStream;
 import com.yahoo.jdisc.http.HttpRequest;
 import com.yahoo.jdisc.http.HttpRequest.Method;
 import com.yahoo.messagebus.DynamicThrottlePolicy;
@@ -73,7 +73,6 @@ import com.yahoo.yolean.Exceptions;
 import com.yahoo.yolean.Exceptions.RunnableThrowingIOException;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.time.Clock;
 import java.time.Duration;
@@ -96,7 +95,6 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.function.BiConsumer;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -180,6 +178,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     private final Metric metric;
     private final DocumentApiMetrics metrics;
     private final DocumentOperationParser parser;
+    private final DocumentmanagerConfig documentTypes;
     private final long maxThrottled;
     private final long maxThrottledAgeNS;
     private final long maxThrottledTotalBytes;
@@ -215,6 +214,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         this.clock = clock;
         this.visitTimeout = visitTimeout;
         this.parser = new DocumentOperationParser(documentmanagerConfig);
+        this.documentTypes = documentmanagerConfig;
         this.metric = metric;
         this.metrics = new DocumentApiMetrics(metricReceiver, "documentV1");
         this.maxThrottled = executorConfig.maxThrottled();
@@ -425,14 +425,14 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     private ContentChannel putDocuments(HttpRequest request, DocumentPath path, ResponseHandler handler) {
         disallow(request, DRY_RUN);
-        return new ForwardingContentChannel((bytesRead, in) -> {
+        return new JsonContentChannel(jsonFactory, (bytesRead, json) -> {
             enqueueAndDispatch(request, handler, bytesRead, () -> {
                 StorageCluster cluster = resolveCluster(Optional.of(requireProperty(request, CLUSTER)), clusters);
                 VisitorParameters parameters = parseParameters(request, path);
                 parameters.setFieldSet(DocIdOnly.NAME);
                 String type = path.documentType().orElseThrow(() -> new IllegalStateException("Document type must be specified for mass updates"));
                 IdIdString dummyId = new IdIdString("dummy", type, "", "");
-                ParsedDocumentOperation update = parser.parseUpdate(in, dummyId.toString());
+                ParsedDocumentOperation update = parser.parseUpdate(json, dummyId.toString());
                 update.operation().setCondition(new TestAndSetCondition(requireProperty(request, SELECTION)));
                 return () -> {
                     visitAndUpdate(request, parameters, update.fullyApplied(), handler, (DocumentUpdate)update.operation(), cluster.name());
@@ -488,9 +488,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             return ignoredContent;
         }
 
-        return new ForwardingContentChannel((bytesRead, in) -> {
+        return new JsonContentChannel(jsonFactory, (bytesRead, json) -> {
             enqueueAndDispatch(request, handler, bytesRead, () -> {
-                ParsedDocumentOperation parsed = parser.parsePut(in, path.id().toString());
+                ParsedDocumentOperation parsed = parser.parsePut(json, path.id().toString());
                 DocumentPut put = (DocumentPut)parsed.operation();
                 getProperty(request, CONDITION).map(TestAndSetCondition::new).ifPresent(put::setCondition);
                 getProperty(request, CREATE, booleanParser).ifPresent(put::setCreateIfNonExistent);
@@ -513,9 +513,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             return ignoredContent;
         }
 
-        return new ForwardingContentChannel((bytesRead, in) -> {
+        return new JsonContentChannel(jsonFactory, (bytesRead, json) -> {
             enqueueAndDispatch(request, handler, bytesRead, () -> {
-                ParsedDocumentOperation parsed = parser.parseUpdate(in, path.id().toString());
+                ParsedDocumentOperation parsed = parser.parseUpdate(json, path.id().toString());
                 DocumentUpdate update = (DocumentUpdate)parsed.operation();
                 getProperty(request, CONDITION).map(TestAndSetCondition::new).ifPresent(update::setCondition);
                 getProperty(request, CREATE, booleanParser).ifPresent(update::setCreateIfNonExistent);
@@ -840,54 +840,6 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         private DispatchException(Throwable cause) { super(cause); }
     }
 
-    /** Readable content channel which forwards data to a reader when closed. */
-    static class ForwardingContentChannel implements ContentChannel {
-
-        private final ReadableContentChannel delegate = new ReadableContentChannel();
-        private final BiConsumer<Long, InputStream> reader;
-        private final AtomicLong bytesRead = new AtomicLong(0);
-        private volatile boolean errorReported = false;
-
-        public ForwardingContentChannel(BiConsumer<Long, InputStream> reader) {
-            this.reader = reader;
-        }
-
-        /** Write is complete when we have stored the buffer — call completion handler. */
-        @Override
-        public void write(ByteBuffer buf, CompletionHandler handler) {
-            try {
-                bytesRead.addAndGet(buf.remaining());
-                delegate.write(buf, logException);
-                handler.completed();
-            }
-            catch (Exception e) {
-                handler.failed(e);
-            }
-        }
-
-        /** Close is complete when we have closed the buffer. */
-        @Override
-        public void close(CompletionHandler handler) {
-            try {
-                delegate.close(logException);
-                if (!errorReported) {
-                    reader.accept(bytesRead.get(), new UnsafeContentInputStream(delegate));
-                }
-                handler.completed();
-            }
-            catch (Exception e) {
-                handler.failed(e);
-            }
-        }
-
-        @Override
-        public void onError(Throwable error) {
-            // Jdisc will automatically generate an error response in this scenario
-            log.log(FINE, error, () -> "ContentChannel.onError(): " + error.getMessage());
-            errorReported = true;
-        }
-    }
-
     class DocumentOperationParser {
 
         private final DocumentTypeManager manager;
@@ -896,17 +848,17 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             this.manager = new DocumentTypeManager(config);
         }
 
-        ParsedDocumentOperation parsePut(InputStream inputStream, String docId) {
-            return parse(inputStream, docId, DocumentOperationType.PUT);
+        ParsedDocumentOperation parsePut(JsonParser jsonParser, String docId) {
+            return parse(jsonParser, docId, DocumentOperationType.PUT);
         }
 
-        ParsedDocumentOperation parseUpdate(InputStream inputStream, String docId)  {
-            return parse(inputStream, docId, DocumentOperationType.UPDATE);
+        ParsedDocumentOperation parseUpdate(JsonParser jsonParser, String docId)  {
+            return parse(jsonParser, docId, DocumentOperationType.UPDATE);
         }
 
-        private ParsedDocumentOperation parse(InputStream inputStream, String docId, DocumentOperationType operation) {
+        private ParsedDocumentOperation parse(JsonParser jsonParser, String docId, DocumentOperationType operation) {
             try {
-                return new JsonReader(manager, inputStream, jsonFactory).readSingleDocumentStreaming(operation, docId);
+                return new JsonReader(manager, jsonParser).readSingleDocumentStreaming(operation, docId);
             } catch (IllegalArgumentException e) {
                 incrementMetricParseError();
                 throw e;
@@ -1244,6 +1196,8 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     private StreamableJsonResponse createStreamableJsonResponse(HttpRequest request, ResponseHandler handler, boolean streaming) throws IOException {
         var tensorOptions = createTensorOptionsFromRequest(request);
+        if (request.parameters().getOrDefault("format", List.of()).equals(List.of("binary")))
+            return new BinaryDocumentStreamResponse(new BufferedContentChannelResponseWriter(handler), documentTypes);
         if (streaming) {
             // TODO! This is very temporary!
             var format = request.parameters().getOrDefault("format", List.of());
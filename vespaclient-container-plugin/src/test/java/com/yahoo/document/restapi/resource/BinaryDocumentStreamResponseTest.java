@@ -0,0 +1,160 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.restapi.resource;
+
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentRemove;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.config.DocumentmanagerConfig;
+import com.yahoo.document.serialization.DocumentStreamReader;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.messagebus.Trace;
+import com.yahoo.schema.derived.Deriver;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinaryDocumentStreamResponseTest {
+
+    static class CollectingResponseWriter implements ResponseWriter {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String contentType = null;
+        int completions = 0;
+        boolean closed = false;
+
+        @Override
+        public void commit(int status, String contentType, boolean fullyApplied) {
+            this.contentType = contentType;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, CompletionHandler completionHandlerOrNull) {
+            synchronized (out) {
+                out.write(buffer.array(), buffer.position(), buffer.remaining());
+            }
+            if (completionHandlerOrNull != null)
+                completionHandlerOrNull.completed();
+        }
+
+        @Override
+        public void close() { closed = true; }
+
+    }
+
+    /** Blocks the write of the first frame after the header until released. */
+    static class BlockingResponseWriter extends CollectingResponseWriter {
+
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger writes = new AtomicInteger();
+
+        @Override
+        public void write(ByteBuffer buffer, CompletionHandler completionHandlerOrNull) {
+            if (writes.getAndIncrement() == 1) {
+                writing.countDown();
+                try {
+                    assertTrue(release.await(60, TimeUnit.SECONDS));
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            super.write(buffer, completionHandlerOrNull);
+        }
+
+    }
+
+    private final DocumentmanagerConfig docConfig = Deriver.getDocumentManagerConfig("src/test/cfg/music.sd")
+                                                           .ignoreundefinedfields(true).build();
+    private final DocumentTypeManager manager = new DocumentTypeManager(docConfig);
+
+    @Test
+    void operations_and_visit_state_are_read_back_from_the_stream() throws IOException {
+        var writer = new CollectingResponseWriter();
+        var response = new BinaryDocumentStreamResponse(writer, docConfig);
+        response.commit(200, true);
+        assertEquals("application/octet-stream", writer.contentType);
+
+        Document document = new Document(manager.getDocumentType("music"), "id:ns:music::one");
+        document.setFieldValue("artist", "Boyzvoice");
+        CompletionHandler handler = new CompletionHandler() {
+            @Override public void completed() { writer.completions++; }
+            @Override public void failed(Throwable t) { }
+        };
+        response.writeDocumentsArrayStart();
+        response.reportUpdatedContinuation(() -> new VisitorContinuation("token", 50.0));
+        response.writeDocumentValue(document, handler);
+        response.writeDocumentRemoval(new DocumentId("id:ns:music::two"), handler);
+        response.writeDocumentsArrayEnd();
+        assertEquals(2, writer.completions, "Buffered operations are acked immediately");
+
+        response.writeEpilogueContinuation(VisitorContinuation.FINISHED);
+        response.writeTrace(new Trace(1));
+        response.writeMessage("Done");
+        response.writeDocumentCount(2);
+        response.close();
+        assertTrue(writer.closed);
+
+        try (var reader = new DocumentStreamReader(new ByteArrayInputStream(writer.out.toByteArray()))) {
+            assertEquals(new DocumentPut(document), reader.read());
+            assertEquals(new DocumentRemove(new DocumentId("id:ns:music::two")), reader.read());
+            assertEquals("token", reader.continuation().get());
+            assertFalse(reader.isFinished());
+            assertNull(reader.read());
+            assertTrue(reader.isFinished());
+            assertEquals(100.0, reader.percentFinished());
+            assertEquals(List.of("Done"), reader.messages());
+            assertEquals(2, reader.documentCount().getAsLong());
+        }
+    }
+
+    @Test
+    void frames_are_written_in_the_order_they_are_taken() throws Exception {
+        var writer = new BlockingResponseWriter();
+        var response = new BinaryDocumentStreamResponse(writer, docConfig, 1); // Every operation fills a frame
+        response.commit(200, true);
+
+        Document document = new Document(manager.getDocumentType("music"), "id:ns:music::one");
+        Thread first = new Thread(() -> response.writeDocumentValue(document, null));
+        first.start();
+        assertTrue(writer.writing.await(60, TimeUnit.SECONDS));
+
+        AtomicInteger completions = new AtomicInteger();
+        CompletionHandler handler = new CompletionHandler() {
+            @Override public void completed() { completions.incrementAndGet(); }
+            @Override public void failed(Throwable t) { }
+        };
+        response.reportUpdatedContinuation(() -> new VisitorContinuation("token", 50.0));
+        response.writeDocumentRemoval(new DocumentId("id:ns:music::two"), handler);
+        assertEquals(2, writer.writes.get(), "The second frame waits for the first to be written");
+        assertEquals(0, completions.get());
+
+        writer.release.countDown();
+        first.join();
+        assertEquals(1, completions.get());
+        response.close();
+        assertTrue(writer.closed);
+
+        try (var reader = new DocumentStreamReader(new ByteArrayInputStream(writer.out.toByteArray()))) {
+            assertEquals(new DocumentPut(document), reader.read());
+            assertEquals(new DocumentRemove(new DocumentId("id:ns:music::two")), reader.read());
+            assertNull(reader.read());
+            assertEquals("token", reader.continuation().get());
+        }
+    }
+
+}
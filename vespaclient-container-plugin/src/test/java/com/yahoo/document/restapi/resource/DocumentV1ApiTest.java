@@ -957,7 +957,7 @@ public class DocumentV1ApiTest {
         Inspector responseRoot = SlimeUtils.jsonToSlime(response.readAll()).get();
         assertEquals("/document/v1/space/music/number/1/two", responseRoot.field("pathId").asString());
         assertTrue(
-                responseRoot.field("message").asString().startsWith("failed parsing document: Unexpected character ('┻' (code 9531 / 0x253b)): was expecting double-quote to start field name"),
+                responseRoot.field("message").asString().startsWith("failed parsing document: Unexpected character ('â' (code 226)): was expecting double-quote to start field name"),
                 responseRoot.field("message").asString());
         assertEquals(400, response.getStatus());
 
@@ -4,6 +4,7 @@ package com.yahoo.vespa.feed.perf;
 import com.yahoo.concurrent.ThreadFactoryFactory;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentOperation;
 import com.yahoo.document.DocumentPut;
 import com.yahoo.document.DocumentRemove;
 import com.yahoo.document.DocumentTypeManager;
@@ -16,6 +17,7 @@ import com.yahoo.document.serialization.DocumentDeserializer;
 import com.yahoo.document.serialization.DocumentDeserializerFactory;
 import com.yahoo.document.serialization.DocumentSerializer;
 import com.yahoo.document.serialization.DocumentSerializerFactory;
+import com.yahoo.document.serialization.DocumentStreamReader;
 import com.yahoo.document.serialization.DocumentWriter;
 import com.yahoo.documentapi.messagebus.protocol.DocumentProtocol;
 import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
@@ -34,6 +36,7 @@ import com.yahoo.messagebus.SourceSessionParams;
 import com.yahoo.messagebus.StaticThrottlePolicy;
 import com.yahoo.messagebus.network.rpc.RPCNetworkParams;
 import com.yahoo.messagebus.routing.Route;
+import com.yahoo.vespaxmlparser.DocumentFeedOperation;
 import com.yahoo.vespaxmlparser.FeedReader;
 import com.yahoo.vespaxmlparser.FeedOperation;
 import com.yahoo.vespaxmlparser.RemoveFeedOperation;
@@ -381,6 +384,26 @@ public class SimpleFeeder implements ReplyHandler {
         }
     }
 
+    /** Reads the puts and removes of a document stream, as written by e.g. vespa-visit --binary */
+    static class DocumentStreamFeedReader implements FeedReader {
+        private final DocumentStreamReader reader;
+        DocumentStreamFeedReader(InputStream in, DocumentTypeManager mgr) throws IOException {
+            this.reader = new DocumentStreamReader(in, mgr);
+        }
+
+        @Override
+        public FeedOperation read() throws Exception {
+            DocumentOperation operation = reader.read();
+            if (operation instanceof DocumentPut put) {
+                return new DocumentFeedOperation(put);
+            } else if (operation instanceof DocumentRemove remove) {
+                return new RemoveFeedOperation(remove);
+            } else {
+                return FeedOperation.INVALID;
+            }
+        }
+    }
+
     private Destination createDumper(FeederParams params) {
         if (params.getDumpFormat() == FeederParams.DumpFormat.VESPA) {
             return new VespaV1Destination(params.getDumpStream(), failure, numReplies);
@@ -415,6 +438,8 @@ public class SimpleFeeder implements ReplyHandler {
             return new JsonFeedReader(in, docTypeMgr);
         } else if ((b[0] == 'V') && (b[1] == '1')) {
             return new VespaV1FeedReader(in, docTypeMgr);
+        } else if ((b[0] == 'V') && (b[1] == '2')) {
+            return new DocumentStreamFeedReader(in, docTypeMgr);
         } else {
              return new VespaXMLFeedReader(in, docTypeMgr);
         }
@@ -4,7 +4,9 @@ package com.yahoo.vespavisit;
 import com.yahoo.document.BucketId;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
+import com.yahoo.document.config.DocumentmanagerConfig;
 import com.yahoo.document.json.JsonWriter;
+import com.yahoo.document.serialization.DocumentStreamWriter;
 import com.yahoo.document.serialization.XmlStream;
 import com.yahoo.documentapi.AckToken;
 import com.yahoo.documentapi.DumpVisitorDataHandler;
@@ -40,6 +42,7 @@ public class StdOutVisitorHandler extends VdsVisitHandler {
     public enum OutputFormat {
         JSONL,
         JSON,
+        BINARY,
         XML // Deprecated
     }
 
@@ -56,6 +59,7 @@ public class StdOutVisitorHandler extends VdsVisitHandler {
         boolean tensorShortForm    = false; // TODO Vespa 9: change default to true
         boolean tensorDirectValues = false; // TODO Vespa 9: change default to true
         boolean nullRender         = false;
+        DocumentmanagerConfig documentTypes = null; // Required for binary output
 
         boolean usesJson() {
             return outputFormat == OutputFormat.JSON || outputFormat == OutputFormat.JSONL;
@@ -65,11 +69,13 @@ public class StdOutVisitorHandler extends VdsVisitHandler {
     private final Params params;
     private final PrintStream out;
     private final VisitorDataHandler dataHandler;
+    private final DocumentStreamWriter binaryWriter;
 
     public StdOutVisitorHandler(Params params, PrintStream out) {
         super(params.showProgress, params.showStatistics, params.abortOnClusterDown);
         this.params = params;
         this.out = out;
+        this.binaryWriter = params.outputFormat == OutputFormat.BINARY ? new DocumentStreamWriter(params.documentTypes) : null;
         this.dataHandler = new DataHandler(params.doStatistics);
     }
 
@@ -172,6 +178,9 @@ public class StdOutVisitorHandler extends VdsVisitHandler {
                 } else {
                     if (params.usesJson()) {
                         writeJsonDocument(doc);
+                    } else if (binaryWriter != null) {
+                        binaryWriter.writePut(doc);
+                        writeFullBinaryFrame();
                     } else {
                         out.print(doc.toXML(params.indentXml ? "  " : ""));
                     }
@@ -203,6 +212,9 @@ public class StdOutVisitorHandler extends VdsVisitHandler {
                 } else {
                     if (params.usesJson()) {
                         writeJsonDocumentRemove(docId);
+                    } else if (binaryWriter != null) {
+                        binaryWriter.writeRemove(docId);
+                        writeFullBinaryFrame();
                     } else {
                         XmlStream stream = new XmlStream();
                         stream.beginTag("remove");
@@ -225,6 +237,11 @@ public class StdOutVisitorHandler extends VdsVisitHandler {
             out.write(JsonWriter.documentRemove(docId));
         }
 
+        private void writeFullBinaryFrame() throws IOException {
+            if (binaryWriter.isFrameFull())
+                binaryWriter.writeFrameTo(out);
+        }
+
         private void writeFeedStartOrRecordSeparator() {
             if (first) {
                 if (params.outputFormat == OutputFormat.JSON) {
@@ -276,6 +293,14 @@ public class StdOutVisitorHandler extends VdsVisitHandler {
                 }
                 out.println("]");
             }
+            if (binaryWriter != null && !params.printIds && !params.nullRender) {
+                try {
+                    binaryWriter.writeFrameTo(out);
+                    out.flush();
+                } catch (IOException e) {
+                    System.err.println("Failed to output documents: " + e.getMessage());
+                }
+            }
             statisticsMap.dumpAll();
             super.onDone();
         }
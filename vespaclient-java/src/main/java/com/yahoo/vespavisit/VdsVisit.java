@@ -1,7 +1,9 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespavisit;
 
+import com.yahoo.config.subscription.ConfigGetter;
 import com.yahoo.document.FixedBucketSpaces;
+import com.yahoo.document.config.DocumentmanagerConfig;
 import com.yahoo.document.fieldset.DocIdOnly;
 import com.yahoo.document.fieldset.DocumentOnly;
 import com.yahoo.document.select.parser.ParseException;
@@ -343,6 +345,12 @@ public class VdsVisit {
                 .hasArg(false)
                 .build());
 
+        options.addOption(Option.builder()
+                .longOpt("binary")
+                .desc("Output documents in a compact binary format which can be fed with vespa-feed-perf")
+                .hasArg(false)
+                .build());
+
         options.addOption(Option.builder("x")
               .longOpt("xmloutput")
               .desc("Output documents as XML (deprecated)")
@@ -404,6 +412,7 @@ public class VdsVisit {
         private int fullTimeout = 7 * 24 * 60 * 60 * 1000;
         private boolean jsonOutput = true;
         private boolean jsonLinesOutput = false;
+        private boolean binaryOutput = false;
         private boolean tensorShortForm = false; // TODO Vespa 9: change default to true
         private boolean tensorDirectValues = false; // TODO Vespa 9: change default to true
         private boolean nullRender = false;
@@ -490,8 +499,18 @@ public class VdsVisit {
             this.jsonLinesOutput = jsonLinesOutput;
         }
 
+        public boolean binaryOutput() {
+            return binaryOutput;
+        }
+
+        public void setBinaryOutput(boolean binaryOutput) {
+            this.binaryOutput = binaryOutput;
+        }
+
         public StdOutVisitorHandler.OutputFormat stdOutHandlerOutputFormat() {
-            if (jsonLinesOutput) {
+            if (binaryOutput) {
+                return StdOutVisitorHandler.OutputFormat.BINARY;
+            } else if (jsonLinesOutput) {
                 return StdOutVisitorHandler.OutputFormat.JSONL;
             } else if (jsonOutput) {
                 return StdOutVisitorHandler.OutputFormat.JSON;
@@ -690,12 +709,17 @@ public class VdsVisit {
             boolean jsonOutput = line.hasOption("jsonoutput");
             boolean jsonl      = line.hasOption("jsonl");
             boolean xmlOutput  = line.hasOption("xmloutput");
+            boolean binary     = line.hasOption("binary");
             if ((jsonOutput || jsonl) && xmlOutput) {
                 throw new IllegalArgumentException("Cannot combine both XML and JSON output");
             } else if (jsonOutput && jsonl) {
                 throw new IllegalArgumentException("Cannot combine both JSON and JSONL output");
+            } else if (binary && (jsonOutput || jsonl || xmlOutput)) {
+                throw new IllegalArgumentException("Cannot combine binary output with other output formats");
             }
-            if (jsonl) {
+            if (binary) {
+                allParams.setBinaryOutput(true);
+            } else if (jsonl) {
                 allParams.setJsonLinesOutput(true);
             } else {
                 allParams.setJsonOutput(!xmlOutput);
@@ -824,6 +848,11 @@ public class VdsVisit {
         System.exit(1);
     }
 
+    @SuppressWarnings("deprecation")
+    private static DocumentmanagerConfig documentTypes() {
+        return new ConfigGetter<>(DocumentmanagerConfig.class).getConfig("client");
+    }
+
     public void run() {
         System.exit(doRun());
     }
@@ -868,6 +897,8 @@ public class VdsVisit {
         handlerParams.tensorShortForm      = params.tensorShortForm();
         handlerParams.tensorDirectValues   = params.tensorDirectValues();
         handlerParams.nullRender           = params.nullRender();
+        if (params.binaryOutput())
+            handlerParams.documentTypes    = documentTypes();
         handler = new StdOutVisitorHandler(handlerParams);
 
         if (visitorParameters.getResumeFileName() != null) {
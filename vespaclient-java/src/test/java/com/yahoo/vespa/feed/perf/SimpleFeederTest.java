@@ -1,8 +1,18 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.feed.perf;
 
+import com.yahoo.config.subscription.ConfigGetter;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.config.DocumentmanagerConfig;
 import com.yahoo.document.serialization.DeserializationException;
+import com.yahoo.document.serialization.DocumentStreamWriter;
 import com.yahoo.documentapi.messagebus.protocol.DocumentMessage;
+import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
+import com.yahoo.documentapi.messagebus.protocol.RemoveDocumentMessage;
 import com.yahoo.jrt.ListenFailedException;
 import com.yahoo.messagebus.DynamicThrottlePolicy;
 import com.yahoo.messagebus.EmptyReply;
@@ -23,6 +33,7 @@ import java.io.PrintStream;
 import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -180,6 +191,44 @@ public class SimpleFeederTest {
                         "\\s*\\d+,\\s*3,.+\n");
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    public void requireThatDocumentStreamFeederWorks() throws Throwable {
+        DocumentmanagerConfig config = ConfigGetter.getConfig(DocumentmanagerConfig.class, "dir:" + CONFIG_DIR);
+        DocumentType type = new DocumentTypeManager(config).getDocumentType("simple");
+        DocumentStreamWriter writer = new DocumentStreamWriter(config);
+        Document document = new Document(type, "id:simple:simple::0");
+        document.setFieldValue("my_str", "foo");
+        writer.writePut(document);
+        writer.writeContinuation("", 100);
+        writer.writeRemove(new DocumentId("id:simple:simple::1"));
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writer.writeFrameTo(stream);
+
+        List<Message> received = new CopyOnWriteArrayList<>();
+        assertFeed(new ByteArrayInputStream(stream.toByteArray()),
+                new MessageHandler() {
+                    @Override
+                    public void handleMessage(Message msg) {
+                        received.add(msg);
+                        Reply reply = ((DocumentMessage)msg).createReply();
+                        reply.swapState(msg);
+                        reply.popHandler().handleReply(reply);
+                    }
+                },
+                "",
+                "(.+\n)+" +
+                        "\\s*\\d+,\\s*2,.+\n");
+        assertEquals(2, received.size());
+        assertEquals(1, received.stream().filter(message -> message instanceof PutDocumentMessage).count());
+        for (Message message : received) {
+            if (message instanceof PutDocumentMessage put)
+                assertEquals(new DocumentPut(document), put.getDocumentPut());
+            else
+                assertEquals("id:simple:simple::1", ((RemoveDocumentMessage)message).getDocumentId().toString());
+        }
+    }
+
     @Test
     public void requireThatJsonFeederWorks() throws Throwable {
         assertFeed("[" +
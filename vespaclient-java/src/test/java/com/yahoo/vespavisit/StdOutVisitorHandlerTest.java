@@ -1,14 +1,19 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespavisit;
 
+import com.yahoo.config.subscription.ConfigGetter;
 import com.yahoo.document.DataType;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentRemove;
 import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.TensorDataType;
+import com.yahoo.document.config.DocumentmanagerConfig;
 import com.yahoo.document.datatypes.StringFieldValue;
 import com.yahoo.document.datatypes.TensorFieldValue;
+import com.yahoo.document.serialization.DocumentStreamReader;
 import com.yahoo.documentapi.AckToken;
 import com.yahoo.documentapi.VisitorControlSession;
 import com.yahoo.documentapi.VisitorDataHandler;
@@ -20,10 +25,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -156,6 +164,34 @@ public class StdOutVisitorHandlerTest {
         }
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    void documents_can_be_output_in_binary_format() throws IOException {
+        var params = new StdOutVisitorHandler.Params();
+        params.outputFormat = StdOutVisitorHandler.OutputFormat.BINARY;
+        params.documentTypes = ConfigGetter.getConfig(DocumentmanagerConfig.class, "file:src/test/resources/documentmanager.cfg");
+        var docType = new DocumentTypeManager(params.documentTypes).getDocumentType("simple");
+
+        var out            = new ByteArrayOutputStream();
+        var visitorHandler = new StdOutVisitorHandler(params, new PrintStream(out, true));
+        var dataHandler    = visitorHandler.getDataHandler();
+        dataHandler.setSession(mock(VisitorControlSession.class));
+
+        var document = new Document(docType, "id:simple:simple::1");
+        document.setFieldValue("my_str", new StringFieldValue("fluffy\nbunnies"));
+        dataHandler.onMessage(new PutDocumentMessage(new DocumentPut(document)), mock(AckToken.class));
+        dataHandler.onMessage(createRemoveForDoc("id:simple:simple::2"),        mock(AckToken.class));
+        dataHandler.onDone();
+
+        try (var reader = new DocumentStreamReader(new ByteArrayInputStream(out.toByteArray()))) {
+            var put = (DocumentPut) reader.read();
+            assertEquals(document.getId(), put.getId());
+            assertEquals(new StringFieldValue("fluffy\nbunnies"), put.getDocument().getFieldValue("my_str"));
+            assertEquals(new DocumentRemove(new DocumentId("id:simple:simple::2")), reader.read());
+            assertNull(reader.read());
+        }
+    }
+
     @Test
     void nothing_is_rendered_if_null_render_option_is_specified() {
         var docType = new DocumentType("foo");
@@ -26,6 +26,11 @@ public class Compressor {
 
     private static final LZ4Factory factory = LZ4Factory.fastestInstance();
 
+    /** Compression buffers larger than this are not kept for reuse by the compressing thread */
+    private static final int maxReusedBufferSize = 1 << 20;
+
+    private static final ThreadLocal<byte[]> compressBuffer = ThreadLocal.withInitial(() -> new byte[0]);
+
     /** Creates a compressor with default settings. */
     public Compressor() {
         this(CompressionType.LZ4);
@@ -91,11 +96,13 @@ public class Compressor {
                 if (len < compressMinSizeBytes) {
                     return compact(CompressionType.INCOMPRESSIBLE, data, offset, len);
                 }
-                byte[] compressedData = getCompressor().compress(data, offset, len);
-                if (compressedData.length + 8 >= len * compressionThresholdFactor) {
+                LZ4Compressor compressor = getCompressor();
+                byte[] buffer = compressBuffer(compressor.maxCompressedLength(len));
+                int compressedSize = compressor.compress(data, offset, len, buffer, 0, buffer.length);
+                if (compressedSize + 8 >= len * compressionThresholdFactor) {
                     return compact(CompressionType.INCOMPRESSIBLE, data, offset, len);
                 }
-                return new Compression(CompressionType.LZ4, len, compressedData);
+                return new Compression(CompressionType.LZ4, len, Arrays.copyOf(buffer, compressedSize));
             case ZSTD:
                 if (len < compressMinSizeBytes) {
                     return compact(CompressionType.INCOMPRESSIBLE, data, offset, len);
@@ -114,6 +121,20 @@ public class Compressor {
         }
         return new Compression(type, len, data);
     }
+    /**
+     * Returns a buffer of at least the given size, which is reused by later compressions in this thread,
+     * so that only the compressed data, and not the worst case compression buffer, is allocated per compression.
+     */
+    private static byte[] compressBuffer(int minSize) {
+        byte[] buffer = compressBuffer.get();
+        if (buffer.length < minSize) {
+            buffer = new byte[minSize];
+            if (minSize <= maxReusedBufferSize)
+                compressBuffer.set(buffer);
+        }
+        return buffer;
+    }
+
     private LZ4Compressor getCompressor() {
         return level < 7 ? factory.fastCompressor() : factory.highCompressor();
     }
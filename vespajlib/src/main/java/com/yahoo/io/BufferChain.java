@@ -10,6 +10,7 @@ import java.nio.CharBuffer;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -29,12 +30,25 @@ public final class BufferChain {
         assert BUFFERSIZE > WATERMARK;
     }
     private final List<ByteBuffer> buffers = new ArrayList<>();
+    /** The indices in buffers of the buffers acquired from the pool */
+    private final BitSet pooled = new BitSet();
     private final WritableByteTransmitter endpoint;
-    private ByteBuffer current = ByteBuffer.allocate(BUFFERSIZE);
+    private final ByteBufferPool pool;
+    /** The buffer currently written to, allocated on demand */
+    private ByteBuffer current = null;
     private long appended = 0L;
 
     public BufferChain(final WritableByteTransmitter endpoint) {
+        this(endpoint, null);
+    }
+
+    /**
+     * Creates a buffer chain which acquires its buffers from the given pool, if non-null,
+     * and sends them to the endpoint as recyclable. Buffers appended by the caller are never recycled.
+     */
+    public BufferChain(final WritableByteTransmitter endpoint, final ByteBufferPool pool) {
         this.endpoint = endpoint;
+        this.pool = pool;
     }
 
     public void append(final byte b) throws IOException {
@@ -45,9 +59,12 @@ public final class BufferChain {
          return (length < WATERMARK);
     }
     private final void makeRoom(int length) throws IOException {
-        if (current.remaining() < length) {
+        if (current != null && current.remaining() < length) {
             scratch();
         }
+        if (current == null) {
+            current = pool == null ? ByteBuffer.allocate(BUFFERSIZE) : pool.acquire(BUFFERSIZE);
+        }
     }
     public void append(AbstractUtf8Array v) throws IOException {
         final int length = v.getByteLength();
@@ -95,6 +112,7 @@ public final class BufferChain {
             throws java.io.IOException {
         CoderResult overflow;
         do {
+            makeRoom(0);
             overflow = encoder.encode(toEncode, current, true);
             if (overflow.isOverflow()) {
                 scratch();
@@ -111,10 +129,13 @@ public final class BufferChain {
     }
 
     private void scratch() throws java.io.IOException {
-        if (!possibleFlush() && current.position() != 0) {
+        if (!possibleFlush() && current != null && current.position() != 0) {
             current.flip();
+            if (pool != null) {
+                pooled.set(buffers.size());
+            }
             add(current);
-            current = ByteBuffer.allocate(BUFFERSIZE);
+            current = null;
         }
     }
 
@@ -127,15 +148,24 @@ public final class BufferChain {
     }
 
     public void flush() throws IOException {
-        for (ByteBuffer b : buffers) {
-            endpoint.send(b);
+        for (int i = 0; i < buffers.size(); i++) {
+            send(buffers.get(i), pooled.get(i));
         }
         buffers.clear();
-        if (current.position() > 0) {
+        pooled.clear();
+        if (current != null && current.position() > 0) {
             current.flip();
             appended += current.limit();
-            endpoint.send(current);
-            current = ByteBuffer.allocate(BUFFERSIZE);
+            send(current, pool != null);
+            current = null;
+        }
+    }
+
+    private void send(final ByteBuffer b, final boolean recyclable) throws IOException {
+        if (recyclable) {
+            endpoint.sendRecyclable(b, () -> pool.release(b));
+        } else {
+            endpoint.send(b);
         }
     }
 
@@ -143,6 +173,6 @@ public final class BufferChain {
      * @return number of bytes written to this buffer
      */
     public long appended() {
-        return appended + current.position();
+        return appended + (current == null ? 0 : current.position());
     }
 }
@@ -0,0 +1,154 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of recyclable byte buffers, in power of two size classes from 1 KiB to 64 KiB.
+ *
+ * Buffers released by a thread which has acquired buffers from this are cached for reuse by that thread,
+ * while buffers released by other threads, e.g., network threads completing a write, go to a bounded
+ * cache shared by all threads. Larger buffers are allocated as requested and not cached.
+ *
+ * A buffer must not be accessed by anyone after it is released.
+ * Buffers which are never released are simply garbage collected.
+ *
+ * This is thread safe.
+ */
+public final class ByteBufferPool {
+
+    private static final int minSizeClassBits = 10;
+    private static final int maxSizeClassBits = 16;
+    private static final int sizeClasses = maxSizeClassBits - minSizeClassBits + 1;
+
+    private final boolean direct;
+    private final int maxCachedPerThread;
+    private final int maxCachedShared;
+
+    private final ThreadLocal<List<ArrayDeque<ByteBuffer>>> threadCaches = new ThreadLocal<>();
+    private final List<Queue<ByteBuffer>> sharedCaches = new ArrayList<>();
+    private final AtomicInteger[] sharedCacheSizes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder outstandingBytes = new LongAdder();
+    private final AtomicLong takenHits = new AtomicLong();
+    private final AtomicLong takenMisses = new AtomicLong();
+
+    /** Creates a pool of heap or direct buffers, caching up to 64 buffers per thread and 1024 shared, per size class */
+    public ByteBufferPool(boolean direct) {
+        this(direct, 64, 1024);
+    }
+
+    public ByteBufferPool(boolean direct, int maxCachedPerThread, int maxCachedShared) {
+        this.direct = direct;
+        this.maxCachedPerThread = maxCachedPerThread;
+        this.maxCachedShared = maxCachedShared;
+        sharedCacheSizes = new AtomicInteger[sizeClasses];
+        for (int i = 0; i < sizeClasses; i++) {
+            sharedCaches.add(new ConcurrentLinkedQueue<>());
+            sharedCacheSizes[i] = new AtomicInteger();
+        }
+    }
+
+    /** Returns a cleared buffer with at least the given capacity, which should be released when no longer used */
+    public ByteBuffer acquire(int minCapacity) {
+        int sizeClass = sizeClassFor(minCapacity);
+        ByteBuffer buffer = null;
+        if (sizeClass < sizeClasses) {
+            buffer = threadCache().get(sizeClass).pollFirst();
+            if (buffer == null) {
+                buffer = sharedCaches.get(sizeClass).poll();
+                if (buffer != null)
+                    sharedCacheSizes[sizeClass].decrementAndGet();
+            }
+        }
+        if (buffer == null) {
+            misses.increment();
+            buffer = allocate(sizeClass < sizeClasses ? 1 << (sizeClass + minSizeClassBits) : minCapacity);
+        }
+        else {
+            hits.increment();
+            buffer.clear();
+        }
+        outstandingBytes.add(buffer.capacity());
+        return buffer;
+    }
+
+    /** Returns the given buffer, which must have been acquired from this, to this pool */
+    public void release(ByteBuffer buffer) {
+        outstandingBytes.add(-buffer.capacity());
+        int sizeClass = sizeClassFor(buffer.capacity());
+        if (sizeClass >= sizeClasses || buffer.capacity() != 1 << (sizeClass + minSizeClassBits)) return;
+
+        List<ArrayDeque<ByteBuffer>> threadCache = threadCaches.get();
+        if (threadCache != null && threadCache.get(sizeClass).size() < maxCachedPerThread) {
+            threadCache.get(sizeClass).addFirst(buffer);
+        }
+        else if (sharedCacheSizes[sizeClass].incrementAndGet() <= maxCachedShared) {
+            sharedCaches.get(sizeClass).offer(buffer);
+        }
+        else {
+            sharedCacheSizes[sizeClass].decrementAndGet();
+        }
+    }
+
+    /** Returns whether this pool allocates direct buffers */
+    public boolean isDirect() { return direct; }
+
+    /** Returns the total number of buffers acquired from a cache */
+    public long hits() { return hits.sum(); }
+
+    /** Returns the total number of buffers allocated because none were cached */
+    public long misses() { return misses.sum(); }
+
+    /**
+     * Returns the increase in {@link #hits} since the previous invocation of this.
+     * As this is tracked by the pool, each increase is returned once in total, to all callers.
+     */
+    public long takeHitsIncrease() { return takeIncrease(hits(), takenHits); }
+
+    /**
+     * Returns the increase in {@link #misses} since the previous invocation of this.
+     * As this is tracked by the pool, each increase is returned once in total, to all callers.
+     */
+    public long takeMissesIncrease() { return takeIncrease(misses(), takenMisses); }
+
+    private static long takeIncrease(long current, AtomicLong taken) {
+        return Math.max(0, current - taken.getAndAccumulate(current, Math::max));
+    }
+
+    /** Returns the number of bytes in buffers currently acquired and not released */
+    public long outstandingBytes() { return outstandingBytes.sum(); }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private List<ArrayDeque<ByteBuffer>> threadCache() {
+        List<ArrayDeque<ByteBuffer>> threadCache = threadCaches.get();
+        if (threadCache == null) {
+            threadCache = new ArrayList<>(sizeClasses);
+            for (int i = 0; i < sizeClasses; i++)
+                threadCache.add(new ArrayDeque<>());
+            threadCaches.set(threadCache);
+        }
+        return threadCache;
+    }
+
+    /** Returns the index of the smallest size class holding the given capacity, which is sizeClasses if too large */
+    private static int sizeClassFor(int capacity) {
+        if (capacity <= 1 << minSizeClassBits) return 0;
+        int bits = 32 - Integer.numberOfLeadingZeros(capacity - 1);
+        return Math.min(bits - minSizeClassBits, sizeClasses);
+    }
+
+}
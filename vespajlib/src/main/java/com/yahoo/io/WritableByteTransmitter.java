@@ -10,5 +10,15 @@ import java.nio.ByteBuffer;
  * @author Steinar Knutsen
  */
 public interface WritableByteTransmitter {
+
     void send(ByteBuffer src) throws IOException;
+
+    /**
+     * Sends a buffer which may be recycled by running the given recycler once the buffer is written
+     * and no longer referenced. The default implementation sends it like any other buffer, and never recycles it.
+     */
+    default void sendRecyclable(ByteBuffer src, Runnable recycler) throws IOException {
+        send(src);
+    }
+
 }
@@ -9,6 +9,11 @@ import com.yahoo.compress.Compressor;
  */
 public class BinaryFormat {
 
+    /** Encode buffers larger than this are not kept for reuse by the encoding thread */
+    private static final int maxReusedBufferSize = 1 << 20;
+
+    private static final ThreadLocal<BufferedOutput> encodeBuffer = ThreadLocal.withInitial(BufferedOutput::new);
+
     static long encode_zigzag(long x) {
         return ((x << 1) ^ (x >> 63)); // note ASR
     }
@@ -43,7 +48,10 @@ public class BinaryFormat {
      * @return a new byte array with just the encoded slime.
      **/
     public static byte[] encode(Slime slime) {
-        return new BinaryEncoder().encode(slime).toArray();
+        BufferedOutput buffer = encodeBuffer.get();
+        byte[] encoded = new BinaryEncoder(buffer).encode(slime).toArray();
+        releaseEncodeBuffer(buffer);
+        return encoded;
     }
 
     /**
@@ -53,7 +61,15 @@ public class BinaryFormat {
      * @return a new byte array with just the encoded and compressed slime.
      **/
     public static Compressor.Compression encode_and_compress(Slime slime, Compressor compressor) {
-        return new BinaryEncoder().encode(slime).compress(compressor);
+        BufferedOutput buffer = encodeBuffer.get();
+        Compressor.Compression compression = new BinaryEncoder(buffer).encode(slime).compress(compressor);
+        releaseEncodeBuffer(buffer);
+        return compression;
+    }
+
+    private static void releaseEncodeBuffer(BufferedOutput buffer) {
+        if (buffer.capacity() > maxReusedBufferSize)
+            encodeBuffer.remove();
     }
 
     /**
@@ -37,6 +37,8 @@ final class BufferedOutput {
 
     int position() { return pos; }
 
+    int capacity() { return capacity; }
+
     void put(byte b) {
         reserve(1);
         buf[pos++] = b;
@@ -48,9 +50,8 @@ final class BufferedOutput {
 
     void put(byte[] bytes) {
         reserve(bytes.length);
-        for (byte b : bytes) {
-            buf[pos++] = b;
-        }
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
     }
 
     byte[] toArray() {
@@ -61,7 +62,11 @@ final class BufferedOutput {
     public String toString(Charset charset) {
         return new String(buf, 0, pos, charset);
     }
+    /** Compresses the content of this into an array which is never the buffer of this, so that this may be reused */
     Compressor.Compression compress(Compressor compressor) {
-        return compressor.compress(buf, pos);
+        Compressor.Compression compression = compressor.compress(buf, pos);
+        if (compression.data() == buf)
+            return new Compressor.Compression(compression.type(), compression.uncompressedSize(), toArray());
+        return compression;
     }
 }
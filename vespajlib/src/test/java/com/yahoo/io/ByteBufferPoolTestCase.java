@@ -0,0 +1,135 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests ByteBufferPool, and BufferChain using a pool.
+ */
+public class ByteBufferPoolTestCase {
+
+    @Test
+    public void testSizeClasses() {
+        ByteBufferPool pool = new ByteBufferPool(false);
+        assertEquals(1024, pool.acquire(1).capacity());
+        assertEquals(1024, pool.acquire(1024).capacity());
+        assertEquals(4096, pool.acquire(4000).capacity());
+        assertEquals(65536, pool.acquire(65536).capacity());
+        assertEquals(65537, pool.acquire(65537).capacity());
+        assertEquals(5, pool.misses());
+        assertEquals(0, pool.hits());
+    }
+
+    @Test
+    public void testIncreasesAreTakenOnceByAllCallers() {
+        ByteBufferPool pool = new ByteBufferPool(false);
+        pool.release(pool.acquire(1));
+        pool.acquire(1);
+        assertEquals(1, pool.takeHitsIncrease());
+        assertEquals(1, pool.takeMissesIncrease());
+        assertEquals(0, pool.takeHitsIncrease());
+        assertEquals(0, pool.takeMissesIncrease());
+        pool.acquire(1);
+        assertEquals(1, pool.takeMissesIncrease());
+        assertEquals(0, pool.takeMissesIncrease());
+        assertEquals(2, pool.misses());
+    }
+
+    @Test
+    public void testRecyclingOnSameThread() {
+        ByteBufferPool pool = new ByteBufferPool(false);
+        ByteBuffer buffer = pool.acquire(4096);
+        assertEquals(4096, pool.outstandingBytes());
+        buffer.put((byte) 1);
+        pool.release(buffer);
+        assertEquals(0, pool.outstandingBytes());
+
+        ByteBuffer recycled = pool.acquire(3000);
+        assertSame(buffer, recycled);
+        assertEquals(0, recycled.position());
+        assertEquals(4096, recycled.limit());
+        assertEquals(1, pool.hits());
+        assertEquals(1, pool.misses());
+        assertNotSame(buffer, pool.acquire(3000));
+    }
+
+    @Test
+    public void testRecyclingAcrossThreads() throws InterruptedException {
+        ByteBufferPool pool = new ByteBufferPool(true, 64, 1);
+        ByteBuffer first = pool.acquire(4096);
+        ByteBuffer second = pool.acquire(4096);
+        assertTrue(first.isDirect());
+        Thread releaser = new Thread(() -> { pool.release(first); pool.release(second); });
+        releaser.start();
+        releaser.join();
+        assertEquals(0, pool.outstandingBytes());
+
+        // Only one fits in the shared cache
+        assertSame(first, pool.acquire(4096));
+        assertNotSame(second, pool.acquire(4096));
+        assertEquals(1, pool.hits());
+    }
+
+    @Test
+    public void testPooledBufferChain() throws IOException {
+        ByteBufferPool pool = new ByteBufferPool(false);
+        RecyclingTransmitter transmitter = new RecyclingTransmitter();
+        BufferChain chain = new BufferChain(transmitter, pool);
+        byte[] data = new byte[100];
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < 200; i++) {
+            data[i % data.length] = (byte) i;
+            chain.append(data);
+            expected.write(data);
+        }
+        byte[] large = new byte[BufferChain.WATERMARK * 2];
+        chain.append(large);
+        expected.write(large);
+        chain.flush();
+        assertEquals(expected.size(), chain.appended());
+
+        assertArrayEquals(expected.toByteArray(), transmitter.received.toByteArray());
+        assertFalse(transmitter.recyclers.isEmpty());
+        assertEquals(transmitter.recyclers.size() * BufferChain.BUFFERSIZE, pool.outstandingBytes());
+        transmitter.recyclers.forEach(Runnable::run);
+        assertEquals(0, pool.outstandingBytes());
+
+        chain.append(data);
+        chain.flush();
+        assertEquals(1, pool.hits());
+    }
+
+    private static class RecyclingTransmitter implements WritableByteTransmitter {
+
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final List<Runnable> recyclers = new ArrayList<>();
+
+        @Override
+        public void send(ByteBuffer src) {
+            byte[] bytes = new byte[src.remaining()];
+            src.get(bytes);
+            received.write(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void sendRecyclable(ByteBuffer src, Runnable recycler) {
+            send(src);
+            recyclers.add(recycler);
+        }
+
+    }
+
+}
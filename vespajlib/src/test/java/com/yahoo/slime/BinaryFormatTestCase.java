@@ -5,6 +5,8 @@ import com.yahoo.compress.CompressionType;
 import com.yahoo.compress.Compressor;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static com.yahoo.slime.BinaryFormat.decode_double;
 import static com.yahoo.slime.BinaryFormat.decode_meta;
 import static com.yahoo.slime.BinaryFormat.decode_type;
@@ -564,4 +566,24 @@ public class BinaryFormatTestCase {
         assertArrayEquals(expd, c.field("f").asData());
         assertFalse(c.entry(5).valid()); // not ARRAY
     }
+
+    @Test
+    public void testEncodedDataIsNotOverwrittenWhenEncodeBufferIsReused() {
+        Compressor compressor = new Compressor(CompressionType.NONE, 3, 0.90, 1024);
+        Slime first = new Slime();
+        first.setData(new byte[4092]); // with the 4 bytes of header, this exactly fills the initial encode buffer
+        byte[] firstEncoded = BinaryFormat.encode(first);
+        Compressor.Compression firstCompressed = BinaryFormat.encode_and_compress(first, compressor);
+        assertEquals(4096, firstCompressed.data().length);
+        assertArrayEquals(firstEncoded, firstCompressed.data());
+
+        Slime second = new Slime();
+        byte[] data = new byte[4092];
+        Arrays.fill(data, (byte) 1);
+        second.setData(data);
+        Compressor.Compression secondCompressed = BinaryFormat.encode_and_compress(second, compressor);
+        assertArrayEquals(firstEncoded, firstCompressed.data());
+        assertArrayEquals(BinaryFormat.encode(second), secondCompressed.data());
+    }
+
 }
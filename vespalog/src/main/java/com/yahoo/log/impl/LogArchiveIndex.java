@@ -0,0 +1,228 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.log.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A sparse index of a log archive file, stored next to it, with the name of the archive plus {@link #suffix}.
+ *
+ * The archive is written as a sequence of chunks which end at line boundaries, and which are compressed
+ * independently of each other, i.e., as separate zstd frames or gzip members. For each chunk, the index
+ * holds its compressed and uncompressed length, and the smallest and largest timestamp of its log entries,
+ * so that readers can decompress only the chunks which may hold entries in a given time window.
+ * The index also holds the set of hostnames found in the archive, unless there are too many of them.
+ */
+public final class LogArchiveIndex {
+
+    public static final String suffix = ".idx";
+
+    private static final int magic = 0x766c6978;
+    private static final int version = 1;
+    private static final int maxHostnames = 1024;
+
+    private final List<Chunk> chunks;
+    private final Set<String> hostnames; // null if unknown
+
+    private LogArchiveIndex(List<Chunk> chunks, Set<String> hostnames) {
+        this.chunks = List.copyOf(chunks);
+        this.hostnames = hostnames == null ? null : Collections.unmodifiableSet(hostnames);
+    }
+
+    /** Returns all chunks of the indexed archive, in order */
+    public List<Chunk> chunks() { return chunks; }
+
+    /** Returns the hostnames of all entries in the indexed archive, or empty if there were too many to record */
+    public Optional<Set<String>> hostnames() { return Optional.ofNullable(hostnames); }
+
+    /** Returns whether the indexed archive may hold entries from the given host */
+    public boolean mayContain(String hostname) {
+        return hostnames == null || hostnames.contains(hostname);
+    }
+
+    /**
+     * Returns the chunks a reader must consume to see all entries in the given (inclusive) time window which
+     * a sequential reader stopping at the first entry after that window would see: Chunks with only earlier
+     * entries are skipped, and the first chunk with only later entries ends the list.
+     */
+    public List<Chunk> chunksFor(double from, double to) {
+        List<Chunk> selected = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            if (chunk.maxTimestamp() < from) continue; // Also skips chunks without entries
+            if (chunk.minTimestamp() > to) break;
+            selected.add(chunk);
+        }
+        return selected;
+    }
+
+    /** Returns the total compressed length of the indexed archive */
+    public long compressedLength() {
+        return chunks.isEmpty() ? 0 : chunks.get(chunks.size() - 1).offset() + chunks.get(chunks.size() - 1).compressedLength();
+    }
+
+    /** Returns the path of the index of the archive at the given path */
+    public static Path pathOf(Path archive) {
+        return archive.resolveSibling(archive.getFileName() + suffix);
+    }
+
+    /** Returns whether the given path is that of an index file */
+    public static boolean isIndex(Path path) {
+        return path.getFileName().toString().endsWith(suffix);
+    }
+
+    /**
+     * Returns the index of the archive at the given path, or empty if there is none, or it cannot be read,
+     * or it does not match the archive.
+     */
+    public static Optional<LogArchiveIndex> readFor(Path archive) {
+        try (InputStream in = Files.newInputStream(pathOf(archive))) {
+            LogArchiveIndex index = read(in);
+            if (index.compressedLength() != Files.size(archive)) return Optional.empty();
+            return Optional.of(index);
+        }
+        catch (IOException | RuntimeException e) { // Typically no index, in which case readers must scan the whole archive
+            return Optional.empty();
+        }
+    }
+
+    /** Writes this as the index of the archive at the given path, atomically, and with the modification time of the archive */
+    public void writeFor(Path archive) throws IOException {
+        Path path = pathOf(archive);
+        Path tmpPath = path.resolveSibling("." + path.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmpPath)) {
+            write(out);
+        }
+        FileTime mtime = Files.getLastModifiedTime(archive);
+        Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE);
+        Files.setLastModifiedTime(path, mtime);
+    }
+
+    void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(magic);
+        data.writeInt(version);
+        data.writeInt(hostnames == null ? -1 : hostnames.size());
+        if (hostnames != null)
+            for (String hostname : hostnames)
+                data.writeUTF(hostname);
+        data.writeInt(chunks.size());
+        for (Chunk chunk : chunks) {
+            data.writeInt(chunk.compressedLength());
+            data.writeInt(chunk.uncompressedLength());
+            data.writeDouble(chunk.minTimestamp());
+            data.writeDouble(chunk.maxTimestamp());
+        }
+        data.flush();
+    }
+
+    static LogArchiveIndex read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != magic) throw new IOException("Not a log archive index");
+        int indexVersion = data.readInt();
+        if (indexVersion != version) throw new IOException("Unsupported log archive index version " + indexVersion);
+        int hostnameCount = data.readInt();
+        Set<String> hostnames = null;
+        if (hostnameCount >= 0) {
+            hostnames = new TreeSet<>();
+            for (int i = 0; i < hostnameCount; i++)
+                hostnames.add(data.readUTF());
+        }
+        int chunkCount = data.readInt();
+        List<Chunk> chunks = new ArrayList<>();
+        long offset = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            Chunk chunk = new Chunk(offset, data.readInt(), data.readInt(), data.readDouble(), data.readDouble());
+            chunks.add(chunk);
+            offset += chunk.compressedLength();
+        }
+        return new LogArchiveIndex(chunks, hostnames);
+    }
+
+    public static Builder builder() { return new Builder(); }
+
+    /**
+     * A chunk of an archive.
+     *
+     * @param offset the offset of the compressed chunk in the archive
+     * @param compressedLength the length of the compressed chunk
+     * @param uncompressedLength the length of the chunk when decompressed
+     * @param minTimestamp the smallest timestamp of an entry in the chunk, or positive infinity if there are none
+     * @param maxTimestamp the largest timestamp of an entry in the chunk, or negative infinity if there are none
+     */
+    public record Chunk(long offset, int compressedLength, int uncompressedLength, double minTimestamp, double maxTimestamp) { }
+
+    /** Builds an index of an archive, as its chunks are written */
+    public static final class Builder {
+
+        private final List<Chunk> chunks = new ArrayList<>();
+        private Set<String> hostnames = new TreeSet<>();
+        private long offset = 0;
+
+        private Builder() { }
+
+        /**
+         * Adds a chunk with the given uncompressed content, which should end with a line boundary,
+         * and which was written to the archive as the given number of bytes.
+         */
+        public Builder add(byte[] content, int offset, int length, int compressedLength) {
+            double minTimestamp = Double.POSITIVE_INFINITY;
+            double maxTimestamp = Double.NEGATIVE_INFINITY;
+            int end = offset + length;
+            for (int lineStart = offset; lineStart < end; ) {
+                int lineEnd = indexOf(content, (byte) '\n', lineStart, end);
+                int timestampEnd = indexOf(content, (byte) '\t', lineStart, lineEnd);
+                if (timestampEnd < lineEnd) {
+                    try {
+                        double timestamp = Double.parseDouble(new String(content, lineStart, timestampEnd - lineStart, UTF_8));
+                        minTimestamp = Math.min(minTimestamp, timestamp);
+                        maxTimestamp = Math.max(maxTimestamp, timestamp);
+                        int hostnameEnd = indexOf(content, (byte) '\t', timestampEnd + 1, lineEnd);
+                        if (hostnames != null && hostnameEnd < lineEnd)
+                            addHostname(new String(content, timestampEnd + 1, hostnameEnd - timestampEnd - 1, UTF_8));
+                    }
+                    catch (NumberFormatException ignored) { } // Not a log entry, and ignored by readers
+                }
+                lineStart = lineEnd + 1;
+            }
+            chunks.add(new Chunk(this.offset, compressedLength, length, minTimestamp, maxTimestamp));
+            this.offset += compressedLength;
+            return this;
+        }
+
+        public LogArchiveIndex build() {
+            return new LogArchiveIndex(chunks, hostnames);
+        }
+
+        private void addHostname(String hostname) {
+            hostnames.add(hostname);
+            if (hostnames.size() > maxHostnames)
+                hostnames = null;
+        }
+
+        /** Returns the index of the first occurrence of the given byte in the given range, or the end of the range */
+        private static int indexOf(byte[] content, byte b, int start, int end) {
+            for (int i = start; i < end; i++)
+                if (content[i] == b) return i;
+            return end;
+        }
+
+    }
+
+}
@@ -0,0 +1,98 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.log.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LogArchiveIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testBuildingAndSelectingChunks() {
+        LogArchiveIndex index = LogArchiveIndex.builder()
+                                               .add(bytes("12.5\thost1\t1\tc\ts\tinfo\ta\n" +
+                                                          "10.5\thost2\t1\tc\ts\tinfo\tb\n"), 0, 48, 20)
+                                               .add(bytes("not a log entry\n"), 0, 16, 10)
+                                               .add(bytes("x20\thost3\t1\tc\ts\tinfo\tc\n"), 1, 22, 15)
+                                               .add(bytes("30\thost1\t1\tc\ts\tinfo\td"), 0, 21, 15)
+                                               .build();
+
+        assertEquals(List.of(new LogArchiveIndex.Chunk(0, 20, 48, 10.5, 12.5),
+                             new LogArchiveIndex.Chunk(20, 10, 16, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY),
+                             new LogArchiveIndex.Chunk(30, 15, 22, 20, 20),
+                             new LogArchiveIndex.Chunk(45, 15, 21, 30, 30)),
+                     index.chunks());
+        assertEquals(60, index.compressedLength());
+        assertEquals(Optional.of(Set.of("host1", "host2", "host3")), index.hostnames());
+        assertTrue(index.mayContain("host3"));
+        assertFalse(index.mayContain("host4"));
+
+        assertEquals(List.of(index.chunks().get(0), index.chunks().get(2), index.chunks().get(3)), index.chunksFor(0, 100));
+        assertEquals(List.of(index.chunks().get(2)), index.chunksFor(15, 25));
+        assertEquals(List.of(index.chunks().get(0)), index.chunksFor(11, 11));
+        assertEquals(List.of(), index.chunksFor(0, 5));
+        assertEquals(List.of(), index.chunksFor(40, 50));
+    }
+
+    @Test
+    public void testTooManyHostnames() {
+        LogArchiveIndex.Builder builder = LogArchiveIndex.builder();
+        for (int i = 0; i <= 1024; i++) {
+            String entry = i + "\thost" + i + "\t1\tc\ts\tinfo\tmessage\n";
+            builder.add(bytes(entry), 0, entry.length(), 10);
+        }
+        LogArchiveIndex index = builder.build();
+        assertEquals(Optional.empty(), index.hostnames());
+        assertTrue(index.mayContain("any"));
+    }
+
+    @Test
+    public void testSerialization() throws IOException {
+        LogArchiveIndex index = LogArchiveIndex.builder()
+                                               .add(bytes("12.5\thost1\t1\tc\ts\tinfo\ta\n"), 0, 24, 20)
+                                               .add(bytes("13.5\thost2\t1\tc\ts\tinfo\ta\n"), 0, 24, 22)
+                                               .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.write(out);
+        LogArchiveIndex deserialized = LogArchiveIndex.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(index.chunks(), deserialized.chunks());
+        assertEquals(index.hostnames(), deserialized.hostnames());
+
+        Path archive = temporaryFolder.newFolder().toPath().resolve("00-0.zst");
+        assertTrue(LogArchiveIndex.readFor(archive).isEmpty());
+        Files.write(archive, new byte[42]);
+        Files.setLastModifiedTime(archive, FileTime.fromMillis(1234000));
+        index.writeFor(archive);
+        assertEquals(archive.resolveSibling("00-0.zst.idx"), LogArchiveIndex.pathOf(archive));
+        assertTrue(LogArchiveIndex.isIndex(LogArchiveIndex.pathOf(archive)));
+        assertEquals(FileTime.fromMillis(1234000), Files.getLastModifiedTime(LogArchiveIndex.pathOf(archive)));
+        assertEquals(index.chunks(), LogArchiveIndex.readFor(archive).get().chunks());
+
+        // The index does not match an archive of different size
+        Files.write(archive, new byte[43]);
+        assertTrue(LogArchiveIndex.readFor(archive).isEmpty());
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(UTF_8);
+    }
+
+}
@@ -190,6 +190,14 @@ public class Curator extends AbstractComponent implements AutoCloseable {
         return new NodeCacheWrapper(framework(), path, dataIsCompressed);
     }
 
+    /**
+     * Creates a cache which keeps in sync with changes to all nodes in the subtree rooted at the given path,
+     * and which holds the data of each node as mapped by the given function, e.g., deserialized.
+     */
+    public <T> TreeCache<T> createTreeCache(Path path, Function<byte[], T> mapper) {
+        return new CuratorCacheWrapper<>(framework(), path, mapper);
+    }
+
     /** A convenience method which returns whether the given path exists */
     public boolean exists(Path path) {
         try {
@@ -451,6 +459,37 @@ public class Curator extends AbstractComponent implements AutoCloseable {
 
     }
 
+    /**
+     * A cache of the content of all nodes in the subtree rooted at a path, holding the data of each node
+     * as mapped by a given function, and updated incrementally as nodes change.
+     * This wraps the Curator CuratorCache recipe, which uses a persistent, recursive watch, to allow us to mock it.
+     *
+     * Changes are applied asynchronously, so readers which need to see all changes made up to some point
+     * in time, such as their own writes, must {@link #sync} first, and read from ZooKeeper if that fails.
+     */
+    public interface TreeCache<T> {
+
+        void start();
+
+        /**
+         * Waits until this has applied all changes made before this was called, and returns whether
+         * this is then complete and up to date, or false if this did not happen within the given timeout.
+         */
+        boolean sync(Duration timeout);
+
+        /** Returns whether this is complete, and receiving changes, though it may not yet have applied the latest */
+        boolean isCurrent();
+
+        /** Returns the value of the node at the given path, or empty if it does not exist, or was mapped to null */
+        Optional<T> get(Path path);
+
+        /** Returns the non-null values of the immediate children of the given path, in any order */
+        List<T> getChildren(Path path);
+
+        void close();
+
+    }
+
     /**
      * @return The non-null connect string containing all ZooKeeper servers in the ensemble.
      * WARNING: This may be different from the servers this Curator may connect to.
@@ -0,0 +1,158 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.curator;
+
+import com.yahoo.path.Path;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCache;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.curator.framework.recipes.cache.CuratorCacheStorage;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A tree cache backed by a curator cache, which uses a persistent, recursive watch.
+ *
+ * Data is not stored by the curator cache, only the mapped values in the content of this.
+ * When the connection to ZooKeeper is suspended or lost, this stops being current, and when it is
+ * re-established, the curator cache is replaced by a new one, which loads the whole tree again.
+ */
+class CuratorCacheWrapper<T> implements Curator.TreeCache<T> {
+
+    private static final Logger log = Logger.getLogger(CuratorCacheWrapper.class.getName());
+
+    private final CuratorFramework framework;
+    private final Path path;
+    private final TreeCacheContent<T> content;
+    private final ConnectionStateListener connectionStateListener = this::stateChanged;
+    private final Object monitor = new Object();
+
+    /** The curator cache currently updating the content of this, or null if none */
+    private volatile CuratorCache cache = null;
+
+    /** Whether the content of this is complete, and kept up to date */
+    private volatile boolean initialized = false;
+
+    CuratorCacheWrapper(CuratorFramework framework, Path path, Function<byte[], T> mapper) {
+        this.framework = framework;
+        this.path = path;
+        this.content = new TreeCacheContent<>(mapper);
+    }
+
+    @Override
+    public void start() {
+        framework.getConnectionStateListenable().addListener(connectionStateListener);
+        restart();
+    }
+
+    @Override
+    public boolean sync(Duration timeout) {
+        if ( ! initialized) return false;
+
+        // Watch events for all changes made before the sync are delivered before its response, and the curator
+        // cache requests the data of changed nodes when it receives the events. The response to a request made
+        // when the sync completes therefore arrives after the data of all those changes, and the curator cache
+        // passes that data on to this through the same single-threaded executor as we use to signal completion.
+        CountDownLatch applied = new CountDownLatch(1);
+        try {
+            framework.sync().inBackground((client, syncEvent) -> client.checkExists()
+                                                                        .inBackground((__, existsEvent) -> client.runSafe(applied::countDown))
+                                                                        .forPath(path.getAbsolute()))
+                     .forPath(path.getAbsolute());
+            return applied.await(timeout.toMillis(), TimeUnit.MILLISECONDS) && initialized;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch (Exception e) {
+            log.log(Level.FINE, "Failed syncing cache of " + path, e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isCurrent() {
+        return initialized;
+    }
+
+    @Override
+    public Optional<T> get(Path path) {
+        return content.get(path);
+    }
+
+    @Override
+    public List<T> getChildren(Path path) {
+        return content.getChildren(path);
+    }
+
+    @Override
+    public void close() {
+        framework.getConnectionStateListenable().removeListener(connectionStateListener);
+        synchronized (monitor) {
+            initialized = false;
+            if (cache != null) cache.close();
+            cache = null;
+            content.clear();
+        }
+    }
+
+    private void stateChanged(CuratorFramework client, ConnectionState state) {
+        switch (state) {
+            case SUSPENDED, LOST, READ_ONLY -> initialized = false;
+            case RECONNECTED -> restart();
+            default -> { }
+        }
+    }
+
+    private void restart() {
+        synchronized (monitor) {
+            initialized = false;
+            if (cache != null) cache.close();
+            content.clear();
+            CuratorCache cache = CuratorCache.builder(framework, path.getAbsolute())
+                                             .withStorage(CuratorCacheStorage.dataNotCached())
+                                             .build();
+            cache.listenable().addListener(new Listener(cache));
+            this.cache = cache;
+            cache.start();
+        }
+    }
+
+    /** Applies events from a curator cache to the content of this, for as long as it is the current one */
+    private class Listener implements CuratorCacheListener {
+
+        private final CuratorCache owner;
+
+        Listener(CuratorCache owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void event(Type type, ChildData oldData, ChildData data) {
+            synchronized (monitor) { // Ensures events from a replaced cache are not applied after the content is cleared
+                if (owner != cache) return;
+                switch (type) {
+                    case NODE_CREATED, NODE_CHANGED -> content.put(Path.fromString(data.getPath()), data.getData());
+                    case NODE_DELETED -> content.remove(Path.fromString(oldData.getPath()));
+                }
+            }
+        }
+
+        @Override
+        public void initialized() {
+            if (owner == cache) initialized = true;
+        }
+
+    }
+
+}
@@ -0,0 +1,87 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.curator;
+
+import com.yahoo.path.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The content of a {@link Curator.TreeCache}: The data of each node in a subtree, as mapped by a given function,
+ * indexed by parent path and name. This is thread safe, and is updated incrementally, as changes are observed.
+ *
+ * @param <T> the type the data of each node is mapped to
+ */
+public final class TreeCacheContent<T> {
+
+    private final Function<byte[], T> mapper;
+    private final Map<Path, Map<String, Entry<T>>> children = new ConcurrentHashMap<>();
+
+    public TreeCacheContent(Function<byte[], T> mapper) {
+        this.mapper = mapper;
+    }
+
+    /** Sets the data of the node at the given path, mapping it to the value returned for it */
+    public void put(Path path, byte[] data) {
+        Entry<T> entry;
+        try {
+            entry = new Entry<>(mapper.apply(data), null);
+        }
+        catch (RuntimeException e) { // Thrown to readers, as they would have seen it had they read the data themselves
+            entry = new Entry<>(null, new IllegalArgumentException("Could not map data at " + path.getAbsolute(), e));
+        }
+        children.computeIfAbsent(path.getParentPath(), __ -> new ConcurrentHashMap<>()).put(path.getName(), entry);
+    }
+
+    /** Removes the node at the given path, and all nodes below it */
+    public void remove(Path path) {
+        Map<String, Entry<T>> siblings = children.get(path.getParentPath());
+        if (siblings != null) siblings.remove(path.getName());
+        removeChildren(path);
+    }
+
+    private void removeChildren(Path path) {
+        Map<String, Entry<T>> removed = children.remove(path);
+        if (removed == null) return;
+        for (String name : removed.keySet())
+            removeChildren(path.append(name));
+    }
+
+    public void clear() {
+        children.clear();
+    }
+
+    /** Returns the value of the node at the given path, or empty if it does not exist, or was mapped to null */
+    public Optional<T> get(Path path) {
+        Map<String, Entry<T>> siblings = children.get(path.getParentPath());
+        if (siblings == null) return Optional.empty();
+        Entry<T> entry = siblings.get(path.getName());
+        return entry == null ? Optional.empty() : Optional.ofNullable(entry.value());
+    }
+
+    /** Returns the non-null values of the immediate children of the given path, in any order */
+    public List<T> getChildren(Path path) {
+        Map<String, Entry<T>> entries = children.get(path);
+        if (entries == null) return List.of();
+        List<T> values = new ArrayList<>(entries.size());
+        for (Entry<T> entry : entries.values())
+            if (entry.value() != null)
+                values.add(entry.value());
+        return values;
+    }
+
+    private record Entry<T>(T value, RuntimeException failure) {
+
+        @Override
+        public T value() {
+            if (failure != null) throw failure;
+            return value;
+        }
+
+    }
+
+}
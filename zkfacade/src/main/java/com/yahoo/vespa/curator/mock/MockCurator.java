@@ -9,6 +9,7 @@ import org.apache.curator.framework.recipes.locks.InterProcessLock;
 import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 
 /**
  * <p>A <b>non thread safe</b> mock of the curator API.
@@ -95,6 +96,11 @@ public class MockCurator extends Curator {
         return mockFramework().createFileCache(path);
     }
 
+    @Override
+    public <T> TreeCache<T> createTreeCache(Path path, Function<byte[], T> mapper) {
+        return mockFramework().createTreeCache(path, mapper);
+    }
+
     @Override
     public int zooKeeperEnsembleCount() { return 1; }
 
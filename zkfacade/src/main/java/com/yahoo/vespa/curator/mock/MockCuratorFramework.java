@@ -8,6 +8,7 @@ import com.yahoo.concurrent.UncheckedTimeoutException;
 import com.yahoo.path.Path;
 import com.yahoo.vespa.curator.CompletionTimeoutException;
 import com.yahoo.vespa.curator.Curator;
+import com.yahoo.vespa.curator.TreeCacheContent;
 import com.yahoo.vespa.curator.mock.MemoryFileSystem.Node;
 import com.yahoo.vespa.curator.recipes.CuratorLockException;
 import org.apache.curator.CuratorZookeeperClient;
@@ -106,6 +107,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * A mock implementation of{@link CuratorFramework} for testing purposes.
@@ -369,6 +371,10 @@ public class MockCuratorFramework implements CuratorFramework  {
         return new MockFileCache(Path.fromString(path));
     }
 
+    public <T> Curator.TreeCache<T> createTreeCache(Path path, Function<byte[], T> mapper) {
+        return new MockTreeCache<>(path, mapper);
+    }
+
     // ----- Start of adaptor methods from Curator to the mock file system -----
 
     /** Creates a node below the given directory root */
@@ -527,6 +533,7 @@ public class MockCuratorFramework implements CuratorFramework  {
 
         private final Map<Path, PathChildrenCacheListener> directoryListeners = new ConcurrentHashMap<>();
         private final Map<Path, NodeCacheListener> fileListeners = new ConcurrentHashMap<>();
+        private final Map<MockTreeCache<?>, Path> treeListeners = new ConcurrentHashMap<>();
 
         public void add(Path path, PathChildrenCacheListener listener) {
             directoryListeners.put(path, listener);
@@ -536,6 +543,14 @@ public class MockCuratorFramework implements CuratorFramework  {
             fileListeners.put(path, listener);
         }
 
+        public void add(Path path, MockTreeCache<?> cache) {
+            treeListeners.put(cache, path);
+        }
+
+        public void remove(MockTreeCache<?> cache) {
+            treeListeners.remove(cache);
+        }
+
         @Override
         public void notify(Path path, PathChildrenCacheEvent event) {
             try {
@@ -552,6 +567,11 @@ public class MockCuratorFramework implements CuratorFramework  {
                     if (path.equals(listener.getKey()))
                         listener.getValue().nodeChanged();
                 }
+
+                for (Map.Entry<MockTreeCache<?>, Path> listener : treeListeners.entrySet()) {
+                    if (isInSubtree(path, listener.getValue()))
+                        listener.getKey().childEvent(event);
+                }
             }
             catch (Exception e) {
                 e.printStackTrace(); // TODO: Remove
@@ -771,6 +791,65 @@ public class MockCuratorFramework implements CuratorFramework  {
 
     }
 
+    private static boolean isInSubtree(Path path, Path root) {
+        return path.elements().size() >= root.elements().size()
+               && path.elements().subList(0, root.elements().size()).equals(root.elements());
+    }
+
+    /** A tree cache which is updated synchronously when the mock file system changes, and therefore always in sync */
+    private class MockTreeCache<T> implements Curator.TreeCache<T> {
+
+        /** The root of the subtree this is caching and listening to */
+        private final Path path;
+        private final TreeCacheContent<T> content;
+
+        public MockTreeCache(Path path, Function<byte[], T> mapper) {
+            this.path = path;
+            this.content = new TreeCacheContent<>(mapper);
+        }
+
+        @Override
+        public void start() {
+            listeners.add(path, this);
+            MemoryFileSystem.Node root = fileSystem.root().getNode(Paths.get(path.toString()), false);
+            if (root != null) load(path, root);
+        }
+
+        private void load(Path path, MemoryFileSystem.Node node) {
+            content.put(path, node.getContent());
+            for (Map.Entry<String, MemoryFileSystem.Node> child : node.children().entrySet())
+                load(path.append(child.getKey()), child.getValue());
+        }
+
+        private void childEvent(PathChildrenCacheEvent event) {
+            Path eventPath = Path.fromString(event.getData().getPath());
+            switch (event.getType()) {
+                case CHILD_ADDED, CHILD_UPDATED -> content.put(eventPath, event.getData().getData());
+                case CHILD_REMOVED -> content.remove(eventPath);
+                default -> { }
+            }
+        }
+
+        @Override
+        public boolean sync(Duration timeout) { return true; }
+
+        @Override
+        public boolean isCurrent() { return true; }
+
+        @Override
+        public Optional<T> get(Path path) { return content.get(path); }
+
+        @Override
+        public List<T> getChildren(Path path) { return content.getChildren(path); }
+
+        @Override
+        public void close() {
+            listeners.remove(this);
+            content.clear();
+        }
+
+    }
+
     private class MockFileCache implements Curator.FileCache {
 
         /** The path this is caching and listening to */
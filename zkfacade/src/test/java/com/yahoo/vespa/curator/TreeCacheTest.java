@@ -0,0 +1,70 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.curator;
+
+import com.yahoo.path.Path;
+import com.yahoo.vespa.curator.mock.MockCurator;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class TreeCacheTest {
+
+    private final Path root = Path.fromString("/root");
+
+    @Test
+    public void testTreeCacheFollowsChanges() {
+        Curator curator = new MockCurator();
+        curator.set(root.append("a"), bytes("a1"));
+        curator.set(root.append("b").append("c"), bytes("c1"));
+        curator.set(Path.fromString("/other"), bytes("other"));
+
+        Curator.TreeCache<String> cache = curator.createTreeCache(root, data -> data.length == 0 ? null : new String(data, UTF_8));
+        cache.start();
+        assertTrue(cache.sync(Duration.ofSeconds(1)));
+        assertEquals(Optional.of("a1"), cache.get(root.append("a")));
+        assertEquals(Optional.empty(), cache.get(root.append("b")));
+        assertEquals(Optional.of("c1"), cache.get(root.append("b").append("c")));
+        assertEquals(Optional.empty(), cache.get(Path.fromString("/other")));
+        assertEquals(List.of("a1"), cache.getChildren(root));
+
+        curator.set(root.append("a"), bytes("a2"));
+        curator.set(root.append("d"), bytes("d1"));
+        assertEquals(Optional.of("a2"), cache.get(root.append("a")));
+        assertEquals(Set.of("a2", "d1"), new HashSet<>(cache.getChildren(root)));
+
+        curator.delete(root.append("b"));
+        assertEquals(Optional.empty(), cache.get(root.append("b").append("c")));
+        assertEquals(List.of(), cache.getChildren(root.append("b")));
+
+        curator.set(root.append("d"), bytes("invalid"));
+        Curator.TreeCache<String> validating = curator.createTreeCache(root, data -> {
+            if (new String(data, UTF_8).equals("invalid")) throw new IllegalArgumentException("invalid");
+            return new String(data, UTF_8);
+        });
+        validating.start();
+        assertEquals(Optional.of("a2"), validating.get(root.append("a")));
+        assertThrows(IllegalArgumentException.class, () -> validating.get(root.append("d")));
+        assertThrows(IllegalArgumentException.class, () -> validating.getChildren(root));
+        curator.set(root.append("d"), bytes("d2"));
+        assertEquals(Optional.of("d2"), validating.get(root.append("d")));
+
+        cache.close();
+        curator.set(root.append("a"), bytes("a3"));
+        assertEquals(Optional.empty(), cache.get(root.append("a")));
+        assertEquals(Optional.of("a3"), validating.get(root.append("a")));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(UTF_8);
+    }
+
+}